@@ -0,0 +1,156 @@
+package org.example.backend.benchmark;
+
+import org.example.backend.entity.category.Categories;
+import org.example.backend.entity.ingredient.Ingredient;
+import org.example.backend.entity.inventory.Inventory;
+import org.example.backend.entity.menu.Combo;
+import org.example.backend.entity.menu.ComboItem;
+import org.example.backend.entity.menu.MenuItem;
+import org.example.backend.entity.menu.MenuItemIngredient;
+import org.example.backend.entity.notification.Notification;
+import org.example.backend.entity.order.Order;
+import org.example.backend.entity.order.OrderItem;
+import org.example.backend.entity.param.Param;
+import org.example.backend.entity.payment.Payment;
+import org.example.backend.entity.user.ShippingInfo;
+import org.example.backend.entity.user.User;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Dữ liệu giả (entity đã nạp đủ quan hệ, không cần DB) cho các benchmark mapping / serialization.
+ */
+final class BenchmarkFixtures {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 15, 12, 30);
+
+    private BenchmarkFixtures() {
+    }
+
+    static Param param(long id, String type, String code) {
+        Param param = new Param();
+        param.setId(id);
+        param.setType(type);
+        param.setCode(code);
+        param.setName(code);
+        return param;
+    }
+
+    static MenuItem menuItem(long id) {
+        Categories category = new Categories();
+        category.setId(1 + id % 5);
+        category.setName("Món Chính " + category.getId());
+
+        MenuItem item = new MenuItem();
+        item.setId(id);
+        item.setName("Cơm tấm sườn bì chả #" + id);
+        item.setDescription("Cơm tấm Sài Gòn với sườn nướng, bì, chả trứng và nước mắm chua ngọt.");
+        item.setPrice(BigDecimal.valueOf(45_000 + id * 1_000));
+        item.setAvatarUrl("https://res.cloudinary.com/demo/image/upload/menu/" + id + ".jpg");
+        item.setCategory(category);
+        item.setStatus(param(10, "MENU_ITEM_STATUS", "AVAILABLE"));
+        item.setCreatedAt(NOW);
+        item.setReviews(List.of());
+
+        List<MenuItemIngredient> ingredients = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Ingredient ingredient = new Ingredient();
+            ingredient.setId(id * 10 + i);
+            ingredient.setName("Nguyên liệu " + i);
+            ingredients.add(MenuItemIngredient.builder()
+                    .id(id * 10 + i)
+                    .menuItem(item)
+                    .ingredient(ingredient)
+                    .quantityNeeded(BigDecimal.valueOf(0.25))
+                    .build());
+        }
+        item.setMenuItemIngredients(ingredients);
+        item.setInventory(Inventory.builder().id(id).menuItem(item).quantity(100).build());
+        return item;
+    }
+
+    /** 1 dòng như MenuItemRepository.findAllWithDetails trả về: [MenuItem, tên danh mục, slug, trạng thái, rating, sold]. */
+    static Object[] menuItemRow(long id) {
+        MenuItem item = menuItem(id);
+        return new Object[]{item, item.getCategory().getName(), "mon-chinh-" + item.getCategory().getId(),
+                "AVAILABLE", 4.5, 120L + id};
+    }
+
+    static Order order(int lines) {
+        User user = new User();
+        user.setId(1L);
+        user.setPublicId(UUID.randomUUID().toString());
+        user.setName("Nguyễn Văn A");
+        user.setEmail("customer@example.com");
+
+        Order order = Order.builder()
+                .id(1L)
+                .publicId(UUID.randomUUID().toString())
+                .user(user)
+                .status(param(20, "ORDER_STATUS", "PENDING"))
+                .orderItems(new ArrayList<>())
+                .build();
+        order.setCreatedAt(NOW);
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            MenuItem menuItem = menuItem(i + 1);
+            order.getOrderItems().add(OrderItem.builder()
+                    .id((long) i + 1)
+                    .order(order)
+                    .menuItem(menuItem)
+                    .quantity(2)
+                    .price(menuItem.getPrice())
+                    .build());
+            total = total.add(menuItem.getPrice().multiply(BigDecimal.valueOf(2)));
+        }
+        order.setTotalAmount(total);
+
+        Payment payment = Payment.builder()
+                .id(1L)
+                .order(order)
+                .publicId(UUID.randomUUID().toString())
+                .amount(total)
+                .paymentMethod(param(30, "PAYMENT_METHOD", "COD"))
+                .status(param(31, "PAYMENT_STATUS", "PENDING"))
+                .build();
+        ShippingInfo shipping = new ShippingInfo();
+        shipping.setPayment(payment);
+        shipping.setAddress("12 Lê Lợi, Quận 1, TP.HCM");
+        shipping.setPhone("0900000000");
+        shipping.setNote("Giao giờ hành chính");
+        payment.setShippingInfo(shipping);
+        order.setPayment(payment);
+        return order;
+    }
+
+    static Combo combo(int items) {
+        Combo combo = new Combo();
+        combo.setId(1L);
+        combo.setName("Combo gia đình");
+        combo.setItems(new ArrayList<>());
+        for (int i = 0; i < items; i++) {
+            ComboItem item = new ComboItem();
+            item.setCombo(combo);
+            item.setMenuItem(menuItem(i + 1));
+            item.setQuantity(1 + i % 3);
+            combo.getItems().add(item);
+        }
+        return combo;
+    }
+
+    static Notification notification() {
+        Notification notification = Notification.builder()
+                .id(1L)
+                .message("Đơn hàng #A1B2C3 của bạn đã được xác nhận và đang được chuẩn bị.")
+                .type(param(40, "NOTIFICATION_TYPE", "ORDER"))
+                .isRead(false)
+                .build();
+        notification.setCreatedAt(NOW);
+        return notification;
+    }
+}
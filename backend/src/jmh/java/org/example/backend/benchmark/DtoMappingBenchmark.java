@@ -0,0 +1,70 @@
+package org.example.backend.benchmark;
+
+import org.example.backend.dto.menu.MenuItemDto;
+import org.example.backend.dto.menu.MenuItemMapper;
+import org.example.backend.dto.notification.NotificationDto;
+import org.example.backend.dto.order.OrderMapper;
+import org.example.backend.dto.order.OrderResponseDTO;
+import org.example.backend.entity.menu.Combo;
+import org.example.backend.entity.notification.Notification;
+import org.example.backend.entity.order.Order;
+import org.example.backend.service.menu.ComboService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí mapping entity -> DTO trên các đường nóng (entity đã nạp sẵn, không tính DB):
+ * - orderToDto: OrderMapper.toDto với {@code lines} dòng món
+ * - menuItemRowToDto: 1 dòng findAllWithDetails -> MenuItemDto (MenuItemMapper, dùng bởi MenuItemService)
+ * - comboPrice: ComboService.computePrice với {@code lines} món trong combo
+ * - notificationFromEntity: NotificationDto.fromEntity
+ *
+ * Chạy: mvn -Pbenchmark test-compile exec:exec -Djmh.include=DtoMappingBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoMappingBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int lines;
+
+    private Order order;
+    private Object[] menuItemRow;
+    private Combo combo;
+    private Notification notification;
+    private final MenuItemMapper menuItemMapper = new MenuItemMapper();
+
+    @Setup
+    public void setUp() {
+        order = BenchmarkFixtures.order(lines);
+        menuItemRow = BenchmarkFixtures.menuItemRow(7);
+        combo = BenchmarkFixtures.combo(lines);
+        notification = BenchmarkFixtures.notification();
+    }
+
+    @Benchmark
+    public OrderResponseDTO orderToDto() {
+        return OrderMapper.toDto(order);
+    }
+
+    @Benchmark
+    public MenuItemDto menuItemRowToDto() {
+        return menuItemMapper.toDto(menuItemRow);
+    }
+
+    @Benchmark
+    public BigDecimal comboPrice() {
+        return ComboService.computePrice(combo.getItems());
+    }
+
+    @Benchmark
+    public NotificationDto notificationFromEntity() {
+        return NotificationDto.fromEntity(notification);
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.backend.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * So sánh 2 file kết quả JMH (-rf json) giữa 2 commit.
+ * Một benchmark bị coi là chậm đi khi lệch theo hướng xấu quá ngưỡng % VÀ lớn hơn tổng sai số (scoreError) của 2 lần chạy.
+ * Thoát với mã 1 nếu có benchmark chậm đi (dùng được trong CI).
+ *
+ * Chạy: mvn -Pbenchmark test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=org.example.backend.benchmark.JmhResultComparator
+ *       -Dexec.args="jmh-baseline.json target/jmh-result.json 10"
+ */
+public final class JmhResultComparator {
+
+    private JmhResultComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: JmhResultComparator <baseline.json> <current.json> [threshold-percent=10]");
+            System.exit(2);
+        }
+        double thresholdPercent = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> current = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Δ%");
+        for (Map.Entry<String, Result> entry : new TreeMap<>(current).entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s  (mới)%n", entry.getKey(), "-", now.score(), "-");
+                continue;
+            }
+            double delta = (now.score() - before.score()) / before.score() * 100;
+            // thrpt: càng cao càng tốt; avgt / sample / ss: càng thấp càng tốt
+            double worse = now.higherIsBetter() ? -delta : delta;
+            boolean regressed = worse > thresholdPercent
+                    && Math.abs(now.score() - before.score()) > before.error() + now.error();
+            if (regressed) regressions++;
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%  %s%s%n", entry.getKey(), before.score(), now.score(), delta,
+                    now.unit(), regressed ? "  ❌ CHẬM ĐI" : "");
+        }
+        baseline.keySet().stream()
+                .filter(key -> !current.containsKey(key))
+                .sorted()
+                .forEach(key -> System.out.printf("%-90s (không còn trong kết quả mới)%n", key));
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark chậm đi quá %.1f%%%n", regressions, thresholdPercent);
+            System.exit(1);
+        }
+    }
+
+    /** benchmark + params -> kết quả chính (primaryMetric). */
+    private static Map<String, Result> read(File file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            run.path("params").fields().forEachRemaining(param ->
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            JsonNode metric = run.path("primaryMetric");
+            double error = metric.path("scoreError").asDouble(0);
+            results.put(key.toString(), new Result(
+                    metric.path("score").asDouble(),
+                    Double.isNaN(error) ? 0 : error,
+                    metric.path("scoreUnit").asText(),
+                    "thrpt".equals(run.path("mode").asText())));
+        }
+        return results;
+    }
+
+    private record Result(double score, double error, String unit, boolean higherIsBetter) {
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.backend.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.example.backend.util.JwtClaims;
+import org.example.backend.util.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí JWT: tạo token khi đăng nhập và xác thực token cho mỗi request:
+ * - generate: ký 1 token mới (JwtUtil.generateToken)
+ * - legacyFiveParses: cách cũ của JwtAuthenticationFilter (validate + 4 getter, mỗi lần tạo parser mới và verify HMAC)
+ * - singleVerify: parse + verify 1 lần (cache miss)
+ * - cachedParse: token đã gặp, lấy claims từ cache theo SHA-256
+ *
+ * Chạy: mvn -Pbenchmark test-compile exec:exec -Djmh.include=JwtParseBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtParseBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-benchmark-secret-key-0123456789";
+
+    private JwtUtil jwtUtil;
+    private SecretKey secretKey;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 3_600_000L, 10_000);
+        secretKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        token = jwtUtil.generateToken("user@example.com", "CUSTOMER", "Nguyễn Văn A",
+                "6f1c2b7e-4d3a-4f5e-9a8b-1c2d3e4f5a6b");
+        jwtUtil.parse(token); // làm nóng cache
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtil.generateToken(42L, "user@example.com", "CUSTOMER", "Nguyễn Văn A",
+                "6f1c2b7e-4d3a-4f5e-9a8b-1c2d3e4f5a6b");
+    }
+
+    @Benchmark
+    public void legacyFiveParses(Blackhole bh) {
+        bh.consume(legacyParse().getSubject()); // validateToken
+        bh.consume(legacyParse().getSubject());
+        bh.consume(legacyParse().get("role", String.class));
+        bh.consume(legacyParse().get("name", String.class));
+        bh.consume(legacyParse().get("public_id", String.class));
+    }
+
+    @Benchmark
+    public JwtClaims singleVerify() {
+        return jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public JwtClaims cachedParse() {
+        return jwtUtil.parse(token);
+    }
+
+    private Claims legacyParse() {
+        return Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.backend.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.backend.dto.Response;
+import org.example.backend.dto.menu.MenuItemDto;
+import org.example.backend.dto.menu.MenuItemMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí Jackson ghi 1 trang thực đơn như GET /api/v1/menu-items trả về:
+ * Response&lt;Page&lt;MenuItemDto&gt;&gt; với {@code pageSize} món (ObjectMapper cấu hình giống Spring Boot).
+ *
+ * Chạy: mvn -Pbenchmark test-compile exec:exec -Djmh.include=MenuPageSerializationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MenuPageSerializationBenchmark {
+
+    @Param({"12", "50"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Response<Page<MenuItemDto>> response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        MenuItemMapper mapper = new MenuItemMapper();
+        List<MenuItemDto> content = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            content.add(mapper.toDto(BenchmarkFixtures.menuItemRow(i + 1)));
+        }
+        Page<MenuItemDto> page = new PageImpl<>(content, PageRequest.of(0, pageSize, Sort.by("popular")), 240);
+        response = new Response<>("success", page, "Menu items retrieved successfully");
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
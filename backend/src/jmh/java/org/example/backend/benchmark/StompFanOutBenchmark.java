@@ -0,0 +1,131 @@
+package org.example.backend.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.user.DefaultUserDestinationResolver;
+import org.springframework.messaging.simp.user.UserDestinationMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.messaging.DefaultSimpUserRegistry;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fan-out của 1 thay đổi trạng thái đơn qua simple broker khi số client kết nối tăng:
+ * - broadcastTopic: cách cũ, gửi /topic/order -> mọi client đều nhận rồi tự lọc phía trình duyệt
+ * - userDestination: convertAndSendToUser(chủ đơn, "/queue/orders") -> chỉ phiên của chủ đơn nhận
+ * Dùng đúng UserDestinationMessageHandler + DefaultSimpUserRegistry + SimpleBrokerMessageHandler như app,
+ * các kênh chạy đồng bộ, kênh outbound chỉ đếm frame (không có mạng).
+ * Cột "frames" (AuxCounters) = số frame gửi tới client mỗi giây; ops/s = số sự kiện publish mỗi giây.
+ *
+ * Chạy: mvn -Pbenchmark test-compile exec:exec -Djmh.include=StompFanOutBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StompFanOutBenchmark {
+
+    /** Số frame đã gửi tới client trong iteration (JMH in ra dạng frames/s). */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Frames {
+        public long frames;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            frames = 0;
+        }
+    }
+
+    @Param({"10", "100", "1000"})
+    public int clients;
+
+    private final Map<String, Object> payload = Map.of(
+            "orderPublicId", "6f1c2b7e-4d3a-4f5e-9a8b-1c2d3e4f5a6b",
+            "status", "APPROVED");
+
+    private SimpleBrokerMessageHandler broker;
+    private UserDestinationMessageHandler userDestinationHandler;
+    private SimpMessagingTemplate template;
+    private Frames currentFrames;
+    private int nextUser;
+
+    @Setup
+    public void setUp() {
+        ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        MessageChannel clientOutbound = (message, timeout) -> {
+            currentFrames.frames++;
+            return true;
+        };
+
+        broker = new SimpleBrokerMessageHandler(clientInbound, clientOutbound, brokerChannel, List.of("/topic", "/queue"));
+        broker.start();
+        DefaultSimpUserRegistry userRegistry = new DefaultSimpUserRegistry();
+        userDestinationHandler = new UserDestinationMessageHandler(clientInbound, brokerChannel,
+                new DefaultUserDestinationResolver(userRegistry));
+        userDestinationHandler.start();
+
+        template = new SimpMessagingTemplate(brokerChannel);
+        template.setMessageConverter(new MappingJackson2MessageConverter());
+
+        // Mỗi client: 1 phiên đã CONNECT với principal riêng, subscribe cả topic chung và hàng đợi riêng
+        // (simple broker bỏ qua subscription của phiên chưa CONNECT; frame CONNECTED không tính vào kết quả)
+        currentFrames = new Frames();
+        for (int i = 0; i < clients; i++) {
+            String sessionId = "session-" + i;
+            Principal user = userName(i)::toString;
+            clientInbound.send(message(SimpMessageType.CONNECT, sessionId, user, null, null));
+            userRegistry.onApplicationEvent(new SessionConnectedEvent(this,
+                    message(SimpMessageType.CONNECT_ACK, sessionId, user, null, null), user));
+            clientInbound.send(message(SimpMessageType.SUBSCRIBE, sessionId, user, "sub-topic", "/topic/order"));
+            clientInbound.send(message(SimpMessageType.SUBSCRIBE, sessionId, user, "sub-queue", "/user/queue/orders"));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        userDestinationHandler.stop();
+        broker.stop();
+    }
+
+    @Benchmark
+    public void broadcastTopic(Frames frames) {
+        currentFrames = frames;
+        template.convertAndSend("/topic/order", payload);
+    }
+
+    @Benchmark
+    public void userDestination(Frames frames) {
+        currentFrames = frames;
+        nextUser = (nextUser + 1) % clients;
+        template.convertAndSendToUser(userName(nextUser), "/queue/orders", payload);
+    }
+
+    private static String userName(int i) {
+        return "user-" + i;
+    }
+
+    private static Message<byte[]> message(SimpMessageType type, String sessionId, Principal user,
+                                           String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        accessor.setUser(user);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Client REST của 1 khách ảo: gửi JWT như trình duyệt (header + cookie "token"), đo từng request theo tên bước.
+ * Request không thành công ném {@link StepFailedException} để kịch bản bỏ các bước phụ thuộc phía sau.
+ */
+final class ApiClient {
+
+    static final class StepFailedException extends RuntimeException {
+        StepFailedException(String step, String reason) {
+            super(step + ": " + reason, null, false, false);
+        }
+    }
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient http;
+    private final ObjectMapper mapper;
+    private final String baseUrl;
+    private final String token;
+    // Map số liệu của mức tải hiện tại (đổi sang map mới khi hết warm-up)
+    private final Supplier<Map<String, StepStats>> stats;
+
+    ApiClient(HttpClient http, ObjectMapper mapper, String baseUrl, String token, Supplier<Map<String, StepStats>> stats) {
+        this.http = http;
+        this.mapper = mapper;
+        this.baseUrl = baseUrl;
+        this.token = token;
+        this.stats = stats;
+    }
+
+    JsonNode get(String step, String path) {
+        return send(step, request(path).GET());
+    }
+
+    JsonNode post(String step, String path, Object body) {
+        return send(step, request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(toJson(body))));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + token)
+                .header("Cookie", "token=" + token);
+    }
+
+    private JsonNode send(String step, HttpRequest.Builder builder) {
+        StepStats stepStats = stats.get().computeIfAbsent(step, s -> new StepStats());
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response;
+        try {
+            response = http.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            stepStats.recordIoError();
+            throw new StepFailedException(step, e.getClass().getSimpleName());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StepFailedException(step, "interrupted");
+        }
+        stepStats.record(response.statusCode(), System.nanoTime() - start);
+
+        if (response.statusCode() / 100 != 2) {
+            throw new StepFailedException(step, "HTTP " + response.statusCode());
+        }
+        try {
+            return response.body().length == 0 ? mapper.nullNode() : mapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new StepFailedException(step, "invalid JSON");
+        }
+    }
+
+    private byte[] toJson(Object body) {
+        try {
+            return mapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    static Map<String, StepStats> newStatsMap() {
+        return new ConcurrentHashMap<>();
+    }
+}
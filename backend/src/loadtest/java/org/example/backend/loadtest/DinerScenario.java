@@ -0,0 +1,116 @@
+package org.example.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 1 lượt ghé của khách trong giờ cao điểm tối, gọi đúng các API mà frontend gọi:
+ * 1. Xem thực đơn: GET /menu-items (trang ngẫu nhiên) + GET /menu-items/{id}
+ * 2. (orderRatio) Đặt món: tạo giỏ -> thêm 1..3 món (CartItemService.save) -> lấy giỏ -> checkout
+ *    -> thanh toán giả qua MockPaymentController (initiate + approve, trừ kho)
+ * 3. (reservationRatio) Đặt bàn: POST /reservations/me cho 1 bàn, khung giờ ngẫu nhiên trong 30 ngày tới
+ * 4. Xem thông báo: GET /notifications + /notifications/unread-count
+ * Bước nào lỗi thì bỏ các bước phụ thuộc còn lại của nhóm đó.
+ */
+final class DinerScenario {
+
+    private static final int MENU_PAGE_SIZE = 12;
+
+    private final ApiClient api;
+    private final List<Long> menuItemIds;
+    private final List<Long> tableIds;
+    private final double orderRatio;
+    private final double reservationRatio;
+    // Giỏ OPEN còn lại từ lượt trước bị lỗi giữa chừng (mỗi khách chỉ được có 1 giỏ OPEN)
+    private Long openCartId;
+
+    DinerScenario(ApiClient api, List<Long> menuItemIds, List<Long> tableIds, double orderRatio, double reservationRatio) {
+        this.api = api;
+        this.menuItemIds = menuItemIds;
+        this.tableIds = tableIds;
+        this.orderRatio = orderRatio;
+        this.reservationRatio = reservationRatio;
+    }
+
+    void visit() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        runGroup(this::browseMenu);
+        if (random.nextDouble() < orderRatio) {
+            runGroup(this::orderAndPay);
+        }
+        if (random.nextDouble() < reservationRatio) {
+            runGroup(this::reserveTable);
+        }
+        runGroup(this::pollNotifications);
+    }
+
+    private void runGroup(Runnable group) {
+        try {
+            group.run();
+        } catch (ApiClient.StepFailedException e) {
+            // đã được ghi vào StepStats, sang nhóm tiếp theo
+        }
+    }
+
+    private void browseMenu() {
+        int pages = Math.max(1, menuItemIds.size() / MENU_PAGE_SIZE);
+        api.get("menu.list", "/api/v1/menu-items?size=" + MENU_PAGE_SIZE + "&sort=popular&page="
+                + ThreadLocalRandom.current().nextInt(pages));
+        api.get("menu.detail", "/api/v1/menu-items/" + randomOf(menuItemIds));
+    }
+
+    private void orderAndPay() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (openCartId == null) {
+            try {
+                openCartId = api.post("cart.create", "/api/v1/carts", Map.of()).path("data").path("id").asLong();
+            } catch (ApiClient.StepFailedException e) {
+                // Đã có giỏ OPEN (vd: checkout trước đó lỗi sau khi đã commit) -> dùng lại giỏ đó
+                openCartId = api.get("cart.current", "/api/v1/carts/current").path("data").path("id").asLong();
+            }
+        }
+        int lines = 1 + random.nextInt(3);
+        for (int i = 0; i < lines; i++) {
+            api.post("cart.addItem", "/api/v1/cart-items/" + openCartId + "/items",
+                    Map.of("menuItemId", randomOf(menuItemIds), "quantity", 1 + random.nextInt(2)));
+        }
+        JsonNode cart = api.get("cart.current", "/api/v1/carts/current").path("data");
+
+        JsonNode order = api.post("order.checkout", "/api/v1/orders/checkout", cart).path("data");
+        openCartId = null; // giỏ đã chuyển CANCELLED khi checkout
+
+        String paymentId = api.post("payment.initiate", "/api/v1/mock-payments/initiate",
+                Map.of("orderId", order.path("id").asText())).path("paymentId").asText();
+        api.post("payment.approve", "/api/v1/mock-payments/approve/" + paymentId, Map.of(
+                "fullName", "Khách thử tải",
+                "email", "diner@loadtest.local",
+                "phone", "0900000000",
+                "address", "12 Lê Lợi, Quận 1"));
+    }
+
+    private void reserveTable() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime slot = LocalDate.now().plusDays(1 + random.nextInt(30))
+                .atTime(LocalTime.of(10 + random.nextInt(12), 15 * random.nextInt(4)));
+        api.post("reservation.create", "/api/v1/reservations/me", Map.of(
+                "tableIds", List.of(randomOf(tableIds)),
+                "reservationTime", slot.toString(),
+                "numberOfPeople", 2,
+                "note", "Load test"));
+    }
+
+    private void pollNotifications() {
+        api.get("notification.list", "/api/v1/notifications?page=0&size=10");
+        api.get("notification.unread", "/api/v1/notifications/unread-count");
+    }
+
+    private static Long randomOf(List<Long> ids) {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,248 @@
+package org.example.backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.example.backend.BackendApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Load test "giờ cao điểm bữa tối": khởi động backend trong cùng JVM với profile h2 (cổng ngẫu nhiên, loopback),
+ * nạp dữ liệu, rồi chạy {@link DinerScenario} với từng mức số khách đồng thời (closed loop, không think time).
+ * Mỗi mức: warm-up (không tính) rồi đo; in throughput, độ trễ p50/p90/p99/p99.9/max (HdrHistogram) và tỉ lệ lỗi
+ * theo từng bước, chỉ ra mức đầu tiên có p99 vượt SLO và ghi kết quả JSON (kèm histogram nén base64).
+ *
+ * Chạy: mvn -Ploadtest test-compile exec:exec -Dloadtest.concurrency=8,32,64 -Dloadtest.duration-seconds=30
+ * Tham số (system property): loadtest.concurrency, loadtest.warmup-seconds, loadtest.duration-seconds,
+ * loadtest.p99-slo-ms, loadtest.order-ratio (0.5), loadtest.reservation-ratio (0.2), loadtest.menu-items (120),
+ * loadtest.tables (40), loadtest.result-dir, loadtest.virtual-threads (false).
+ * So sánh platform thread với virtual thread (Java 21): chạy thêm 1 lần với -Pjava21 (bật profile "virtual")
+ * rồi so requestsPerSecond / p99 giữa 2 file JSON (trường "threading").
+ * Lưu ý: client và server dùng chung CPU nên con số là cận dưới của 1 node thật.
+ */
+public final class DinnerRushLoadTest {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_KEYS = {"p50Ms", "p90Ms", "p99Ms", "p999Ms"};
+
+    private record LevelResult(int concurrency, double seconds, Map<String, StepStats> steps) {
+
+        double requestsPerSecond() {
+            return steps.values().stream().mapToLong(StepStats::total).sum() / seconds;
+        }
+
+        double rate(String step) {
+            StepStats stats = steps.get(step);
+            return stats == null ? 0 : stats.ok() / seconds;
+        }
+
+        /** Bước có p99 lớn nhất (chỉ xét bước có request thành công). */
+        Map.Entry<String, Long> worstP99() {
+            return steps.entrySet().stream()
+                    .filter(e -> e.getValue().ok() > 0)
+                    .map(e -> Map.entry(e.getKey(), e.getValue().latency().getValueAtPercentile(99)))
+                    .max(Map.Entry.comparingByValue())
+                    .orElse(Map.entry("-", 0L));
+        }
+    }
+
+    private DinnerRushLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> levels = Arrays.stream(System.getProperty("loadtest.concurrency", "8,32,64,128").split(","))
+                .map(String::trim).filter(s -> !s.isEmpty()).map(Integer::parseInt).toList();
+        int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 15);
+        int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 60);
+        long sloMicros = TimeUnit.MILLISECONDS.toMicros(Long.getLong("loadtest.p99-slo-ms", 500));
+        double orderRatio = Double.parseDouble(System.getProperty("loadtest.order-ratio", "0.5"));
+        double reservationRatio = Double.parseDouble(System.getProperty("loadtest.reservation-ratio", "0.2"));
+        int menuItems = Integer.getInteger("loadtest.menu-items", 120);
+        int tables = Integer.getInteger("loadtest.tables", 40);
+        Path resultDir = Path.of(System.getProperty("loadtest.result-dir", "target/loadtest"));
+        boolean virtualThreads = Boolean.getBoolean("loadtest.virtual-threads");
+        String threading = virtualThreads ? "virtual" : "platform";
+        int maxConcurrency = Collections.max(levels);
+
+        try (ConfigurableApplicationContext context = startBackend(maxConcurrency, virtualThreads)) {
+            String baseUrl = "http://127.0.0.1:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadTestSeeder.Seeded seeded = new LoadTestSeeder(context).seed(maxConcurrency, menuItems, tables);
+            System.out.printf("🍽️ Backend H2 (%s thread) tại %s: %d món, %d bàn, %d khách%n",
+                    threading, baseUrl, seeded.menuItemIds().size(), seeded.tableIds().size(), seeded.customerTokens().size());
+
+            ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            List<LevelResult> results = new ArrayList<>();
+            for (int concurrency : levels) {
+                LevelResult result = runLevel(concurrency, warmupSeconds, durationSeconds, baseUrl, http, mapper,
+                        seeded, orderRatio, reservationRatio);
+                print(result);
+                results.add(result);
+            }
+
+            Integer breachedAt = printSloSummary(results, sloMicros);
+            Path file = writeJson(results, breachedAt, sloMicros, threading, resultDir, mapper);
+            System.out.println("📄 Kết quả: " + file.toAbsolutePath());
+        }
+    }
+
+    private static ConfigurableApplicationContext startBackend(int maxConcurrency, boolean virtualThreads) {
+        return new SpringApplicationBuilder(BackendApplication.class)
+                .profiles(virtualThreads ? new String[]{"h2", "virtual"} : new String[]{"h2"})
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.threads.max=" + Math.max(200, maxConcurrency),
+                        // cùng mức đồng thời tối đa với platform thread để so sánh công bằng
+                        "virtual-threads.max-concurrent-requests=" + Math.max(200, maxConcurrency),
+                        // đo SQL theo request tốn thêm chi phí, không bật khi đo tải
+                        "sql.instrumentation.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    private static LevelResult runLevel(int concurrency, int warmupSeconds, int durationSeconds, String baseUrl,
+                                        HttpClient http, ObjectMapper mapper, LoadTestSeeder.Seeded seeded,
+                                        double orderRatio, double reservationRatio) throws InterruptedException {
+        AtomicReference<Map<String, StepStats>> current = new AtomicReference<>(ApiClient.newStatsMap());
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService diners = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            ApiClient api = new ApiClient(http, mapper, baseUrl, seeded.customerTokens().get(i), current::get);
+            DinerScenario scenario = new DinerScenario(api, seeded.menuItemIds(), seeded.tableIds(),
+                    orderRatio, reservationRatio);
+            diners.submit(() -> {
+                while (running.get()) {
+                    try {
+                        scenario.visit();
+                    } catch (RuntimeException e) {
+                        System.err.println("⚠️ Lỗi ngoài dự kiến trong kịch bản: " + e);
+                    }
+                }
+            });
+        }
+
+        System.out.printf("%n⏳ %d khách đồng thời: warm-up %d s, đo %d s...%n", concurrency, warmupSeconds, durationSeconds);
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        current.set(ApiClient.newStatsMap());
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(durationSeconds);
+        // Request còn dở sau mốc này ghi vào map bỏ đi
+        Map<String, StepStats> measured = current.getAndSet(ApiClient.newStatsMap());
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        running.set(false);
+        diners.shutdown();
+        if (!diners.awaitTermination(60, TimeUnit.SECONDS)) {
+            diners.shutdownNow();
+        }
+        return new LevelResult(concurrency, seconds, new TreeMap<>(measured));
+    }
+
+    private static void print(LevelResult result) {
+        System.out.printf("=== %d khách đồng thời (%.0f s): %.1f req/s, %.1f checkout/s, %.1f đặt bàn/s ===%n",
+                result.concurrency(), result.seconds(), result.requestsPerSecond(),
+                result.rate("payment.approve"), result.rate("reservation.create"));
+        System.out.printf("%-22s %9s %8s %7s %7s %9s %9s %9s %9s %9s%n",
+                "Bước", "req/s", "ok", "4xx", "lỗi", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        result.steps().forEach((step, stats) -> {
+            Histogram latency = stats.latency();
+            System.out.printf("%-22s %9.1f %8d %7d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    step, stats.total() / result.seconds(), stats.ok(), stats.rejected(), stats.failed(),
+                    millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(90)),
+                    millis(latency.getValueAtPercentile(99)), millis(latency.getValueAtPercentile(99.9)),
+                    millis(latency.getMaxValue()));
+        });
+    }
+
+    /** In mức tải cuối cùng còn giữ p99 trong SLO; trả về mức đầu tiên vượt SLO (null nếu không có). */
+    private static Integer printSloSummary(List<LevelResult> results, long sloMicros) {
+        Integer lastWithinSlo = null;
+        for (LevelResult result : results) {
+            Map.Entry<String, Long> worst = result.worstP99();
+            if (worst.getValue() > sloMicros) {
+                System.out.printf("%n⚠️ p99 vượt SLO %.0f ms từ %d khách đồng thời (%s: p99 %.1f ms). Mức chịu được: %s%n",
+                        millis(sloMicros), result.concurrency(), worst.getKey(), millis(worst.getValue()),
+                        lastWithinSlo == null ? "không có" : lastWithinSlo + " khách");
+                return result.concurrency();
+            }
+            lastWithinSlo = result.concurrency();
+        }
+        System.out.printf("%n✅ p99 của mọi bước trong SLO %.0f ms ở tất cả các mức tải%n", millis(sloMicros));
+        return null;
+    }
+
+    private static Path writeJson(List<LevelResult> results, Integer breachedAt, long sloMicros, String threading, Path dir,
+                                  ObjectMapper mapper) throws IOException {
+        List<Map<String, Object>> levels = new ArrayList<>();
+        for (LevelResult result : results) {
+            Map<String, Object> steps = new LinkedHashMap<>();
+            result.steps().forEach((step, stats) -> {
+                Map<String, Object> json = new LinkedHashMap<>();
+                json.put("requests", stats.total());
+                json.put("ok", stats.ok());
+                json.put("rejected", stats.rejected());
+                json.put("failed", stats.failed());
+                json.put("requestsPerSecond", stats.total() / result.seconds());
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    json.put(PERCENTILE_KEYS[i], millis(stats.latency().getValueAtPercentile(PERCENTILES[i])));
+                }
+                json.put("maxMs", millis(stats.latency().getMaxValue()));
+                json.put("histogramMicros", encode(stats.latency()));
+                steps.put(step, json);
+            });
+
+            Map<String, Object> level = new LinkedHashMap<>();
+            level.put("concurrency", result.concurrency());
+            level.put("seconds", result.seconds());
+            level.put("requestsPerSecond", result.requestsPerSecond());
+            level.put("checkoutsPerSecond", result.rate("payment.approve"));
+            level.put("reservationsPerSecond", result.rate("reservation.create"));
+            level.put("steps", steps);
+            levels.add(level);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", LocalDateTime.now().toString());
+        report.put("threading", threading);
+        report.put("p99SloMs", millis(sloMicros));
+        report.put("sloBreachedAtConcurrency", breachedAt);
+        report.put("levels", levels);
+
+        Files.createDirectories(dir);
+        Path file = dir.resolve("dinner-rush-" + threading + "-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        mapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+        return file;
+    }
+
+    /** Histogram nén (định dạng HdrHistogram) để phân tích lại / gộp nhiều lần chạy. */
+    private static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.backend.loadtest;
+
+import org.example.backend.entity.category.Categories;
+import org.example.backend.entity.inventory.Inventory;
+import org.example.backend.entity.menu.MenuItem;
+import org.example.backend.entity.param.Param;
+import org.example.backend.entity.table.TableEntity;
+import org.example.backend.entity.user.User;
+import org.example.backend.repository.category.CategoryRepository;
+import org.example.backend.repository.menu.MenuItemRepository;
+import org.example.backend.repository.param.ParamRepository;
+import org.example.backend.repository.table.TableRepository;
+import org.example.backend.repository.user.UserRepository;
+import org.example.backend.service.menu.MenuCatalog;
+import org.example.backend.service.param.ParamRegistry;
+import org.example.backend.service.table.TableAvailabilityEngine;
+import org.example.backend.util.JwtUtil;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Nạp dữ liệu cho load test vào DB H2 trống qua repository (không đo), rồi làm mới các cache nạp lúc khởi động
+ * (ParamRegistry, MenuCatalog, TableAvailabilityEngine) vì chúng đã chạy khi DB còn rỗng.
+ * Token của khách được ký trực tiếp bằng JwtUtil để không tốn N lần BCrypt khi đăng nhập.
+ */
+final class LoadTestSeeder {
+
+    /** Dữ liệu đã nạp: id món / bàn để kịch bản chọn ngẫu nhiên, token của từng khách. */
+    record Seeded(List<Long> menuItemIds, List<Long> tableIds, List<String> customerTokens) {
+    }
+
+    private static final String[][] PARAMS = {
+            {"ROLE", "CUSTOMER"}, {"ROLE", "STAFF"}, {"ROLE", "ADMIN"},
+            {"STATUS", "ACTIVE"},
+            {"MENU_ITEM_STATUS", "AVAILABLE"}, {"MENU_ITEM_STATUS", "OUT_OF_STOCK"},
+            {"STATUS_CART", "OPEN"}, {"STATUS_CART", "CANCELLED"},
+            {"ORDER_STATUS", "PENDING"}, {"ORDER_STATUS", "APPROVED"}, {"ORDER_STATUS", "DELIVERING"},
+            {"ORDER_STATUS", "DELIVERED"}, {"ORDER_STATUS", "CANCELLED"},
+            {"PAYMENT_METHOD", "COD"}, {"PAYMENT_METHOD", "ONLINE"},
+            {"PAYMENT_STATUS", "PENDING"}, {"PAYMENT_STATUS", "COMPLETED"}, {"PAYMENT_STATUS", "FAILED"},
+            {"STATUS_RESERVATION", "PENDING"}, {"STATUS_RESERVATION", "CONFIRMED"},
+            {"STATUS_RESERVATION", "CANCELLED"}, {"STATUS_RESERVATION", "COMPLETED"},
+            {"STATUS_TABLE", "AVAILABLE"}, {"STATUS_TABLE", "OCCUPIED"},
+            {"LOCATION", "MAIN_HALL"}, {"POSITION", "CENTER"},
+            {"NOTIFICATION", "ORDER_NEW"}, {"NOTIFICATION", "ORDER_APPROVED"}, {"NOTIFICATION", "ORDER_DELIVERING"},
+            {"NOTIFICATION", "ORDER_DELIVERED"}, {"NOTIFICATION", "ORDER_CANCELLED"},
+            {"NOTIFICATION", "RESERVATION_NEW"}, {"NOTIFICATION", "RESERVATION_CONFIRMED"},
+            {"NOTIFICATION", "RESERVATION_CANCELLED"}, {"NOTIFICATION", "RESERVATION_COMPLETED"},
+    };
+
+    private static final int CATEGORIES = 6;
+    // Đủ lớn để tồn kho không cạn trong suốt lần chạy (thiếu hàng sẽ làm sai lệch số liệu)
+    private static final int STOCK_PER_ITEM = 10_000_000;
+
+    private final ApplicationContext context;
+
+    LoadTestSeeder(ApplicationContext context) {
+        this.context = context;
+    }
+
+    Seeded seed(int customers, int menuItems, int tables) {
+        Map<String, Param> params = seedParams();
+        List<Long> menuItemIds = seedMenu(menuItems, params);
+        List<Long> tableIds = seedTables(tables, params);
+        List<String> tokens = seedCustomers(customers, params);
+
+        context.getBean(ParamRegistry.class).refresh();
+        context.getBean(MenuCatalog.class).rebuild();
+        context.getBean(TableAvailabilityEngine.class).reload();
+        return new Seeded(menuItemIds, tableIds, tokens);
+    }
+
+    private Map<String, Param> seedParams() {
+        List<Param> params = new ArrayList<>();
+        for (String[] typeAndCode : PARAMS) {
+            Param param = new Param();
+            param.setType(typeAndCode[0]);
+            param.setCode(typeAndCode[1]);
+            param.setName(typeAndCode[1]);
+            params.add(param);
+        }
+        Map<String, Param> byKey = new HashMap<>();
+        for (Param saved : context.getBean(ParamRepository.class).saveAll(params)) {
+            byKey.put(saved.getType() + ":" + saved.getCode(), saved);
+        }
+        return byKey;
+    }
+
+    private List<Long> seedMenu(int count, Map<String, Param> params) {
+        List<Categories> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES; i++) {
+            Categories category = new Categories();
+            category.setName("Danh mục " + (i + 1));
+            categories.add(category);
+        }
+        categories = context.getBean(CategoryRepository.class).saveAll(categories);
+
+        List<MenuItem> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            MenuItem item = new MenuItem();
+            item.setName("Món số " + (i + 1));
+            item.setDescription("Món thử tải " + (i + 1));
+            item.setPrice(BigDecimal.valueOf(30_000 + (i % 20) * 5_000L));
+            item.setAvatarUrl("https://example.com/menu/" + (i + 1) + ".jpg");
+            item.setCategory(categories.get(i % CATEGORIES));
+            item.setStatus(params.get("MENU_ITEM_STATUS:AVAILABLE"));
+            item.setInventory(Inventory.builder().menuItem(item).quantity(STOCK_PER_ITEM).build());
+            items.add(item);
+        }
+        return context.getBean(MenuItemRepository.class).saveAll(items).stream().map(MenuItem::getId).toList();
+    }
+
+    private List<Long> seedTables(int count, Map<String, Param> params) {
+        List<TableEntity> tables = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            TableEntity table = new TableEntity();
+            table.setName("Bàn " + (i + 1));
+            table.setCapacity(4);
+            table.setStatus(params.get("STATUS_TABLE:AVAILABLE"));
+            table.setLocation(params.get("LOCATION:MAIN_HALL"));
+            table.setPosition(params.get("POSITION:CENTER"));
+            tables.add(table);
+        }
+        return context.getBean(TableRepository.class).saveAll(tables).stream().map(TableEntity::getId).toList();
+    }
+
+    private List<String> seedCustomers(int count, Map<String, Param> params) {
+        // Mọi khách dùng chung 1 hash để khỏi chạy BCrypt N lần
+        String passwordHash = context.getBean(PasswordEncoder.class).encode("LoadTest@123");
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setPublicId(UUID.randomUUID().toString());
+            user.setName("Khách " + (i + 1));
+            user.setEmail("diner" + (i + 1) + "@loadtest.local");
+            user.setPhone(String.format("09%08d", i + 1));
+            user.setPasswordHash(passwordHash);
+            user.setRole(params.get("ROLE:CUSTOMER"));
+            user.setStatus(params.get("STATUS:ACTIVE"));
+            users.add(user);
+        }
+
+        JwtUtil jwtUtil = context.getBean(JwtUtil.class);
+        return context.getBean(UserRepository.class).saveAll(users).stream()
+                .map(u -> jwtUtil.generateToken(u.getId(), u.getEmail(), "CUSTOMER", u.getName(), u.getPublicId()))
+                .toList();
+    }
+}
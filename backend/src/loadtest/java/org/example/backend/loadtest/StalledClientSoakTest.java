@@ -0,0 +1,173 @@
+package org.example.backend.loadtest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.example.backend.BackendApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Soak test client WebSocket chậm: hàng trăm client subscribe /topic/soak rồi ngừng đọc socket (stalled),
+ * cùng lúc vài client bình thường đo độ trễ nhận message. Server publish liên tục payload vài KB.
+ * Kỳ vọng: client bình thường vẫn nhận đủ, p99 trong SLO; client kẹt bị SlowConsumerGuard / giới hạn transport ngắt;
+ * heap và độ sâu hàng đợi không tăng mãi.
+ * Mỗi 5 s in: số phiên còn mở, số phiên bị ngắt theo lý do, queue depth lớn nhất, heap đã dùng.
+ *
+ * Chạy: mvn -Ploadtest test-compile exec:exec -Dloadtest.main=org.example.backend.loadtest.StalledClientSoakTest
+ * Tham số (system property): soak.stalled-clients (300), soak.healthy-clients (20), soak.duration-seconds (120),
+ * soak.publish-per-second (200), soak.payload-bytes (4096), soak.send-time-limit-ms (5000),
+ * soak.policy (DISCONNECT | DROP), loadtest.p99-slo-ms (500), loadtest.virtual-threads (false).
+ */
+public final class StalledClientSoakTest {
+
+    private static final String DESTINATION = "/topic/soak";
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    private StalledClientSoakTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int stalledClients = Integer.getInteger("soak.stalled-clients", 300);
+        int healthyClients = Integer.getInteger("soak.healthy-clients", 20);
+        int durationSeconds = Integer.getInteger("soak.duration-seconds", 120);
+        int publishPerSecond = Integer.getInteger("soak.publish-per-second", 200);
+        int payloadBytes = Integer.getInteger("soak.payload-bytes", 4096);
+        long sendTimeLimitMs = Long.getLong("soak.send-time-limit-ms", 5000);
+        String policy = System.getProperty("soak.policy", "DISCONNECT");
+        long sloMicros = TimeUnit.MILLISECONDS.toMicros(Long.getLong("loadtest.p99-slo-ms", 500));
+        boolean virtualThreads = Boolean.getBoolean("loadtest.virtual-threads");
+
+        try (ConfigurableApplicationContext context = startBackend(virtualThreads, sendTimeLimitMs, policy)) {
+            String wsUrl = "ws://127.0.0.1:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/ws/websocket";
+            SimpMessagingTemplate template = context.getBean(SimpMessagingTemplate.class);
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+            Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+            LongAdder healthyReceived = new LongAdder();
+            CountDownLatch subscribed = new CountDownLatch(stalledClients + healthyClients);
+            List<CompletableFuture<StompTestClient>> connecting = new ArrayList<>();
+            for (int i = 0; i < stalledClients; i++) {
+                connecting.add(StompTestClient.connect(http, wsUrl, DESTINATION, true, body -> { }, subscribed));
+            }
+            for (int i = 0; i < healthyClients; i++) {
+                connecting.add(StompTestClient.connect(http, wsUrl, DESTINATION, false, body -> {
+                    healthyReceived.increment();
+                    latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sentAt(body)),
+                            HIGHEST_TRACKABLE_MICROS));
+                }, subscribed));
+            }
+            List<StompTestClient> clients = connecting.stream().map(CompletableFuture::join).toList();
+            List<StompTestClient> healthy = clients.subList(stalledClients, clients.size());
+            if (!subscribed.await(30, TimeUnit.SECONDS)) {
+                System.out.printf("⚠️ Chỉ %d/%d client subscribe kịp%n",
+                        stalledClients + healthyClients - subscribed.getCount(), stalledClients + healthyClients);
+            }
+            TimeUnit.SECONDS.sleep(1); // SUBSCRIBE cuối cùng tới broker
+
+            System.out.printf("🐢 %d client kẹt + %d client bình thường, publish %d msg/s x %d byte trong %d s (policy %s, %s thread)%n",
+                    stalledClients, healthyClients, publishPerSecond, payloadBytes, durationSeconds, policy,
+                    virtualThreads ? "virtual" : "platform");
+
+            String padding = "x".repeat(payloadBytes);
+            AtomicLong published = new AtomicLong();
+            ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor();
+            publisher.scheduleAtFixedRate(() -> {
+                template.convertAndSend(DESTINATION, Map.of("sentAt", System.nanoTime(), "pad", padding));
+                published.incrementAndGet();
+            }, 0, TimeUnit.SECONDS.toMicros(1) / publishPerSecond, TimeUnit.MICROSECONDS);
+
+            Runtime runtime = Runtime.getRuntime();
+            double maxQueueDepth = 0;
+            long maxHeapMb = 0;
+            for (int elapsed = 5; elapsed <= durationSeconds; elapsed += 5) {
+                TimeUnit.SECONDS.sleep(5);
+                double depth = gauge(meterRegistry, "app.websocket.session.queue.depth.max");
+                long heapMb = (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+                maxQueueDepth = Math.max(maxQueueDepth, depth);
+                maxHeapMb = Math.max(maxHeapMb, heapMb);
+                System.out.printf("[%3d s] phiên mở %4.0f | ngắt: queue %d, stalled %d, transport %d | bỏ %d | queue depth max %4.0f | heap %d MB%n",
+                        elapsed, gauge(meterRegistry, "app.websocket.sessions"),
+                        disconnected(meterRegistry, "queue"), disconnected(meterRegistry, "stalled"),
+                        disconnected(meterRegistry, "transport"), counter(meterRegistry, "app.websocket.slow_consumer.dropped"),
+                        depth, heapMb);
+            }
+            publisher.shutdown();
+            publisher.awaitTermination(5, TimeUnit.SECONDS);
+            TimeUnit.SECONDS.sleep(2); // message cuối tới client bình thường
+
+            long evicted = disconnected(meterRegistry, "queue") + disconnected(meterRegistry, "stalled")
+                    + disconnected(meterRegistry, "transport");
+            long healthyDropped = healthy.stream().filter(StompTestClient::isClosed).count();
+            double deliveredRatio = healthyReceived.sum() / (double) (published.get() * healthyClients);
+            long p99 = latency.getValueAtPercentile(99);
+
+            System.out.printf("%n=== Kết quả: %d message, client bình thường nhận %.2f%%, p50 %.1f ms, p99 %.1f ms, max %.1f ms ===%n",
+                    published.get(), deliveredRatio * 100, latency.getValueAtPercentile(50) / 1000.0, p99 / 1000.0,
+                    latency.getMaxValue() / 1000.0);
+            System.out.printf("Client kẹt bị ngắt: %d/%d | client bình thường bị ngắt: %d | bỏ %d frame | queue depth max %.0f | heap max %d MB%n",
+                    evicted, stalledClients, healthyDropped, counter(meterRegistry, "app.websocket.slow_consumer.dropped"),
+                    maxQueueDepth, maxHeapMb);
+            boolean ok = healthyDropped == 0 && deliveredRatio >= 0.99 && p99 <= sloMicros
+                    && ("DROP".equalsIgnoreCase(policy) || evicted >= stalledClients);
+            System.out.println(ok ? "✅ Client chậm không ảnh hưởng client bình thường"
+                    : "⚠️ Không đạt: xem tỉ lệ nhận / p99 / số client kẹt còn mở ở trên");
+        }
+    }
+
+    private static ConfigurableApplicationContext startBackend(boolean virtualThreads, long sendTimeLimitMs, String policy) {
+        return new SpringApplicationBuilder(BackendApplication.class)
+                .profiles(virtualThreads ? new String[]{"h2", "virtual"} : new String[]{"h2"})
+                .properties(
+                        "server.port=0",
+                        "websocket.transport.send-time-limit-ms=" + sendTimeLimitMs,
+                        "websocket.slow-consumer.policy=" + policy,
+                        "sql.instrumentation.enabled=false",
+                        "logging.level.root=WARN",
+                        "logging.level.org.example.backend.config.SlowConsumerGuard=ERROR")
+                .run();
+    }
+
+    /** Body dạng {"sentAt":123,...} hoặc {...,"sentAt":123}: chỉ cần đọc số sau "sentAt". */
+    private static long sentAt(String body) {
+        int start = body.indexOf("\"sentAt\":") + 9;
+        int end = body.charAt(start) == '-' ? start + 1 : start;
+        while (end < body.length() && Character.isDigit(body.charAt(end))) {
+            end++;
+        }
+        return Long.parseLong(body.substring(start, end));
+    }
+
+    private static double gauge(MeterRegistry registry, String name) {
+        Gauge gauge = registry.find(name).gauge();
+        return gauge == null ? 0 : gauge.value();
+    }
+
+    private static long counter(MeterRegistry registry, String name) {
+        Counter counter = registry.find(name).counter();
+        return counter == null ? 0 : (long) counter.count();
+    }
+
+    private static long disconnected(MeterRegistry registry, String reason) {
+        Counter counter = registry.find("app.websocket.slow_consumer.disconnected").tag("reason", reason).counter();
+        return counter == null ? 0 : (long) counter.count();
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.backend.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Số liệu của 1 bước (1 loại request) trong 1 mức tải: histogram độ trễ (µs) và số request theo kết quả.
+ * - ok: 2xx
+ * - rejected: 4xx (lỗi nghiệp vụ, vd: trùng giờ đặt bàn)
+ * - failed: 5xx hoặc lỗi kết nối / timeout
+ */
+final class StepStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    private final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    void record(int status, long elapsedNanos) {
+        latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), HIGHEST_TRACKABLE_MICROS));
+        if (status >= 200 && status < 300) {
+            ok.increment();
+        } else if (status >= 400 && status < 500) {
+            rejected.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    /** Không có response (lỗi kết nối, timeout): không ghi độ trễ. */
+    void recordIoError() {
+        failed.increment();
+    }
+
+    Histogram latency() {
+        return latency;
+    }
+
+    long ok() {
+        return ok.sum();
+    }
+
+    long rejected() {
+        return rejected.sum();
+    }
+
+    long failed() {
+        return failed.sum();
+    }
+
+    long total() {
+        return ok() + rejected() + failed();
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.backend.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+/**
+ * Client STOMP tối giản trên java.net.http.WebSocket (endpoint SockJS thô /ws/websocket), 1 subscription.
+ * stalled = true: sau frame MESSAGE đầu tiên ngừng đọc socket (không request thêm) -> TCP buffer đầy,
+ * server bị kẹt khi ghi, giống client di động mất sóng nhưng chưa đóng kết nối.
+ */
+final class StompTestClient implements WebSocket.Listener {
+
+    private final String destination;
+    private final boolean stalled;
+    private final Consumer<String> onMessageBody;
+    private final CountDownLatch subscribed;
+    private final StringBuilder frame = new StringBuilder();
+    private volatile boolean closed;
+
+    private StompTestClient(String destination, boolean stalled, Consumer<String> onMessageBody, CountDownLatch subscribed) {
+        this.destination = destination;
+        this.stalled = stalled;
+        this.onMessageBody = onMessageBody;
+        this.subscribed = subscribed;
+    }
+
+    static CompletableFuture<StompTestClient> connect(HttpClient http, String wsUrl, String destination, boolean stalled,
+                                                     Consumer<String> onMessageBody, CountDownLatch subscribed) {
+        StompTestClient client = new StompTestClient(destination, stalled, onMessageBody, subscribed);
+        return http.newWebSocketBuilder()
+                .buildAsync(URI.create(wsUrl), client)
+                .thenApply(ws -> client);
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        webSocket.sendText("CONNECT\naccept-version:1.2\nhost:localhost\nheart-beat:0,0\n\n\0", true);
+        webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        frame.append(data);
+        if (!last) {
+            webSocket.request(1);
+            return null;
+        }
+        String text = frame.toString();
+        frame.setLength(0);
+        int bodyStart = text.indexOf("\n\n");
+        String command = text.substring(0, Math.max(0, text.indexOf('\n')));
+        if (command.equals("CONNECTED")) {
+            // SUBSCRIBE sau CONNECTED: kênh inbound nhiều thread có thể xử lý lệch thứ tự nếu gửi liền
+            webSocket.sendText("SUBSCRIBE\nid:sub-0\ndestination:" + destination + "\n\n\0", true);
+            subscribed.countDown();
+        } else if (command.equals("MESSAGE") && bodyStart >= 0) {
+            onMessageBody.accept(text.substring(bodyStart + 2, text.endsWith("\0") ? text.length() - 1 : text.length()));
+            if (stalled) {
+                return null; // không request nữa
+            }
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        closed = true;
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        closed = true;
+    }
+}
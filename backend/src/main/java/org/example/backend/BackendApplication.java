@@ -3,13 +3,27 @@ package org.example.backend;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.Map;
 
 @EnableJpaAuditing
+@EnableScheduling
 @SpringBootApplication
 public class BackendApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(BackendApplication.class, args);
+		SpringApplication app = new SpringApplication(BackendApplication.class);
+		// Mặc định cho Actuator (application.properties / biến môi trường vẫn ghi đè được):
+		// endpoint quản trị chạy cổng riêng, chỉ nghe localhost để Prometheus cùng máy scrape
+		app.setDefaultProperties(Map.of(
+				"management.server.port", "8081",
+				"management.server.address", "127.0.0.1",
+				"management.endpoints.web.exposure.include", "health,info,metrics,prometheus",
+				"management.metrics.tags.application", "meal-ordering-backend",
+				"management.metrics.distribution.percentiles-histogram.http.server.requests", "true"
+		));
+		app.run(args);
 	}
 
 }
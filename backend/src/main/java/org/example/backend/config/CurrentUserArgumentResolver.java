@@ -0,0 +1,60 @@
+package org.example.backend.config;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.entity.user.User;
+import org.example.backend.repository.user.UserRepository;
+import org.example.backend.util.AuthenticatedUser;
+import org.example.backend.util.CurrentUser;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resolve tham số {@code @CurrentUser AuthenticatedUser} từ SecurityContext (không query DB).
+ * Token cũ chưa có claim uid: tra id theo publicId rồi thay principal trong SecurityContext của request
+ * bằng bản đã có id, nên các lần resolve sau trong cùng request không query lại.
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final UserRepository userRepository;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && AuthenticatedUser.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof AuthenticatedUser principal)) {
+            if (parameter.getParameterAnnotation(CurrentUser.class).required()) {
+                throw new AuthenticationCredentialsNotFoundException("User not authenticated");
+            }
+            return null;
+        }
+        if (principal.id() != null) {
+            return principal;
+        }
+
+        Long id = userRepository.findByPublicId(principal.publicId())
+                .map(User::getId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        AuthenticatedUser resolved = principal.withId(id);
+        UsernamePasswordAuthenticationToken withId =
+                new UsernamePasswordAuthenticationToken(resolved, auth.getCredentials(), auth.getAuthorities());
+        withId.setDetails(auth.getDetails());
+        SecurityContextHolder.getContext().setAuthentication(withId);
+        return resolved;
+    }
+}
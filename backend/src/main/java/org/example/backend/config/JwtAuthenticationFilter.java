@@ -1,10 +1,13 @@
 package org.example.backend.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.Cookie;
+import org.example.backend.util.AuthenticatedUser;
 import org.example.backend.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -27,18 +30,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil) {
+    private final MeterRegistry meterRegistry;
+
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, MeterRegistry meterRegistry) {
         this.jwtUtil = jwtUtil;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
+        // Chỉ đo phần việc của filter (đọc + xác thực token), không tính phần còn lại của chain
+        Timer.Sample sample = Timer.start(meterRegistry);
         String header = request.getHeader("Authorization");
-        String email = null;
-        String role = null;
-        String name = null;
-        String publicId = null;
+        AuthenticatedUser principal = null;
         String token = null;
 
         // 1. Kiểm tra header Authorization trước
@@ -59,22 +64,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             }
         }
 
-        // Xác thực token
+        // Xác thực token: parse + kiểm tra chữ ký 1 lần (có cache theo hash của token)
         if (token != null) {
             try {
-                if (jwtUtil.validateToken(token)) {
-                    email = jwtUtil.getEmailFromToken(token);
-                    role = jwtUtil.getRoleFromToken(token);
-                    name = jwtUtil.getNameFromToken(token);
-                    publicId = jwtUtil.getPublicIdFromToken(token);
-                } else {
-                    logger.warn("Invalid JWT token: {}", token);
-                    response.setStatus(HttpServletResponse.SC_FORBIDDEN);
-                    return;
-                }
+                principal = AuthenticatedUser.from(jwtUtil.parse(token));
             } catch (Exception e) {
-                logger.error("Token validation failed: {}", e.getMessage());
+                logger.warn("Invalid JWT token: {}", e.getMessage());
                 response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+                stop(sample, "rejected");
                 return;
             }
         } else {
@@ -82,14 +79,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         // Thiết lập Authentication nếu token hợp lệ
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        // Principal mang sẵn id/publicId/role/tên -> controller lấy qua @CurrentUser, không cần query user
+        if (principal != null && principal.email() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
             UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
-                    email, null, Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role)));
+                    principal, null, Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + principal.role())));
             auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(auth);
-            logger.info("Authentication set for user: {}", email);
+            logger.info("Authentication set for user: {}", principal.email());
         }
 
+        stop(sample, principal != null ? "authenticated" : "anonymous");
         filterChain.doFilter(request, response);
     }
+
+    private void stop(Timer.Sample sample, String result) {
+        sample.stop(meterRegistry.timer("app.jwt.filter", "result", result));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package org.example.backend.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+import org.springframework.web.socket.messaging.StompSubProtocolHandler;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * Metrics cho Actuator / Prometheus (GET /actuator/prometheus trên cổng quản trị, mặc định 127.0.0.1:8081).
+ * - @Timed trên các service nóng (checkout, payment, trừ kho, đặt bàn) cần TimedAspect.
+ * - Hikari pool và executor của các kênh STOMP (clientInbound / clientOutbound / broker) do Spring Boot tự bind.
+ * - Hibernate statistics (Boot xuất hibernate.*, cần hibernate-micrometer) chỉ bật khi metrics.hibernate.enabled=true:
+ *   statistics tốn chi phí trên mọi session; tắt luôn log "Session Metrics" INFO của Hibernate 6 cho từng session.
+ * - Số phiên WebSocket và số lệnh CONNECT/DISCONNECT của STOMP lấy từ WebSocketMessageBrokerStats.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "metrics.hibernate.enabled", havingValue = "true")
+    public HibernatePropertiesCustomizer hibernateStatisticsCustomizer() {
+        return properties -> {
+            properties.putIfAbsent("hibernate.generate_statistics", true);
+            properties.putIfAbsent("hibernate.session.events.log", false);
+        };
+    }
+
+    @Bean
+    public MeterBinder webSocketBrokerMetrics(WebSocketMessageBrokerStats brokerStats) {
+        return registry -> {
+            sessionGauge(registry, "total", brokerStats, SubProtocolWebSocketHandler.Stats::getTotalSessions);
+            sessionGauge(registry, "websocket", brokerStats, SubProtocolWebSocketHandler.Stats::getWebSocketSessions);
+            sessionGauge(registry, "http_streaming", brokerStats, SubProtocolWebSocketHandler.Stats::getHttpStreamingSessions);
+            sessionGauge(registry, "http_polling", brokerStats, SubProtocolWebSocketHandler.Stats::getHttpPollingSessions);
+            sessionGauge(registry, "limit_exceeded", brokerStats, SubProtocolWebSocketHandler.Stats::getLimitExceededSessions);
+            sessionGauge(registry, "transport_error", brokerStats, SubProtocolWebSocketHandler.Stats::getTransportErrorSessions);
+
+            stompCounter(registry, "connect", brokerStats, StompSubProtocolHandler.Stats::getTotalConnect);
+            stompCounter(registry, "connected", brokerStats, StompSubProtocolHandler.Stats::getTotalConnected);
+            stompCounter(registry, "disconnect", brokerStats, StompSubProtocolHandler.Stats::getTotalDisconnect);
+        };
+    }
+
+    // Handler chưa khởi tạo thì stats = null -> báo 0 thay vì làm hỏng cả lần scrape
+    private static void sessionGauge(MeterRegistry registry, String type, WebSocketMessageBrokerStats brokerStats,
+                                     ToIntFunction<SubProtocolWebSocketHandler.Stats> value) {
+        Gauge.builder("app.websocket.sessions", brokerStats, s -> {
+                    SubProtocolWebSocketHandler.Stats stats = s.getWebSocketSessionStats();
+                    return stats == null ? 0 : value.applyAsInt(stats);
+                })
+                .description("Số phiên WebSocket / SockJS theo loại")
+                .tag("type", type)
+                .register(registry);
+    }
+
+    private static void stompCounter(MeterRegistry registry, String frame, WebSocketMessageBrokerStats brokerStats,
+                                     ToIntFunction<StompSubProtocolHandler.Stats> value) {
+        FunctionCounter.builder("app.stomp.frames", brokerStats, s -> {
+                    StompSubProtocolHandler.Stats stats = s.getStompSubProtocolStats();
+                    return stats == null ? 0 : value.applyAsInt(stats);
+                })
+                .description("Tổng số frame STOMP CONNECT / CONNECTED / DISCONNECT")
+                .tag("frame", frame)
+                .register(registry);
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.backend.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.Filter;
 import org.example.backend.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,6 +28,9 @@ public class SecurityConfig {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -34,10 +38,13 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable()) // Disable CSRF for REST API
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // Stateless session
                 .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll() // cổng quản trị chỉ bind 127.0.0.1
                         .requestMatchers("/api/v1/auth/**").permitAll()
+                        .requestMatchers("/ws/**").permitAll() // xác thực lúc STOMP CONNECT (StompAuthChannelInterceptor)
                         .requestMatchers("/api/v1/menu-items/**").permitAll()
                         .requestMatchers("/api/v1/categories/**").permitAll()
                         .requestMatchers("/api/v1/tables/**").permitAll()
+                        .requestMatchers("/api/v1/feeds/**").permitAll() // bù dữ liệu feed công khai (bàn, menu)
                         .requestMatchers("/api/v1/users/me").authenticated()
                         .requestMatchers("/api/v1/carts/**").authenticated()
                         .requestMatchers("/api/v1/cart-items/**").authenticated()
@@ -71,7 +78,7 @@ public class SecurityConfig {
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtUtil);
+        return new JwtAuthenticationFilter(jwtUtil, meterRegistry);
     }
 
     @Bean
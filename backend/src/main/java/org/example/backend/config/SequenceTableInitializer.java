@@ -0,0 +1,43 @@
+package org.example.backend.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Trên MySQL, sequence order_items_seq được Hibernate giả lập bằng bảng (cột next_val).
+ * Nếu bảng này vừa được tạo (ddl-auto) trên DB đã có dữ liệu, next_val sẽ nhỏ hơn id hiện có
+ * và INSERT order_items bị trùng khoá -> đẩy next_val lên trước khi nhận request.
+ * Optimizer pooled cấp block (next_val - 49 .. next_val) nên cần next_val >= MAX(id) + 50.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SequenceTableInitializer {
+
+    private final JdbcTemplate jdbcTemplate;
+    // Phụ thuộc EntityManagerFactory để chạy sau khi Hibernate đã cập nhật schema
+    private final EntityManagerFactory entityManagerFactory;
+
+    // Phải khớp allocationSize của @SequenceGenerator trong OrderItem
+    private static final int ALLOCATION_SIZE = 50;
+
+    @PostConstruct
+    public void alignOrderItemSequence() {
+        try {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM order_items", Long.class);
+            long minNextVal = maxId + ALLOCATION_SIZE;
+            int updated = jdbcTemplate.update(
+                    "UPDATE order_items_seq SET next_val = ? WHERE next_val < ?", minNextVal, minNextVal);
+            if (updated > 0) {
+                log.info("🔢 order_items_seq được đồng bộ lên {}", minNextVal);
+            }
+        } catch (Exception e) {
+            // DB có SEQUENCE thật (H2, PostgreSQL...) hoặc bảng chưa tồn tại: không cần xử lý
+            log.debug("Bỏ qua đồng bộ order_items_seq: {}", e.getMessage());
+        }
+    }
+}
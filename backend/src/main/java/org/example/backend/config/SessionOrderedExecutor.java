@@ -0,0 +1,76 @@
+package org.example.backend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor cho kênh STOMP outbound ở chế độ virtual thread: message của cùng 1 phiên chạy tuần tự theo đúng
+ * thứ tự gửi (tối đa 1 virtual thread / phiên), các phiên khác nhau chạy song song.
+ * Thay cho preservePublishOrder của broker: hàng đợi của preservePublishOrder nằm trước kênh outbound nên
+ * {@link SlowConsumerGuard} không đếm được; ở đây mọi message đã qua preSend của kênh (được đếm, áp policy)
+ * trước khi vào hàng đợi theo phiên.
+ */
+@Slf4j
+final class SessionOrderedExecutor implements Executor {
+
+    private final Executor delegate;
+    // Phiên đang có thread gửi -> các task chờ của phiên; hết task thì xoá (thread gửi kết thúc)
+    private final Map<String, ArrayDeque<Runnable>> queues = new ConcurrentHashMap<>();
+
+    SessionOrderedExecutor(Executor delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        String sessionId = task instanceof MessageHandlingRunnable handling
+                ? SimpMessageHeaderAccessor.getSessionId(handling.getMessage().getHeaders())
+                : null;
+        if (sessionId == null) {
+            delegate.execute(task);
+            return;
+        }
+        boolean[] start = new boolean[1];
+        queues.compute(sessionId, (id, queue) -> {
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                start[0] = true;
+            }
+            queue.addLast(task);
+            return queue;
+        });
+        if (start[0]) {
+            delegate.execute(() -> drain(sessionId));
+        }
+    }
+
+    private void drain(String sessionId) {
+        Runnable[] next = new Runnable[1];
+        while (true) {
+            // Lấy task kế tiếp; hàng đợi rỗng thì xoá trong cùng thao tác để task mới tới sẽ khởi động thread khác
+            queues.computeIfPresent(sessionId, (id, queue) -> {
+                next[0] = queue.pollFirst();
+                return next[0] == null ? null : queue;
+            });
+            if (next[0] == null) {
+                return;
+            }
+            try {
+                next[0].run();
+            } catch (RuntimeException e) {
+                log.debug("Gửi message tới phiên {} lỗi: {}", sessionId, e.getMessage());
+            }
+        }
+    }
+
+    /** Số phiên đang có message chờ / đang gửi. */
+    int activeSessions() {
+        return queues.size();
+    }
+}
@@ -0,0 +1,285 @@
+package org.example.backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chặn client WebSocket chậm (mạng di động yếu, tab bị treo) làm phình bộ nhớ / giữ hết thread outbound:
+ * - Đếm số message đang chờ trong kênh outbound cho từng phiên (interceptor của clientOutboundChannel).
+ *   Vượt websocket.slow-consumer.max-queued-messages thì áp dụng websocket.slow-consumer.policy:
+ *   DROP = bỏ frame MESSAGE mới của live feed (bàn, menu): client thấy version nhảy cóc và bù qua /api/v1/feeds;
+ *   MESSAGE khác (/user/queue/*, /topic/admin/*...) không có đường bù nên vẫn đóng phiên như DISCONNECT.
+ *   DISCONNECT = đóng phiên (mặc định). Client kết nối lại; sự kiện không thuộc feed bị mất trong lúc đó.
+ * - Watchdog: phiên có lần ghi socket kéo dài quá websocket.transport.send-time-limit-ms bị đóng
+ *   (ConcurrentWebSocketSessionDecorator của Spring chỉ kiểm tra khi có message mới tới, còn đây thì không cần).
+ * - Với Tomcat, đặt BLOCKING_SEND_TIMEOUT của phiên = send-time-limit để thread đang ghi không bị giữ mãi.
+ * Metrics: app.websocket.session.queue.depth (độ sâu hàng đợi của phiên mỗi lần thêm message),
+ * app.websocket.session.queue.depth.max, app.websocket.sessions, app.websocket.slow_consumer.dropped,
+ * app.websocket.slow_consumer.disconnected{reason=queue|stalled|transport}.
+ */
+@Slf4j
+@Component
+public class SlowConsumerGuard implements ExecutorChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    public enum Policy { DROP, DISCONNECT }
+
+    private static final String TOMCAT_BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    // Topic live feed có version (WebSocketNotifier.sendFeed): bỏ được vì client phát hiện thiếu và tự bù
+    private static final Set<String> FEED_DESTINATIONS = Set.of(
+            "/topic/tables", "/topic/tables/new", "/topic/tables/update", "/topic/tables/delete",
+            "/topic/menu/new", "/topic/menu/update", "/topic/menu/delete", "/topic/menu/stock");
+
+    private final Policy policy;
+    private final int maxQueuedMessages;
+    private final long sendTimeLimitNanos;
+    private final long sendTimeLimitMs;
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService watchdog;
+    // Đóng phiên có thể chờ lần ghi đang kẹt -> chạy riêng, không chặn watchdog / thread outbound
+    private final ExecutorService evictor;
+
+    private final DistributionSummary queueDepth;
+    private final Counter dropped;
+    private final MeterRegistry meterRegistry;
+
+    public SlowConsumerGuard(MeterRegistry meterRegistry,
+                             @Value("${websocket.slow-consumer.policy:DISCONNECT}") Policy policy,
+                             @Value("${websocket.slow-consumer.max-queued-messages:200}") int maxQueuedMessages,
+                             @Value("${websocket.slow-consumer.check-interval-ms:1000}") long checkIntervalMs,
+                             @Value("${websocket.transport.send-time-limit-ms:10000}") long sendTimeLimitMs) {
+        this.meterRegistry = meterRegistry;
+        this.policy = policy;
+        this.maxQueuedMessages = maxQueuedMessages;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMs);
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ws-slow-consumer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.evictor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "ws-evict");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.queueDepth = DistributionSummary.builder("app.websocket.session.queue.depth")
+                .description("Số message đang chờ gửi của 1 phiên WebSocket (ghi lại mỗi lần thêm message)")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.dropped = Counter.builder("app.websocket.slow_consumer.dropped")
+                .description("Số frame MESSAGE của live feed bị bỏ vì phiên nhận quá chậm (policy DROP)")
+                .register(meterRegistry);
+        Gauge.builder("app.websocket.sessions", sessions, Map::size)
+                .description("Số phiên WebSocket đang mở")
+                .register(meterRegistry);
+        Gauge.builder("app.websocket.session.queue.depth.max", sessions,
+                        s -> s.values().stream().mapToInt(state -> state.queued.get()).max().orElse(0))
+                .description("Độ sâu hàng đợi lớn nhất trong các phiên hiện tại")
+                .register(meterRegistry);
+        watchdog.scheduleWithFixedDelay(this::evictStalled, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("🐢 Slow consumer: policy {}, tối đa {} message chờ / phiên, ghi quá {} ms thì ngắt",
+                policy, maxQueuedMessages, sendTimeLimitMs);
+    }
+
+    // ===================== KÊNH OUTBOUND =====================
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SessionState state = stateOf(message);
+        if (state == null) {
+            return message;
+        }
+        if (state.closing.get()) {
+            return null; // phiên đang bị đóng, không xếp thêm
+        }
+        if (state.queued.get() >= maxQueuedMessages) {
+            if (policy == Policy.DISCONNECT) {
+                evict(state, "queue");
+                return null;
+            }
+            if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE) {
+                if (!FEED_DESTINATIONS.contains(SimpMessageHeaderAccessor.getDestination(message.getHeaders()))) {
+                    evict(state, "queue");
+                    return null;
+                }
+                dropped.increment();
+                return null;
+            }
+            // DROP: frame điều khiển (CONNECTED, RECEIPT, ERROR...) vẫn gửi
+        }
+        queueDepth.record(state.queued.incrementAndGet());
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        // Executor từ chối -> message không bao giờ được xử lý (afterMessageHandled không chạy)
+        if (ex instanceof RejectedExecutionException) {
+            release(message);
+        }
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        release(message);
+    }
+
+    private void release(Message<?> message) {
+        SessionState state = stateOf(message);
+        if (state != null) {
+            state.queued.updateAndGet(n -> Math.max(0, n - 1));
+        }
+    }
+
+    private SessionState stateOf(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        return sessionId == null ? null : sessions.get(sessionId);
+    }
+
+    /** Số message đang chờ gửi của phiên (-1 nếu không có phiên). */
+    int queuedMessages(String sessionId) {
+        SessionState state = sessions.get(sessionId);
+        return state == null ? -1 : state.queued.get();
+    }
+
+    // ===================== PHIÊN WEBSOCKET =====================
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                applyBlockingSendTimeout(session);
+                SessionState state = new SessionState(session);
+                sessions.put(session.getId(), state);
+                // Spring bọc tiếp bằng ConcurrentWebSocketSessionDecorator, mọi lần ghi thật đều đi qua TrackingSession
+                super.afterConnectionEstablished(new TrackingSession(session, state));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                SessionState state = sessions.remove(session.getId());
+                // Spring tự đóng khi vượt send-time-limit / send-buffer-size-limit
+                if (state != null && !state.closing.get() && CloseStatus.SESSION_NOT_RELIABLE.equals(closeStatus)) {
+                    disconnected("transport");
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    private void applyBlockingSendTimeout(WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            jakarta.websocket.Session standard = nativeSession.getNativeSession(jakarta.websocket.Session.class);
+            if (standard != null) {
+                standard.getUserProperties().put(TOMCAT_BLOCKING_SEND_TIMEOUT, sendTimeLimitMs);
+            }
+        }
+    }
+
+    void evictStalled() {
+        long now = System.nanoTime();
+        for (SessionState state : sessions.values()) {
+            long startedAt = state.writeStartedAt;
+            if (startedAt != 0 && now - startedAt > sendTimeLimitNanos) {
+                evict(state, "stalled");
+            }
+        }
+    }
+
+    private void evict(SessionState state, String reason) {
+        if (!state.closing.compareAndSet(false, true)) {
+            return;
+        }
+        disconnected(reason);
+        log.warn("⚠️ Ngắt phiên WebSocket chậm {} ({}: {} message đang chờ)",
+                state.session.getId(), reason, state.queued.get());
+        evictor.execute(() -> {
+            try {
+                state.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Đóng phiên {} lỗi: {}", state.session.getId(), e.getMessage());
+            }
+        });
+    }
+
+    private void disconnected(String reason) {
+        Counter.builder("app.websocket.slow_consumer.disconnected")
+                .description("Số phiên WebSocket bị ngắt vì nhận quá chậm")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        evictor.shutdownNow();
+    }
+
+    private static final class SessionState {
+        private final WebSocketSession session;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean closing = new AtomicBoolean();
+        // System.nanoTime() lúc bắt đầu lần ghi socket hiện tại, 0 = không ghi
+        private volatile long writeStartedAt;
+
+        private SessionState(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+
+    /** Ghi lại thời điểm bắt đầu mỗi lần ghi socket thật để watchdog phát hiện phiên bị kẹt. */
+    private static final class TrackingSession extends WebSocketSessionDecorator {
+        private final SessionState state;
+
+        private TrackingSession(WebSocketSession session, SessionState state) {
+            super(session);
+            this.state = state;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            state.writeStartedAt = System.nanoTime();
+            try {
+                super.sendMessage(message);
+            } finally {
+                state.writeStartedAt = 0;
+            }
+        }
+    }
+}
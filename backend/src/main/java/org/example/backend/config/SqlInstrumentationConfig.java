@@ -0,0 +1,94 @@
+package org.example.backend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.example.backend.util.SqlStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Đo SQL theo từng request, chỉ dùng khi dev / test: phải bật rõ bằng sql.instrumentation.enabled=true
+ * (profile h2 bật sẵn), mặc định tắt để môi trường thật không bọc DataSource và không buffer body response.
+ * - Bọc DataSource bằng InstrumentedDataSource.
+ * - Gắn header X-SQL-Count / X-SQL-Time-Ms / X-SQL-Max-Repeat cho /api/**
+ *   và cảnh báo trong log khi 1 câu lệnh lặp lại nhiều lần (nghi N+1).
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "sql.instrumentation.enabled", havingValue = "true")
+public class SqlInstrumentationConfig {
+
+    public static final String COUNT_HEADER = "X-SQL-Count";
+    public static final String TIME_HEADER = "X-SQL-Time-Ms";
+    public static final String MAX_REPEAT_HEADER = "X-SQL-Max-Repeat";
+
+    @Bean
+    public static BeanPostProcessor instrumentedDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof InstrumentedDataSource)) {
+                    return new InstrumentedDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatsFilter> sqlStatsFilter(
+            @Value("${sql.instrumentation.n-plus-one-threshold:5}") int nPlusOneThreshold) {
+        FilterRegistrationBean<SqlStatsFilter> registration = new FilterRegistrationBean<>(new SqlStatsFilter(nPlusOneThreshold));
+        registration.addUrlPatterns("/api/*");
+        // Chạy trước Spring Security để đếm cả các truy vấn khi xác thực
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    static class SqlStatsFilter extends OncePerRequestFilter {
+
+        private final int nPlusOneThreshold;
+
+        SqlStatsFilter(int nPlusOneThreshold) {
+            this.nPlusOneThreshold = nPlusOneThreshold;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                throws ServletException, IOException {
+            // Giữ body lại để còn gắn header sau khi controller đã ghi response
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            SqlStats.Snapshot stats;
+            try (SqlStats.Scope scope = SqlStats.begin()) {
+                filterChain.doFilter(request, wrapper);
+                stats = scope.snapshot();
+            }
+
+            wrapper.setHeader(COUNT_HEADER, String.valueOf(stats.statements()));
+            wrapper.setHeader(TIME_HEADER, String.format("%.2f", stats.jdbcMillis()));
+            wrapper.setHeader(MAX_REPEAT_HEADER, String.valueOf(stats.maxRepeat()));
+            wrapper.copyBodyToResponse();
+
+            log.debug("🗄️ {} {} -> {} câu SQL, {} ms JDBC",
+                    request.getMethod(), request.getRequestURI(), stats.statements(), String.format("%.2f", stats.jdbcMillis()));
+            for (Map.Entry<String, Integer> repeated : stats.repeatedShapes(nPlusOneThreshold).entrySet()) {
+                log.warn("⚠️ Nghi N+1: {} {} chạy {} lần: {}",
+                        request.getMethod(), request.getRequestURI(), repeated.getValue(), repeated.getKey());
+            }
+        }
+    }
+}
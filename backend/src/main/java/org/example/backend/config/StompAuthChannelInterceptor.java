@@ -0,0 +1,141 @@
+package org.example.backend.config;
+
+import jakarta.servlet.http.Cookie;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.backend.util.AuthenticatedUser;
+import org.example.backend.util.JwtUtil;
+import org.example.backend.util.StompPrincipal;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.WebUtils;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * Xác thực / phân quyền trên kênh STOMP (clientInboundChannel).
+ * - CONNECT: lấy JWT từ header STOMP "Authorization: Bearer ..." hoặc cookie "token" của handshake,
+ *   gắn {@link StompPrincipal} (tên = publicId) cho phiên. Không có / sai token -> phiên ẩn danh.
+ * - SUBSCRIBE:
+ *   + destination dạng pattern (*, **, ?, {..}) bị từ chối: simple broker so khớp bằng AntPathMatcher,
+ *     "/topic/**" sẽ nhận cả /topic/admin/**
+ *   + /topic/admin/** chỉ cho ADMIN / STAFF
+ *   + /user/queue/** phải đăng nhập (mỗi user chỉ nhận được message của chính mình)
+ *   + /queue/** và /user/{tên-khác}/** bị từ chối (không cho nghe trộm hàng đợi của người khác)
+ *   + các /topic còn lại (menu, bàn, danh mục) công khai
+ * - SEND: chỉ tới /app/** (gửi thẳng /topic, /queue, /user sẽ được broker chuyển tiếp -> giả mạo sự kiện)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    static final String TOKEN_ATTRIBUTE = "jwt";
+
+    // Cùng kiểu matcher với DefaultSubscriptionRegistry của simple broker
+    private static final AntPathMatcher DESTINATION_MATCHER = new AntPathMatcher();
+
+    private final JwtUtil jwtUtil;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        switch (accessor.getCommand()) {
+            case CONNECT -> authenticate(accessor);
+            case SUBSCRIBE -> authorizeSubscription(accessor.getDestination(), accessor.getUser());
+            case SEND -> authorizeSend(accessor.getDestination());
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    private void authenticate(StompHeaderAccessor accessor) {
+        String token = null;
+        String header = accessor.getFirstNativeHeader("Authorization");
+        if (header != null && header.startsWith("Bearer ")) {
+            token = header.substring(7);
+        } else if (accessor.getSessionAttributes() != null) {
+            token = (String) accessor.getSessionAttributes().get(TOKEN_ATTRIBUTE);
+        }
+
+        if (token != null) {
+            try {
+                accessor.setUser(new StompPrincipal(AuthenticatedUser.from(jwtUtil.parse(token))));
+                return;
+            } catch (Exception e) {
+                log.warn("⚠️ STOMP CONNECT với JWT không hợp lệ, tiếp tục ẩn danh: {}", e.getMessage());
+            }
+        }
+        // Handshake đã qua JwtAuthenticationFilter: đổi principal HTTP (tên = email) sang principal STOMP
+        if (accessor.getUser() instanceof Authentication auth && auth.getPrincipal() instanceof AuthenticatedUser user) {
+            accessor.setUser(new StompPrincipal(user));
+        }
+    }
+
+    static void authorizeSubscription(String destination, Principal user) {
+        if (destination == null) {
+            return;
+        }
+        if (DESTINATION_MATCHER.isPattern(destination)) {
+            throw new AccessDeniedException("Pattern subscriptions are not allowed: " + destination);
+        }
+        if (destination.startsWith("/topic/admin/")) {
+            if (!(user instanceof StompPrincipal principal) || !principal.isStaff()) {
+                throw new AccessDeniedException("Admin topic requires ADMIN or STAFF: " + destination);
+            }
+        } else if (destination.startsWith("/user/")) {
+            if (!(user instanceof StompPrincipal)) {
+                throw new AccessDeniedException("User destination requires authentication: " + destination);
+            }
+            if (!destination.startsWith("/user/queue/")) {
+                throw new AccessDeniedException("Cannot subscribe to another user's destination: " + destination);
+            }
+        } else if (destination.startsWith("/queue/")) {
+            throw new AccessDeniedException("Subscribe via /user/queue/** instead of " + destination);
+        }
+    }
+
+    static void authorizeSend(String destination) {
+        if (destination == null || !destination.startsWith("/app/")) {
+            throw new AccessDeniedException("Clients may only send to /app/**: " + destination);
+        }
+    }
+
+    /** Chép cookie "token" của request handshake vào session attributes để dùng lúc CONNECT. */
+    public static class CookieTokenHandshakeInterceptor implements HandshakeInterceptor {
+
+        @Override
+        public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Map<String, Object> attributes) {
+            if (request instanceof ServletServerHttpRequest servletRequest) {
+                Cookie cookie = WebUtils.getCookie(servletRequest.getServletRequest(), "token");
+                if (cookie != null) {
+                    attributes.put(TOKEN_ATTRIBUTE, cookie.getValue());
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Exception exception) {
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chế độ virtual thread (Java 21 + spring.threads.virtual.enabled=true, xem profile "virtual").
+ * Tomcat không còn giới hạn số request đồng thời bằng thread pool (threads.max), nên:
+ * - Giới hạn số request /api/** chạy cùng lúc (virtual-threads.max-concurrent-requests, mặc định 200 = threads.max cũ),
+ *   request vượt quá chờ tối đa virtual-threads.acquire-timeout-ms rồi trả 503 + Retry-After
+ *   thay vì dồn hàng nghìn thread vào chờ Hikari.
+ * - Xuất app.http.inflight / app.http.rejected để so với hikaricp.connections.pending.
+ * - Bật @Async (chỉ ở chế độ này): gửi mail chạy nền trên virtual thread, lỗi SMTP chỉ được ghi log,
+ *   không tới caller. Chế độ mặc định vẫn gửi đồng bộ như cũ.
+ * Trên Java 17 cấu hình này không được nạp (app chạy như cũ).
+ */
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@EnableAsync
+public class VirtualThreadConfig {
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            @Value("${virtual-threads.max-concurrent-requests:200}") int maxConcurrentRequests,
+            @Value("${virtual-threads.acquire-timeout-ms:2000}") long acquireTimeoutMs,
+            MeterRegistry meterRegistry) {
+        log.info("🧵 Virtual thread: tối đa {} request /api/** đồng thời, chờ tối đa {} ms",
+                maxConcurrentRequests, acquireTimeoutMs);
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(maxConcurrentRequests, acquireTimeoutMs, meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        // Chặn trước khi xác thực JWT / mở transaction
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    static class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+        private final int maxConcurrentRequests;
+        private final long acquireTimeoutMs;
+        private final Semaphore permits;
+        private final Counter rejected;
+
+        ConcurrencyLimitFilter(int maxConcurrentRequests, long acquireTimeoutMs, MeterRegistry meterRegistry) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            this.acquireTimeoutMs = acquireTimeoutMs;
+            // fair: request chờ lâu nhất được vào trước
+            this.permits = new Semaphore(maxConcurrentRequests, true);
+            Gauge.builder("app.http.inflight", permits, p -> maxConcurrentRequests - p.availablePermits())
+                    .description("Số request /api/** đang xử lý (chế độ virtual thread)")
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("app.http.rejected")
+                    .description("Số request /api/** bị từ chối vì quá giới hạn đồng thời")
+                    .register(meterRegistry);
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                throws ServletException, IOException {
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            if (!acquired) {
+                rejected.increment();
+                log.warn("⚠️ Quá tải: {} {} bị từ chối ({} request đang chạy)",
+                        request.getMethod(), request.getRequestURI(), maxConcurrentRequests);
+                response.setHeader("Retry-After", "1");
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server is busy, please retry");
+                return;
+            }
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                permits.release();
+            }
+        }
+    }
+}
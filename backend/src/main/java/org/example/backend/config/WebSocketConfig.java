@@ -1,24 +1,112 @@
 package org.example.backend.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.*;
 
+/**
+ * STOMP qua SockJS với simple broker.
+ * Kênh inbound/outbound dùng pool có giới hạn (websocket.inbound.* / websocket.outbound.*), mỗi phiên bị giới hạn
+ * thời gian ghi và dung lượng đệm (websocket.transport.*); client chậm do {@link SlowConsumerGuard} xử lý.
+ * Chế độ virtual thread (spring.threads.virtual.enabled=true): kênh outbound chạy trên virtual thread, không pool
+ * (websocket.outbound.* bị bỏ qua). Thứ tự gửi theo phiên do {@link SessionOrderedExecutor} giữ (không dùng
+ * preservePublishOrder của broker: hàng đợi đó nằm trước kênh outbound, SlowConsumerGuard không đếm được), nên
+ * giới hạn websocket.slow-consumer.max-queued-messages, policy DROP / DISCONNECT và metric độ sâu hàng đợi
+ * áp dụng như ở chế độ pool.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final boolean virtualThreads;
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+    private final SlowConsumerGuard slowConsumerGuard;
+
+    @Value("${websocket.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+
+    @Value("${websocket.inbound.max-pool-size:16}")
+    private int inboundMaxPoolSize;
+
+    @Value("${websocket.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    @Value("${websocket.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${websocket.outbound.max-pool-size:32}")
+    private int outboundMaxPoolSize;
+
+    @Value("${websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    @Value("${websocket.transport.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${websocket.transport.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    public WebSocketConfig(Environment environment, StompAuthChannelInterceptor stompAuthChannelInterceptor,
+                           SlowConsumerGuard slowConsumerGuard) {
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+        this.stompAuthChannelInterceptor = stompAuthChannelInterceptor;
+        this.slowConsumerGuard = slowConsumerGuard;
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Client sẽ connect tới /ws
-        registry.addEndpoint("/ws").setAllowedOriginPatterns("*").withSockJS();
+        registry.addEndpoint("/ws").setAllowedOriginPatterns("*")
+                .addInterceptors(new StompAuthChannelInterceptor.CookieTokenHandshakeInterceptor())
+                .withSockJS();
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        // Prefix cho broker: client subscribe tới topic
-        registry.enableSimpleBroker("/topic");
+        // Prefix cho broker: /topic dùng chung, /queue cho message riêng từng user
+        registry.enableSimpleBroker("/topic", "/queue");
+        // Client subscribe /user/queue/..., server gửi bằng convertAndSendToUser(publicId, "/queue/...")
+        registry.setUserDestinationPrefix("/user");
         // Prefix cho server nhận message từ client
         registry.setApplicationDestinationPrefixes("/app");
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Gắn principal lúc CONNECT, chặn subscribe sai quyền
+        registration.interceptors(stompAuthChannelInterceptor);
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Đếm message chờ theo phiên, bỏ / ngắt client chậm
+        registration.interceptors(slowConsumerGuard);
+        if (virtualThreads) {
+            // Mỗi phiên tối đa 1 virtual thread gửi, đúng thứ tự; message chờ đã được SlowConsumerGuard đếm ở preSend
+            registration.executor(new SessionOrderedExecutor(new VirtualThreadTaskExecutor("ws-outbound-")));
+        } else {
+            // Hàng đợi đầy thì broker bỏ message đó (log lỗi) thay vì giữ vô hạn trong bộ nhớ
+            registration.taskExecutor()
+                    .corePoolSize(outboundCorePoolSize)
+                    .maxPoolSize(outboundMaxPoolSize)
+                    .queueCapacity(outboundQueueCapacity);
+        }
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Vượt 1 trong 2 giới hạn khi gửi tới 1 phiên -> Spring đóng phiên đó (SESSION_NOT_RELIABLE)
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .addDecoratorFactory(slowConsumerGuard);
+    }
 }
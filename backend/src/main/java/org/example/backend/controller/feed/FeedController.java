@@ -0,0 +1,52 @@
+package org.example.backend.controller.feed;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.dto.Response;
+import org.example.backend.dto.feed.FeedResyncDto;
+import org.example.backend.exception.ResourceNotFoundException;
+import org.example.backend.service.feed.FeedLog;
+import org.example.backend.service.feed.FeedResyncService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Bù dữ liệu live feed (tables, menu) sau khi client WebSocket kết nối lại.
+ * GET /api/v1/feeds/tables?since=42&epoch=... -> deltas từ version 42, hoặc snapshot nếu không bù được
+ * GET /api/v1/feeds/tables?since=42&epoch=...&snapshot=false -> deltas, hoặc không có gì (client tự tải lại)
+ * GET /api/v1/feeds/tables/head -> chỉ epoch + version hiện tại (mốc cho lần kết nối đầu)
+ * Nhiều node: epoch / version là của node trả lời -> định tuyến dính cùng node với /ws (xem FeedLog).
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/feeds")
+public class FeedController {
+
+    private final FeedResyncService feedResyncService;
+
+    @GetMapping("/{feed}")
+    public ResponseEntity<?> resync(@PathVariable String feed,
+                                    @RequestParam(required = false) Long since,
+                                    @RequestParam(required = false) String epoch,
+                                    @RequestParam(defaultValue = "true") boolean snapshot) {
+        FeedResyncDto result = feedResyncService.resync(feed(feed), since, epoch, snapshot);
+        String message;
+        if (result.deltas() != null) {
+            message = "Feed deltas retrieved successfully";
+        } else if (result.snapshot() != null) {
+            message = "Feed snapshot retrieved successfully";
+        } else {
+            message = "Feed deltas unavailable, reload required";
+        }
+        return ResponseEntity.ok(new Response<>("success", result, message));
+    }
+
+    @GetMapping("/{feed}/head")
+    public ResponseEntity<?> head(@PathVariable String feed) {
+        return ResponseEntity.ok(new Response<>("success", feedResyncService.head(feed(feed)), "Feed head retrieved successfully"));
+    }
+
+    private static FeedLog.Feed feed(String feed) {
+        return FeedLog.Feed.fromId(feed)
+                .orElseThrow(() -> new ResourceNotFoundException("Feed not found: " + feed));
+    }
+}
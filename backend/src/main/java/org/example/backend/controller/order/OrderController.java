@@ -37,12 +37,16 @@ public class OrderController {
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
-    public ResponseEntity<Page<OrderResponseDTO>> getAllOrders(
+    public ResponseEntity<?> getAllOrders(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String paymentStatus,
             @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String cursor, // có tham số này (kể cả rỗng) = chế độ keyset
             @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable
     ) {
+        if (cursor != null) {
+            return ResponseEntity.ok(orderService.getAllOrdersByCursor(status, paymentStatus, keyword, cursor, pageable.getPageSize()));
+        }
         Page<OrderResponseDTO> orders = orderService.getAllOrders(status,paymentStatus, keyword,pageable);
         return ResponseEntity.ok(orders);
     }
@@ -3,9 +3,11 @@ package org.example.backend.controller.param;
 import lombok.RequiredArgsConstructor;
 import org.example.backend.dto.Response;
 import org.example.backend.dto.param.ParamDTO;
+import org.example.backend.service.param.ParamRegistry;
 import org.example.backend.service.param.ParamService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -15,6 +17,17 @@ import java.util.List;
 @RequestMapping("/api/v1/params")
 public class ParamController {
     private final ParamService paramService;
+    private final ParamRegistry paramRegistry;
+
+    /**
+     * Nạp lại cache params sau khi dữ liệu bảng params được thay đổi
+     */
+    @PostMapping("/refresh")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> refreshParams() {
+        paramRegistry.refresh();
+        return ResponseEntity.ok(new Response<>("success", null, "Parameters reloaded successfully"));
+    }
 
     @GetMapping
     public ResponseEntity<?> getParamsByType(@RequestParam String type) {
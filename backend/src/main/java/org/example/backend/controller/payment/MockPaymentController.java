@@ -12,18 +12,17 @@ import org.example.backend.entity.user.ShippingInfo;
 import org.example.backend.entity.user.User;
 import org.example.backend.repository.menu.MenuItemRepository;
 import org.example.backend.repository.order.OrderRepository;
-import org.example.backend.repository.param.ParamRepository;
+import org.example.backend.service.param.ParamRegistry;
 import org.example.backend.repository.payment.PaymentRepository;
 import org.example.backend.repository.user.ShippingInfoRepository;
 import org.example.backend.service.menu.MenuItemService;
 import org.example.backend.service.notification.NotificationService;
-import org.example.backend.service.user.UserService;
+import org.example.backend.util.AuthenticatedUser;
+import org.example.backend.util.CurrentUser;
 import org.example.backend.util.WebSocketNotifier;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.view.RedirectView;
@@ -39,11 +38,10 @@ public class MockPaymentController {
 
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
-    private final ParamRepository paramRepository;
+    private final ParamRegistry paramRegistry;
     private final MenuItemRepository menuItemRepository;
     private final ShippingInfoRepository shippingInfoRepository;
     private final MenuItemService menuItemService;
-    private final UserService userService;
     private final NotificationService notificationService;
     private final WebSocketNotifier webSocketNotifier;
 
@@ -59,9 +57,9 @@ public class MockPaymentController {
 
         Order order = orderRepository.findById(orderId).orElseThrow(() -> new RuntimeException("Order not found"));
 
-        Param statusPending = paramRepository.findByTypeAndCode("PAYMENT_STATUS", "PENDING").orElseThrow();
+        Param statusPending = paramRegistry.find("PAYMENT_STATUS", "PENDING").orElseThrow();
 
-        Payment payment = Payment.builder().order(order).amount(order.getTotalAmount()).status(statusPending).paymentMethod(paramRepository.findByTypeAndCode("PAYMENT_METHOD", "ONLINE").orElseThrow()).publicId(UUID.randomUUID().toString()).returnUrl(returnUrl).build();
+        Payment payment = Payment.builder().order(order).amount(order.getTotalAmount()).status(statusPending).paymentMethod(paramRegistry.find("PAYMENT_METHOD", "ONLINE").orElseThrow()).publicId(UUID.randomUUID().toString()).returnUrl(returnUrl).build();
 
         paymentRepository.save(payment);
 
@@ -84,20 +82,17 @@ public class MockPaymentController {
     @PostMapping("/approve/{publicId}")
     @PreAuthorize("isAuthenticated()")
     @Transactional
-    public Map<String, String> approvePayment(@PathVariable String publicId, @RequestBody PaymentRequestDto shipping) {
+    public Map<String, String> approvePayment(@PathVariable String publicId, @RequestBody PaymentRequestDto shipping,
+                                              @CurrentUser AuthenticatedUser currentUser) {
         Payment payment = paymentRepository.findByPublicId(publicId)
                 .orElseThrow(() -> new RuntimeException("Payment not found"));
 
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        Long currentUser = userService.getUserByEmail(email).getId();
-
-        if (!payment.getOrder().getUser().getId().equals(currentUser)) {
+        if (!payment.getOrder().getUser().getId().equals(currentUser.id())) {
             throw new AccessDeniedException("Bạn không thể duyệt thanh toán của người khác");
         }
 
-        Param statusSuccess = paramRepository.findByTypeAndCode("PAYMENT_STATUS", "COMPLETED").orElseThrow();
-        Param orderPending = paramRepository.findByTypeAndCode("ORDER_STATUS", "PENDING").orElseThrow();
+        Param statusSuccess = paramRegistry.find("PAYMENT_STATUS", "COMPLETED").orElseThrow();
+        Param orderPending = paramRegistry.find("ORDER_STATUS", "PENDING").orElseThrow();
 
         // Update payment
         payment.setStatus(statusSuccess);
@@ -136,18 +131,14 @@ public class MockPaymentController {
      */
     @PostMapping("/cancel/{publicId}")
     @PreAuthorize("isAuthenticated()")
-    public Map<String, String> cancelPayment(@PathVariable String publicId) {
+    public Map<String, String> cancelPayment(@PathVariable String publicId, @CurrentUser AuthenticatedUser currentUser) {
         Payment payment = paymentRepository.findByPublicId(publicId).orElseThrow(() -> new RuntimeException("Payment not found"));
 
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        Long currentUser = userService.getUserByEmail(email).getId();
-
-        if (!payment.getOrder().getUser().getId().equals(currentUser)) {
+        if (!payment.getOrder().getUser().getId().equals(currentUser.id())) {
             throw new AccessDeniedException("Bạn không thể duyệt thanh toán của người khác");
         }
 
-        Param statusFailed = paramRepository.findByTypeAndCode("PAYMENT_STATUS", "FAILED").orElseThrow();
+        Param statusFailed = paramRegistry.find("PAYMENT_STATUS", "FAILED").orElseThrow();
 
 
         // Update Payment
@@ -7,7 +7,7 @@ import org.example.backend.dto.payment.PaymentRequestDto;
 import org.example.backend.entity.order.Order;
 import org.example.backend.entity.param.Param;
 import org.example.backend.repository.order.OrderRepository;
-import org.example.backend.repository.param.ParamRepository;
+import org.example.backend.service.param.ParamRegistry;
 import org.example.backend.repository.payment.PaymentRepository;
 import org.example.backend.util.JwtUtil;
 import org.example.backend.util.WebSocketNotifier;
@@ -25,7 +25,7 @@ import org.example.backend.service.payment.PaymentService;
 public class PaymentController {
 
     private final PaymentService paymentService;
-    private final ParamRepository paramRepository;
+    private final ParamRegistry paramRegistry;
     private final OrderRepository orderRepository;
     private final PaymentRepository paymentRepository;
     private final JwtUtil jwtUtil;
@@ -58,7 +58,7 @@ public class PaymentController {
             @RequestParam String statusCode,
             @RequestParam(required = false) String transactionId
     )  {
-        Param status = paramRepository.findByTypeAndCode("PAYMENT_STATUS", statusCode)
+        Param status = paramRegistry.find("PAYMENT_STATUS", statusCode)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid status code: " + statusCode));
 
         PaymentDto updated = paymentService.updatePaymentStatus(id, status, transactionId);
@@ -74,13 +74,14 @@ public class PaymentController {
         Payment payment = paymentRepository.findByOrderId(orderId)
                 .orElseThrow(() -> new RuntimeException("Payment not found"));
 
-        Param status = paramRepository.findByTypeAndCode("PAYMENT_STATUS", statusCode)
+        Param status = paramRegistry.find("PAYMENT_STATUS", statusCode)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid status code"));
 
         payment.setStatus(status);
         paymentRepository.save(payment);
 
-        wsNotifier.notifyPaymentStatus(payment.getOrder().getPublicId(), status.getCode());
+        Order order = payment.getOrder();
+        wsNotifier.notifyPaymentStatus(order.getUser().getPublicId(), order.getPublicId(), status.getCode());
 
         return ResponseEntity.ok(new PaymentDto(payment));
     }
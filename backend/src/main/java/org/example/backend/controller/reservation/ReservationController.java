@@ -6,7 +6,8 @@ import org.example.backend.dto.Response;
 import org.example.backend.dto.table.TableDto;
 import org.example.backend.entity.reservation.Reservation;
 import org.example.backend.service.reservation.ReservationService;
-import org.example.backend.service.user.UserService;
+import org.example.backend.util.AuthenticatedUser;
+import org.example.backend.util.CurrentUser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -16,8 +17,6 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -31,16 +30,13 @@ public class ReservationController {
 
     private final ReservationService reservationService;
 
-    private final UserService userService;
 
     // CUSTOMER creates reservation for themselves
     @PostMapping("/me")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<?> createMyReservation(@RequestBody ReservationDto dto) {
+    public ResponseEntity<?> createMyReservation(@RequestBody ReservationDto dto, @CurrentUser AuthenticatedUser currentUser) {
         try {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String email = auth.getName();
-            Long userId = userService.getUserByEmail(email).getId();
+            Long userId = currentUser.id();
 
             ReservationDto created = reservationService.createMyReservation(userId, dto);
 
@@ -68,11 +64,10 @@ public class ReservationController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt,desc") String sort,
-            @RequestParam(required = false) String status
+            @RequestParam(required = false) String status,
+            @CurrentUser AuthenticatedUser currentUser
     ) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        Long userId = userService.getUserByEmail(email).getId();
+        Long userId = currentUser.id();
 
         String[] sortParts = sort.split(",");
         Sort.Direction direction = sortParts.length > 1
@@ -86,7 +81,7 @@ public class ReservationController {
     }
 
     @GetMapping
-    public Page<ReservationDto> getReservations(
+    public ResponseEntity<?> getReservations(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) Long statusId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
@@ -95,9 +90,14 @@ public class ReservationController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String cursor // có tham số này (kể cả rỗng) = chế độ keyset
     ) {
-        return reservationService.getReservations(
+        if (cursor != null) {
+            return ResponseEntity.ok(reservationService.getReservationsByCursor(
+                    keyword, statusId, from, to, numberOfPeople, cursor, size));
+        }
+        return ResponseEntity.ok(reservationService.getReservations(
                 keyword,
                 statusId,
                 from,
@@ -107,7 +107,7 @@ public class ReservationController {
                 size,
                 sortBy,
                 sortDir
-        );
+        ));
     }
 
     @GetMapping("/{publicId}")
@@ -160,10 +160,8 @@ public class ReservationController {
     // CUSTOMER gets their reservation by publicId
     @GetMapping("/me/{publicId}")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<?> getMyReservation(@PathVariable String publicId) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        Long userId = userService.getUserByEmail(email).getId();
+    public ResponseEntity<?> getMyReservation(@PathVariable String publicId, @CurrentUser AuthenticatedUser currentUser) {
+        Long userId = currentUser.id();
 
         ReservationDto reservation = reservationService.getReservationByPublicId(publicId);
         if (!reservation.getUserId().equals(userId)) {
@@ -176,10 +174,8 @@ public class ReservationController {
     // CUSTOMER updates their own reservation
     @PutMapping("/me/{publicId}")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<?> updateMyReservation(@PathVariable String publicId, @RequestBody ReservationDto dto) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        Long userId = userService.getUserByEmail(email).getId();
+    public ResponseEntity<?> updateMyReservation(@PathVariable String publicId, @RequestBody ReservationDto dto, @CurrentUser AuthenticatedUser currentUser) {
+        Long userId = currentUser.id();
 
         ReservationDto existing = reservationService.getReservationByPublicId(publicId);
         if (!existing.getUserId().equals(userId)) {
@@ -194,10 +190,8 @@ public class ReservationController {
     // CUSTOMER deletes their own reservation
     @DeleteMapping("/me/{publicId}")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<?> deleteMyReservation(@PathVariable String publicId) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        Long userId = userService.getUserByEmail(email).getId();
+    public ResponseEntity<?> deleteMyReservation(@PathVariable String publicId, @CurrentUser AuthenticatedUser currentUser) {
+        Long userId = currentUser.id();
 
         ReservationDto existing = reservationService.getReservationByPublicId(publicId);
         if (!existing.getUserId().equals(userId)) {
@@ -234,10 +228,14 @@ public class ReservationController {
     }
 
     // Any authenticated user can view available tables
+    // time (+ people): bàn trống trong khung giờ đó; không có time: bàn đang AVAILABLE
     @GetMapping("/tables/available")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> getAvailableTables() {
-        List<TableDto> tables = reservationService.getAvailableTables();
+    public ResponseEntity<?> getAvailableTables(
+            @RequestParam(required = false) Integer people,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime time
+    ) {
+        List<TableDto> tables = reservationService.getAvailableTables(people, time);
         return ResponseEntity.ok(new Response<>("success", tables, "Available tables retrieved successfully"));
     }
 }
@@ -4,13 +4,12 @@ import lombok.RequiredArgsConstructor;
 import org.example.backend.dto.Response;
 import org.example.backend.dto.review.ReviewDto;
 import org.example.backend.service.review.ReviewService;
-import org.example.backend.service.user.UserService;
+import org.example.backend.util.AuthenticatedUser;
+import org.example.backend.util.CurrentUser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -22,7 +21,6 @@ public class ReviewController {
 
     private final ReviewService reviewService;
 
-    private final UserService userService;
 
     @GetMapping
     @PreAuthorize("isAuthenticated()")
@@ -41,11 +39,9 @@ public class ReviewController {
     @PostMapping("/{menuId}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<?> create(@PathVariable Long menuId,
-                                    @RequestBody ReviewDto dto) {
+                                    @RequestBody ReviewDto dto, @CurrentUser AuthenticatedUser currentUser) {
 
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        Long userId = userService.getUserByEmail(email).getId();
+        Long userId = currentUser.id();
 
         boolean alreadyReviewed = reviewService.existsByUserIdAndMenuId(userId, menuId);
         if (alreadyReviewed) {
@@ -60,10 +56,8 @@ public class ReviewController {
 
     @PutMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> update(@PathVariable Long id, @RequestBody ReviewDto dto) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        Long currentUserId = userService.getUserByEmail(email).getId();
+    public ResponseEntity<?> update(@PathVariable Long id, @RequestBody ReviewDto dto, @CurrentUser AuthenticatedUser currentUser) {
+        Long currentUserId = currentUser.id();
 
         ReviewDto updated = reviewService.updateById(id, dto, currentUserId);
         return ResponseEntity.ok(new Response<>("success", updated, "Review updated successfully"));
@@ -71,10 +65,8 @@ public class ReviewController {
 
     @DeleteMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> delete(@PathVariable Long id) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = auth.getName();
-        Long currentUserId = userService.getUserByEmail(email).getId();
+    public ResponseEntity<?> delete(@PathVariable Long id, @CurrentUser AuthenticatedUser currentUser) {
+        Long currentUserId = currentUser.id();
 
         reviewService.deleteById(id, currentUserId);
         return ResponseEntity.ok(new Response<>("success", null, "Review deleted successfully"));
@@ -7,6 +7,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.backend.dto.statistics.MenuItemSalesDto;
 import org.example.backend.dto.statistics.RevenueStatisticsDto;
+import org.example.backend.service.statistics.SalesRollupService;
 import org.example.backend.service.statistics.StatisticsService;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -25,6 +26,7 @@ import java.util.List;
 public class StatisticsController {
 
     private final StatisticsService statisticsService;
+    private final SalesRollupService salesRollupService;
 
     // ==================== Revenue Statistics ====================
 
@@ -145,4 +147,24 @@ public class StatisticsController {
         List<MenuItemSalesDto> menuItems = statisticsService.getCurrentMonthWorstSelling(limit);
         return ResponseEntity.ok(menuItems);
     }
+
+    // ==================== Rollups ====================
+
+    @PostMapping("/rollups/rebuild")
+    @Operation(summary = "Rebuild sales rollup tables",
+               description = "Recompute daily revenue and menu item sales rollups from orders. Rebuilds all history when no date range is given")
+    public ResponseEntity<Void> rebuildRollups(
+            @Parameter(description = "Start date (yyyy-MM-dd)", example = "2024-01-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "End date (yyyy-MM-dd)", example = "2024-01-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+
+        log.info("Rebuilding sales rollups from {} to {}", startDate, endDate);
+        if (startDate == null || endDate == null) {
+            salesRollupService.rebuildAll();
+        } else {
+            salesRollupService.rebuild(startDate, endDate);
+        }
+        return ResponseEntity.noContent().build();
+    }
 }
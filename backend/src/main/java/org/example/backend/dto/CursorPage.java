@@ -0,0 +1,31 @@
+package org.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Trang kết quả cho chế độ phân trang keyset (cursor).
+ * Không có totalElements/totalPages vì chế độ này không chạy COUNT.
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+    private final List<T> content;
+    private final int size;
+    private final boolean hasNext;
+    // Cursor opaque để lấy trang kế tiếp, null nếu đã hết
+    private final String nextCursor;
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = content.stream().<R>map(mapper).toList();
+        return new CursorPage<>(mapped, size, hasNext, nextCursor);
+    }
+
+    /** Map cả trang 1 lần (vd: nạp dữ liệu theo lô cho toàn bộ phần tử). */
+    public <R> CursorPage<R> mapContent(Function<? super List<T>, ? extends List<R>> mapper) {
+        return new CursorPage<>(List.copyOf(mapper.apply(content)), size, hasNext, nextCursor);
+    }
+}
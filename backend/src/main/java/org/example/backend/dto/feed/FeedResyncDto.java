@@ -0,0 +1,19 @@
+package org.example.backend.dto.feed;
+
+import org.example.backend.service.feed.FeedLog;
+
+import java.util.List;
+
+/**
+ * Kết quả bù dữ liệu cho 1 live feed, nhiều nhất 1 trong 2 trường deltas / snapshot khác null:
+ * - deltas: các thay đổi có version > since, client áp dụng lần lượt (head: danh sách rỗng)
+ * - snapshot: toàn bộ dữ liệu hiện tại (since đã quá cũ / khác epoch), client thay toàn bộ state
+ * - cả 2 null: không bù được và client không xin snapshot (snapshot=false) -> client tự tải lại
+ * version: version mới nhất đã gửi tại thời điểm trả về; client bỏ qua các sự kiện WebSocket có version <= version.
+ */
+public record FeedResyncDto(String feed,
+                            String epoch,
+                            long version,
+                            List<FeedLog.Delta> deltas,
+                            List<?> snapshot) {
+}
@@ -34,6 +34,30 @@ public class MenuItemDto {
     private Integer reviewPages;        // tổng số trang
     private Integer currentReviewPage;  // trang hiện tại
 
+    // Bản sao (MenuCatalog trả bản sao, không để caller sửa snapshot dùng chung); list con không sửa được
+    public MenuItemDto(MenuItemDto other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.description = other.description;
+        this.price = other.price;
+        this.avatarUrl = other.avatarUrl;
+        this.categoryId = other.categoryId;
+        this.categoryName = other.categoryName;
+        this.categorySlug = other.categorySlug;
+        this.status = other.status;
+        this.statusId = other.statusId;
+        this.createdAt = other.createdAt;
+        this.rating = other.rating;
+        this.sold = other.sold;
+        this.tags = other.tags != null ? List.copyOf(other.tags) : null;
+        this.reviews = other.reviews != null ? List.copyOf(other.reviews) : null;
+        this.availableQuantity = other.availableQuantity;
+        this.ingredients = other.ingredients != null ? List.copyOf(other.ingredients) : null;
+        this.totalReviews = other.totalReviews;
+        this.reviewPages = other.reviewPages;
+        this.currentReviewPage = other.currentReviewPage;
+    }
+
     // Constructor từ entity
     public MenuItemDto(MenuItem entity) {
         this.id = entity.getId();
@@ -11,12 +11,20 @@ public class MenuItemMapper {
 
         MenuItemDto dto = new MenuItemDto(menuItem);
 
-        dto.setRating((Double) obj[4]);
-        dto.setSold((Long) obj[5]);
+        dto.setRating(((Number) obj[4]).doubleValue());
+        dto.setSold(((Number) obj[5]).longValue());
         dto.setCategoryName((String) obj[1]);
         dto.setCategorySlug((String) obj[2]);
         dto.setStatus((String) obj[3]);
 
         return dto;
     }
+
+    /** Dòng của findAllForCatalog: [MenuItem (đã fetch category, status, inventory), rating, sold]. */
+    public MenuItemDto toCatalogDto(Object[] row) {
+        MenuItemDto dto = new MenuItemDto((MenuItem) row[0]);
+        dto.setRating(((Number) row[1]).doubleValue());
+        dto.setSold(((Number) row[2]).longValue());
+        return dto;
+    }
 }
@@ -22,4 +22,11 @@ public class NotificationDto {
         dto.setCreatedAt(noti.getCreatedAt());
         return dto;
     }
+
+    // Thông báo theo vai trò: trạng thái đọc lấy từ receipt của user, không phải cột is_read
+    public static NotificationDto fromEntity(Notification noti, boolean read) {
+        NotificationDto dto = fromEntity(noti);
+        dto.setIsRead(read);
+        return dto;
+    }
 }
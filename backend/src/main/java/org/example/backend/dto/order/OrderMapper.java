@@ -5,6 +5,8 @@ import org.example.backend.entity.order.OrderItem;
 import org.example.backend.entity.payment.Payment;
 import org.example.backend.entity.user.ShippingInfo;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -33,6 +35,38 @@ public class OrderMapper {
                 .build();
     }
 
+    /** Từ 1 dòng OrderRepository.findResponseRowsByIdIn. */
+    public static OrderResponseDTO fromRow(Object[] row, List<OrderItemDto> items) {
+        return OrderResponseDTO.builder()
+                .id((Long) row[0])
+                .publicId((String) row[1])
+                .userName((String) row[2])
+                .userEmail((String) row[3])
+                .status((String) row[4])
+                .totalAmount((BigDecimal) row[5])
+                .paymentStatus((String) row[6])
+                .paymentMethod((String) row[7])
+                .shippingAddress((String) row[8])
+                .shippingPhone((String) row[9])
+                .shippingNote((String) row[10])
+                .createdAt((LocalDateTime) row[11])
+                .items(items)
+                .build();
+    }
+
+    /** Từ 1 dòng OrderItemRepository.findResponseRowsByOrderIds (cột 0 là orderId). */
+    public static OrderItemDto itemFromRow(Object[] row) {
+        return OrderItemDto.builder()
+                .id((Long) row[1])
+                .menuItemId((Long) row[2])
+                .comboId((Long) row[3])
+                .menuItemName((String) row[4])
+                .comboName((String) row[5])
+                .quantity((Integer) row[6])
+                .price((BigDecimal) row[7])
+                .build();
+    }
+
     private static List<OrderItemDto> toItemDtoList(List<OrderItem> items) {
         if (items == null) return List.of();
         return items.stream().map(item -> OrderItemDto.builder()
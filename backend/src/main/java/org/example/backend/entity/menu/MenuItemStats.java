@@ -0,0 +1,45 @@
+package org.example.backend.entity.menu;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bảng thống kê phi chuẩn hoá cho từng món (rating, số lượng đã bán).
+ * Được cập nhật tăng dần từ ReviewService / OrderService và rebuild định kỳ
+ * bởi MenuItemStatsService, để các query danh sách món không phải chạy
+ * subquery AVG/SUM trên reviews và order_items cho từng dòng.
+ */
+@Entity
+@Table(name = "menu_item_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MenuItemStats {
+
+    @Id
+    @Column(name = "menu_item_id")
+    private Long menuItemId;
+
+    @Column(name = "rating_sum", nullable = false)
+    @Builder.Default
+    private Long ratingSum = 0L;
+
+    @Column(name = "rating_count", nullable = false)
+    @Builder.Default
+    private Long ratingCount = 0L;
+
+    @Column(name = "sold_quantity", nullable = false)
+    @Builder.Default
+    private Long soldQuantity = 0L;
+
+    @Column(name = "sold_last_7_days", nullable = false)
+    @Builder.Default
+    private Long soldLast7Days = 0L;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -25,10 +25,15 @@ public class Notification extends BaseEntity {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // null = thông báo theo vai trò (xem targetRole)
     @ManyToOne
-    @JoinColumn(name = "user_id", nullable = false)
+    @JoinColumn(name = "user_id")
     private User user;
 
+    // Vai trò nhận thông báo broadcast (vd: STAFF = nhân viên + admin); null = thông báo cá nhân
+    @Column(name = "target_role", length = 20)
+    private String targetRole;
+
     @ManyToOne
     @JoinColumn(name = "order_id")
     private Order order;
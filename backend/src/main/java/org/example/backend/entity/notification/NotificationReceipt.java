@@ -0,0 +1,29 @@
+package org.example.backend.entity.notification;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trạng thái của 1 thông báo theo vai trò (broadcast) đối với 1 user.
+ * Có dòng = user đã đọc; deleted = user đã ẩn thông báo đó khỏi danh sách của mình.
+ */
+@Entity
+@Table(name = "notification_receipts")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationReceipt {
+
+    @EmbeddedId
+    private NotificationReceiptId id;
+
+    @Column(name = "read_at", nullable = false)
+    private LocalDateTime readAt;
+
+    @Column(nullable = false)
+    private Boolean deleted = false;
+}
@@ -0,0 +1,21 @@
+package org.example.backend.entity.notification;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class NotificationReceiptId implements Serializable {
+    @Column(name = "notification_id")
+    private Long notificationId;
+
+    @Column(name = "user_id")
+    private Long userId;
+}
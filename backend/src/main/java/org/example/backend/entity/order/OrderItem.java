@@ -19,8 +19,11 @@ import java.math.BigDecimal;
 @Builder
 public class OrderItem {
 
+    // Sequence pooled (bước 50) thay cho IDENTITY để Hibernate gom INSERT order_items thành JDBC batch.
+    // MySQL không có SEQUENCE nên Hibernate dùng bảng order_items_seq (xem db.sql)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,34 @@
+package org.example.backend.entity.statistics;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Số lượng và doanh thu của từng món theo ngày tạo đơn, chỉ tính đơn DELIVERED (rollup của order_items).
+ */
+@Entity
+@Table(name = "daily_menu_item_sales")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyMenuItemSales {
+
+    @EmbeddedId
+    private DailyMenuItemSalesId id;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long quantity = 0L;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    @Builder.Default
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,22 @@
+package org.example.backend.entity.statistics;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class DailyMenuItemSalesId implements Serializable {
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    @Column(name = "menu_item_id")
+    private Long menuItemId;
+}
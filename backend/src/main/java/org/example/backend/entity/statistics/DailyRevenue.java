@@ -0,0 +1,37 @@
+package org.example.backend.entity.statistics;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Doanh thu và số đơn DELIVERED theo ngày tạo đơn (rollup của bảng orders).
+ * Cập nhật trong cùng transaction khi đơn vào/ra trạng thái DELIVERED, rebuild bởi SalesRollupService.
+ */
+@Entity
+@Table(name = "daily_revenue")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyRevenue {
+
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    @Column(name = "total_revenue", nullable = false, precision = 15, scale = 2)
+    @Builder.Default
+    private BigDecimal totalRevenue = BigDecimal.ZERO;
+
+    @Column(name = "total_orders", nullable = false)
+    @Builder.Default
+    private Long totalOrders = 0L;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
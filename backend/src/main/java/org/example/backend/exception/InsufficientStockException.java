@@ -0,0 +1,20 @@
+package org.example.backend.exception;
+
+import java.util.List;
+
+/**
+ * Không đủ tồn kho cho 1 hoặc nhiều món khi trừ kho.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    private final List<Long> menuItemIds;
+
+    public InsufficientStockException(String message, List<Long> menuItemIds) {
+        super(message);
+        this.menuItemIds = List.copyOf(menuItemIds);
+    }
+
+    public List<Long> getMenuItemIds() {
+        return menuItemIds;
+    }
+}
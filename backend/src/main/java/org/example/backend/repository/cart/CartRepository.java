@@ -2,6 +2,7 @@ package org.example.backend.repository.cart;
 
 import org.example.backend.entity.cart.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -31,5 +32,9 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     boolean existsByUserPublicIdAndStatus(@Param("publicId") String publicId,
                                           @Param("statusCode") String statusCode);
 
+    @Modifying
+    @Query("UPDATE Cart c SET c.status = :status, c.updatedAt = CURRENT_TIMESTAMP, c.lastUpdated = CURRENT_TIMESTAMP WHERE c.id = :cartId")
+    int updateStatus(@Param("cartId") Long cartId, @Param("status") org.example.backend.entity.param.Param status);
+
 
 }
@@ -13,55 +13,73 @@ import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 
 public interface MenuItemRepository extends JpaRepository<MenuItem, Long> {
+    // ℹ️ rating / sold đọc từ bảng menu_item_stats (xem MenuItemStatsService)
     @Query("""
 SELECT m,
        c.name AS categoryName,
        LOWER(REPLACE(c.name, ' ', '-')) AS categorySlug,
        p.code AS status,
-       (SELECT COALESCE(AVG(r.rating), 0)
-        FROM Review r
-        WHERE r.menuItem.id = m.id) AS rating,
-       (SELECT COALESCE(SUM(oi.quantity), 0)
-        FROM OrderItem oi
-        JOIN oi.order o
-        WHERE oi.menuItem.id = m.id
-          AND o.status.code = 'DELIVERED') AS sold
+       CASE WHEN s.ratingCount > 0 THEN s.ratingSum * 1.0 / s.ratingCount ELSE 0.0 END AS rating,
+       COALESCE(s.soldQuantity, 0) AS sold
 FROM MenuItem m
 LEFT JOIN m.category c
 LEFT JOIN m.status p
-GROUP BY m.id, c.name, p.code
+LEFT JOIN MenuItemStats s ON s.menuItemId = m.id
 """)
     Page<Object[]> findAllWithDetails(Pageable pageable);
 
+    // 🍽️ Nạp toàn bộ menu cho MenuCatalog: category / status / inventory fetch cùng câu (không N+1 theo món)
+    @Query("""
+SELECT m,
+       CASE WHEN s.ratingCount > 0 THEN s.ratingSum * 1.0 / s.ratingCount ELSE 0.0 END AS rating,
+       COALESCE(s.soldQuantity, 0) AS sold
+FROM MenuItem m
+LEFT JOIN FETCH m.category
+LEFT JOIN FETCH m.status
+LEFT JOIN FETCH m.inventory
+LEFT JOIN MenuItemStats s ON s.menuItemId = m.id
+""")
+    List<Object[]> findAllForCatalog();
+
+    // Nạp reviews (kèm user) của các món vào persistence context bằng 1 câu
+    @Query("""
+SELECT DISTINCT m FROM MenuItem m
+LEFT JOIN FETCH m.reviews r
+LEFT JOIN FETCH r.user
+WHERE m.id IN :ids
+""")
+    List<MenuItem> fetchReviews(@Param("ids") Collection<Long> ids);
+
+    // Nạp nguyên liệu (kèm ingredient) của các món vào persistence context bằng 1 câu
+    @Query("""
+SELECT DISTINCT m FROM MenuItem m
+LEFT JOIN FETCH m.menuItemIngredients mi
+LEFT JOIN FETCH mi.ingredient
+WHERE m.id IN :ids
+""")
+    List<MenuItem> fetchIngredients(@Param("ids") Collection<Long> ids);
+
     @Query("""
 SELECT m,
        c.name AS categoryName,
        LOWER(REPLACE(c.name, ' ', '-')) AS categorySlug,
        p.code AS status,
-       (SELECT COALESCE(AVG(r.rating), 0)
-        FROM Review r
-        WHERE r.menuItem.id = m.id) AS rating,
-       (SELECT COALESCE(SUM(oi.quantity), 0)
-        FROM OrderItem oi
-        JOIN oi.order o
-        WHERE oi.menuItem.id = m.id
-          AND o.status.code = 'DELIVERED') AS sold
+       CASE WHEN s.ratingCount > 0 THEN s.ratingSum * 1.0 / s.ratingCount ELSE 0.0 END AS rating,
+       COALESCE(s.soldQuantity, 0) AS sold
 FROM MenuItem m
 LEFT JOIN m.category c
 LEFT JOIN m.status p
-GROUP BY m.id, c.name, p.code
+LEFT JOIN MenuItemStats s ON s.menuItemId = m.id
             ORDER BY
             CASE WHEN m.createdAt > :newThreshold THEN 1 ELSE 0 END DESC,
             CASE WHEN p.code = 'OUT_OF_STOCK' THEN 1 ELSE 0 END ASC,
-            (SELECT COALESCE(SUM(oi.quantity), 0)
-            FROM OrderItem oi
-            JOIN oi.order o
-            WHERE oi.menuItem.id = m.id
-            AND o.status.code = 'DELIVERED') DESC 
+            COALESCE(s.soldLast7Days, 0) DESC,
+            m.id DESC
 """)
     Page<Object[]> findAllWithDetailsOrdered(@Param("newThreshold") LocalDateTime newThreshold, Pageable pageable);
 
@@ -70,19 +88,13 @@ SELECT m,
        c.name AS categoryName,
        LOWER(REPLACE(c.name, ' ', '-')) AS categorySlug,
        p.code AS status,
-       (SELECT COALESCE(AVG(r.rating), 0)
-        FROM Review r
-        WHERE r.menuItem.id = m.id) AS rating,
-       (SELECT COALESCE(SUM(oi.quantity), 0)
-        FROM OrderItem oi
-        JOIN oi.order o
-        WHERE oi.menuItem.id = m.id
-          AND o.status.code = 'DELIVERED') AS sold
+       CASE WHEN s.ratingCount > 0 THEN s.ratingSum * 1.0 / s.ratingCount ELSE 0.0 END AS rating,
+       COALESCE(s.soldQuantity, 0) AS sold
 FROM MenuItem m
 LEFT JOIN m.category c
 LEFT JOIN m.status p
-GROUP BY m.id, c.name, p.code
-ORDER BY sold DESC
+LEFT JOIN MenuItemStats s ON s.menuItemId = m.id
+ORDER BY COALESCE(s.soldQuantity, 0) DESC, m.id DESC
 """)
     List<Object[]> findTopPopular(Pageable pageable);
 
@@ -91,19 +103,13 @@ SELECT m,
        c.name AS categoryName,
        LOWER(REPLACE(c.name, ' ', '-')) AS categorySlug,
        p.code AS status,
-       (SELECT COALESCE(AVG(r.rating), 0)
-        FROM Review r
-        WHERE r.menuItem.id = m.id) AS rating,
-       (SELECT COALESCE(SUM(oi.quantity), 0)
-        FROM OrderItem oi
-        JOIN oi.order o
-        WHERE oi.menuItem.id = m.id
-          AND o.status.code = 'DELIVERED') AS sold
+       CASE WHEN s.ratingCount > 0 THEN s.ratingSum * 1.0 / s.ratingCount ELSE 0.0 END AS rating,
+       COALESCE(s.soldQuantity, 0) AS sold
 FROM MenuItem m
 LEFT JOIN m.category c
 LEFT JOIN m.status p
+LEFT JOIN MenuItemStats s ON s.menuItemId = m.id
 WHERE LOWER(m.name) LIKE LOWER(:search)
-GROUP BY m.id, c.name, p.code
 """)
     Page<Object[]> findAllWithDetailsByNameContainingIgnoreCase(@Param("search") String search, Pageable pageable);
 
@@ -113,19 +119,13 @@ SELECT m,
        c.name AS categoryName,
        LOWER(REPLACE(c.name, ' ', '-')) AS categorySlug,
        p.code AS status,
-       (SELECT COALESCE(AVG(r.rating), 0)
-        FROM Review r
-        WHERE r.menuItem.id = m.id) AS rating,
-       (SELECT COALESCE(SUM(oi.quantity), 0)
-        FROM OrderItem oi
-        JOIN oi.order o
-        WHERE oi.menuItem.id = m.id
-          AND o.status.code = 'DELIVERED') AS sold
+       CASE WHEN s.ratingCount > 0 THEN s.ratingSum * 1.0 / s.ratingCount ELSE 0.0 END AS rating,
+       COALESCE(s.soldQuantity, 0) AS sold
 FROM MenuItem m
 LEFT JOIN m.category c
 LEFT JOIN m.status p
+LEFT JOIN MenuItemStats s ON s.menuItemId = m.id
 WHERE LOWER(REPLACE(c.name, ' ', '-')) = LOWER(:categorySlug)
-GROUP BY m.id, c.name, p.code
 """)
     Page<Object[]> findAllWithDetailsByCategory(@Param("categorySlug") String categorySlug, Pageable pageable);
 
@@ -135,20 +135,14 @@ SELECT m,
        c.name AS categoryName,
        LOWER(REPLACE(c.name, ' ', '-')) AS categorySlug,
        p.code AS status,
-       (SELECT COALESCE(AVG(r.rating), 0)
-        FROM Review r
-        WHERE r.menuItem.id = m.id) AS rating,
-       (SELECT COALESCE(SUM(oi.quantity), 0)
-        FROM OrderItem oi
-        JOIN oi.order o
-        WHERE oi.menuItem.id = m.id
-          AND o.status.code = 'DELIVERED') AS sold
+       CASE WHEN s.ratingCount > 0 THEN s.ratingSum * 1.0 / s.ratingCount ELSE 0.0 END AS rating,
+       COALESCE(s.soldQuantity, 0) AS sold
 FROM MenuItem m
 LEFT JOIN m.category c
 LEFT JOIN m.status p
+LEFT JOIN MenuItemStats s ON s.menuItemId = m.id
 WHERE LOWER(REPLACE(c.name, ' ', '-')) = LOWER(:categorySlug)
   AND LOWER(m.name) LIKE LOWER(:search)
-GROUP BY m.id, c.name, p.code
 """)
     Page<Object[]> findAllWithDetailsByCategoryAndName(
             @Param("categorySlug") String categorySlug,
@@ -163,24 +157,18 @@ SELECT m,
        c.name AS categoryName,
        LOWER(REPLACE(c.name, ' ', '-')) AS categorySlug,
        p.code AS status,
-       (SELECT COALESCE(AVG(r.rating), 0)
-        FROM Review r
-        WHERE r.menuItem.id = m.id) AS rating,
-       (SELECT COALESCE(SUM(oi.quantity), 0)
-        FROM OrderItem oi
-        JOIN oi.order o
-        WHERE oi.menuItem.id = m.id
-          AND o.status.code = 'DELIVERED') AS sold
+       CASE WHEN s.ratingCount > 0 THEN s.ratingSum * 1.0 / s.ratingCount ELSE 0.0 END AS rating,
+       COALESCE(s.soldQuantity, 0) AS sold
 FROM MenuItem m
 LEFT JOIN m.category c
 LEFT JOIN m.status p
+LEFT JOIN MenuItemStats s ON s.menuItemId = m.id
 WHERE (:name IS NULL OR LOWER(m.name) LIKE LOWER(CONCAT('%', :name, '%')))
   AND (:description IS NULL OR LOWER(m.description) LIKE LOWER(CONCAT('%', :description, '%')))
   AND (:categoryId IS NULL OR c.id = :categoryId)
   AND (:statusId IS NULL OR p.id = :statusId)
   AND (:minPrice IS NULL OR m.price >= :minPrice)
   AND (:maxPrice IS NULL OR m.price <= :maxPrice)
-GROUP BY m.id, c.name, p.code
 """)
     Page<Object[]> searchMenuItemsWithFilters(
             @Param("name") String name,
@@ -191,6 +179,58 @@ GROUP BY m.id, c.name, p.code
             @Param("maxPrice") BigDecimal maxPrice,
             Pageable pageable);
 
+    // 🔎 Lọc theo danh sách id đã được MenuSearchIndex xác định
+    @Query("""
+SELECT m,
+       c.name AS categoryName,
+       LOWER(REPLACE(c.name, ' ', '-')) AS categorySlug,
+       p.code AS status,
+       CASE WHEN s.ratingCount > 0 THEN s.ratingSum * 1.0 / s.ratingCount ELSE 0.0 END AS rating,
+       COALESCE(s.soldQuantity, 0) AS sold
+FROM MenuItem m
+LEFT JOIN m.category c
+LEFT JOIN m.status p
+LEFT JOIN MenuItemStats s ON s.menuItemId = m.id
+WHERE m.id IN :ids
+  AND (:categorySlug IS NULL OR LOWER(REPLACE(c.name, ' ', '-')) = LOWER(:categorySlug))
+""")
+    Page<Object[]> findAllWithDetailsByIdIn(
+            @Param("ids") Collection<Long> ids,
+            @Param("categorySlug") String categorySlug,
+            Pageable pageable);
+
+    @Query("""
+SELECT m,
+       c.name AS categoryName,
+       LOWER(REPLACE(c.name, ' ', '-')) AS categorySlug,
+       p.code AS status,
+       CASE WHEN s.ratingCount > 0 THEN s.ratingSum * 1.0 / s.ratingCount ELSE 0.0 END AS rating,
+       COALESCE(s.soldQuantity, 0) AS sold
+FROM MenuItem m
+LEFT JOIN m.category c
+LEFT JOIN m.status p
+LEFT JOIN MenuItemStats s ON s.menuItemId = m.id
+WHERE m.id IN :ids
+  AND (:categoryId IS NULL OR c.id = :categoryId)
+  AND (:statusId IS NULL OR p.id = :statusId)
+  AND (:minPrice IS NULL OR m.price >= :minPrice)
+  AND (:maxPrice IS NULL OR m.price <= :maxPrice)
+""")
+    Page<Object[]> searchMenuItemsWithFiltersInIds(
+            @Param("ids") Collection<Long> ids,
+            @Param("categoryId") Long categoryId,
+            @Param("statusId") Long statusId,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice,
+            Pageable pageable);
+
+    // Các trường text dùng cho MenuSearchIndex: [id, name, description, categoryName]
+    @Query("SELECT m.id, m.name, m.description, c.name FROM MenuItem m LEFT JOIN m.category c")
+    List<Object[]> findAllSearchFields();
+
+    @Query("SELECT m.id, m.name, m.description, c.name FROM MenuItem m LEFT JOIN m.category c WHERE m.id = :id")
+    List<Object[]> findSearchFieldsById(@Param("id") Long id);
+
     // Check if menu item is used in cart_items (for delete constraint)
     @Query("SELECT COUNT(ci) FROM CartItem ci WHERE ci.menuItem.id = :menuItemId")
     Long countMenuItemInCartItems(@Param("menuItemId") Long menuItemId);
@@ -0,0 +1,89 @@
+package org.example.backend.repository.menu;
+
+import org.example.backend.entity.menu.MenuItemStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface MenuItemStatsRepository extends JpaRepository<MenuItemStats, Long> {
+
+    // ➕ Cộng dồn rating (delta có thể âm khi sửa/xoá review); chưa có dòng thì tạo trong cùng câu lệnh
+    @Modifying
+    @Query(value = """
+INSERT INTO menu_item_stats (menu_item_id, rating_sum, rating_count, sold_quantity, sold_last_7_days, updated_at)
+VALUES (:menuItemId, GREATEST(:ratingDelta, 0), GREATEST(:countDelta, 0), 0, 0, :now)
+ON DUPLICATE KEY UPDATE
+    rating_sum = rating_sum + :ratingDelta,
+    rating_count = rating_count + :countDelta,
+    updated_at = :now
+""", nativeQuery = true)
+    int upsertRating(@Param("menuItemId") Long menuItemId,
+                  @Param("ratingDelta") long ratingDelta,
+                  @Param("countDelta") long countDelta,
+                  @Param("now") LocalDateTime now);
+
+    // ➕ Cộng dồn số lượng đã bán (âm khi đơn rời khỏi DELIVERED); upsert nên 2 đơn đầu tiên của 1 món
+    //    giao cùng lúc không đua nhau INSERT
+    @Modifying
+    @Query(value = """
+INSERT INTO menu_item_stats (menu_item_id, rating_sum, rating_count, sold_quantity, sold_last_7_days, updated_at)
+VALUES (:menuItemId, 0, 0, GREATEST(:quantity, 0), GREATEST(:recentQuantity, 0), :now)
+ON DUPLICATE KEY UPDATE
+    sold_quantity = sold_quantity + :quantity,
+    sold_last_7_days = sold_last_7_days + :recentQuantity,
+    updated_at = :now
+""", nativeQuery = true)
+    int upsertSold(@Param("menuItemId") Long menuItemId,
+                @Param("quantity") long quantity,
+                @Param("recentQuantity") long recentQuantity,
+                @Param("now") LocalDateTime now);
+
+    // 📊 Các aggregate dùng cho rebuild toàn bộ bảng
+    @Query("SELECT r.menuItem.id, COALESCE(SUM(r.rating), 0), COUNT(r) FROM Review r GROUP BY r.menuItem.id")
+    List<Object[]> aggregateRatings();
+
+    @Query("""
+SELECT oi.menuItem.id,
+       COALESCE(SUM(oi.quantity), 0),
+       COALESCE(SUM(CASE WHEN COALESCE(o.deliveredAt, o.updatedAt) >= :since THEN oi.quantity ELSE 0 END), 0)
+FROM OrderItem oi
+JOIN oi.order o
+WHERE oi.menuItem IS NOT NULL
+  AND o.status.code = 'DELIVERED'
+GROUP BY oi.menuItem.id
+""")
+    List<Object[]> aggregateDeliveredQuantities(@Param("since") LocalDateTime since);
+
+    // ⏳ Chỉ tính lại sold_last_7_days (đẩy phần bán cũ hơn :since ra khỏi cửa sổ), 1 câu lệnh cho cả bảng
+    @Modifying
+    @Query("""
+UPDATE MenuItemStats s
+SET s.soldLast7Days = COALESCE((
+        SELECT SUM(oi.quantity)
+        FROM OrderItem oi
+        JOIN oi.order o
+        WHERE oi.menuItem.id = s.menuItemId
+          AND o.status.code = 'DELIVERED'
+          AND COALESCE(o.deliveredAt, o.updatedAt) >= :since
+    ), 0)
+""")
+    int refreshSoldSince(@Param("since") LocalDateTime since);
+
+    // Nạp PopularityLeaderboard: [menuItemId, thời điểm giao, quantity]; đơn cũ chưa có delivered_at dùng updatedAt
+    @Query("""
+SELECT oi.menuItem.id, COALESCE(o.deliveredAt, o.updatedAt), oi.quantity
+FROM OrderItem oi
+JOIN oi.order o
+WHERE oi.menuItem IS NOT NULL
+  AND o.status.code = 'DELIVERED'
+  AND COALESCE(o.deliveredAt, o.updatedAt) >= :since
+""")
+    List<Object[]> findDeliveredQuantitiesSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT m.id FROM MenuItem m")
+    List<Long> findAllMenuItemIds();
+}
@@ -0,0 +1,8 @@
+package org.example.backend.repository.notification;
+
+import org.example.backend.entity.notification.NotificationReceipt;
+import org.example.backend.entity.notification.NotificationReceiptId;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface NotificationReceiptRepository extends JpaRepository<NotificationReceipt, NotificationReceiptId> {
+}
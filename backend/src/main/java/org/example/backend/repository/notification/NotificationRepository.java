@@ -7,12 +7,83 @@ import org.example.backend.entity.notification.Notification;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     Page<Notification> findByUserId(Long userId, Pageable pageable);
 
+    // Keyset: chưa đọc trước, đã đọc sau; trong mỗi nhóm theo createdAt DESC, id DESC
+    @Query("""
+    SELECT n FROM Notification n
+    WHERE n.user.id = :userId
+      AND n.isRead = :isRead
+      AND (:afterCreatedAt IS NULL
+           OR n.createdAt < :afterCreatedAt
+           OR (n.createdAt = :afterCreatedAt AND n.id < :afterId))
+    ORDER BY n.createdAt DESC, n.id DESC
+""")
+    List<Notification> findKeysetByUserId(@Param("userId") Long userId,
+                                          @Param("isRead") boolean isRead,
+                                          @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                          @Param("afterId") Long afterId,
+                                          Pageable limit);
+
     long countByUserIdAndIsReadFalse(Long userId);
+
+    // ===== Gộp thông báo cá nhân + thông báo theo vai trò (roles), kèm cờ đã đọc (0/1) theo receipt =====
+    @Query(value = """
+    SELECT n,
+           CASE WHEN n.user IS NOT NULL THEN (CASE WHEN n.isRead = true THEN 1 ELSE 0 END)
+                WHEN r.id.userId IS NOT NULL THEN 1
+                ELSE 0 END AS readRank
+    FROM Notification n
+    LEFT JOIN NotificationReceipt r ON r.id.notificationId = n.id AND r.id.userId = :userId
+    WHERE n.user.id = :userId
+       OR (n.targetRole IN :roles AND n.createdAt >= :since AND (r.id.userId IS NULL OR r.deleted = false))
+    ORDER BY readRank, n.createdAt DESC, n.id DESC
+""", countQuery = """
+    SELECT COUNT(n)
+    FROM Notification n
+    LEFT JOIN NotificationReceipt r ON r.id.notificationId = n.id AND r.id.userId = :userId
+    WHERE n.user.id = :userId
+       OR (n.targetRole IN :roles AND n.createdAt >= :since AND (r.id.userId IS NULL OR r.deleted = false))
+""")
+    Page<Object[]> findMergedForUser(@Param("userId") Long userId,
+                                     @Param("roles") List<String> roles,
+                                     @Param("since") LocalDateTime since,
+                                     Pageable pageable);
+
+    // Keyset bản gộp: isRead = false -> chưa có receipt, isRead = true -> có receipt chưa ẩn
+    @Query("""
+    SELECT n FROM Notification n
+    LEFT JOIN NotificationReceipt r ON r.id.notificationId = n.id AND r.id.userId = :userId
+    WHERE ((n.user.id = :userId AND n.isRead = :isRead)
+           OR (n.targetRole IN :roles AND n.createdAt >= :since
+               AND ((:isRead = false AND r.id.userId IS NULL) OR (:isRead = true AND r.deleted = false))))
+      AND (:afterCreatedAt IS NULL
+           OR n.createdAt < :afterCreatedAt
+           OR (n.createdAt = :afterCreatedAt AND n.id < :afterId))
+    ORDER BY n.createdAt DESC, n.id DESC
+""")
+    List<Notification> findMergedKeyset(@Param("userId") Long userId,
+                                        @Param("roles") List<String> roles,
+                                        @Param("since") LocalDateTime since,
+                                        @Param("isRead") boolean isRead,
+                                        @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                        @Param("afterId") Long afterId,
+                                        Pageable limit);
+
+    // Số thông báo theo vai trò user chưa đọc (chưa có receipt)
+    @Query("""
+    SELECT COUNT(n) FROM Notification n
+    WHERE n.targetRole IN :roles AND n.createdAt >= :since
+      AND NOT EXISTS (SELECT 1 FROM NotificationReceipt r
+                      WHERE r.id.notificationId = n.id AND r.id.userId = :userId)
+""")
+    long countUnreadForRoles(@Param("userId") Long userId,
+                             @Param("roles") List<String> roles,
+                             @Param("since") LocalDateTime since);
     // 🔹 Lấy danh sách notification theo ids
     List<Notification> findByIdIn(List<Long> ids);
 
@@ -6,12 +6,22 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByOrderId(Long orderId);
 
+    // Tổng số lượng theo món của 1 đơn (dùng để trừ kho), [menuItemId, quantity]
+    @Query("""
+    SELECT oi.menuItem.id, SUM(oi.quantity)
+    FROM OrderItem oi
+    WHERE oi.order.id = :orderId AND oi.menuItem IS NOT NULL
+    GROUP BY oi.menuItem.id
+    """)
+    List<Object[]> sumQuantitiesByMenuItem(@Param("orderId") Long orderId);
+
     // Get best-selling menu items
     @Query(value = """
     SELECT 
@@ -69,4 +79,24 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
             @Param("endDate") LocalDateTime endDate,
             @Param("limit") int limit);
 
+
+    // Nạp SalesCube: [createdAt, menuItemId, quantity, price] các dòng món của đơn DELIVERED tạo từ :from
+    @Query("""
+    SELECT o.createdAt, oi.menuItem.id, oi.quantity, oi.price
+    FROM OrderItem oi
+    JOIN oi.order o
+    WHERE o.status.code = 'DELIVERED' AND o.createdAt >= :from AND oi.menuItem IS NOT NULL
+    """)
+    List<Object[]> findDeliveredLinesSince(@Param("from") LocalDateTime from);
+
+    // Dòng món của nhiều đơn cho OrderResponseDTO: [orderId, id, menuItemId, comboId, menuItemName, comboName, quantity, price]
+    @Query("""
+    SELECT oi.order.id, oi.id, mi.id, c.id, mi.name, c.name, oi.quantity, oi.price
+    FROM OrderItem oi
+    LEFT JOIN oi.menuItem mi
+    LEFT JOIN oi.combo c
+    WHERE oi.order.id IN :orderIds
+    ORDER BY oi.id
+    """)
+    List<Object[]> findResponseRowsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
 }
@@ -11,13 +11,15 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
+    // Chỉ lấy id của 1 trang; dữ liệu hiển thị được nạp bằng findResponseRowsByIdIn + dòng món
     @Query("""
-                SELECT o FROM Order o
+                SELECT o.id FROM Order o
                 LEFT JOIN o.payment p
                 LEFT JOIN p.paymentMethod m
                 LEFT JOIN p.shippingInfo s
@@ -48,7 +50,52 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
                   END,
                   o.createdAt DESC
             """)
-    Page<Order> findAllWithCustomSort(@Param("status") String status, @Param("paymentStatus") String paymentStatus, @Param("keyword") String keyword, Pageable pageable);
+    Page<Long> findIdsWithCustomSort(@Param("status") String status, @Param("paymentStatus") String paymentStatus, @Param("keyword") String keyword, Pageable pageable);
+
+    /**
+     * Projection phẳng cho OrderResponseDTO (không nạp entity nên không kéo association lazy/eager):
+     * [id, publicId, userName, userEmail, status, totalAmount, paymentStatus, paymentMethod,
+     *  shippingAddress, shippingPhone, shippingNote, createdAt]
+     */
+    @Query("""
+                SELECT o.id, o.publicId, u.name, u.email, s.code, o.totalAmount,
+                       ps.code, pm.code, si.address, si.phone, si.note, o.createdAt
+                FROM Order o
+                LEFT JOIN o.user u
+                LEFT JOIN o.status s
+                LEFT JOIN o.payment p
+                LEFT JOIN p.status ps
+                LEFT JOIN p.paymentMethod pm
+                LEFT JOIN p.shippingInfo si
+                WHERE o.id IN :ids
+            """)
+    List<Object[]> findResponseRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Keyset: 1 hạng trạng thái (statusCode, hoặc null = các trạng thái ngoài knownCodes),
+     * đứng sau (afterCreatedAt, afterId) theo createdAt DESC, id DESC. Dùng index (status_id, created_at, id).
+     * Chỉ trả [id, createdAt] (không nạp entity -> không kéo payment eager); dữ liệu hiển thị nạp qua findResponseRowsByIdIn.
+     */
+    @Query("""
+                SELECT o.id, o.createdAt FROM Order o
+                LEFT JOIN o.payment p
+                LEFT JOIN o.user u
+                WHERE (:keyword IS NULL OR LOWER(u.name) LIKE LOWER(CONCAT('%', :keyword, '%')) or LOWER(o.publicId) LIKE LOWER(CONCAT('%', :keyword, '%')))
+                  AND (:paymentStatus IS NULL OR p.status.code = :paymentStatus)
+                  AND (:statusCode IS NULL OR o.status.code = :statusCode)
+                  AND (:statusCode IS NOT NULL OR o.status.code NOT IN :knownCodes)
+                  AND (:afterCreatedAt IS NULL
+                       OR o.createdAt < :afterCreatedAt
+                       OR (o.createdAt = :afterCreatedAt AND o.id < :afterId))
+                ORDER BY o.createdAt DESC, o.id DESC
+            """)
+    List<Object[]> findKeysetByStatus(@Param("statusCode") String statusCode,
+                                      @Param("knownCodes") List<String> knownCodes,
+                                      @Param("paymentStatus") String paymentStatus,
+                                      @Param("keyword") String keyword,
+                                      @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                      @Param("afterId") Long afterId,
+                                      Pageable limit);
 
         @EntityGraph(attributePaths = {"user", "status", "payment", "payment.shippingInfo", "orderItems", "orderItems.menuItem", "orderItems.combo"})
         Optional<Order> findByPublicId(String publicId);
@@ -123,4 +170,16 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
             """, nativeQuery = true)
     List<Map<String, Object>> getRevenueStatisticsByYear(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
+    // Thời điểm đơn đầu tiên (khoảng backfill cho bảng rollup thống kê)
+    @Query("SELECT MIN(o.createdAt) FROM Order o")
+    LocalDateTime findFirstCreatedAt();
+
+    // Nạp SalesCube: [id, createdAt, totalAmount] của các đơn DELIVERED tạo từ :from
+    @Query("""
+            SELECT o.id, o.createdAt, o.totalAmount
+            FROM Order o
+            WHERE o.status.code = 'DELIVERED' AND o.createdAt >= :from
+            """)
+    List<Object[]> findDeliveredTotalsSince(@Param("from") LocalDateTime from);
+
 }
@@ -51,4 +51,42 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>,
             Pageable pageable
     );
 
+    // Keyset: 1 hạng trạng thái (statusCode, hoặc null = các trạng thái ngoài knownCodes)
+    @Query("""
+    SELECT r FROM Reservation r
+    WHERE (:keyword IS NULL OR LOWER(r.user.name) LIKE LOWER(CONCAT('%', :keyword, '%')) or LOWER(r.publicId) LIKE LOWER(CONCAT('%', :keyword, '%')) )
+      AND (:statusId IS NULL OR r.status.id = :statusId)
+      AND (:from IS NULL OR r.reservationTime >= :from)
+      AND (:to IS NULL OR r.reservationTime <= :to)
+      AND (:numberOfPeople IS NULL OR r.numberOfPeople = :numberOfPeople)
+      AND (:statusCode IS NULL OR r.status.code = :statusCode)
+      AND (:statusCode IS NOT NULL OR r.status.code NOT IN :knownCodes)
+      AND (:afterCreatedAt IS NULL
+           OR r.createdAt < :afterCreatedAt
+           OR (r.createdAt = :afterCreatedAt AND r.id < :afterId))
+    ORDER BY r.createdAt DESC, r.id DESC
+""")
+    List<Reservation> findKeysetByStatus(
+            @Param("statusCode") String statusCode,
+            @Param("knownCodes") List<String> knownCodes,
+            @Param("keyword") String keyword,
+            @Param("statusId") Long statusId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("numberOfPeople") Integer numberOfPeople,
+            @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+            @Param("afterId") Long afterId,
+            Pageable limit
+    );
+
+    // [reservationId, tableId, reservationTime] của các đặt bàn còn giữ bàn từ thời điểm from
+    @Query("""
+    SELECT r.id, t.id, r.reservationTime FROM Reservation r JOIN r.tables t
+    WHERE r.status.code IN :statusCodes AND r.reservationTime >= :from
+""")
+    List<Object[]> findActiveTableSlots(
+            @Param("statusCodes") List<String> statusCodes,
+            @Param("from") LocalDateTime from
+    );
+
 }
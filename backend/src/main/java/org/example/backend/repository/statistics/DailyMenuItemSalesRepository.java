@@ -0,0 +1,93 @@
+package org.example.backend.repository.statistics;
+
+import org.example.backend.entity.statistics.DailyMenuItemSales;
+import org.example.backend.entity.statistics.DailyMenuItemSalesId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public interface DailyMenuItemSalesRepository extends JpaRepository<DailyMenuItemSales, DailyMenuItemSalesId> {
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO daily_menu_item_sales (stat_date, menu_item_id, quantity, revenue, updated_at)
+            VALUES (:statDate, :menuItemId, :quantity, :revenue, CURRENT_TIMESTAMP)
+            ON DUPLICATE KEY UPDATE
+                quantity = quantity + VALUES(quantity),
+                revenue = revenue + VALUES(revenue),
+                updated_at = CURRENT_TIMESTAMP
+            """, nativeQuery = true)
+    int upsertDelta(@Param("statDate") LocalDate statDate,
+                    @Param("menuItemId") Long menuItemId,
+                    @Param("quantity") long quantity,
+                    @Param("revenue") BigDecimal revenue);
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_menu_item_sales WHERE stat_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    int deleteRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO daily_menu_item_sales (stat_date, menu_item_id, quantity, revenue, updated_at)
+            SELECT DATE(o.created_at), oi.menu_item_id, SUM(oi.quantity), SUM(oi.quantity * oi.price), CURRENT_TIMESTAMP
+            FROM order_items oi
+            JOIN orders o ON oi.order_id = o.id
+            JOIN params s ON o.status_id = s.id
+            WHERE o.created_at >= :startDate AND o.created_at < DATE_ADD(:endDate, INTERVAL 1 DAY)
+              AND oi.menu_item_id IS NOT NULL
+              AND s.type = 'ORDER_STATUS'
+              AND s.code = 'DELIVERED'
+            GROUP BY DATE(o.created_at), oi.menu_item_id
+            """, nativeQuery = true)
+    int rebuildRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query(value = """
+            SELECT
+                mi.id AS menuItemId,
+                mi.name AS menuItemName,
+                SUM(d.quantity) AS totalQuantitySold,
+                SUM(d.revenue) AS totalRevenue,
+                mi.avatar_url AS avatarUrl
+            FROM daily_menu_item_sales d
+            JOIN menu_items mi ON d.menu_item_id = mi.id
+            WHERE d.stat_date BETWEEN :startDate AND :endDate
+            GROUP BY mi.id, mi.name, mi.avatar_url
+            HAVING SUM(d.quantity) > 0
+            ORDER BY totalQuantitySold DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Map<String, Object>> getBestSelling(@Param("startDate") LocalDate startDate,
+                                             @Param("endDate") LocalDate endDate,
+                                             @Param("limit") int limit);
+
+    // Món đang AVAILABLE bán ít nhất (kể cả chưa bán được phần nào)
+    @Query(value = """
+            SELECT
+                mi.id AS menuItemId,
+                mi.name AS menuItemName,
+                COALESCE(d.quantity, 0) AS totalQuantitySold,
+                COALESCE(d.revenue, 0) AS totalRevenue,
+                mi.avatar_url AS avatarUrl
+            FROM menu_items mi
+            LEFT JOIN (
+                SELECT menu_item_id, SUM(quantity) AS quantity, SUM(revenue) AS revenue
+                FROM daily_menu_item_sales
+                WHERE stat_date BETWEEN :startDate AND :endDate
+                GROUP BY menu_item_id
+            ) d ON d.menu_item_id = mi.id
+            WHERE mi.status_id = (
+                SELECT id FROM params WHERE type = 'MENU_ITEM_STATUS' AND code = 'AVAILABLE'
+            )
+            ORDER BY totalQuantitySold ASC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Map<String, Object>> getWorstSelling(@Param("startDate") LocalDate startDate,
+                                              @Param("endDate") LocalDate endDate,
+                                              @Param("limit") int limit);
+}
@@ -0,0 +1,85 @@
+package org.example.backend.repository.statistics;
+
+import org.example.backend.entity.statistics.DailyRevenue;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public interface DailyRevenueRepository extends JpaRepository<DailyRevenue, LocalDate> {
+
+    // Cộng dồn (delta có thể âm khi đơn rời DELIVERED)
+    @Modifying
+    @Query(value = """
+            INSERT INTO daily_revenue (stat_date, total_revenue, total_orders, updated_at)
+            VALUES (:statDate, :revenue, :orders, CURRENT_TIMESTAMP)
+            ON DUPLICATE KEY UPDATE
+                total_revenue = total_revenue + VALUES(total_revenue),
+                total_orders = total_orders + VALUES(total_orders),
+                updated_at = CURRENT_TIMESTAMP
+            """, nativeQuery = true)
+    int upsertDelta(@Param("statDate") LocalDate statDate,
+                    @Param("revenue") BigDecimal revenue,
+                    @Param("orders") long orders);
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_revenue WHERE stat_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    int deleteRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Tính lại từ orders cho khoảng ngày (sau deleteRange)
+    @Modifying
+    @Query(value = """
+            INSERT INTO daily_revenue (stat_date, total_revenue, total_orders, updated_at)
+            SELECT DATE(o.created_at), SUM(o.total_amount), COUNT(o.id), CURRENT_TIMESTAMP
+            FROM orders o
+            JOIN params s ON o.status_id = s.id
+            WHERE o.created_at >= :startDate AND o.created_at < DATE_ADD(:endDate, INTERVAL 1 DAY)
+              AND s.type = 'ORDER_STATUS'
+              AND s.code = 'DELIVERED'
+            GROUP BY DATE(o.created_at)
+            """, nativeQuery = true)
+    int rebuildRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query(value = """
+            SELECT
+                DATE_FORMAT(d.stat_date, '%Y-%m-%d') AS period,
+                d.total_revenue AS totalRevenue,
+                d.total_orders AS totalOrders
+            FROM daily_revenue d
+            WHERE d.stat_date BETWEEN :startDate AND :endDate
+              AND d.total_orders > 0
+            ORDER BY period DESC
+            """, nativeQuery = true)
+    List<Map<String, Object>> getRevenueByDay(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query(value = """
+            SELECT
+                DATE_FORMAT(d.stat_date, '%Y-%m') AS period,
+                SUM(d.total_revenue) AS totalRevenue,
+                SUM(d.total_orders) AS totalOrders
+            FROM daily_revenue d
+            WHERE d.stat_date BETWEEN :startDate AND :endDate
+            GROUP BY DATE_FORMAT(d.stat_date, '%Y-%m')
+            HAVING SUM(d.total_orders) > 0
+            ORDER BY period DESC
+            """, nativeQuery = true)
+    List<Map<String, Object>> getRevenueByMonth(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query(value = """
+            SELECT
+                YEAR(d.stat_date) AS period,
+                SUM(d.total_revenue) AS totalRevenue,
+                SUM(d.total_orders) AS totalOrders
+            FROM daily_revenue d
+            WHERE d.stat_date BETWEEN :startDate AND :endDate
+            GROUP BY YEAR(d.stat_date)
+            HAVING SUM(d.total_orders) > 0
+            ORDER BY period DESC
+            """, nativeQuery = true)
+    List<Map<String, Object>> getRevenueByYear(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
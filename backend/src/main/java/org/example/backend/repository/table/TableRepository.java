@@ -2,6 +2,7 @@ package org.example.backend.repository.table;
 
 import org.example.backend.entity.table.TableEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -19,4 +20,8 @@ public interface TableRepository extends JpaRepository<TableEntity, Long> {
 
     // Find all tables by location (e.g., indoor, outdoor, VIP area)
     List<TableEntity> findByLocationId(Long locationId);
+
+    // [id, capacity] của tất cả bàn (nạp TableAvailabilityEngine)
+    @Query("SELECT t.id, t.capacity FROM TableEntity t")
+    List<Object[]> findAllCapacities();
 }
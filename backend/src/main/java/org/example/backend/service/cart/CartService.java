@@ -10,7 +10,7 @@ import org.example.backend.entity.param.Param;
 import org.example.backend.entity.user.User;
 import org.example.backend.exception.ResourceNotFoundException;
 import org.example.backend.repository.cart.CartRepository;
-import org.example.backend.repository.param.ParamRepository;
+import org.example.backend.service.param.ParamRegistry;
 import org.example.backend.repository.user.UserRepository;
 import org.example.backend.util.WebSocketNotifier;
 import org.springframework.stereotype.Service;
@@ -27,7 +27,7 @@ public class CartService {
 
     private final UserRepository userRepository;
 
-    private final ParamRepository paramRepository;
+    private final ParamRegistry paramRegistry;
 
     private final WebSocketNotifier webSocketNotifier;
 
@@ -70,7 +70,7 @@ public class CartService {
         User user = userRepository.findByPublicId(publicId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-        Param openStatus = paramRepository.findByTypeAndCode("STATUS_CART", "OPEN")
+        Param openStatus = paramRegistry.find("STATUS_CART", "OPEN")
                 .orElseThrow(() -> new RuntimeException("Default status not found"));
 
         Cart cart = new Cart();
@@ -88,7 +88,7 @@ public class CartService {
                 .orElseThrow(() -> new RuntimeException("Cart not found"));
 
         if (dto.getStatus() != null) {
-            cart.setStatus(paramRepository.findByTypeAndCode("CART_STATUS", dto.getStatus())
+            cart.setStatus(paramRegistry.find("CART_STATUS", dto.getStatus())
                     .orElseThrow(() -> new RuntimeException("Invalid status")));
         }
 
@@ -125,7 +125,7 @@ public class CartService {
         if (dto.getStatus() == null) {
             throw new ValidationException("Cart status must not be null");
         }
-        Param status = paramRepository.findByTypeAndCode("STATUS_CART", dto.getStatus())
+        Param status = paramRegistry.find("STATUS_CART", dto.getStatus())
                 .orElseThrow(() -> new ResourceNotFoundException("Invalid status: " + dto.getStatus()));
         entity.setStatus(status);
 
@@ -0,0 +1,118 @@
+package org.example.backend.service.feed;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Nhật ký thay đổi (delta log) trong bộ nhớ cho các live feed (bàn, menu):
+ * - Mỗi feed có version tăng dần 1 đơn vị, được đánh vào payload ngay lúc gửi ("version")
+ * - Giữ tối đa websocket.feed.log-capacity delta gần nhất mỗi feed (mặc định 1000), cũ hơn thì bị đẩy ra
+ * - epoch đổi mỗi lần khởi động: version của lần chạy trước không còn ý nghĩa -> client phải lấy snapshot.
+ *   Mỗi node backend có FeedLog (epoch, version) riêng, nên payload mang cả "epoch": client WebSocket ở node B
+ *   mà gọi bù dữ liệu ở node A thấy epoch khác nhau và không so version của 2 node với nhau.
+ * Chạy nhiều node: load balancer PHẢI định tuyến dính (sticky, theo cookie / IP) cả /ws lẫn /api/v1/feeds của 1 client
+ * về cùng 1 node. Không dính thì lần bù gần như luôn rơi vào node khác -> khác epoch -> client tải lại toàn bộ
+ * thay vì áp dụng delta (vẫn đúng, nhưng mất tác dụng của delta log).
+ * Client mất kết nối gọi GET /api/v1/feeds/{feed}?since=N&epoch=E để bù phần thiếu (xem FeedResyncService).
+ */
+@Component
+public class FeedLog {
+
+    public enum Feed {
+        TABLES, MENU;
+
+        public String id() {
+            return name().toLowerCase();
+        }
+
+        public static Optional<Feed> fromId(String id) {
+            return Arrays.stream(values()).filter(f -> f.id().equalsIgnoreCase(id)).findFirst();
+        }
+    }
+
+    /** 1 thay đổi đã gửi: type = status/stock/new/update/delete, data = payload đã gửi (kèm version). */
+    public record Delta(long version, String type, Map<String, Object> data) {
+    }
+
+    private final String epoch = UUID.randomUUID().toString();
+    private final int capacity;
+    private final Map<Feed, Log> logs = new EnumMap<>(Feed.class);
+
+    public FeedLog(@Value("${websocket.feed.log-capacity:1000}") int capacity) {
+        this.capacity = Math.max(1, capacity);
+        for (Feed feed : Feed.values()) {
+            logs.put(feed, new Log());
+        }
+    }
+
+    public String epoch() {
+        return epoch;
+    }
+
+    /** Version mới nhất đã gửi của feed (0 = chưa có thay đổi nào từ lúc khởi động). */
+    public long version(Feed feed) {
+        Log log = logs.get(feed);
+        synchronized (log) {
+            return log.version;
+        }
+    }
+
+    /**
+     * Cấp version kế tiếp cho 1 thay đổi và ghi vào log.
+     * @return bản sao payload có thêm trường "version" và "epoch" (payload gốc không bị sửa)
+     */
+    public Map<String, Object> append(Feed feed, String type, Map<String, Object> data) {
+        Map<String, Object> stamped = new LinkedHashMap<>(data);
+        Log log = logs.get(feed);
+        synchronized (log) {
+            long version = ++log.version;
+            stamped.put("version", version);
+            stamped.put("epoch", epoch);
+            log.deltas.addLast(new Delta(version, type, stamped));
+            if (log.deltas.size() > capacity) {
+                log.deltas.removeFirst();
+            }
+        }
+        return stamped;
+    }
+
+    /**
+     * Các delta có version > since, theo thứ tự.
+     * Rỗng (Optional.empty) nếu không bù được: since đã bị đẩy khỏi log, hoặc since lớn hơn version hiện tại
+     * (client giữ version của lần chạy trước) -> caller trả snapshot.
+     */
+    public Optional<List<Delta>> since(Feed feed, long since) {
+        Log log = logs.get(feed);
+        synchronized (log) {
+            if (since < 0 || since > log.version) {
+                return Optional.empty();
+            }
+            long oldest = log.deltas.isEmpty() ? log.version + 1 : log.deltas.peekFirst().version();
+            if (since + 1 < oldest) {
+                return Optional.empty();
+            }
+            List<Delta> result = new ArrayList<>((int) (log.version - since));
+            for (Delta delta : log.deltas) {
+                if (delta.version() > since) {
+                    result.add(delta);
+                }
+            }
+            return Optional.of(result);
+        }
+    }
+
+    private static final class Log {
+        private long version;
+        private final ArrayDeque<Delta> deltas = new ArrayDeque<>();
+    }
+}
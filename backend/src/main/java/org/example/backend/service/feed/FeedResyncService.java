@@ -0,0 +1,60 @@
+package org.example.backend.service.feed;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.backend.dto.feed.FeedResyncDto;
+import org.example.backend.service.menu.MenuCatalog;
+import org.example.backend.service.table.TableService;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Bù dữ liệu cho client live feed sau khi mất kết nối:
+ * - Cùng epoch và since còn trong FeedLog -> trả các delta từ since
+ * - Ngược lại (lần đầu, server đã khởi động lại, since đã bị đẩy khỏi log) -> trả snapshot,
+ *   hoặc không trả gì nếu client không xin snapshot (client tự tải lại qua API của trang, tránh đọc DB 2 lần)
+ * - head: chỉ (epoch, version) hiện tại, client dùng làm mốc ngay lần kết nối đầu
+ * Snapshot: đọc version TRƯỚC rồi mới đọc dữ liệu, nên mọi thay đổi có version <= version đều nằm trong snapshot
+ * (thay đổi mới hơn có thể đã có trong snapshot và được áp dụng lại - các sự kiện feed đều idempotent).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FeedResyncService {
+
+    private final FeedLog feedLog;
+    private final TableService tableService;
+    private final MenuCatalog menuCatalog;
+
+    /** (epoch, version) hiện tại của feed, không kèm dữ liệu. */
+    public FeedResyncDto head(FeedLog.Feed feed) {
+        return new FeedResyncDto(feed.id(), feedLog.epoch(), feedLog.version(feed), List.of(), null);
+    }
+
+    public FeedResyncDto resync(FeedLog.Feed feed, Long since, String epoch, boolean withSnapshot) {
+        if (since != null && Objects.equals(epoch, feedLog.epoch())) {
+            long version = feedLog.version(feed);
+            Optional<List<FeedLog.Delta>> deltas = feedLog.since(feed, since);
+            if (deltas.isPresent()) {
+                List<FeedLog.Delta> list = deltas.get();
+                // version của delta cuối (có thể mới hơn version đọc ở trên nếu vừa có thay đổi)
+                long latest = list.isEmpty() ? version : list.get(list.size() - 1).version();
+                return new FeedResyncDto(feed.id(), feedLog.epoch(), latest, list, null);
+            }
+            log.debug("🔁 Feed {}: since={} không còn trong log (version={}), trả snapshot", feed.id(), since, version);
+        }
+        long version = feedLog.version(feed);
+        return new FeedResyncDto(feed.id(), feedLog.epoch(), version, null, withSnapshot ? snapshot(feed) : null);
+    }
+
+    private List<?> snapshot(FeedLog.Feed feed) {
+        return switch (feed) {
+            case TABLES -> tableService.findAll();
+            // Đọc DB (không lấy snapshot của catalog: rebuild nền nên có thể chậm hơn version), cùng 3 câu cố định
+            case MENU -> menuCatalog.loadAll();
+        };
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.backend.service.inventory;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.entity.param.Param;
+import org.example.backend.exception.InsufficientStockException;
+import org.example.backend.service.param.ParamRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Trừ kho nguyên tử, không khoá bi quan:
+ * - "UPDATE inventory SET quantity = quantity - ? WHERE menu_item_id = ? AND quantity >= ?" cho từng món,
+ *   chuẩn bị 1 lần trên 1 kết nối; điều kiện quantity >= ? do DB kiểm tra trên từng dòng nên không thể bán quá.
+ *   Không dùng JDBC batch: MySQL với rewriteBatchedStatements=true trả SUCCESS_NO_INFO cho mọi dòng,
+ *   không phân biệt được món nào thiếu hàng.
+ * - update count = 0 nghĩa là thiếu hàng (hoặc chưa có tồn kho) -> ném InsufficientStockException,
+ *   transaction của caller rollback toàn bộ các dòng đã trừ.
+ * - Cập nhật trạng thái OUT_OF_STOCK / AVAILABLE của các món bằng 2 câu UPDATE hàng loạt.
+ * Phải được gọi trong 1 transaction (vd: @Transactional của service).
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryEngine {
+
+    private static final String DECREMENT_SQL =
+            "UPDATE inventory SET quantity = quantity - ?, last_updated = ? WHERE menu_item_id = ? AND quantity >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ParamRegistry paramRegistry;
+
+    /**
+     * Trừ kho cho các món.
+     *
+     * @param quantities menuItemId -> số lượng cần trừ (đã gộp theo món)
+     * @return danh sách id các món đã trừ kho
+     */
+    public List<Long> decrement(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return List.of();
+        }
+
+        // Sắp xếp theo id để các transaction đồng thời luôn khoá dòng theo cùng thứ tự (tránh deadlock)
+        List<Map.Entry<Long, Integer>> lines = quantities.entrySet().stream()
+                .filter(e -> e.getValue() != null && e.getValue() > 0)
+                .sorted(Map.Entry.comparingByKey())
+                .toList();
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Long> shortfalls = jdbcTemplate.execute(DECREMENT_SQL, (PreparedStatement ps) -> {
+            List<Long> missing = new ArrayList<>();
+            for (Map.Entry<Long, Integer> line : lines) {
+                ps.setInt(1, line.getValue());
+                ps.setTimestamp(2, now);
+                ps.setLong(3, line.getKey());
+                ps.setInt(4, line.getValue());
+                if (ps.executeUpdate() == 0) {
+                    missing.add(line.getKey());
+                }
+            }
+            return missing;
+        });
+        if (!shortfalls.isEmpty()) {
+            throw new InsufficientStockException(
+                    "Không đủ số lượng cho món: " + String.join(", ", menuItemNames(shortfalls)), shortfalls);
+        }
+
+        List<Long> ids = lines.stream().map(Map.Entry::getKey).toList();
+        refreshStockStatus(ids, now);
+        return ids;
+    }
+
+    /** Đặt OUT_OF_STOCK cho món hết hàng và AVAILABLE cho món còn hàng (2 câu UPDATE). */
+    private void refreshStockStatus(List<Long> menuItemIds, Timestamp now) {
+        NamedParameterJdbcTemplate named = new NamedParameterJdbcTemplate(jdbcTemplate);
+        Param outOfStock = paramRegistry.find("MENU_ITEM_STATUS", "OUT_OF_STOCK")
+                .orElseThrow(() -> new RuntimeException("Param OUT_OF_STOCK not found"));
+        Param available = paramRegistry.find("MENU_ITEM_STATUS", "AVAILABLE")
+                .orElseThrow(() -> new RuntimeException("Param AVAILABLE not found"));
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", menuItemIds)
+                .addValue("now", now)
+                .addValue("outOfStock", outOfStock.getId())
+                .addValue("available", available.getId());
+
+        named.update("""
+                UPDATE menu_items SET status_id = :outOfStock, updated_at = :now
+                WHERE id IN (SELECT menu_item_id FROM inventory WHERE menu_item_id IN (:ids) AND quantity = 0)
+                  AND (status_id IS NULL OR status_id <> :outOfStock)
+                """, params);
+        named.update("""
+                UPDATE menu_items SET status_id = :available, updated_at = :now
+                WHERE id IN (SELECT menu_item_id FROM inventory WHERE menu_item_id IN (:ids) AND quantity > 0)
+                  AND (status_id IS NULL OR status_id <> :available)
+                """, params);
+    }
+
+    private List<String> menuItemNames(List<Long> ids) {
+        NamedParameterJdbcTemplate named = new NamedParameterJdbcTemplate(jdbcTemplate);
+        Map<Long, String> names = named.query(
+                        "SELECT id, name FROM menu_items WHERE id IN (:ids)",
+                        new MapSqlParameterSource("ids", ids),
+                        (rs, i) -> Map.entry(rs.getLong("id"), rs.getString("name")))
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        return ids.stream().map(id -> names.getOrDefault(id, "#" + id)).toList();
+    }
+}
@@ -11,7 +11,7 @@ import org.example.backend.repository.category.CategoryRepository;
 import org.example.backend.repository.menu.ComboItemRepository;
 import org.example.backend.repository.menu.ComboRepository;
 import org.example.backend.repository.menu.MenuItemRepository;
-import org.example.backend.repository.param.ParamRepository;
+import org.example.backend.service.param.ParamRegistry;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -34,7 +34,7 @@ public class ComboService {
     private final ComboItemRepository comboItemRepository;
     private final MenuItemRepository menuItemRepository;
     private final CategoryRepository categoryRepository;
-    private final ParamRepository paramRepository;
+    private final ParamRegistry paramRegistry;
 
     @Transactional(readOnly = true)
     public Page<ComboDto> findAll(int page, int size, String search, Long categoryId, Long statusId, String sort) {
@@ -101,7 +101,7 @@ public class ComboService {
         // 3. Cập nhật Status
         combo.setStatus(
                 request.getStatusId() != null && request.getStatusId() > 0
-                        ? paramRepository.findById(request.getStatusId())
+                        ? paramRegistry.findById(request.getStatusId())
                         .orElseThrow(() -> new NotFoundException("Status not found: " + request.getStatusId()))
                         : null
         );
@@ -156,11 +156,14 @@ public class ComboService {
         }
 
         // 8. Tính lại giá combo
-        BigDecimal totalPrice = combo.getItems().stream()
+        combo.setPrice(computePrice(combo.getItems()));
+    }
+
+    /** Giá combo = tổng (giá món × số lượng) của các dòng. */
+    public static BigDecimal computePrice(List<ComboItem> items) {
+        return items.stream()
                 .map(ci -> ci.getMenuItem().getPrice().multiply(BigDecimal.valueOf(ci.getQuantity())))
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        combo.setPrice(totalPrice);
     }
 
     // ===== DTO Mapping =====
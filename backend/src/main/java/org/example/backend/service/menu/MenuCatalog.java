@@ -0,0 +1,296 @@
+package org.example.backend.service.menu;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.backend.dto.menu.MenuItemDto;
+import org.example.backend.dto.menu.MenuItemMapper;
+import org.example.backend.entity.menu.MenuItem;
+import org.example.backend.repository.menu.MenuItemRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Bản chụp (snapshot) bất biến của toàn bộ menu dùng cho các trang duyệt menu công khai.
+ * - Đọc: lock-free qua AtomicReference, không chạm DB. Trả bản sao MenuItemDto (DTO là @Data, sửa được),
+ *   caller sửa bản sao không ảnh hưởng snapshot dùng chung.
+ * - Nạp: 3 câu cố định cho cả menu (món + category/status/inventory/stats, reviews, nguyên liệu), không N+1.
+ * - Ghi: copy-on-write, rebuild nền trên 1 thread riêng mỗi khi có MenuItemChangedEvent
+ *   (sau commit), các event dồn dập được gộp lại thành 1 lần rebuild.
+ * - Làm mới định kỳ để cập nhật rating/sold và nhãn "món mới" (7 ngày).
+ * - Thứ tự "popular" dùng số lượng bán trong cửa sổ ngắn của PopularityLeaderboard;
+ *   khi bảng xếp hạng đổi thì chỉ sắp xếp lại snapshot hiện có, không đọc lại DB.
+ */
+@Slf4j
+@Component
+public class MenuCatalog {
+
+    private static final int NEW_ITEM_DAYS = 7;
+
+    private final MenuItemRepository menuItemRepository;
+    private final MenuItemMapper menuItemMapper;
+    private final PopularityLeaderboard popularityLeaderboard;
+    private final TransactionTemplate readOnlyTx;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean(false);
+    private final AtomicBoolean resortPending = new AtomicBoolean(false);
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "menu-catalog-rebuild");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public MenuCatalog(MenuItemRepository menuItemRepository,
+                       MenuItemMapper menuItemMapper,
+                       PopularityLeaderboard popularityLeaderboard,
+                       PlatformTransactionManager transactionManager) {
+        this.menuItemRepository = menuItemRepository;
+        this.menuItemMapper = menuItemMapper;
+        this.popularityLeaderboard = popularityLeaderboard;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    /** Snapshot đã sẵn sàng chưa (chưa sẵn sàng thì caller fallback về DB). */
+    public boolean isReady() {
+        return snapshot.get() != null;
+    }
+
+    /**
+     * Lấy 1 trang từ snapshot.
+     *
+     * @param sort         popular | price-asc | price-desc | newest
+     * @param categorySlug null = tất cả danh mục
+     * @param filter       lọc thêm (vd: theo từ khoá), null = không lọc
+     */
+    public Page<MenuItemDto> page(int page, int size, String sort, String categorySlug, Predicate<MenuItemDto> filter) {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            throw new IllegalStateException("Menu catalog chưa sẵn sàng");
+        }
+        if (current.popularityVersion() != popularityLeaderboard.version()) {
+            scheduleResort(); // trang này vẫn dùng thứ tự cũ, các request sau dùng thứ tự mới
+        }
+
+        SortedViews views = categorySlug == null
+                ? current.all()
+                : current.byCategory().getOrDefault(categorySlug.toLowerCase(), SortedViews.EMPTY);
+        List<MenuItemDto> source = views.get(sort);
+        if (filter != null) {
+            source = source.stream().filter(filter).toList();
+        }
+
+        Pageable pageable = PageRequest.of(page, size);
+        int from = (int) Math.min(pageable.getOffset(), source.size());
+        int to = Math.min(from + size, source.size());
+        return new PageImpl<>(copies(source.subList(from, to)), pageable, source.size());
+    }
+
+    /**
+     * Lấy 1 trang theo đúng thứ tự id cho trước (vd: thứ tự độ liên quan từ MenuSearchIndex).
+     */
+    public Page<MenuItemDto> pageByIds(List<Long> orderedIds, int page, int size, String categorySlug) {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            throw new IllegalStateException("Menu catalog chưa sẵn sàng");
+        }
+
+        List<MenuItemDto> source = orderedIds.stream()
+                .map(current.byId()::get)
+                .filter(Objects::nonNull)
+                .filter(dto -> categorySlug == null || categorySlug.equalsIgnoreCase(dto.getCategorySlug()))
+                .toList();
+
+        Pageable pageable = PageRequest.of(page, size);
+        int from = (int) Math.min(pageable.getOffset(), source.size());
+        int to = Math.min(from + size, source.size());
+        return new PageImpl<>(copies(source.subList(from, to)), pageable, source.size());
+    }
+
+    public Optional<MenuItemDto> findById(Long id) {
+        Snapshot current = snapshot.get();
+        return current == null ? Optional.empty() : Optional.ofNullable(current.byId().get(id)).map(MenuItemDto::new);
+    }
+
+    /** Toàn bộ món trong snapshot (thứ tự popular). */
+    public List<MenuItemDto> all() {
+        Snapshot current = snapshot.get();
+        return current == null ? List.of() : copies(current.all().popular());
+    }
+
+    private static List<MenuItemDto> copies(List<MenuItemDto> items) {
+        return items.stream().map(MenuItemDto::new).toList();
+    }
+
+    // ===================== REBUILD =====================
+
+    @Order(10)
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("⚠️ Không thể nạp menu catalog khi khởi động, sẽ dùng DB: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMenuItemChanged(MenuItemChangedEvent event) {
+        scheduleRebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${menu.catalog.refresh-ms:300000}", initialDelayString = "${menu.catalog.refresh-ms:300000}")
+    public void periodicRefresh() {
+        scheduleRebuild();
+    }
+
+    /** Yêu cầu rebuild nền; nếu đã có 1 lần rebuild đang chờ thì bỏ qua (coalesce). */
+    public void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    log.error("❌ Rebuild menu catalog thất bại, giữ snapshot cũ", e);
+                }
+            });
+        }
+    }
+
+    /** Sắp xếp lại snapshot hiện có theo bảng xếp hạng mới (nền, gộp các yêu cầu dồn dập). */
+    public void scheduleResort() {
+        if (resortPending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                resortPending.set(false);
+                Snapshot current = snapshot.get();
+                if (current != null) {
+                    snapshot.set(snapshotOf(current.all().popular(), current.builtAt()));
+                }
+            });
+        }
+    }
+
+    /** Đọc toàn bộ menu trong 1 transaction read-only và thay snapshot một cách nguyên tử. */
+    public void rebuild() {
+        List<MenuItemDto> items = loadAll();
+        snapshot.set(snapshotOf(items, LocalDateTime.now()));
+        log.debug("🍽️ Menu catalog rebuilt: {} món", items.size());
+    }
+
+    /**
+     * Đọc toàn bộ menu từ DB (không qua snapshot) bằng 3 câu cố định, trả DTO mới.
+     * Dùng cho rebuild và cho snapshot bù dữ liệu của live feed (FeedResyncService).
+     */
+    public List<MenuItemDto> loadAll() {
+        List<MenuItemDto> items = readOnlyTx.execute(status -> {
+            List<Object[]> rows = menuItemRepository.findAllForCatalog();
+            List<Long> ids = rows.stream().map(row -> ((MenuItem) row[0]).getId()).toList();
+            if (!ids.isEmpty()) {
+                // Nạp sẵn 2 collection vào persistence context -> constructor MenuItemDto không query theo từng món
+                menuItemRepository.fetchReviews(ids);
+                menuItemRepository.fetchIngredients(ids);
+            }
+            return rows.stream().map(menuItemMapper::toCatalogDto).toList();
+        });
+        return items == null ? List.of() : items;
+    }
+
+    // ===================== SNAPSHOT =====================
+
+    private Snapshot snapshotOf(List<MenuItemDto> items, LocalDateTime now) {
+        // Đọc version trước khi chấm điểm: thay đổi xảy ra trong lúc sắp xếp sẽ kích hoạt lần resort tiếp theo
+        long version = popularityLeaderboard.version();
+        ToLongFunction<MenuItemDto> sold = popularityLeaderboard.isReady()
+                ? dto -> popularityLeaderboard.sold(PopularityLeaderboard.Window.SHORT, dto.getId())
+                : dto -> dto.getSold() == null ? 0L : dto.getSold();
+        return Snapshot.of(items, now, sold, version);
+    }
+
+    private record Snapshot(SortedViews all,
+                            Map<String, SortedViews> byCategory,
+                            Map<Long, MenuItemDto> byId,
+                            LocalDateTime builtAt,
+                            long popularityVersion) {
+
+        static Snapshot of(List<MenuItemDto> items, LocalDateTime now, ToLongFunction<MenuItemDto> sold, long popularityVersion) {
+            Map<Long, MenuItemDto> byId = new HashMap<>();
+            Map<Long, Long> scores = new HashMap<>();
+            items.forEach(i -> {
+                byId.put(i.getId(), i);
+                scores.put(i.getId(), sold.applyAsLong(i));
+            });
+
+            Map<String, SortedViews> byCategory = items.stream()
+                    .filter(i -> i.getCategorySlug() != null)
+                    .collect(Collectors.groupingBy(MenuItemDto::getCategorySlug))
+                    .entrySet().stream()
+                    .collect(Collectors.toUnmodifiableMap(e -> e.getKey(), e -> SortedViews.of(e.getValue(), now, scores)));
+
+            return new Snapshot(SortedViews.of(items, now, scores), byCategory, Collections.unmodifiableMap(byId), now, popularityVersion);
+        }
+    }
+
+    private record SortedViews(List<MenuItemDto> popular,
+                               List<MenuItemDto> priceAsc,
+                               List<MenuItemDto> priceDesc,
+                               List<MenuItemDto> newest) {
+
+        static final SortedViews EMPTY = new SortedViews(List.of(), List.of(), List.of(), List.of());
+
+        static SortedViews of(List<MenuItemDto> items, LocalDateTime now, Map<Long, Long> scores) {
+            LocalDateTime newThreshold = now.minusDays(NEW_ITEM_DAYS);
+            Comparator<MenuItemDto> byIdDesc = Comparator.comparing(MenuItemDto::getId, Comparator.reverseOrder());
+
+            // Giống findAllWithDetailsOrdered: món mới lên đầu, hết hàng xuống cuối, rồi theo số lượng bán gần đây
+            Comparator<MenuItemDto> popular = Comparator
+                    .comparing((MenuItemDto i) -> i.getCreatedAt() != null && i.getCreatedAt().isAfter(newThreshold) ? 0 : 1)
+                    .thenComparing(i -> "OUT_OF_STOCK".equals(i.getStatus()) ? 1 : 0)
+                    .thenComparing(i -> scores.getOrDefault(i.getId(), 0L), Comparator.reverseOrder())
+                    .thenComparing(byIdDesc);
+            Comparator<MenuItemDto> priceAsc = Comparator
+                    .comparing(MenuItemDto::getPrice, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(byIdDesc);
+            Comparator<MenuItemDto> priceDesc = Comparator
+                    .comparing(MenuItemDto::getPrice, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(byIdDesc);
+            Comparator<MenuItemDto> newest = Comparator
+                    .comparing(MenuItemDto::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(byIdDesc);
+
+            return new SortedViews(
+                    items.stream().sorted(popular).toList(),
+                    items.stream().sorted(priceAsc).toList(),
+                    items.stream().sorted(priceDesc).toList(),
+                    items.stream().sorted(newest).toList());
+        }
+
+        List<MenuItemDto> get(String sort) {
+            return switch (sort == null ? "" : sort.toLowerCase()) {
+                case "price-asc" -> priceAsc;
+                case "price-desc" -> priceDesc;
+                case "newest" -> newest;
+                default -> popular;
+            };
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.backend.service.menu;
+
+/**
+ * Sự kiện nội bộ phát ra khi dữ liệu menu thay đổi (cùng lúc với các thông báo WebSocket).
+ *
+ * @param menuItemId id món bị thay đổi, {@code null} nếu thay đổi ảnh hưởng nhiều món (vd: đổi tên danh mục)
+ * @param deleted    {@code true} nếu món đã bị xoá
+ */
+public record MenuItemChangedEvent(Long menuItemId, boolean deleted) {
+
+    public static MenuItemChangedEvent of(Long menuItemId) {
+        return new MenuItemChangedEvent(menuItemId, false);
+    }
+
+    public static MenuItemChangedEvent deleted(Long menuItemId) {
+        return new MenuItemChangedEvent(menuItemId, true);
+    }
+
+    public static MenuItemChangedEvent all() {
+        return new MenuItemChangedEvent(null, false);
+    }
+}
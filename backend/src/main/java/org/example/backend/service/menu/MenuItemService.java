@@ -2,11 +2,11 @@ package org.example.backend.service.menu;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.example.backend.dto.menu.MenuItemMapper;
 import org.example.backend.dto.review.ReviewDto;
-import org.example.backend.entity.order.OrderItem;
 import org.example.backend.entity.review.Review;
 import org.example.backend.repository.order.OrderItemRepository;
 import org.example.backend.repository.review.ReviewRepository;
@@ -31,8 +31,12 @@ import org.example.backend.repository.ingredient.IngredientRepository;
 import org.example.backend.repository.inventory.InventoryRepository;
 import org.example.backend.repository.menu.MenuItemRepository;
 import org.example.backend.repository.menu.MenuItemIngredientRepository;
-import org.example.backend.repository.param.ParamRepository;
+import org.example.backend.service.inventory.InventoryEngine;
+import org.example.backend.service.param.ParamRegistry;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -48,7 +52,7 @@ public class MenuItemService {
 
     private final MenuItemRepository menuItemRepository;
     private final CategoryRepository categoriesRepository;
-    private final ParamRepository paramRepository;
+    private final ParamRegistry paramRegistry;
     private final IngredientRepository ingredientRepository;
     private final MenuItemIngredientRepository menuItemIngredientRepository;
     private final InventoryRepository inventoryRepository;
@@ -57,10 +61,41 @@ public class MenuItemService {
     private final MenuItemMapper menuItemMapper;
     private final OrderItemRepository orderItemRepository;
     private final WebSocketNotifier webSocketNotifier;
+    private final MenuItemStatsService menuItemStatsService;
+    private final MenuCatalog menuCatalog;
+    private final PopularityLeaderboard popularityLeaderboard;
+    private final MenuSearchIndex menuSearchIndex;
+    private final InventoryEngine inventoryEngine;
+    private final PlatformTransactionManager transactionManager;
 
     // --- BASIC CRUD ---
-    @Transactional(readOnly = true)
+    // SUPPORTS: khi đọc từ catalog snapshot thì không mở transaction / không lấy connection
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Page<MenuItemDto> findAll(int page, int size, String search, String sort, String categorySlug) {
+        boolean hasSearch = search != null && !search.trim().isEmpty();
+        boolean hasCategory = categorySlug != null && !categorySlug.trim().isEmpty();
+
+        String slug = hasCategory ? categorySlug.trim() : null;
+        // 🔎 Từ khoá được resolve thành danh sách id (theo độ liên quan) qua search index
+        List<Long> matchedIds = hasSearch && menuSearchIndex.isReady()
+                ? menuSearchIndex.search(search)
+                : null;
+
+        // 0️⃣ Phục vụ từ snapshot trong bộ nhớ nếu đã sẵn sàng
+        if (menuCatalog.isReady()) {
+            if (matchedIds != null) {
+                if ("popular".equalsIgnoreCase(sort)) {
+                    // Khi tìm kiếm, "phổ biến" = xếp theo độ liên quan
+                    return menuCatalog.pageByIds(matchedIds, page, size, slug);
+                }
+                Set<Long> idSet = new HashSet<>(matchedIds);
+                return menuCatalog.page(page, size, sort, slug, dto -> idSet.contains(dto.getId()));
+            }
+            String keyword = hasSearch ? search.trim().toLowerCase() : null;
+            return menuCatalog.page(page, size, sort, slug,
+                    keyword == null ? null : dto -> dto.getName() != null && dto.getName().toLowerCase().contains(keyword));
+        }
+
         // 1️⃣ Xác định kiểu sắp xếp
         Sort sortOption;
         String sortLower = sort.toLowerCase();
@@ -80,10 +115,12 @@ public class MenuItemService {
         // 2️⃣ Gọi repository phù hợp với bộ lọc
         Page<Object[]> results;
 
-        boolean hasSearch = search != null && !search.trim().isEmpty();
-        boolean hasCategory = categorySlug != null && !categorySlug.trim().isEmpty();
-
-        if (hasSearch && hasCategory) {
+        if (matchedIds != null) {
+            if (matchedIds.isEmpty()) {
+                return Page.empty(pageable);
+            }
+            results = menuItemRepository.findAllWithDetailsByIdIn(matchedIds, slug, pageable);
+        } else if (hasSearch && hasCategory) {
             results = menuItemRepository.findAllWithDetailsByCategoryAndName(categorySlug, "%" + search.trim() + "%", pageable);
         } else if (hasCategory) {
             results = menuItemRepository.findAllWithDetailsByCategory(categorySlug, pageable);
@@ -95,29 +132,29 @@ public class MenuItemService {
             results = menuItemRepository.findAllWithDetails(pageable);
         }
 
-        return results.map(this::toMenuItemDto);
+        return results.map(menuItemMapper::toDto);
     }
 
     public List<MenuItemDto> findTopPopular(int limit) {
+        // 🔥 Top K từ bảng xếp hạng cửa sổ dài, thiếu thì bù theo thứ tự popular của catalog
+        if (popularityLeaderboard.isReady() && menuCatalog.isReady()) {
+            Map<Long, MenuItemDto> top = new LinkedHashMap<>();
+            for (Long id : popularityLeaderboard.top(PopularityLeaderboard.Window.LONG, limit)) {
+                menuCatalog.findById(id).ifPresent(dto -> top.put(id, dto));
+            }
+            for (MenuItemDto dto : menuCatalog.all()) {
+                if (top.size() >= limit) break;
+                top.putIfAbsent(dto.getId(), dto);
+            }
+            return new ArrayList<>(top.values());
+        }
+
         List<Object[]> results = menuItemRepository.findTopPopular(PageRequest.of(0, limit));
         return results.stream()
                 .map(menuItemMapper::toDto)
                 .collect(Collectors.toList());
     }
 
-    private MenuItemDto toMenuItemDto(Object[] result) {
-        MenuItem entity = (MenuItem) result[0];
-        MenuItemDto dto = new MenuItemDto(entity);
-        dto.setCategoryName((String) result[1]);
-        dto.setCategorySlug((String) result[2]);
-        dto.setStatus((String) result[3]);
-        dto.setRating((Double) result[4]);
-        dto.setSold(((Number) result[5]).longValue());
-        // Nếu có tags, thêm logic ở đây (ví dụ: parse từ cột tags trong menu_items)
-        // dto.setTags(Arrays.asList("traditional", "spicy")); // Ví dụ
-        return dto;
-    }
-
     public MenuItemDto getById(Long id, Integer reviewPage, Integer reviewSize, String reviewFilter) {
         MenuItem menuItem = menuItemRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Menu item not found"));
@@ -161,44 +198,14 @@ public class MenuItemService {
     }
 
     @Transactional
+    @Timed(value = "app.inventory.reduce", histogram = true, description = "Trừ kho theo đơn (tag exception=InsufficientStockException khi thiếu hàng)")
     public List<Long> reduceInventory(Long orderId) {
-        List<OrderItem> orderItems = orderItemRepository.findByOrderId(orderId);
-        List<Long> affectedMenuIds = new ArrayList<>();
-
-        for (OrderItem orderItem : orderItems) {
-            MenuItem menuItem = orderItem.getMenuItem();
-
-            if (menuItem == null) continue;
-
-            Inventory inventory = inventoryRepository.findByMenuItem(menuItem)
-                    .orElseThrow(() -> new RuntimeException(
-                            "Inventory not found for menu item: " + menuItem.getName()
-                    ));
-
-            int remaining = inventory.getQuantity() - orderItem.getQuantity();
-            if (remaining < 0) {
-                throw new RuntimeException("Không đủ số lượng cho món: " + menuItem.getName());
-            }
-
-            inventory.setQuantity(remaining);
-            inventoryRepository.save(inventory);
-
-            // 🔹 Lấy status param tương ứng
-            if (remaining == 0) {
-                Param outOfStockParam = paramRepository.findByTypeAndCode("MENU_ITEM_STATUS", "OUT_OF_STOCK")
-                        .orElseThrow(() -> new RuntimeException("Param OUT_OF_STOCK not found"));
-                menuItem.setStatus(outOfStockParam);
-            } else {
-                Param availableParam = paramRepository.findByTypeAndCode("MENU_ITEM_STATUS", "AVAILABLE")
-                        .orElseThrow(() -> new RuntimeException("Param AVAILABLE not found"));
-                menuItem.setStatus(availableParam);
-            }
-
-            menuItemRepository.save(menuItem);
-            affectedMenuIds.add(menuItem.getId());
+        // 🔹 Gộp số lượng theo món rồi trừ kho bằng UPDATE có điều kiện từng món (không khoá bi quan)
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (Object[] row : orderItemRepository.sumQuantitiesByMenuItem(orderId)) {
+            quantities.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
         }
-
-        return affectedMenuIds;
+        return inventoryEngine.decrement(quantities);
     }
 
     // --- NEW METHODS ---
@@ -257,6 +264,7 @@ public class MenuItemService {
             // - menu_item_ingredients (CASCADE ALL with orphanRemoval)
             
             System.out.println("✅ No foreign key constraints found. Proceeding with delete...");
+            menuItemStatsService.onMenuItemDeleted(id);
             menuItemRepository.deleteById(id);
             System.out.println("🎉 Successfully deleted MenuItem with id: " + id);
             webSocketNotifier.notifyDeletedMenuItem(id);
@@ -295,16 +303,22 @@ public class MenuItemService {
 
     
 
-    @Transactional
+    // Không @Transactional: upload Cloudinary (gọi HTTP, chậm) chạy ngoài transaction để không giữ connection DB,
+    // chỉ phần đọc / ghi URL nằm trong transaction ngắn
     public MenuItemDto uploadMenuItemAvatar(Long menuItemId, MultipartFile file) throws IOException {
-        MenuItem menuItem = menuItemRepository.findById(menuItemId)
-                .orElseThrow(() -> new RuntimeException("MenuItem not found"));
+        if (!menuItemRepository.existsById(menuItemId)) {
+            throw new RuntimeException("MenuItem not found");
+        }
 
         String url = uploadAvatarToCloudinary(file, "menu");
-        menuItem.setAvatarUrl(url);
 
-        menuItemRepository.save(menuItem);
-        return new MenuItemDto(menuItem);
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            MenuItem menuItem = menuItemRepository.findById(menuItemId)
+                    .orElseThrow(() -> new RuntimeException("MenuItem not found"));
+            menuItem.setAvatarUrl(url);
+            menuItemRepository.save(menuItem);
+            return new MenuItemDto(menuItem);
+        });
     }
 
     private String uploadAvatarToCloudinary(MultipartFile file, String folder) throws IOException {
@@ -337,7 +351,7 @@ public class MenuItemService {
         Pageable pageable = PageRequest.of(page, size, sort);
         
         Page<Object[]> results = menuItemRepository.findAllWithDetails(pageable);
-        return results.map(this::toMenuItemDto);
+        return results.map(menuItemMapper::toDto);
     }
 
     @Transactional(readOnly = true)
@@ -347,7 +361,32 @@ public class MenuItemService {
         Sort sort = Sort.by(direction, searchRequest.getSortBy());
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        // Call repository method with search criteria (need to implement this)
+        boolean hasName = searchRequest.getName() != null && !searchRequest.getName().isBlank();
+        boolean hasDescription = searchRequest.getDescription() != null && !searchRequest.getDescription().isBlank();
+        if ((hasName || hasDescription) && menuSearchIndex.isReady()) {
+            // 🔎 Resolve name/description qua search index rồi chỉ lọc các điều kiện còn lại trên DB
+            Set<Long> ids = null;
+            if (hasName) {
+                ids = new HashSet<>(menuSearchIndex.search(searchRequest.getName(), EnumSet.of(MenuSearchIndex.Field.NAME)));
+            }
+            if (hasDescription) {
+                List<Long> descIds = menuSearchIndex.search(searchRequest.getDescription(), EnumSet.of(MenuSearchIndex.Field.DESCRIPTION));
+                if (ids == null) ids = new HashSet<>(descIds);
+                else ids.retainAll(descIds);
+            }
+            if (ids.isEmpty()) {
+                return Page.empty(pageable);
+            }
+            return menuItemRepository.searchMenuItemsWithFiltersInIds(
+                    ids,
+                    searchRequest.getCategoryId(),
+                    searchRequest.getStatusId(),
+                    searchRequest.getMinPrice(),
+                    searchRequest.getMaxPrice(),
+                    pageable
+            ).map(menuItemMapper::toDto);
+        }
+
         Page<Object[]> results = menuItemRepository.searchMenuItemsWithFilters(
                 searchRequest.getName(),
                 searchRequest.getDescription(),
@@ -358,7 +397,7 @@ public class MenuItemService {
                 pageable
         );
         
-        return results.map(this::toMenuItemDto);
+        return results.map(menuItemMapper::toDto);
     }
 
     @Transactional
@@ -376,12 +415,13 @@ public class MenuItemService {
         menuItem.setCategory(category);
 
         // 3. Set Status (Param)
-        Param status = paramRepository.findById(dto.getStatusId())
+        Param status = paramRegistry.findById(dto.getStatusId())
                 .orElseThrow(() -> new RuntimeException("Status not found"));
         menuItem.setStatus(status);
 
         // 4. Save MenuItem first
         menuItem = menuItemRepository.save(menuItem);
+        menuItemStatsService.onMenuItemCreated(menuItem.getId());
 
         // 5. Create Inventory if quantity provided
         if (dto.getAvailableQuantity() != null) {
@@ -436,7 +476,7 @@ public class MenuItemService {
         menuItem.setCategory(category);
 
         // 4. Update Status
-        Param status = paramRepository.findById(dto.getStatusId())
+        Param status = paramRegistry.findById(dto.getStatusId())
                 .orElseThrow(() -> new RuntimeException("Status not found"));
         menuItem.setStatus(status);
 
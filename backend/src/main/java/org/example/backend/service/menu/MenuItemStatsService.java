@@ -0,0 +1,186 @@
+package org.example.backend.service.menu;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.backend.entity.menu.MenuItemStats;
+import org.example.backend.entity.order.Order;
+import org.example.backend.entity.order.OrderItem;
+import org.example.backend.repository.menu.MenuItemStatsRepository;
+import org.example.backend.util.TxUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Duy trì bảng menu_item_stats.
+ * - Cập nhật tăng dần khi review được tạo/sửa/xoá và khi đơn hàng vào/ra trạng thái DELIVERED.
+ * - Rebuild toàn bộ khi khởi động và theo lịch (mặc định 03:15 mỗi đêm) để sửa sai lệch.
+ * - sold_last_7_days được làm mới mỗi giờ (menu.stats.recent-cron), nên phần bán cũ hơn 7 ngày rơi khỏi
+ *   cửa sổ trong vòng 1 giờ thay vì đợi tới lần rebuild đêm.
+ * - Thời điểm bán = orders.delivered_at (đơn cũ chưa có cột này: updated_at).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MenuItemStatsService {
+
+    private static final int RECENT_DAYS = 7;
+
+    private final MenuItemStatsRepository statsRepository;
+    private final PopularityLeaderboard popularityLeaderboard;
+
+    // ===================== REVIEW =====================
+
+    @Transactional
+    public void onReviewCreated(Long menuItemId, int rating) {
+        applyRating(menuItemId, rating, 1);
+    }
+
+    @Transactional
+    public void onReviewUpdated(Long menuItemId, int oldRating, int newRating) {
+        if (oldRating != newRating) {
+            applyRating(menuItemId, newRating - oldRating, 0);
+        }
+    }
+
+    @Transactional
+    public void onReviewDeleted(Long menuItemId, int rating) {
+        applyRating(menuItemId, -rating, -1);
+    }
+
+    // ===================== ORDER =====================
+
+    /**
+     * Gọi khi trạng thái đơn thay đổi; chỉ xử lý khi đơn đi vào hoặc rời khỏi DELIVERED.
+     */
+    @Transactional
+    public void onOrderStatusChanged(Order order, String oldStatusCode, String newStatusCode) {
+        boolean wasDelivered = "DELIVERED".equals(oldStatusCode);
+        boolean isDelivered = "DELIVERED".equals(newStatusCode);
+        if (wasDelivered == isDelivered || order.getOrderItems() == null) {
+            return;
+        }
+
+        int sign = isDelivered ? 1 : -1;
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Long> soldByItem = new HashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            if (item.getMenuItem() == null || item.getQuantity() == null) continue; // bỏ qua combo
+            long qty = (long) sign * item.getQuantity();
+            Long menuItemId = item.getMenuItem().getId();
+            soldByItem.merge(menuItemId, (long) item.getQuantity(), Long::sum);
+            statsRepository.upsertSold(menuItemId, qty, qty, now);
+        }
+
+        // Bảng xếp hạng trong bộ nhớ chỉ cập nhật khi transaction commit
+        TxUtils.afterCommit(() -> soldByItem.forEach((menuItemId, qty) -> {
+            if (isDelivered) {
+                popularityLeaderboard.recordSold(menuItemId, qty, now);
+            } else {
+                popularityLeaderboard.revokeSold(menuItemId, qty);
+            }
+        }));
+    }
+
+    // ===================== MENU ITEM =====================
+
+    @Transactional
+    public void onMenuItemCreated(Long menuItemId) {
+        if (!statsRepository.existsById(menuItemId)) {
+            statsRepository.save(emptyStats(menuItemId, LocalDateTime.now()));
+        }
+    }
+
+    @Transactional
+    public void onMenuItemDeleted(Long menuItemId) {
+        statsRepository.deleteAllByIdInBatch(List.of(menuItemId));
+    }
+
+    // ===================== REBUILD =====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            rebuildAll();
+        } catch (Exception e) {
+            log.warn("⚠️ Không thể rebuild menu_item_stats khi khởi động: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${menu.stats.rebuild-cron:0 15 3 * * *}")
+    public void scheduledRebuild() {
+        rebuildAll();
+    }
+
+    @Scheduled(cron = "${menu.stats.recent-cron:0 5 * * * *}")
+    @Transactional
+    public void refreshRecentSold() {
+        int rows = statsRepository.refreshSoldSince(LocalDateTime.now().minusDays(RECENT_DAYS));
+        log.debug("⏳ Làm mới sold_last_7_days cho {} món", rows);
+    }
+
+    /**
+     * Tính lại toàn bộ bảng từ reviews và order_items (2 query aggregate + 1 batch ghi).
+     */
+    @Transactional
+    public void rebuildAll() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Object[]> ratings = toMap(statsRepository.aggregateRatings());
+        Map<Long, Object[]> sold = toMap(statsRepository.aggregateDeliveredQuantities(now.minusDays(RECENT_DAYS)));
+        Map<Long, MenuItemStats> existing = statsRepository.findAll().stream()
+                .collect(Collectors.toMap(MenuItemStats::getMenuItemId, Function.identity()));
+
+        List<Long> menuItemIds = statsRepository.findAllMenuItemIds();
+        Map<Long, MenuItemStats> rebuilt = new HashMap<>();
+        for (Long id : menuItemIds) {
+            MenuItemStats stats = existing.getOrDefault(id, emptyStats(id, now));
+            Object[] r = ratings.get(id);
+            Object[] s = sold.get(id);
+            stats.setRatingSum(r != null ? ((Number) r[1]).longValue() : 0L);
+            stats.setRatingCount(r != null ? ((Number) r[2]).longValue() : 0L);
+            stats.setSoldQuantity(s != null ? ((Number) s[1]).longValue() : 0L);
+            stats.setSoldLast7Days(s != null ? ((Number) s[2]).longValue() : 0L);
+            stats.setUpdatedAt(now);
+            rebuilt.put(id, stats);
+        }
+
+        statsRepository.saveAll(rebuilt.values());
+
+        // Xoá stats mồ côi (món đã bị xoá)
+        existing.keySet().removeAll(rebuilt.keySet());
+        if (!existing.isEmpty()) {
+            statsRepository.deleteAllByIdInBatch(existing.keySet());
+        }
+        log.info("✅ Rebuilt menu_item_stats cho {} món", rebuilt.size());
+    }
+
+    // ===================== HELPERS =====================
+
+    private void applyRating(Long menuItemId, long ratingDelta, long countDelta) {
+        statsRepository.upsertRating(menuItemId, ratingDelta, countDelta, LocalDateTime.now());
+    }
+
+    private MenuItemStats emptyStats(Long menuItemId, LocalDateTime now) {
+        return MenuItemStats.builder()
+                .menuItemId(menuItemId)
+                .updatedAt(now)
+                .build();
+    }
+
+    private Map<Long, Object[]> toMap(List<Object[]> rows) {
+        Map<Long, Object[]> map = new HashMap<>();
+        for (Object[] row : rows) {
+            map.put(((Number) row[0]).longValue(), row);
+        }
+        return map;
+    }
+}
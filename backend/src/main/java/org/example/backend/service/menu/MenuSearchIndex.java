@@ -0,0 +1,276 @@
+package org.example.backend.service.menu;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.backend.repository.menu.MenuItemRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index trong bộ nhớ cho tìm kiếm món ăn.
+ * - Bỏ dấu tiếng Việt (NFD + bỏ dấu, đ → d) để "pho" khớp "phở".
+ * - Tách từ theo ký tự không phải chữ/số; từ khoá cuối cùng được khớp theo tiền tố.
+ * - Xếp hạng BM25 trên 3 trường có trọng số: tên > danh mục > mô tả.
+ * - Cập nhật tăng dần khi có MenuItemChangedEvent (sau commit).
+ */
+@Slf4j
+@Component
+public class MenuSearchIndex {
+
+    public enum Field {
+        NAME(3.0), CATEGORY(1.5), DESCRIPTION(1.0);
+
+        final double weight;
+
+        Field(double weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final Field[] FIELDS = Field.values();
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_PENALTY = 0.7;
+
+    private final MenuItemRepository menuItemRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final ExecutorService indexExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "menu-search-index");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // term -> (menuItemId -> tần suất theo từng field)
+    private final TreeMap<String, Map<Long, int[]>> postings = new TreeMap<>();
+    // menuItemId -> độ dài (số token) theo từng field
+    private final Map<Long, int[]> docLengths = new HashMap<>();
+    private final long[] totalLengths = new long[FIELDS.length];
+    private volatile boolean ready = false;
+
+    public MenuSearchIndex(MenuItemRepository menuItemRepository, PlatformTransactionManager transactionManager) {
+        this.menuItemRepository = menuItemRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ===================== SEARCH =====================
+
+    /** Tìm trên tất cả các field, trả về id theo thứ tự độ liên quan giảm dần. */
+    public List<Long> search(String query) {
+        return search(query, EnumSet.allOf(Field.class));
+    }
+
+    /**
+     * Tìm theo các field chỉ định. Mọi từ khoá đều phải khớp (AND);
+     * từ khoá cuối được khớp theo tiền tố để hỗ trợ gõ dở ("ph" → "pho", "phuong").
+     */
+    public List<Long> search(String query, Set<Field> fields) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int n = docLengths.size();
+            if (n == 0) return List.of();
+            double[] avgLengths = new double[FIELDS.length];
+            for (int f = 0; f < FIELDS.length; f++) {
+                avgLengths[f] = Math.max(1.0, (double) totalLengths[f] / n);
+            }
+
+            Map<Long, Double> scores = null;
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                boolean prefix = i == tokens.size() - 1;
+                Map<Long, Double> tokenScores = scoreToken(token, prefix, fields, n, avgLengths);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    for (Map.Entry<Long, Double> e : scores.entrySet()) {
+                        e.setValue(e.getValue() + tokenScores.get(e.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) return List.of();
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Double> scoreToken(String token, boolean prefix, Set<Field> fields, int n, double[] avgLengths) {
+        Map<Long, Double> result = new HashMap<>();
+        Map<String, Map<Long, int[]>> candidates = prefix
+                ? postings.subMap(token, true, token + Character.MAX_VALUE, false)
+                : (postings.containsKey(token) ? Map.of(token, postings.get(token)) : Map.of());
+
+        for (Map.Entry<String, Map<Long, int[]>> entry : candidates.entrySet()) {
+            double boost = entry.getKey().equals(token) ? 1.0 : PREFIX_PENALTY;
+            Map<Long, int[]> docs = entry.getValue();
+            double idf = Math.log(1 + (n - docs.size() + 0.5) / (docs.size() + 0.5));
+
+            for (Map.Entry<Long, int[]> doc : docs.entrySet()) {
+                int[] tf = doc.getValue();
+                int[] len = docLengths.get(doc.getKey());
+                double weightedTf = 0;
+                for (Field field : fields) {
+                    int f = field.ordinal();
+                    if (tf[f] == 0) continue;
+                    weightedTf += field.weight * tf[f] / (1 - B + B * len[f] / avgLengths[f]);
+                }
+                if (weightedTf == 0) continue;
+                double score = boost * idf * weightedTf * (K1 + 1) / (weightedTf + K1);
+                result.merge(doc.getKey(), score, Math::max);
+            }
+        }
+        return result;
+    }
+
+    // ===================== INDEXING =====================
+
+    @Order(5)
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("⚠️ Không thể xây dựng search index khi khởi động, sẽ dùng LIKE: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMenuItemChanged(MenuItemChangedEvent event) {
+        indexExecutor.execute(() -> {
+            try {
+                if (event.menuItemId() == null) {
+                    rebuild();
+                } else if (event.deleted()) {
+                    remove(event.menuItemId());
+                } else {
+                    reindex(event.menuItemId());
+                }
+            } catch (Exception e) {
+                log.error("❌ Cập nhật search index thất bại cho món {}", event.menuItemId(), e);
+            }
+        });
+    }
+
+    /** Xây lại toàn bộ index từ DB. */
+    public void rebuild() {
+        List<Object[]> rows = readOnlyTx.execute(status -> menuItemRepository.findAllSearchFields());
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docLengths.clear();
+            Arrays.fill(totalLengths, 0);
+            if (rows != null) {
+                rows.forEach(this::addDocument);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("🔎 Menu search index rebuilt: {} món", docLengths.size());
+    }
+
+    /** Đánh index lại 1 món (gọi sau khi tạo/cập nhật). */
+    public void reindex(Long menuItemId) {
+        List<Object[]> rows = readOnlyTx.execute(status -> menuItemRepository.findSearchFieldsById(menuItemId));
+        lock.writeLock().lock();
+        try {
+            removeDocument(menuItemId);
+            if (rows != null) {
+                rows.forEach(this::addDocument);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long menuItemId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(menuItemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // row = [id, name, description, categoryName]
+    private void addDocument(Object[] row) {
+        Long id = ((Number) row[0]).longValue();
+        String[] values = {(String) row[1], (String) row[3], (String) row[2]}; // theo thứ tự Field
+        int[] lengths = new int[FIELDS.length];
+
+        for (Field field : FIELDS) {
+            int f = field.ordinal();
+            List<String> tokens = tokenize(values[f]);
+            lengths[f] = tokens.size();
+            totalLengths[f] += tokens.size();
+            for (String token : tokens) {
+                postings.computeIfAbsent(token, k -> new HashMap<>())
+                        .computeIfAbsent(id, k -> new int[FIELDS.length])[f]++;
+            }
+        }
+        docLengths.put(id, lengths);
+    }
+
+    private void removeDocument(Long id) {
+        int[] lengths = docLengths.remove(id);
+        if (lengths == null) return;
+        for (int f = 0; f < FIELDS.length; f++) {
+            totalLengths[f] -= lengths[f];
+        }
+        postings.values().removeIf(docs -> docs.remove(id) != null && docs.isEmpty());
+    }
+
+    // ===================== TEXT =====================
+
+    /** Bỏ dấu tiếng Việt và chuyển về chữ thường: "Phở Bò Đặc Biệt" → "pho bo dac biet". */
+    public static String fold(String text) {
+        if (text == null) return "";
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokenize(String text) {
+        String folded = fold(text).trim();
+        if (folded.isEmpty()) return List.of();
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+}
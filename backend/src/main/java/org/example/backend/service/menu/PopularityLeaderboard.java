@@ -0,0 +1,309 @@
+package org.example.backend.service.menu;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.backend.repository.menu.MenuItemStatsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bảng xếp hạng món bán chạy theo cửa sổ trượt.
+ * - Mỗi món giữ 1 vòng (ring) bucket theo giờ dài bằng cửa sổ dài (mặc định 30 ngày)
+ *   cùng tổng của cửa sổ ngắn (mặc định 7 ngày) và cửa sổ dài.
+ * - Mỗi cửa sổ có 1 chỉ mục xếp hạng (TreeSet theo số lượng giảm dần) được cập nhật khi đơn DELIVERED,
+ *   nên đọc top K chỉ là duyệt K phần tử đầu.
+ * - Sang giờ mới thì bucket cũ nhất rơi khỏi cửa sổ; nạp lại từ DB khi khởi động và mỗi đêm.
+ */
+@Slf4j
+@Component
+public class PopularityLeaderboard {
+
+    public enum Window { SHORT, LONG }
+
+    private static final Comparator<Rank> BY_SOLD_DESC = Comparator.comparingLong(Rank::sold).reversed()
+            .thenComparing(Rank::menuItemId, Comparator.reverseOrder());
+
+    private final MenuItemStatsRepository statsRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final int shortHours;
+    private final int longHours;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, Counter> counters = new HashMap<>();
+    private final TreeSet<Rank> shortRanks = new TreeSet<>(BY_SOLD_DESC);
+    private final TreeSet<Rank> longRanks = new TreeSet<>(BY_SOLD_DESC);
+    private long currentHour = currentEpochHour();
+    private volatile boolean ready;
+    // Tăng mỗi khi thứ hạng có thể đổi (MenuCatalog dùng để biết khi nào sắp xếp lại)
+    private final AtomicLong version = new AtomicLong();
+
+    public PopularityLeaderboard(MenuItemStatsRepository statsRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${menu.popularity.short-window-days:7}") int shortWindowDays,
+                                 @Value("${menu.popularity.long-window-days:30}") int longWindowDays) {
+        this.statsRepository = statsRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.longHours = Math.max(longWindowDays, shortWindowDays) * 24;
+        this.shortHours = Math.min(longWindowDays, shortWindowDays) * 24;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    // ========================= QUERY =========================
+
+    /** Id của tối đa {@code limit} món bán chạy nhất trong cửa sổ (chỉ các món đã bán > 0). */
+    public List<Long> top(Window window, int limit) {
+        advanceIfNeeded();
+        List<Long> result = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            for (Rank rank : ranks(window)) {
+                if (result.size() >= limit) break;
+                result.add(rank.menuItemId());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /** Số lượng đã bán của 1 món trong cửa sổ. */
+    public long sold(Window window, Long menuItemId) {
+        lock.readLock().lock();
+        try {
+            Counter counter = counters.get(menuItemId);
+            return counter == null ? 0 : window == Window.SHORT ? counter.shortSum : counter.longSum;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========================= WRITE =========================
+
+    /** Ghi nhận số lượng bán tại thời điểm giao (gọi sau commit). */
+    public void recordSold(Long menuItemId, long quantity, LocalDateTime deliveredAt) {
+        long hour = epochHour(deliveredAt);
+        lock.writeLock().lock();
+        try {
+            advanceTo(currentEpochHour());
+            if (hour <= currentHour - longHours) {
+                return; // đã nằm ngoài cửa sổ dài
+            }
+            hour = Math.min(hour, currentHour);
+            Counter counter = unrank(menuItemId);
+            counter.ring[ringIndex(hour)] += quantity;
+            counter.longSum += quantity;
+            if (hour > currentHour - shortHours) {
+                counter.shortSum += quantity;
+            }
+            rank(counter);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Trừ lại số lượng khi đơn rời DELIVERED. Không còn biết giờ giao ban đầu nên trừ dần
+     * từ các bucket gần nhất; lệch (nếu có) được sửa ở lần nạp lại hằng đêm.
+     */
+    public void revokeSold(Long menuItemId, long quantity) {
+        lock.writeLock().lock();
+        try {
+            advanceTo(currentEpochHour());
+            if (!counters.containsKey(menuItemId)) {
+                return;
+            }
+            Counter counter = unrank(menuItemId);
+            long remaining = quantity;
+            for (long hour = currentHour; hour > currentHour - longHours && remaining > 0; hour--) {
+                int index = ringIndex(hour);
+                long taken = Math.min(counter.ring[index], remaining);
+                counter.ring[index] -= taken;
+                counter.longSum -= taken;
+                if (hour > currentHour - shortHours) {
+                    counter.shortSum -= taken;
+                }
+                remaining -= taken;
+            }
+            rank(counter);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        version.incrementAndGet();
+    }
+
+    // ========================= LOAD =========================
+
+    @Order(5)
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("⚠️ Không thể nạp bảng xếp hạng món bán chạy khi khởi động: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${menu.popularity.reload-cron:0 20 3 * * *}")
+    public void scheduledReload() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("❌ Nạp lại bảng xếp hạng món bán chạy thất bại, giữ dữ liệu cũ", e);
+        }
+    }
+
+    /** Dựng lại toàn bộ bucket từ các dòng món của đơn DELIVERED trong cửa sổ dài. */
+    public void reload() {
+        long nowHour = currentEpochHour();
+        LocalDateTime since = LocalDateTime.ofEpochSecond((nowHour - longHours + 1) * 3600, 0, ZoneOffset.UTC);
+        List<Object[]> rows = readOnlyTx.execute(status -> statsRepository.findDeliveredQuantitiesSince(since));
+
+        Map<Long, Counter> loaded = new HashMap<>();
+        for (Object[] row : rows == null ? List.<Object[]>of() : rows) {
+            long hour = Math.min(epochHour((LocalDateTime) row[1]), nowHour);
+            long quantity = ((Number) row[2]).longValue();
+            Counter counter = loaded.computeIfAbsent((Long) row[0], Counter::new);
+            counter.ring[ringIndex(hour)] += quantity;
+            counter.longSum += quantity;
+            if (hour > nowHour - shortHours) {
+                counter.shortSum += quantity;
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            counters = loaded;
+            currentHour = nowHour;
+            rankAll();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        version.incrementAndGet();
+        log.debug("🔥 Popularity leaderboard reloaded: {} món", loaded.size());
+    }
+
+    // ========================= INTERNAL =========================
+
+    private void advanceIfNeeded() {
+        if (currentEpochHour() > currentHourSnapshot()) {
+            lock.writeLock().lock();
+            try {
+                advanceTo(currentEpochHour());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private long currentHourSnapshot() {
+        lock.readLock().lock();
+        try {
+            return currentHour;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Trượt cửa sổ đến {@code hour} (gọi khi giữ write lock). */
+    private void advanceTo(long hour) {
+        if (hour <= currentHour) {
+            return;
+        }
+        if (hour - currentHour >= longHours) {
+            counters.values().forEach(Counter::clear);
+        } else {
+            for (long h = currentHour + 1; h <= hour; h++) {
+                int expiringShort = ringIndex(h - shortHours);
+                int expiringLong = ringIndex(h); // slot của giờ h đang giữ giờ h - longHours
+                for (Counter counter : counters.values()) {
+                    counter.shortSum -= counter.ring[expiringShort];
+                    counter.longSum -= counter.ring[expiringLong];
+                    counter.ring[expiringLong] = 0;
+                }
+            }
+        }
+        currentHour = hour;
+        rankAll();
+        version.incrementAndGet();
+    }
+
+    private Counter unrank(Long menuItemId) {
+        Counter counter = counters.computeIfAbsent(menuItemId, Counter::new);
+        shortRanks.remove(new Rank(counter.shortSum, menuItemId));
+        longRanks.remove(new Rank(counter.longSum, menuItemId));
+        return counter;
+    }
+
+    private void rank(Counter counter) {
+        if (counter.shortSum > 0) {
+            shortRanks.add(new Rank(counter.shortSum, counter.menuItemId));
+        }
+        if (counter.longSum > 0) {
+            longRanks.add(new Rank(counter.longSum, counter.menuItemId));
+        }
+    }
+
+    private void rankAll() {
+        shortRanks.clear();
+        longRanks.clear();
+        counters.values().forEach(this::rank);
+    }
+
+    private TreeSet<Rank> ranks(Window window) {
+        return window == Window.SHORT ? shortRanks : longRanks;
+    }
+
+    private int ringIndex(long hour) {
+        return (int) Math.floorMod(hour, (long) longHours);
+    }
+
+    private static long currentEpochHour() {
+        return epochHour(LocalDateTime.now());
+    }
+
+    private static long epochHour(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 3600L);
+    }
+
+    private record Rank(long sold, Long menuItemId) {
+    }
+
+    private final class Counter {
+        private final Long menuItemId;
+        private final long[] ring = new long[longHours];
+        private long shortSum;
+        private long longSum;
+
+        private Counter(Long menuItemId) {
+            this.menuItemId = menuItemId;
+        }
+
+        private void clear() {
+            Arrays.fill(ring, 0);
+            shortSum = 0;
+            longSum = 0;
+        }
+    }
+}
@@ -1,22 +1,36 @@
 package org.example.backend.service.notification;
 
 import lombok.RequiredArgsConstructor;
+import org.example.backend.dto.CursorPage;
 import org.example.backend.dto.notification.NotificationDto;
 import org.example.backend.entity.notification.Notification;
+import org.example.backend.entity.notification.NotificationReceipt;
+import org.example.backend.entity.notification.NotificationReceiptId;
 import org.example.backend.entity.order.Order;
 import org.example.backend.entity.param.Param;
 import org.example.backend.entity.reservation.Reservation;
 import org.example.backend.entity.user.User;
+import org.example.backend.repository.notification.NotificationReceiptRepository;
 import org.example.backend.repository.notification.NotificationRepository;
-import org.example.backend.repository.param.ParamRepository;
 import org.example.backend.repository.user.UserRepository;
+import org.example.backend.util.AuthenticatedUser;
+import org.example.backend.service.param.ParamRegistry;
+import org.example.backend.util.KeysetPagination;
 import org.example.backend.util.WebSocketNotifier;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,35 +39,41 @@ import java.util.stream.Collectors;
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
-    private final ParamRepository paramRepository;
-    private final UserRepository userRepository;
+    private final ParamRegistry paramRegistry;
     private final WebSocketNotifier webSocketNotifier;
 
+    private final NotificationReceiptRepository notificationReceiptRepository;
+    private final UserRepository userRepository;
+
+    // userId -> createdAt của ADMIN/STAFF (chỉ nhóm này nhận thông báo theo vai trò).
+    // Giới hạn MAX_CACHED_STAFF phần tử (vượt thì xoá hết, nạp lại dần); xoá user -> forgetUser
+    private static final int MAX_CACHED_STAFF = 1_000;
+    private final Map<Long, LocalDateTime> staffCreatedAt = new ConcurrentHashMap<>();
+
+    // Nhóm nhận thông báo vận hành (đơn mới, đặt bàn mới): ADMIN + STAFF
+    public static final String STAFF_AUDIENCE = "STAFF";
+
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
     /**
      * 🔔 Gửi thông báo đến ADMIN/STAFF khi có đơn hàng mới
      */
     public NotificationDto notifyNewOrder(Order order) {
-        Param type = paramRepository.findByTypeAndCode("NOTIFICATION", "ORDER_NEW")
+        Param type = paramRegistry.find("NOTIFICATION", "ORDER_NEW")
                 .orElseThrow(() -> new RuntimeException("Missing notification type ORDER_NEW"));
 
         String message = String.format("Khách hàng %s vừa tạo đơn hàng #%s, chờ xác nhận.",
                 order.getUser().getName(), order.getPublicId());
 
-        List<Notification> notifications = sendToAdmins(message, type, order, null);
-        NotificationDto dto = NotificationDto.fromEntity(notifications.get(0));
-
-        // 🔄 Gửi realtime cho admin/staff
-        webSocketNotifier.notifyAdminNotification(dto);
-        return dto;
+        // 🔄 1 dòng cho cả nhóm ADMIN/STAFF + 1 lần publish lên topic admin
+        return sendToStaff(message, type, order, null);
     }
 
     /**
      * ✅ Đơn hàng được duyệt
      */
     public NotificationDto notifyOrderApproved(Order order) {
-        Param type = paramRepository.findByTypeAndCode("NOTIFICATION", "ORDER_APPROVED")
+        Param type = paramRegistry.find("NOTIFICATION", "ORDER_APPROVED")
                 .orElseThrow(() -> new RuntimeException("Missing notification type ORDER_APPROVED"));
         String shortId = shorten(order.getPublicId());
         String message = String.format("Đơn hàng #%s của bạn đã được duyệt!", shortId);
@@ -61,7 +81,7 @@ public class NotificationService {
     }
 
     public NotificationDto notifyOrderDelivered(Order order) {
-        Param type = paramRepository.findByTypeAndCode("NOTIFICATION", "ORDER_DELIVERED")
+        Param type = paramRegistry.find("NOTIFICATION", "ORDER_DELIVERED")
                 .orElseThrow(() -> new RuntimeException("Missing notification type ORDER_DELIVERED"));
         String shortId = shorten(order.getPublicId());
         String message = String.format("Đơn hàng #%s của bạn đã được giao thành công!", shortId);
@@ -69,7 +89,7 @@ public class NotificationService {
     }
 
     public NotificationDto notifyOrderDelivering(Order order) {
-        Param type = paramRepository.findByTypeAndCode("NOTIFICATION", "ORDER_DELIVERING")
+        Param type = paramRegistry.find("NOTIFICATION", "ORDER_DELIVERING")
                 .orElseThrow(() -> new RuntimeException("Missing notification type ORDER_DELIVERING"));
         String shortId = shorten(order.getPublicId());
         String message = String.format("Đơn hàng #%s của bạn đang được giao!", shortId);
@@ -77,7 +97,7 @@ public class NotificationService {
     }
 
     public NotificationDto notifyOrderCancelled(Order order) {
-        Param type = paramRepository.findByTypeAndCode("NOTIFICATION", "ORDER_CANCELLED")
+        Param type = paramRegistry.find("NOTIFICATION", "ORDER_CANCELLED")
                 .orElseThrow(() -> new RuntimeException("Missing notification type ORDER_CANCELLED"));
         String shortId = shorten(order.getPublicId());
         String message = String.format("Đơn hàng #%s của bạn đã bị hủy.", shortId);
@@ -88,7 +108,7 @@ public class NotificationService {
      * 🔔 Khi có đặt bàn mới
      */
     public NotificationDto notifyNewReservation(Reservation reservation) {
-        Param type = paramRepository.findByTypeAndCode("NOTIFICATION", "RESERVATION_NEW")
+        Param type = paramRegistry.find("NOTIFICATION", "RESERVATION_NEW")
                 .orElseThrow(() -> new RuntimeException("Missing notification type RESERVATION_NEW"));
 
         String tableNames = reservation.getTables().stream()
@@ -98,14 +118,11 @@ public class NotificationService {
         String message = String.format("Khách hàng %s vừa đặt bàn [%s], chờ xác nhận.",
                 reservation.getUser().getName(), tableNames);
 
-        List<Notification> notifications = sendToAdmins(message, type, null, reservation);
-        NotificationDto dto = NotificationDto.fromEntity(notifications.get(0));
-        webSocketNotifier.notifyAdminNotification(dto);
-        return dto;
+        return sendToStaff(message, type, null, reservation);
     }
 
     public NotificationDto notifyReservationApproved(Reservation reservation) {
-        Param type = paramRepository.findByTypeAndCode("NOTIFICATION", "RESERVATION_CONFIRMED")
+        Param type = paramRegistry.find("NOTIFICATION", "RESERVATION_CONFIRMED")
                 .orElseThrow(() -> new RuntimeException("Missing notification type RESERVATION_CONFIRMED"));
 
         String tableNames = reservation.getTables().stream().map(t -> t.getName()).collect(Collectors.joining(", "));
@@ -115,7 +132,7 @@ public class NotificationService {
     }
 
     public NotificationDto notifyReservationCompleted(Reservation reservation) {
-        Param type = paramRepository.findByTypeAndCode("NOTIFICATION", "RESERVATION_COMPLETED")
+        Param type = paramRegistry.find("NOTIFICATION", "RESERVATION_COMPLETED")
                 .orElseThrow(() -> new RuntimeException("Missing notification type RESERVATION_COMPLETED"));
 
         String tableNames = reservation.getTables().stream().map(t -> t.getName()).collect(Collectors.joining(", "));
@@ -124,7 +141,7 @@ public class NotificationService {
     }
 
     public NotificationDto notifyReservationCancelled(Reservation reservation) {
-        Param type = paramRepository.findByTypeAndCode("NOTIFICATION", "RESERVATION_CANCELLED")
+        Param type = paramRegistry.find("NOTIFICATION", "RESERVATION_CANCELLED")
                 .orElseThrow(() -> new RuntimeException("Missing notification type RESERVATION_CANCELLED"));
 
         String tableNames = reservation.getTables().stream().map(t -> t.getName()).collect(Collectors.joining(", "));
@@ -141,23 +158,26 @@ public class NotificationService {
         return dto;
     }
 
-    private List<Notification> sendToAdmins(String message, Param type, Order order, Reservation reservation) {
-        List<User> admins = new ArrayList<>();
-        admins.addAll(userRepository.findByRoleCode("ADMIN"));
-        admins.addAll(userRepository.findByRoleCode("STAFF"));
-
-        List<Notification> list = new ArrayList<>();
-        for (User admin : admins) {
-            Notification noti = saveNotification(admin, message, type, order, reservation);
-            webSocketNotifier.notifyNewNotification(admin.getPublicId(), NotificationDto.fromEntity(noti));
-            list.add(noti);
-        }
-        return list;
+    /**
+     * Thông báo broadcast cho ADMIN/STAFF: lưu 1 dòng (targetRole = STAFF) thay vì 1 dòng / người,
+     * trạng thái đọc của từng người nằm ở notification_receipts.
+     */
+    private NotificationDto sendToStaff(String message, Param type, Order order, Reservation reservation) {
+        Notification noti = saveNotification(null, STAFF_AUDIENCE, message, type, order, reservation);
+        NotificationDto dto = NotificationDto.fromEntity(noti);
+        webSocketNotifier.notifyAdminNotification(dto);
+        return dto;
     }
 
     private Notification saveNotification(User user, String message, Param type, Order order, Reservation reservation) {
+        return saveNotification(user, null, message, type, order, reservation);
+    }
+
+    private Notification saveNotification(User user, String targetRole, String message, Param type,
+                                          Order order, Reservation reservation) {
         Notification noti = new Notification();
         noti.setUser(user);
+        noti.setTargetRole(targetRole);
         noti.setOrder(order);
         noti.setReservation(reservation);
         noti.setMessage(message);
@@ -169,4 +189,136 @@ public class NotificationService {
     private String shorten(String publicId) {
         return publicId != null && publicId.length() > 8 ? publicId.substring(0, 8) : publicId;
     }
+
+    // ========================== Read side ==========================
+
+    /** Các nhóm broadcast mà user nhận (rỗng = chỉ có thông báo cá nhân). */
+    public List<String> audiencesFor(AuthenticatedUser user) {
+        String role = user.role();
+        return "ADMIN".equals(role) || "STAFF".equals(role) ? List.of(STAFF_AUDIENCE) : List.of();
+    }
+
+    /** Thông báo cá nhân + theo vai trò, chưa đọc trước rồi theo createdAt DESC. */
+    @Transactional(readOnly = true)
+    public Page<NotificationDto> getMyNotifications(AuthenticatedUser user, int page, int size) {
+        List<String> audiences = audiencesFor(user);
+        if (audiences.isEmpty()) {
+            Pageable pageable = PageRequest.of(page, size, Sort.by(
+                    Sort.Order.asc("isRead"),
+                    Sort.Order.desc("createdAt")
+            ));
+            return notificationRepository.findByUserId(user.id(), pageable).map(NotificationDto::fromEntity);
+        }
+        return notificationRepository
+                .findMergedForUser(user.id(), audiences, roleSince(user), PageRequest.of(page, size))
+                .map(row -> NotificationDto.fromEntity((Notification) row[0], ((Number) row[1]).intValue() == 1));
+    }
+
+    @Transactional(readOnly = true)
+    public long getUnreadCount(AuthenticatedUser user) {
+        long count = notificationRepository.countByUserIdAndIsReadFalse(user.id());
+        List<String> audiences = audiencesFor(user);
+        if (!audiences.isEmpty()) {
+            count += notificationRepository.countUnreadForRoles(user.id(), audiences, roleSince(user));
+        }
+        return count;
+    }
+
+    /** Đánh dấu đã đọc: thông báo cá nhân cập nhật isRead, thông báo theo vai trò ghi receipt. */
+    @Transactional
+    public NotificationDto markAsRead(AuthenticatedUser user, Long notificationId) {
+        Notification notification = notificationRepository.findById(notificationId)
+                .orElseThrow(() -> new RuntimeException("Notification not found"));
+
+        if (notification.getUser() == null) {
+            if (!audiencesFor(user).contains(notification.getTargetRole())) {
+                throw new RuntimeException("Not allowed to modify this notification");
+            }
+            NotificationReceiptId id = new NotificationReceiptId(notificationId, user.id());
+            if (!notificationReceiptRepository.existsById(id)) {
+                notificationReceiptRepository.save(new NotificationReceipt(id, LocalDateTime.now(), false));
+            }
+        } else {
+            if (!notification.getUser().getId().equals(user.id())) {
+                throw new RuntimeException("Not allowed to modify this notification");
+            }
+            notification.setIsRead(true);
+            notificationRepository.save(notification);
+        }
+
+        NotificationDto dto = NotificationDto.fromEntity(notification, true);
+        webSocketNotifier.notifyNotificationRead(user.publicId(), dto);
+        return dto;
+    }
+
+    /**
+     * Xoá thông báo của user: thông báo cá nhân bị xoá hẳn, thông báo theo vai trò chỉ bị ẩn với user này.
+     *
+     * @return id các thông báo đã xoá / ẩn
+     */
+    @Transactional
+    public List<Long> deleteForUser(AuthenticatedUser user, List<Long> ids) {
+        List<String> audiences = audiencesFor(user);
+        List<Long> personal = new ArrayList<>();
+        List<NotificationReceipt> hidden = new ArrayList<>();
+        for (Notification n : notificationRepository.findByIdIn(ids)) {
+            if (n.getUser() != null && n.getUser().getId().equals(user.id())) {
+                personal.add(n.getId());
+            } else if (n.getUser() == null && audiences.contains(n.getTargetRole())) {
+                hidden.add(new NotificationReceipt(
+                        new NotificationReceiptId(n.getId(), user.id()), LocalDateTime.now(), true));
+            }
+        }
+        notificationRepository.deleteAllById(personal);
+        notificationReceiptRepository.saveAll(hidden);
+
+        List<Long> result = new ArrayList<>(personal);
+        hidden.forEach(r -> result.add(r.getId().getNotificationId()));
+        return result;
+    }
+
+    // User chỉ thấy thông báo theo vai trò phát sinh từ khi tài khoản được tạo (createdAt không đổi -> cache)
+    private LocalDateTime roleSince(AuthenticatedUser user) {
+        LocalDateTime cached = staffCreatedAt.get(user.id());
+        if (cached != null) {
+            return cached;
+        }
+        Optional<LocalDateTime> createdAt = userRepository.findById(user.id()).map(User::getCreatedAt);
+        if (createdAt.isEmpty()) {
+            // Không cache user không tồn tại
+            return LocalDateTime.of(1970, 1, 1, 0, 0);
+        }
+        if (staffCreatedAt.size() >= MAX_CACHED_STAFF) {
+            staffCreatedAt.clear();
+        }
+        staffCreatedAt.put(user.id(), createdAt.get());
+        return createdAt.get();
+    }
+
+    /** Bỏ createdAt đã cache của user (gọi khi xoá user). */
+    public void forgetUser(Long userId) {
+        staffCreatedAt.remove(userId);
+    }
+
+    /**
+     * Phân trang keyset thông báo của user: chưa đọc trước, rồi theo createdAt DESC, id DESC.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<NotificationDto> getNotificationsByCursor(AuthenticatedUser user, String cursor, int size) {
+        List<String> audiences = audiencesFor(user);
+        return KeysetPagination.paginate(
+                List.of(0, 1), // 0 = chưa đọc, 1 = đã đọc
+                cursor,
+                size,
+                (rank, afterCreatedAt, afterId, limit) -> (audiences.isEmpty()
+                        ? notificationRepository.findKeysetByUserId(user.id(), rank == 1, afterCreatedAt, afterId, limit)
+                        : notificationRepository.findMergedKeyset(user.id(), audiences, roleSince(user),
+                                rank == 1, afterCreatedAt, afterId, limit))
+                        .stream()
+                        .map(n -> NotificationDto.fromEntity(n, rank == 1))
+                        .toList(),
+                NotificationDto::getCreatedAt,
+                NotificationDto::getId
+        );
+    }
 }
@@ -1,35 +1,52 @@
 package org.example.backend.service.order;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.example.backend.dto.CursorPage;
+import org.example.backend.dto.cart.CartComboItemDto;
 import org.example.backend.dto.cart.CartDto;
+import org.example.backend.dto.cart.CartItemDto;
 import org.example.backend.dto.order.OrderDto;
+import org.example.backend.dto.order.OrderItemDto;
 import org.example.backend.dto.order.OrderMapper;
 import org.example.backend.dto.order.OrderResponseDTO;
-import org.example.backend.entity.cart.Cart;
+import org.example.backend.entity.menu.Combo;
+import org.example.backend.entity.menu.MenuItem;
 import org.example.backend.entity.order.Order;
 import org.example.backend.entity.order.OrderItem;
 import org.example.backend.entity.param.Param;
+import org.example.backend.exception.ResourceNotFoundException;
 import org.example.backend.repository.cart.CartRepository;
 import org.example.backend.repository.menu.ComboRepository;
 import org.example.backend.repository.menu.MenuItemRepository;
 import org.example.backend.repository.order.OrderItemRepository;
 import org.example.backend.repository.order.OrderRepository;
 import org.example.backend.repository.order.OrderSpecification;
-import org.example.backend.repository.param.ParamRepository;
+import org.example.backend.service.param.ParamRegistry;
 import org.example.backend.repository.user.UserRepository;
 import org.example.backend.entity.user.User;
+import org.example.backend.service.menu.MenuItemStatsService;
 import org.example.backend.service.notification.NotificationService;
+import org.example.backend.service.statistics.SalesRollupService;
+import org.example.backend.util.KeysetPagination;
 import org.example.backend.util.WebSocketNotifier;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,7 +55,7 @@ public class OrderService {
 
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
-    private final ParamRepository paramRepository;
+    private final ParamRegistry paramRegistry;
     private final MenuItemRepository menuItemRepository;
     private final OrderItemRepository orderItemRepository;
     private final CartRepository cartRepository;
@@ -46,14 +63,22 @@ public class OrderService {
     private final WebSocketNotifier wsNotifier;
     private final NotificationService notificationService;
     private final WebSocketNotifier webSocketNotifier;
-
+    private final MenuItemStatsService menuItemStatsService;
+    private final SalesRollupService salesRollupService;
+
+    /**
+     * Checkout với số câu lệnh SQL cố định bất kể số dòng trong giỏ:
+     * 1 INSERT order, 1 SELECT menu_items, 1 SELECT combos, 1 batch INSERT order_items, 1 UPDATE cart
+     * (+ lấy block id từ sequence mỗi 50 dòng).
+     */
     @Transactional
+    @Timed(value = "app.checkout", histogram = true, description = "Checkout giỏ hàng thành đơn")
     public OrderDto checkoutCart(CartDto cart) {
         // 1. Tạo Order entity
         Order order = new Order();
-        order.setUser(userRepository.findById(cart.getUserId()).orElseThrow());
-        Param status = paramRepository
-                .findByTypeAndCode("ORDER_STATUS", "PENDING")
+        order.setUser(userRepository.getReferenceById(cart.getUserId()));
+        Param status = paramRegistry
+                .find("ORDER_STATUS", "PENDING")
                 .orElseThrow(() -> new RuntimeException("Order status not found"));
 
         order.setStatus(status);
@@ -61,46 +86,108 @@ public class OrderService {
         order.setPublicId(UUID.randomUUID().toString());
         orderRepository.save(order);
 
-        // 2️⃣ Thêm món lẻ (CartItems)
+        List<OrderItem> orderItems = new ArrayList<>();
+
+        // 2️⃣ Thêm món lẻ (CartItems) - nạp tất cả món trong 1 query
         if (cart.getItems() != null && !cart.getItems().isEmpty()) {
+            Map<Long, MenuItem> menuItems = menuItemRepository.findAllById(
+                            cart.getItems().stream().map(CartItemDto::getMenuItemId).collect(Collectors.toSet()))
+                    .stream()
+                    .collect(Collectors.toMap(MenuItem::getId, Function.identity()));
             for (var item : cart.getItems()) {
+                MenuItem menuItem = menuItems.get(item.getMenuItemId());
+                if (menuItem == null) {
+                    throw new ResourceNotFoundException("Menu item not found: " + item.getMenuItemId());
+                }
                 OrderItem oi = new OrderItem();
                 oi.setOrder(order);
-                oi.setMenuItem(menuItemRepository.findById(item.getMenuItemId()).orElseThrow());
+                oi.setMenuItem(menuItem);
                 oi.setQuantity(item.getQuantity());
                 oi.setPrice(item.getPrice());
-                orderItemRepository.save(oi);
+                orderItems.add(oi);
             }
         }
 
-        // 3️⃣ Thêm combo (CartComboItems)
+        // 3️⃣ Thêm combo (CartComboItems) - nạp tất cả combo trong 1 query
         if (cart.getCombos() != null && !cart.getCombos().isEmpty()) {
+            Map<Long, Combo> combos = comboRepository.findAllById(
+                            cart.getCombos().stream().map(CartComboItemDto::getComboId).collect(Collectors.toSet()))
+                    .stream()
+                    .collect(Collectors.toMap(Combo::getId, Function.identity()));
             for (var comboItem : cart.getCombos()) {
+                Combo combo = combos.get(comboItem.getComboId());
+                if (combo == null) {
+                    throw new ResourceNotFoundException("Combo not found: " + comboItem.getComboId());
+                }
                 OrderItem oi = new OrderItem();
                 oi.setOrder(order);
-                oi.setCombo(comboRepository.findById(comboItem.getComboId()).orElseThrow());
+                oi.setCombo(combo);
                 oi.setQuantity(comboItem.getQuantity());
                 oi.setPrice(comboItem.getPrice());
-                orderItemRepository.save(oi);
+                orderItems.add(oi);
             }
         }
 
+        // id lấy từ sequence pooled nên các INSERT được gom thành 1 JDBC batch khi flush
+        orderItemRepository.saveAll(orderItems);
 
-        // 3. Đổi trạng thái Cart
-        Cart cartEntity = cartRepository.findById(cart.getId())
-                .orElseThrow(() -> new RuntimeException("Cart not found"));
-        Param cartStatus = paramRepository.findByTypeAndCode("STATUS_CART","CANCELLED")
+        // 3. Đổi trạng thái Cart (1 câu UPDATE, không cần SELECT cart)
+        Param cartStatus = paramRegistry.find("STATUS_CART","CANCELLED")
                 .orElseThrow(() -> new RuntimeException("Invalid status code: " + "CANCELLED"));
-        cartEntity.setStatus(cartStatus);
-        cartRepository.save(cartEntity);
+        if (cartRepository.updateStatus(cart.getId(), cartStatus) == 0) {
+            throw new RuntimeException("Cart not found");
+        }
 
         // 4. Trả OrderDto về FE
         return new OrderDto(order);
     }
 
+    /**
+     * Danh sách đơn (admin): số câu lệnh cố định cho mỗi trang (count + id + header + dòng món),
+     * không phụ thuộc số đơn trong trang.
+     */
+    @Transactional(readOnly = true)
     public Page<OrderResponseDTO> getAllOrders(String status, String paymentStatus, String keyword, Pageable pageable) {
-        Page<Order> orders = orderRepository.findAllWithCustomSort(status, paymentStatus, keyword, pageable);
-        return orders.map(OrderMapper::toDto);
+        Page<Long> ids = orderRepository.findIdsWithCustomSort(status, paymentStatus, keyword, pageable);
+        return new PageImpl<>(toResponses(ids.getContent()), ids.getPageable(), ids.getTotalElements());
+    }
+
+    /** Dựng OrderResponseDTO cho các đơn theo đúng thứ tự ids bằng 2 query projection. */
+    private List<OrderResponseDTO> toResponses(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<OrderItemDto>> itemsByOrder = new HashMap<>();
+        for (Object[] row : orderItemRepository.findResponseRowsByOrderIds(ids)) {
+            itemsByOrder.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add(OrderMapper.itemFromRow(row));
+        }
+        Map<Long, OrderResponseDTO> byId = new HashMap<>();
+        for (Object[] row : orderRepository.findResponseRowsByIdIn(ids)) {
+            Long id = (Long) row[0];
+            byId.put(id, OrderMapper.fromRow(row, itemsByOrder.getOrDefault(id, List.of())));
+        }
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    // Thứ tự hạng trạng thái giống findIdsWithCustomSort; hạng cuối = các trạng thái khác
+    private static final List<String> ORDER_STATUS_RANKS =
+            List.of("PENDING", "APPROVED", "DELIVERING", "DELIVERED", "COMPLETED", "CANCELLED");
+
+    /**
+     * Phân trang keyset cho danh sách đơn (admin): thứ tự (hạng trạng thái, createdAt DESC, id DESC),
+     * không OFFSET và không COUNT. Keyset chỉ đọc (id, createdAt), dữ liệu hiển thị đi qua toResponses như getAllOrders.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponseDTO> getAllOrdersByCursor(String status, String paymentStatus, String keyword,
+                                                             String cursor, int size) {
+        List<Integer> ranks = KeysetPagination.ranksFor(ORDER_STATUS_RANKS, status);
+        return KeysetPagination.paginate(ranks, cursor, size,
+                (rank, afterCreatedAt, afterId, limit) -> orderRepository.findKeysetByStatus(
+                        rank < ORDER_STATUS_RANKS.size() ? ORDER_STATUS_RANKS.get(rank) : null,
+                        ORDER_STATUS_RANKS, paymentStatus, keyword, afterCreatedAt, afterId, limit),
+                row -> (LocalDateTime) row[1],
+                row -> (Long) row[0]
+        ).mapContent(rows -> toResponses(rows.stream().map(row -> (Long) row[0]).toList()));
     }
 
     public OrderResponseDTO getOrderDetail(String publicId) {
@@ -128,7 +215,7 @@ public class OrderService {
         Order order = orderRepository.findByPublicId(orderPublicId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
 
-        Param statusParam = paramRepository.findByTypeAndCode("ORDER_STATUS", "CANCELLED" )
+        Param statusParam = paramRegistry.find("ORDER_STATUS", "CANCELLED" )
                 .orElseThrow(() -> new RuntimeException("Invalid status code: " + "CANCELLED"));
 
         // Gán lại
@@ -180,20 +267,31 @@ public class OrderService {
         return saveAndReturn(entity);
     }
 
+    @Transactional
     public OrderDto updateStatus(String publicId, String statusCode) {
         Order order = orderRepository.findByPublicId(publicId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
 
         // Tìm Param tương ứng trong DB
-        Param statusParam = paramRepository.findByTypeAndCode("ORDER_STATUS", statusCode )
+        Param statusParam = paramRegistry.find("ORDER_STATUS", statusCode )
                 .orElseThrow(() -> new RuntimeException("Invalid status code: " + statusCode));
 
+        String oldStatusCode = order.getStatus() != null ? order.getStatus().getCode() : null;
+
         // Gán lại
         order.setStatus(statusParam);
+        if ("DELIVERED".equals(statusCode) && !"DELIVERED".equals(oldStatusCode)) {
+            order.setDeliveredAt(LocalDateTime.now());
+        } else if (!"DELIVERED".equals(statusCode)) {
+            order.setDeliveredAt(null);
+        }
 
         // Lưu và trả về DTO
         order = orderRepository.save(order);
-        wsNotifier.notifyOrderStatus(publicId, statusCode);
+        // 📊 Cập nhật số lượng đã bán khi đơn vào/ra DELIVERED
+        menuItemStatsService.onOrderStatusChanged(order, oldStatusCode, statusCode);
+        salesRollupService.onOrderStatusChanged(order, oldStatusCode, statusCode);
+        wsNotifier.notifyOrderStatus(order.getUser().getPublicId(), publicId, statusCode);
         // --- Tạo notification cho user dựa theo status ---
         switch (statusCode) {
             case "APPROVED":
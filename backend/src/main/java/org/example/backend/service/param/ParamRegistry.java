@@ -0,0 +1,104 @@
+package org.example.backend.service.param;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.backend.entity.param.Param;
+import org.example.backend.exception.ResourceNotFoundException;
+import org.example.backend.repository.param.ParamRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Cache trong bộ nhớ cho toàn bộ bảng params (gần như tĩnh).
+ * - Nạp 1 lần (lazy hoặc khi khởi động) thành các map bất biến theo (type, code), theo id và theo type.
+ * - refresh() nạp lại và thay snapshot nguyên tử; gọi từ endpoint admin hoặc theo lịch.
+ * Các Param trả về là instance detached dùng chung: chỉ dùng để đọc / gán quan hệ, KHÔNG được sửa.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ParamRegistry {
+
+    private final ParamRepository paramRepository;
+
+    private volatile Snapshot snapshot;
+
+    private record Snapshot(Map<String, Param> byTypeAndCode,
+                            Map<Long, Param> byId,
+                            Map<String, List<Param>> byType) {
+    }
+
+    // ===================== LOOKUPS =====================
+
+    public Optional<Param> find(String type, String code) {
+        if (type == null || code == null) return Optional.empty();
+        return Optional.ofNullable(snapshot().byTypeAndCode().get(key(type, code)));
+    }
+
+    public Param get(String type, String code) {
+        return find(type, code).orElseThrow(() -> new ResourceNotFoundException(
+                String.format("Param not found with type: %s and code: %s", type, code)));
+    }
+
+    public Optional<Param> findById(Long id) {
+        if (id == null) return Optional.empty();
+        return Optional.ofNullable(snapshot().byId().get(id));
+    }
+
+    public Param getById(Long id) {
+        return findById(id).orElseThrow(() -> new ResourceNotFoundException("Param not found with id: " + id));
+    }
+
+    public List<Param> getAllByType(String type) {
+        return snapshot().byType().getOrDefault(type, List.of());
+    }
+
+    // ===================== LOADING =====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        snapshot();
+    }
+
+    @Scheduled(fixedDelayString = "${params.refresh-ms:600000}", initialDelayString = "${params.refresh-ms:600000}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    /** Nạp lại toàn bộ params từ DB (sau khi admin thay đổi dữ liệu params). */
+    public synchronized void refresh() {
+        List<Param> all = paramRepository.findAll();
+        Map<String, Param> byTypeAndCode = new HashMap<>();
+        Map<Long, Param> byId = new HashMap<>();
+        Map<String, List<Param>> byType = new HashMap<>();
+        for (Param p : all) {
+            byTypeAndCode.put(key(p.getType(), p.getCode()), p);
+            byId.put(p.getId(), p);
+            byType.computeIfAbsent(p.getType(), t -> new ArrayList<>()).add(p);
+        }
+        byType.replaceAll((t, list) -> List.copyOf(list));
+        snapshot = new Snapshot(Map.copyOf(byTypeAndCode), Map.copyOf(byId), Map.copyOf(byType));
+        log.info("📚 Loaded {} params into ParamRegistry", all.size());
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    refresh();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private static String key(String type, String code) {
+        return type + ":" + code;
+    }
+}
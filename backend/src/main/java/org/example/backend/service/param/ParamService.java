@@ -4,7 +4,6 @@ import lombok.RequiredArgsConstructor;
 import org.example.backend.dto.param.ParamDTO;
 import org.example.backend.entity.param.Param;
 import org.example.backend.exception.ResourceNotFoundException;
-import org.example.backend.repository.param.ParamRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -15,23 +14,23 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ParamService {
 
-    private final ParamRepository paramRepository;
+    private final ParamRegistry paramRegistry;
 
     public List<ParamDTO> getAllParamsByType(String type) {
-        List<Param> params = paramRepository.findAllByType(type);
+        List<Param> params = paramRegistry.getAllByType(type);
         return params.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
     public ParamDTO getParamById(Long id) {
-        Param param = paramRepository.findById(id)
+        Param param = paramRegistry.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Param not found with id: " + id));
         return convertToDTO(param);
     }
 
     public ParamDTO getParamByTypeAndCode(String type, String code) {
-        Param param = paramRepository.findByTypeAndCode(type, code)
+        Param param = paramRegistry.find(type, code)
                 .orElseThrow(() -> new ResourceNotFoundException(
                     String.format("Param not found with type: %s and code: %s", type, code)));
         return convertToDTO(param);
@@ -1,5 +1,6 @@
 package org.example.backend.service.payment;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.example.backend.dto.order.OrderMapper;
 import org.example.backend.dto.payment.PaymentRequestDto;
@@ -8,7 +9,7 @@ import org.example.backend.entity.param.Param;
 import org.example.backend.entity.payment.Payment;
 import org.example.backend.entity.user.ShippingInfo;
 import org.example.backend.repository.order.OrderRepository;
-import org.example.backend.repository.param.ParamRepository;
+import org.example.backend.service.param.ParamRegistry;
 import org.example.backend.repository.user.ShippingInfoRepository;
 import org.example.backend.service.menu.MenuItemService;
 import org.example.backend.service.notification.NotificationService;
@@ -33,13 +34,14 @@ public class PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
-    private final ParamRepository paramRepository;
+    private final ParamRegistry paramRegistry;
     private final ShippingInfoRepository shippingInfoRepository;
     private final MenuItemService menuItemService;
     private final NotificationService notificationService;
     private final WebSocketNotifier webSocketNotifier;
 
     @Transactional
+    @Timed(value = "app.payment.create", histogram = true, description = "Tạo thanh toán cho đơn")
     public PaymentDto createPayment(PaymentRequestDto request, String publicId) {
         Order order = orderRepository.findById(request.getOrderId())
                 .orElseThrow(() -> new RuntimeException("Order not found"));
@@ -52,10 +54,10 @@ public class PaymentService {
             throw new RuntimeException("Payment already exists for this order");
         }
 
-        Param method = paramRepository.findByTypeAndCode("PAYMENT_METHOD", request.getPaymentMethodCode())
+        Param method = paramRegistry.find("PAYMENT_METHOD", request.getPaymentMethodCode())
                 .orElseThrow(() -> new RuntimeException("Invalid payment method"));
 
-        Param pendingStatus = paramRepository.findByTypeAndCode("PAYMENT_STATUS","PENDING")
+        Param pendingStatus = paramRegistry.find("PAYMENT_STATUS","PENDING")
                 .orElseThrow(() -> new RuntimeException("Missing PENDING status"));
 
         Payment payment = new Payment();
@@ -77,7 +79,7 @@ public class PaymentService {
         shippingInfo.setNote(request.getNote());
         shippingInfoRepository.save(shippingInfo); // cần inject repository
 
-        Param statusOrder = paramRepository.findByTypeAndCode("ORDER_STATUS","PENDING").get();
+        Param statusOrder = paramRegistry.find("ORDER_STATUS","PENDING").get();
         order.setStatus(statusOrder);
         orderRepository.save(order);
 
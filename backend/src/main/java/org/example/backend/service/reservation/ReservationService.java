@@ -1,27 +1,30 @@
 package org.example.backend.service.reservation;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.example.backend.dto.CursorPage;
 import org.example.backend.dto.reservation.ReservationDto;
 import org.example.backend.dto.table.TableDto;
-import org.example.backend.dto.table.TableStatusUpdate;
 import org.example.backend.entity.param.Param;
 import org.example.backend.entity.reservation.Reservation;
 import org.example.backend.entity.table.TableEntity;
 import org.example.backend.entity.user.User;
 import org.example.backend.exception.ResourceNotFoundException;
-import org.example.backend.repository.param.ParamRepository;
+import org.example.backend.exception.ValidationException;
+import org.example.backend.service.param.ParamRegistry;
+import org.example.backend.service.table.TableAvailabilityEngine;
 import org.example.backend.repository.reservation.ReservationRepository;
 import org.example.backend.repository.reservation.ReservationSpecification;
 import org.example.backend.repository.table.TableRepository;
 import org.example.backend.repository.user.UserRepository;
 import org.example.backend.service.notification.NotificationService;
+import org.example.backend.util.KeysetPagination;
 import org.example.backend.util.WebSocketNotifier;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
@@ -38,19 +41,22 @@ public class ReservationService {
 
     private final TableRepository tableRepository;
 
-    private final ParamRepository paramRepository;
+    private final ParamRegistry paramRegistry;
 
     private final UserRepository userRepository;
 
-    private final SimpMessagingTemplate messagingTemplate;
 
     private final WebSocketNotifier webSocketNotifier;
 
     private final NotificationService notificationService;
 
+    private final TableAvailabilityEngine tableAvailabilityEngine;
+
     // ========================= CREATE =========================
     @Transactional
+    @Timed(value = "app.reservation.create", histogram = true, description = "Khách tự đặt bàn")
     public ReservationDto createMyReservation(Long userId, ReservationDto dto) {
+        requireReservationTime(dto);
         try {
             // 1. Tạo reservation mới
             Reservation reservation = new Reservation();
@@ -62,7 +68,7 @@ public class ReservationService {
             reservation.setNumberOfPeople(dto.getNumberOfPeople());
             reservation.setNote(dto.getNote());
 
-            Param status = paramRepository.findByTypeAndCode("STATUS_RESERVATION", "PENDING")
+            Param status = paramRegistry.find("STATUS_RESERVATION", "PENDING")
                     .orElseThrow(() -> new ResourceNotFoundException("Status CONFIRMED not found"));
             reservation.setStatus(status);
 
@@ -73,41 +79,24 @@ public class ReservationService {
             if (!result.isEnough()) {
                 throw new IllegalStateException("Not enough seats for " + dto.getNumberOfPeople() + " people");
             }
+            List<TableEntity> tablesToReserve = result.getAllocatedTables();
 
-            // 3. Pessimistic lock + kiểm tra bàn còn trống
-            List<TableEntity> tablesToReserve = tableRepository.findAllById(result.getAllocatedTables()
-                    .stream().map(TableEntity::getId).toList());
-
-            for (TableEntity table : tablesToReserve) {
-                if (!table.getStatus().getCode().equals("AVAILABLE")) {
-                    throw new IllegalStateException("Table " + table.getId() + " is already reserved");
-                }
-            }
-
-            // 4. Update status bàn
-            Param occupiedStatus = paramRepository.findByTypeAndCode("STATUS_TABLE", "OCCUPIED")
-                    .orElseThrow(() -> new ResourceNotFoundException("Status OCCUPIED not found"));
+            // 3. Giữ khung giờ [reservationTime, + thời lượng ăn) trên từng bàn.
+            //    Không còn đặt status OCCUPIED cho cả ngày; trùng giờ -> IllegalStateException, rollback tự trả khung
+            tableAvailabilityEngine.reserve(reservation.getId(),
+                    tablesToReserve.stream().map(TableEntity::getId).toList(),
+                    reservation.getReservationTime());
 
-            tablesToReserve.forEach(table -> table.setStatus(occupiedStatus));
-            tableRepository.saveAll(tablesToReserve);
-
-            // 5. Link tables với reservation
+            // 4. Link tables với reservation
             reservation.setTables(new HashSet<>(tablesToReserve));
             reservationRepository.save(reservation);
 
-            // 6. Gửi WebSocket sau commit
+            // 5. Gửi WebSocket sau commit
             TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
                 @Override
                 public void afterCommit() {
-                    for (TableEntity table : tablesToReserve) {
-                        messagingTemplate.convertAndSend("/topic/tables",
-                                new TableStatusUpdate(table.getId(), occupiedStatus.getId()));
-                    }
-
-                    messagingTemplate.convertAndSend("/topic/reservations", Map.of(
-                            "reservationPublicId", reservation.getPublicId(),
-                            "status", reservation.getStatus().getCode()
-                    ));
+                    webSocketNotifier.notifyReservationStatus(userPublicIdOf(reservation),
+                            reservation.getPublicId(), reservation.getStatus().getCode());
                 }
             });
 
@@ -162,6 +151,37 @@ public class ReservationService {
     }
 
 
+    // Thứ tự hạng trạng thái giống findAllWithCustomSort; hạng cuối = các trạng thái khác
+    private static final List<String> RESERVATION_STATUS_RANKS =
+            List.of("PENDING", "CONFIRMED", "COMPLETED", "CANCELLED");
+
+    /**
+     * Phân trang keyset: (hạng trạng thái, createdAt DESC, id DESC), không OFFSET và không COUNT.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ReservationDto> getReservationsByCursor(
+            String keyword,
+            Long statusId,
+            LocalDateTime from,
+            LocalDateTime to,
+            Integer numberOfPeople,
+            String cursor,
+            int size
+    ) {
+        return KeysetPagination.paginate(
+                KeysetPagination.ranksFor(RESERVATION_STATUS_RANKS, null),
+                cursor,
+                size,
+                (rank, afterCreatedAt, afterId, limit) -> reservationRepository.findKeysetByStatus(
+                        rank < RESERVATION_STATUS_RANKS.size() ? RESERVATION_STATUS_RANKS.get(rank) : null,
+                        RESERVATION_STATUS_RANKS,
+                        keyword, statusId, from, to, numberOfPeople,
+                        afterCreatedAt, afterId, limit),
+                Reservation::getCreatedAt,
+                Reservation::getId
+        ).map(ReservationDto::new);
+    }
+
     // 🎯 Helper function: xác định độ ưu tiên của status
     private int getStatusPriority(String code) {
         return switch (code) {
@@ -214,10 +234,10 @@ public class ReservationService {
             Param status = null;
 
             if (dto.getStatusId() != null) {
-                status = paramRepository.findById(dto.getStatusId())
+                status = paramRegistry.findById(dto.getStatusId())
                         .orElseThrow(() -> new ResourceNotFoundException("Status not found with id: " + dto.getStatusId()));
             } else {
-                status = paramRepository.findByTypeAndCode("STATUS_RESERVATION",dto.getStatusName())
+                status = paramRegistry.find("STATUS_RESERVATION",dto.getStatusName())
                         .orElseThrow(() -> new ResourceNotFoundException("Status not found with code: " + dto.getStatusName()));
             }
 
@@ -234,6 +254,9 @@ public class ReservationService {
             reservation.setTables(new HashSet<>(tables));
         }
 
+        // ✅ Kiểm tra trùng giờ với giờ / bàn mới
+        syncAvailability(reservation);
+
         Reservation updated = reservationRepository.save(reservation);
         return new ReservationDto(updated);
     }
@@ -241,14 +264,15 @@ public class ReservationService {
     public ReservationDto updateStatus(String publicId, String newStatus) {
         Reservation reservation = reservationRepository.findByPublicId(publicId)
                 .orElseThrow(() -> new RuntimeException("Reservation not found"));
-        Param status = paramRepository.findByTypeAndCode("STATUS_RESERVATION",newStatus)
+        Param status = paramRegistry.find("STATUS_RESERVATION",newStatus)
                 .orElseThrow(() -> new RuntimeException("Status not found: " + newStatus));
         reservation.setStatus(status);
         reservation.setUpdatedAt(LocalDateTime.now());
+        syncAvailability(reservation);
 
         Reservation updated = reservationRepository.save(reservation);
 
-        webSocketNotifier.notifyReservationStatus(publicId, newStatus);
+        webSocketNotifier.notifyReservationStatus(userPublicIdOf(updated), publicId, newStatus);
         switch (newStatus) {
             case "CONFIRMED":
                 notificationService.notifyReservationApproved(updated);
@@ -269,27 +293,20 @@ public class ReservationService {
                 .orElseThrow(() -> new RuntimeException("Reservation not found"));
 
         // 1️⃣ Cập nhật trạng thái đặt bàn
-        Param completedStatus = paramRepository.findByTypeAndCode("STATUS_RESERVATION","COMPLETED")
+        Param completedStatus = paramRegistry.find("STATUS_RESERVATION","COMPLETED")
                 .orElseThrow(() -> new RuntimeException("Status COMPLETED not found"));
         reservation.setStatus(completedStatus);
 
-        // 2️⃣ Cập nhật trạng thái các bàn về "AVAILABLE"
-        for (TableEntity table : reservation.getTables()) {
-            Param available = paramRepository.findByTypeAndCode("STATUS_TABLE","AVAILABLE")
-                    .orElseThrow(() -> new RuntimeException("Table status AVAILABLE not found"));
-            table.setStatus(available);
-            tableRepository.save(table);
-        }
+        // 2️⃣ Trả khung giờ của các bàn; status bàn không đổi (lúc đặt cũng không đặt OCCUPIED)
+        tableAvailabilityEngine.release(reservation.getId());
 
         Reservation saved = reservationRepository.save(reservation);
+        String userPublicId = userPublicIdOf(saved);
 
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
             @Override
             public void afterCommit() {
-                webSocketNotifier.notifyReservationStatus(publicId, "COMPLETED");
-                reservation.getTables().forEach(table ->
-                        webSocketNotifier.notifyTableStatus(table.getId(), "AVAILABLE")
-                );
+                webSocketNotifier.notifyReservationStatus(userPublicId, publicId, "COMPLETED");
             }
         });
         notificationService.notifyReservationCompleted(saved);
@@ -302,6 +319,7 @@ public class ReservationService {
                 .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with id: " + id));
 
         // Cập nhật giờ
+        requireReservationTime(dto);
         reservation.setReservationTime(dto.getReservationTime());
 
         // Cập nhật số người
@@ -315,12 +333,12 @@ public class ReservationService {
         // Cập nhật bàn
         if (dto.getTableIds() != null && !dto.getTableIds().isEmpty()) {
             List<TableEntity> tables = tableRepository.findAllById(dto.getTableIds());
-            reservation.setTables((Set<TableEntity>) tables);
+            reservation.setTables(new HashSet<>(tables));
         }
 
         // Cập nhật trạng thái
         if (dto.getStatusId() != null) {
-            Param status = paramRepository.findById(dto.getStatusId())
+            Param status = paramRegistry.findById(dto.getStatusId())
                     .orElseThrow(() -> new ResourceNotFoundException(
                             "Status not found with id: " + dto.getStatusId()));
             reservation.setStatus(status);
@@ -330,6 +348,7 @@ public class ReservationService {
             }
         }
 
+        syncAvailability(reservation);
         reservationRepository.save(reservation);
         return new ReservationDto(reservation);
     }
@@ -354,29 +373,62 @@ public class ReservationService {
     }
 
     // ========================= UTILS =========================
+    /**
+     * Bàn trống.
+     * - Có {@code time}: các bàn đủ chỗ cho {@code people} người và không bị đặt trong khung giờ đó
+     *   (tra trong TableAvailabilityEngine, chỉ 1 query để lấy chi tiết bàn).
+     * - Không có {@code time}: các bàn đang có status AVAILABLE.
+     */
     @Transactional(readOnly = true)
-    public List<TableDto> getAvailableTables() {
-        Param availableStatus = paramRepository.findByTypeAndCode("STATUS_TABLE", "AVAILABLE")
+    public List<TableDto> getAvailableTables(Integer people, LocalDateTime time) {
+        if (time != null) {
+            List<Long> freeIds = tableAvailabilityEngine.findFreeTables(time, people);
+            Map<Long, TableEntity> byId = tableRepository.findAllById(freeIds).stream()
+                    .collect(Collectors.toMap(TableEntity::getId, t -> t));
+            return freeIds.stream()
+                    .map(byId::get)
+                    .filter(Objects::nonNull)
+                    .map(TableDto::new)
+                    .collect(Collectors.toList());
+        }
+
+        Param availableStatus = paramRegistry.find("STATUS_TABLE", "AVAILABLE")
                 .orElseThrow(() -> new ResourceNotFoundException("Status AVAILABLE not found"));
 
-        // ✅ sửa để dùng table.getStatus().getId()
-        return tableRepository.findAll().stream()
-                .filter(t -> t.getStatus() != null && Objects.equals(t.getStatus().getId(), availableStatus.getId()))
+        return tableRepository.findByStatusId(availableStatus.getId()).stream()
+                .filter(t -> people == null || t.getCapacity() >= people)
                 .map(TableDto::new)
                 .collect(Collectors.toList());
     }
 
-    private void releaseTables(Reservation reservation) {
-        Param availableStatus = paramRepository.findByTypeAndCode("STATUS_TABLE", "AVAILABLE")
-                .orElseThrow(() -> new ResourceNotFoundException("Status AVAILABLE not found"));
-
-        for (TableEntity table : reservation.getTables()) {
-            table.setStatus(availableStatus); // ✅ thay vì setStatusId()
-            tableRepository.save(table);
+    // Giữ / trả khung giờ theo trạng thái hiện tại của reservation
+    private void syncAvailability(Reservation reservation) {
+        String statusCode = reservation.getStatus() != null ? reservation.getStatus().getCode() : null;
+        if (TableAvailabilityEngine.ACTIVE_STATUSES.contains(statusCode) && !reservation.getTables().isEmpty()) {
+            tableAvailabilityEngine.reserve(reservation.getId(),
+                    reservation.getTables().stream().map(TableEntity::getId).toList(),
+                    reservation.getReservationTime());
+        } else {
+            tableAvailabilityEngine.release(reservation.getId());
+        }
+    }
 
-            messagingTemplate.convertAndSend("/topic/tables",
-                    new TableStatusUpdate(table.getId(), availableStatus.getId()));
+    // Giờ đặt là khoá của khung giữ bàn: thiếu -> 400 thay vì NPE trong TableAvailabilityEngine
+    private static void requireReservationTime(ReservationDto dto) {
+        if (dto.getReservationTime() == null) {
+            throw new ValidationException("Reservation time is required");
         }
+    }
+
+    // Đặt bàn do admin tạo hộ có thể không gắn user
+    private static String userPublicIdOf(Reservation reservation) {
+        return reservation.getUser() != null ? reservation.getUser().getPublicId() : null;
+    }
+
+    // Giữ chỗ chỉ nằm trong TableAvailabilityEngine: huỷ / xoá chỉ trả khung giờ, không ghi đè status bàn
+    // (status AVAILABLE / OCCUPIED do admin quản lý, đặt bàn không đổi nó)
+    private void releaseTables(Reservation reservation) {
+        tableAvailabilityEngine.release(reservation.getId());
         //reservation.getTables().clear();
         //reservationRepository.save(reservation);
     }
@@ -396,15 +448,13 @@ public class ReservationService {
         List<TableEntity> allocatedTables = new ArrayList<>();
         int totalSeats = 0;
 
-        for (Long tableId : tableIds) {
-            TableEntity table = tableRepository.findById(tableId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Table with id " + tableId + " not found"));
-
-            Param occupiedStatus = paramRepository.findByTypeAndCode("STATUS_TABLE", "OCCUPIED")
-                    .orElseThrow(() -> new ResourceNotFoundException("Status OCCUPIED not found"));
-
-            if (table.getStatus() != null && Objects.equals(table.getStatus().getId(), occupiedStatus.getId())) {
-                throw new IllegalStateException("Table with id " + tableId + " is already occupied");
+        // Trùng giờ do TableAvailabilityEngine kiểm tra, ở đây chỉ kiểm tra sức chứa
+        Map<Long, TableEntity> tablesById = tableRepository.findAllById(tableIds).stream()
+                .collect(Collectors.toMap(TableEntity::getId, t -> t));
+        for (Long tableId : new LinkedHashSet<>(tableIds)) {
+            TableEntity table = tablesById.get(tableId);
+            if (table == null) {
+                throw new ResourceNotFoundException("Table with id " + tableId + " not found");
             }
 
             totalSeats += table.getCapacity();
@@ -9,6 +9,7 @@ import org.example.backend.exception.ResourceNotFoundException;
 import org.example.backend.repository.menu.MenuItemRepository;
 import org.example.backend.repository.review.ReviewRepository;
 import org.example.backend.repository.user.UserRepository;
+import org.example.backend.service.menu.MenuItemStatsService;
 import org.example.backend.service.user.UserService;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
@@ -26,6 +27,7 @@ public class ReviewService {
     private final ReviewRepository reviewRepository;
     private final UserRepository userRepository;
     private final MenuItemRepository menuItemRepository;
+    private final MenuItemStatsService menuItemStatsService;
 
     public List<ReviewDto> findAll() {
         return reviewRepository.findAll()
@@ -37,6 +39,7 @@ public class ReviewService {
         return reviewRepository.findById(id).map(ReviewDto::new);
     }
 
+    @Transactional
     public ReviewDto save(ReviewDto dto, Long userId, Long menuItemId) {
         Review entity = new Review();
         entity.setUser(userRepository.findById(userId)
@@ -48,7 +51,9 @@ public class ReviewService {
         entity.setCreatedAt(LocalDateTime.now());
         entity.setUpdatedAt(LocalDateTime.now());
 
-        return new ReviewDto(reviewRepository.save(entity));
+        Review saved = reviewRepository.save(entity);
+        menuItemStatsService.onReviewCreated(menuItemId, saved.getRating());
+        return new ReviewDto(saved);
     }
 
 
@@ -58,6 +63,7 @@ public class ReviewService {
                 .orElseThrow(() -> new RuntimeException("Review not found"));
     }
 
+    @Transactional
     public ReviewDto updateById(Long id, ReviewDto dto, Long currentUserId) {
         Review entity = reviewRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Review not found"));
@@ -66,11 +72,13 @@ public class ReviewService {
             throw new AccessDeniedException("Bạn không có quyền sửa đánh giá này");
         }
 
+        int oldRating = entity.getRating();
         entity.setRating(dto.getRating());
         entity.setComment(dto.getComment());
         entity.setUpdatedAt(LocalDateTime.now());
 
         Review saved = reviewRepository.save(entity);
+        menuItemStatsService.onReviewUpdated(saved.getMenuItem().getId(), oldRating, saved.getRating());
         return new ReviewDto(saved);
     }
 
@@ -85,6 +93,7 @@ public class ReviewService {
         }
 
         reviewRepository.delete(review);
+        menuItemStatsService.onReviewDeleted(review.getMenuItem().getId(), review.getRating());
     }
 
 
@@ -0,0 +1,404 @@
+package org.example.backend.service.statistics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.backend.dto.menu.MenuItemDto;
+import org.example.backend.dto.statistics.MenuItemSalesDto;
+import org.example.backend.dto.statistics.RevenueStatisticsDto;
+import org.example.backend.repository.order.OrderItemRepository;
+import org.example.backend.repository.order.OrderRepository;
+import org.example.backend.service.menu.MenuCatalog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Khối dữ liệu bán hàng dạng cột (columnar) trong bộ nhớ cho dashboard thống kê.
+ * - Mỗi dòng là 1 sự kiện bán: ngày tạo đơn (epoch day), món (mã hoá từ điển thành slot int),
+ *   số lượng và doanh thu (đơn vị xu, long). Đơn rời DELIVERED được ghi thêm 1 dòng âm nên chỉ có append.
+ * - 2 khối cột: dòng món (best/worst seller) và dòng đơn (doanh thu + số đơn theo kỳ).
+ * - Đọc: lock-free trên snapshot, quét mảng nguyên thuỷ, không boxing trong vòng lặp.
+ * - Chỉ giữ {@code statistics.cube.window-days} ngày gần nhất; khoảng ngoài cửa sổ thì caller fallback SQL.
+ */
+@Slf4j
+@Component
+public class SalesCube {
+
+    public enum Granularity { DAY, MONTH, YEAR }
+
+    private static final String AVAILABLE = "AVAILABLE";
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final MenuCatalog menuCatalog;
+    private final TransactionTemplate readOnlyTx;
+    private final int windowDays;
+
+    private final Object writeLock = new Object();
+    private volatile State state; // null = chưa nạp, caller dùng SQL
+    // Các append xảy ra trong lúc reload đọc DB, được áp lại lên state mới (giữ writeLock)
+    private List<PendingAppend> pendingDuringReload;
+
+    public SalesCube(OrderRepository orderRepository,
+                     OrderItemRepository orderItemRepository,
+                     MenuCatalog menuCatalog,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${statistics.cube.window-days:400}") int windowDays) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.menuCatalog = menuCatalog;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.windowDays = windowDays;
+    }
+
+    // ========================= QUERY =========================
+
+    /** Khoảng [startDate, endDate] có trả lời được từ bộ nhớ không. */
+    public boolean covers(LocalDate startDate, LocalDate endDate) {
+        State current = state;
+        return current != null && menuCatalog.isReady()
+                && !startDate.isAfter(endDate)
+                && startDate.toEpochDay() >= current.windowStartDay;
+    }
+
+    /** Doanh thu + số đơn theo kỳ, mới nhất trước, bỏ các kỳ không có đơn (giống query SQL). */
+    public List<RevenueStatisticsDto> revenue(LocalDate startDate, LocalDate endDate, Granularity granularity) {
+        Columns orders = state.orders;
+        long startDay = startDate.toEpochDay();
+        // Không có đơn nào tạo sau ngày mai -> không cấp mảng cho phần tương lai của khoảng
+        long endDay = Math.min(endDate.toEpochDay(), LocalDate.now().plusDays(1).toEpochDay());
+        if (endDay < startDay) {
+            return new ArrayList<>();
+        }
+        int days = (int) (endDay - startDay + 1);
+        long[] cents = new long[days];
+        long[] count = new long[days];
+
+        int[] day = orders.day;
+        int[] qty = orders.qty;
+        long[] amount = orders.cents;
+        for (int i = 0, n = orders.size; i < n; i++) {
+            long d = day[i] - startDay;
+            if (d >= 0 && d < days) {
+                cents[(int) d] += amount[i];
+                count[(int) d] += qty[i];
+            }
+        }
+
+        // Các ngày liên tiếp nên duyệt ngược là gom được theo tháng / năm
+        List<RevenueStatisticsDto> result = new ArrayList<>();
+        String bucket = null;
+        long bucketCents = 0;
+        long bucketOrders = 0;
+        for (int d = days - 1; d >= 0; d--) {
+            String key = periodKey(LocalDate.ofEpochDay(startDay + d), granularity);
+            if (!key.equals(bucket)) {
+                addPeriod(result, bucket, bucketCents, bucketOrders);
+                bucket = key;
+                bucketCents = 0;
+                bucketOrders = 0;
+            }
+            bucketCents += cents[d];
+            bucketOrders += count[d];
+        }
+        addPeriod(result, bucket, bucketCents, bucketOrders);
+        return result;
+    }
+
+    /** Món bán chạy nhất (số lượng > 0), giảm dần theo số lượng. */
+    public List<MenuItemSalesDto> bestSelling(LocalDate startDate, LocalDate endDate, int limit) {
+        State current = state;
+        Totals totals = totalsBySlot(current, startDate, endDate);
+        List<Integer> slots = new ArrayList<>();
+        for (int slot = 0; slot < totals.qty.length; slot++) {
+            if (totals.qty[slot] > 0) {
+                slots.add(slot);
+            }
+        }
+        slots.sort((a, b) -> totals.qty[a] != totals.qty[b]
+                ? Long.compare(totals.qty[b], totals.qty[a])
+                : Long.compare(current.menuItemIds[a], current.menuItemIds[b]));
+
+        List<MenuItemSalesDto> result = new ArrayList<>();
+        for (Integer slot : slots) {
+            if (result.size() >= limit) break;
+            menuCatalog.findById(current.menuItemIds[slot])
+                    .ifPresent(item -> result.add(toDto(item, totals.qty[slot], totals.cents[slot])));
+        }
+        return result;
+    }
+
+    /** Món đang AVAILABLE bán ít nhất (kể cả chưa bán được phần nào), tăng dần theo số lượng. */
+    public List<MenuItemSalesDto> worstSelling(LocalDate startDate, LocalDate endDate, int limit) {
+        State current = state;
+        Totals totals = totalsBySlot(current, startDate, endDate);
+        List<MenuItemSalesDto> candidates = new ArrayList<>();
+        for (MenuItemDto item : menuCatalog.all()) {
+            if (!AVAILABLE.equals(item.getStatus())) continue;
+            Integer slot = current.slotByMenuItem.get(item.getId());
+            boolean sold = slot != null && slot < totals.qty.length;
+            candidates.add(toDto(item, sold ? totals.qty[slot] : 0, sold ? totals.cents[slot] : 0));
+        }
+        candidates.sort(Comparator.comparingLong(MenuItemSalesDto::getTotalQuantitySold)
+                .thenComparing(MenuItemSalesDto::getMenuItemId));
+        return candidates.size() > limit ? new ArrayList<>(candidates.subList(0, limit)) : candidates;
+    }
+
+    // ========================= WRITE =========================
+
+    /**
+     * Ghi 1 đơn vào / rời DELIVERED (gọi sau commit).
+     *
+     * @param orderId    id đơn, để reload không tính 2 lần đơn mà DB đọc được đã phản ánh
+     * @param orderDelta +1 khi vào DELIVERED, -1 khi rời
+     * @param quantities menuItemId -> số lượng (đã mang dấu)
+     * @param revenues   menuItemId -> doanh thu (đã mang dấu)
+     */
+    public void append(Long orderId, LocalDate statDate, int orderDelta, BigDecimal orderTotal,
+                       Map<Long, Long> quantities, Map<Long, BigDecimal> revenues) {
+        int epochDay = (int) statDate.toEpochDay();
+        long orderCents = toCents(orderTotal);
+        Runnable write = () -> {
+            State current = state;
+            if (current == null || epochDay < current.windowStartDay) {
+                return;
+            }
+            Columns orders = current.orders.append(epochDay, 0, orderDelta, orderCents);
+            Columns lines = current.lines;
+            Dictionary dictionary = current.dictionary();
+            for (Map.Entry<Long, Long> entry : quantities.entrySet()) {
+                int slot = dictionary.slotOf(entry.getKey(), current.slotByMenuItem);
+                lines = lines.append(epochDay, slot, entry.getValue().intValue(), toCents(revenues.get(entry.getKey())));
+            }
+            state = new State(current.windowStartDay, lines, orders, current.slotByMenuItem,
+                    dictionary.menuItemIds, dictionary.size);
+        };
+
+        synchronized (writeLock) {
+            write.run();
+            if (pendingDuringReload != null) {
+                pendingDuringReload.add(new PendingAppend(orderId, orderDelta, write));
+            }
+        }
+    }
+
+    // ========================= LOAD =========================
+
+    @Order(30)
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("⚠️ Không thể nạp sales cube khi khởi động, thống kê sẽ dùng SQL: {}", e.getMessage());
+        }
+    }
+
+    // Nạp lại định kỳ: dời cửa sổ ngày và sửa lệch (nếu có) so với DB
+    @Scheduled(fixedDelayString = "${statistics.cube.refresh-ms:21600000}",
+            initialDelayString = "${statistics.cube.refresh-ms:21600000}")
+    public void periodicRefresh() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("❌ Nạp lại sales cube thất bại, giữ dữ liệu cũ", e);
+        }
+    }
+
+    /** Nạp toàn bộ dòng bán của các đơn DELIVERED trong cửa sổ ngày từ DB. */
+    public void reload() {
+        int windowStartDay = (int) LocalDate.now().minusDays(windowDays - 1L).toEpochDay();
+        LocalDateTime from = LocalDate.ofEpochDay(windowStartDay).atStartOfDay();
+
+        synchronized (writeLock) {
+            pendingDuringReload = new ArrayList<>();
+        }
+        try {
+            Map<Long, Integer> slotByMenuItem = new ConcurrentHashMap<>();
+            Dictionary dictionary = new Dictionary(new long[64], 0);
+            Set<Long> delivered = new HashSet<>();
+            Columns[] loaded = readOnlyTx.execute(status -> {
+                List<Object[]> totals = orderRepository.findDeliveredTotalsSince(from);
+                Columns orders = Columns.empty(Math.max(totals.size(), 64));
+                for (Object[] row : totals) {
+                    delivered.add((Long) row[0]);
+                    orders = orders.append(epochDayOf(row[1]), 0, 1, toCents((BigDecimal) row[2]));
+                }
+                List<Object[]> rows = orderItemRepository.findDeliveredLinesSince(from);
+                Columns lines = Columns.empty(Math.max(rows.size(), 64));
+                for (Object[] row : rows) {
+                    int quantity = row[2] == null ? 0 : ((Number) row[2]).intValue();
+                    BigDecimal price = row[3] == null ? BigDecimal.ZERO : (BigDecimal) row[3];
+                    int slot = dictionary.slotOf((Long) row[1], slotByMenuItem);
+                    lines = lines.append(epochDayOf(row[0]), slot, quantity,
+                            toCents(price.multiply(BigDecimal.valueOf(quantity))));
+                }
+                return new Columns[]{orders, lines};
+            });
+
+            // Append commit trước khi DB được đọc đã nằm trong dữ liệu nạp: áp lại theo trạng thái DELIVERED
+            // của từng đơn (vào khi chưa có, rời khi đang có), bỏ các append DB đã phản ánh -> không tính 2 lần
+            synchronized (writeLock) {
+                state = new State(windowStartDay, loaded[1], loaded[0], slotByMenuItem,
+                        dictionary.menuItemIds, dictionary.size);
+                for (PendingAppend pending : pendingDuringReload) {
+                    boolean applies = pending.orderDelta() > 0
+                            ? delivered.add(pending.orderId())
+                            : delivered.remove(pending.orderId());
+                    if (applies) {
+                        pending.write().run();
+                    }
+                }
+                log.debug("📊 Sales cube reloaded: {} đơn, {} dòng món, {} món",
+                        state.orders.size, state.lines.size, state.itemCount);
+            }
+        } finally {
+            synchronized (writeLock) {
+                pendingDuringReload = null;
+            }
+        }
+    }
+
+    // ========================= INTERNAL =========================
+
+    private Totals totalsBySlot(State current, LocalDate startDate, LocalDate endDate) {
+        Columns lines = current.lines;
+        long startDay = startDate.toEpochDay();
+        long endDay = endDate.toEpochDay();
+        long[] qty = new long[current.itemCount];
+        long[] cents = new long[current.itemCount];
+
+        int[] day = lines.day;
+        int[] slot = lines.slot;
+        int[] quantity = lines.qty;
+        long[] amount = lines.cents;
+        for (int i = 0, n = lines.size; i < n; i++) {
+            int d = day[i];
+            if (d >= startDay && d <= endDay && slot[i] < qty.length) {
+                qty[slot[i]] += quantity[i];
+                cents[slot[i]] += amount[i];
+            }
+        }
+        return new Totals(qty, cents);
+    }
+
+    private static void addPeriod(List<RevenueStatisticsDto> result, String period, long cents, long orders) {
+        if (period != null && orders > 0) {
+            result.add(RevenueStatisticsDto.builder()
+                    .period(period)
+                    .totalRevenue(BigDecimal.valueOf(cents, 2))
+                    .totalOrders(orders)
+                    .build());
+        }
+    }
+
+    private static String periodKey(LocalDate date, Granularity granularity) {
+        return switch (granularity) {
+            case DAY -> date.toString();
+            case MONTH -> date.toString().substring(0, 7);
+            case YEAR -> String.valueOf(date.getYear());
+        };
+    }
+
+    private static MenuItemSalesDto toDto(MenuItemDto item, long quantity, long cents) {
+        return MenuItemSalesDto.builder()
+                .menuItemId(item.getId())
+                .menuItemName(item.getName())
+                .totalQuantitySold(quantity)
+                .totalRevenue(BigDecimal.valueOf(cents, 2))
+                .avatarUrl(item.getAvatarUrl())
+                .build();
+    }
+
+    private static int epochDayOf(Object createdAt) {
+        return (int) ((LocalDateTime) createdAt).toLocalDate().toEpochDay();
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private record Totals(long[] qty, long[] cents) {
+    }
+
+    private record PendingAppend(Long orderId, int orderDelta, Runnable write) {
+    }
+
+    private record State(int windowStartDay, Columns lines, Columns orders,
+                         Map<Long, Integer> slotByMenuItem, long[] menuItemIds, int itemCount) {
+        Dictionary dictionary() {
+            return new Dictionary(menuItemIds, itemCount);
+        }
+    }
+
+    /** Từ điển menuItemId -> slot; chỉ ghi khi giữ writeLock (hoặc trong reload trước khi publish). */
+    private static final class Dictionary {
+        private long[] menuItemIds;
+        private int size;
+
+        private Dictionary(long[] menuItemIds, int size) {
+            this.menuItemIds = menuItemIds;
+            this.size = size;
+        }
+
+        private int slotOf(Long menuItemId, Map<Long, Integer> slotByMenuItem) {
+            Integer slot = slotByMenuItem.get(menuItemId);
+            if (slot != null) {
+                return slot;
+            }
+            if (size == menuItemIds.length) {
+                menuItemIds = Arrays.copyOf(menuItemIds, size * 2);
+            }
+            menuItemIds[size] = menuItemId;
+            slotByMenuItem.put(menuItemId, size);
+            return size++;
+        }
+    }
+
+    /**
+     * 1 khối cột. Bất biến với người đọc: append ghi vào ô sau {@code size} của mảng dùng chung
+     * (hoặc mảng mới khi đầy) rồi trả về view mới, người đọc cũ chỉ thấy [0, size).
+     */
+    private static final class Columns {
+        private final int[] day;
+        private final int[] slot;
+        private final int[] qty;
+        private final long[] cents;
+        private final int size;
+
+        private Columns(int[] day, int[] slot, int[] qty, long[] cents, int size) {
+            this.day = day;
+            this.slot = slot;
+            this.qty = qty;
+            this.cents = cents;
+            this.size = size;
+        }
+
+        private static Columns empty(int capacity) {
+            return new Columns(new int[capacity], new int[capacity], new int[capacity], new long[capacity], 0);
+        }
+
+        private Columns append(int d, int s, int q, long c) {
+            Columns target = size < day.length ? this : new Columns(
+                    Arrays.copyOf(day, size * 2), Arrays.copyOf(slot, size * 2),
+                    Arrays.copyOf(qty, size * 2), Arrays.copyOf(cents, size * 2), size);
+            target.day[size] = d;
+            target.slot[size] = s;
+            target.qty[size] = q;
+            target.cents[size] = c;
+            return new Columns(target.day, target.slot, target.qty, target.cents, size + 1);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.backend.service.statistics;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.backend.entity.order.Order;
+import org.example.backend.entity.order.OrderItem;
+import org.example.backend.repository.order.OrderRepository;
+import org.example.backend.repository.statistics.DailyMenuItemSalesRepository;
+import org.example.backend.repository.statistics.DailyRevenueRepository;
+import org.example.backend.util.TxUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Duy trì các bảng rollup theo ngày (daily_revenue, daily_menu_item_sales) cho dashboard thống kê.
+ * - Tăng dần: cộng/trừ trong cùng transaction khi đơn vào/ra trạng thái DELIVERED.
+ * - Rebuild: tính lại 1 khoảng ngày từ orders/order_items (backfill, sửa lệch).
+ * Ngày thống kê = ngày tạo đơn, giống các query thống kê trên bảng gốc trước đây.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesRollupService {
+
+    private final DailyRevenueRepository dailyRevenueRepository;
+    private final DailyMenuItemSalesRepository dailyMenuItemSalesRepository;
+    private final OrderRepository orderRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final SalesCube salesCube;
+
+    @Transactional
+    public void onOrderStatusChanged(Order order, String oldStatusCode, String newStatusCode) {
+        boolean wasDelivered = "DELIVERED".equals(oldStatusCode);
+        boolean isDelivered = "DELIVERED".equals(newStatusCode);
+        if (wasDelivered == isDelivered || order.getCreatedAt() == null) {
+            return;
+        }
+
+        int sign = isDelivered ? 1 : -1;
+        LocalDate statDate = order.getCreatedAt().toLocalDate();
+        BigDecimal total = order.getTotalAmount() != null ? order.getTotalAmount() : BigDecimal.ZERO;
+        dailyRevenueRepository.upsertDelta(statDate, total.multiply(BigDecimal.valueOf(sign)), sign);
+
+        // Gộp theo món trước (1 món có thể xuất hiện nhiều dòng)
+        Map<Long, Long> quantities = new HashMap<>();
+        Map<Long, BigDecimal> revenues = new HashMap<>();
+        if (order.getOrderItems() != null) {
+            for (OrderItem item : order.getOrderItems()) {
+                if (item.getMenuItem() == null || item.getQuantity() == null) continue; // bỏ qua combo
+                Long menuItemId = item.getMenuItem().getId();
+                BigDecimal price = item.getPrice() != null ? item.getPrice() : BigDecimal.ZERO;
+                quantities.merge(menuItemId, (long) sign * item.getQuantity(), Long::sum);
+                revenues.merge(menuItemId, price.multiply(BigDecimal.valueOf((long) sign * item.getQuantity())), BigDecimal::add);
+            }
+        }
+        quantities.forEach((menuItemId, qty) ->
+                dailyMenuItemSalesRepository.upsertDelta(statDate, menuItemId, qty, revenues.get(menuItemId)));
+
+        BigDecimal signedTotal = total.multiply(BigDecimal.valueOf(sign));
+        TxUtils.afterCommit(() -> salesCube.append(order.getId(), statDate, sign, signedTotal, quantities, revenues));
+    }
+
+    /**
+     * Tính lại rollup cho khoảng ngày [startDate, endDate] từ bảng gốc.
+     */
+    @Transactional
+    public void rebuild(LocalDate startDate, LocalDate endDate) {
+        dailyRevenueRepository.deleteRange(startDate, endDate);
+        dailyMenuItemSalesRepository.deleteRange(startDate, endDate);
+        int days = dailyRevenueRepository.rebuildRange(startDate, endDate);
+        int rows = dailyMenuItemSalesRepository.rebuildRange(startDate, endDate);
+        // Cube được nạp lại sau commit để thấy dữ liệu vừa tính lại
+        TxUtils.afterCommit(salesCube::reload);
+        log.info("📊 Rebuilt sales rollups {} → {}: {} ngày, {} dòng món", startDate, endDate, days, rows);
+    }
+
+    /** Tính lại toàn bộ lịch sử, từ đơn đầu tiên đến hôm nay. */
+    @Transactional
+    public void rebuildAll() {
+        LocalDateTime first = orderRepository.findFirstCreatedAt();
+        if (first == null) {
+            return;
+        }
+        rebuild(first.toLocalDate(), LocalDate.now());
+    }
+
+    /**
+     * Lần chạy đầu sau khi thêm bảng rollup: backfill nếu bảng còn trống.
+     * Tắt bằng statistics.rollup.backfill-on-startup=false (profile h2: DB trống, SQL rebuild viết cho MySQL).
+     */
+    @EventListener(value = ApplicationReadyEvent.class,
+            condition = "@environment.getProperty('statistics.rollup.backfill-on-startup', 'true') == 'true'")
+    public void backfillOnStartup() {
+        try {
+            if (dailyRevenueRepository.count() == 0) {
+                // Gọi nội bộ không qua proxy -> tự mở transaction
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> rebuildAll());
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Không thể backfill bảng rollup thống kê: {}", e.getMessage());
+        }
+    }
+}
@@ -4,15 +4,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.backend.dto.statistics.MenuItemSalesDto;
 import org.example.backend.dto.statistics.RevenueStatisticsDto;
-import org.example.backend.repository.order.OrderItemRepository;
-import org.example.backend.repository.order.OrderRepository;
+import org.example.backend.repository.statistics.DailyMenuItemSalesRepository;
+import org.example.backend.repository.statistics.DailyRevenueRepository;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
@@ -23,49 +20,48 @@ import java.util.stream.Collectors;
 @Slf4j
 public class StatisticsService {
 
-    private final OrderRepository orderRepository;
-    private final OrderItemRepository orderItemRepository;
+    // Trong cửa sổ ngày của SalesCube: quét bộ nhớ, không chạm DB
+    private final SalesCube salesCube;
+    // Ngoài cửa sổ: đọc từ bảng rollup theo ngày (SalesRollupService), tháng/năm cộng dồn từ các ngày
+    private final DailyRevenueRepository dailyRevenueRepository;
+    private final DailyMenuItemSalesRepository dailyMenuItemSalesRepository;
 
     /**
      * Get revenue statistics by day within a date range
      */
-    @Transactional(readOnly = true)
     public List<RevenueStatisticsDto> getRevenueStatisticsByDay(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
-
-        List<Map<String, Object>> results = orderRepository.getRevenueStatisticsByDay(startDateTime, endDateTime);
+        if (salesCube.covers(startDate, endDate)) {
+            return salesCube.revenue(startDate, endDate, SalesCube.Granularity.DAY);
+        }
+        List<Map<String, Object>> results = dailyRevenueRepository.getRevenueByDay(startDate, endDate);
         return convertToRevenueStatistics(results);
     }
 
     /**
      * Get revenue statistics by month within a date range
      */
-    @Transactional(readOnly = true)
     public List<RevenueStatisticsDto> getRevenueStatisticsByMonth(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
-
-        List<Map<String, Object>> results = orderRepository.getRevenueStatisticsByMonth(startDateTime, endDateTime);
+        if (salesCube.covers(startDate, endDate)) {
+            return salesCube.revenue(startDate, endDate, SalesCube.Granularity.MONTH);
+        }
+        List<Map<String, Object>> results = dailyRevenueRepository.getRevenueByMonth(startDate, endDate);
         return convertToRevenueStatistics(results);
     }
 
     /**
      * Get revenue statistics by year within a date range
      */
-    @Transactional(readOnly = true)
     public List<RevenueStatisticsDto> getRevenueStatisticsByYear(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
-
-        List<Map<String, Object>> results = orderRepository.getRevenueStatisticsByYear(startDateTime, endDateTime);
+        if (salesCube.covers(startDate, endDate)) {
+            return salesCube.revenue(startDate, endDate, SalesCube.Granularity.YEAR);
+        }
+        List<Map<String, Object>> results = dailyRevenueRepository.getRevenueByYear(startDate, endDate);
         return convertToRevenueStatistics(results);
     }
 
     /**
      * Get revenue statistics for current month by day
      */
-    @Transactional(readOnly = true)
     public List<RevenueStatisticsDto> getCurrentMonthRevenueByDay() {
         YearMonth currentMonth = YearMonth.now();
         LocalDate startDate = currentMonth.atDay(1);
@@ -76,7 +72,6 @@ public class StatisticsService {
     /**
      * Get revenue statistics for current year by month
      */
-    @Transactional(readOnly = true)
     public List<RevenueStatisticsDto> getCurrentYearRevenueByMonth() {
         LocalDate startDate = LocalDate.now().withDayOfYear(1);
         LocalDate endDate = LocalDate.now().withMonth(12).withDayOfMonth(31);
@@ -86,31 +81,28 @@ public class StatisticsService {
     /**
      * Get best-selling menu items
      */
-    @Transactional(readOnly = true)
     public List<MenuItemSalesDto> getBestSellingMenuItems(LocalDate startDate, LocalDate endDate, int limit) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
-
-        List<Map<String, Object>> results = orderItemRepository.getBestSellingMenuItems(startDateTime, endDateTime, limit);
+        if (salesCube.covers(startDate, endDate)) {
+            return salesCube.bestSelling(startDate, endDate, limit);
+        }
+        List<Map<String, Object>> results = dailyMenuItemSalesRepository.getBestSelling(startDate, endDate, limit);
         return convertToMenuItemSales(results);
     }
 
     /**
      * Get worst-selling menu items (flop items)
      */
-    @Transactional(readOnly = true)
     public List<MenuItemSalesDto> getWorstSellingMenuItems(LocalDate startDate, LocalDate endDate, int limit) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
-
-        List<Map<String, Object>> results = orderItemRepository.getWorstSellingMenuItems(startDateTime, endDateTime, limit);
+        if (salesCube.covers(startDate, endDate)) {
+            return salesCube.worstSelling(startDate, endDate, limit);
+        }
+        List<Map<String, Object>> results = dailyMenuItemSalesRepository.getWorstSelling(startDate, endDate, limit);
         return convertToMenuItemSales(results);
     }
 
     /**
      * Get best-selling menu items for current month
      */
-    @Transactional(readOnly = true)
     public List<MenuItemSalesDto> getCurrentMonthBestSelling(int limit) {
         YearMonth currentMonth = YearMonth.now();
         LocalDate startDate = currentMonth.atDay(1);
@@ -121,7 +113,6 @@ public class StatisticsService {
     /**
      * Get worst-selling menu items for current month
      */
-    @Transactional(readOnly = true)
     public List<MenuItemSalesDto> getCurrentMonthWorstSelling(int limit) {
         YearMonth currentMonth = YearMonth.now();
         LocalDate startDate = currentMonth.atDay(1);
@@ -0,0 +1,289 @@
+package org.example.backend.service.table;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.backend.repository.reservation.ReservationRepository;
+import org.example.backend.repository.table.TableRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Chỉ mục khung giờ đặt bàn trong bộ nhớ.
+ * - Mỗi bàn giữ 1 TreeSet các khung [reservationTime, reservationTime + thời lượng ăn) sắp theo giờ bắt đầu;
+ *   vì mọi khung dài bằng nhau nên kiểm tra trùng chỉ là 1 subSet(start - thời lượng, end).
+ * - Chỉ các đặt bàn PENDING / CONFIRMED mới giữ bàn.
+ * - Ghi (reserve / release) áp dụng ngay để chặn đặt trùng đồng thời và tự hoàn tác nếu transaction rollback.
+ * - Nạp lại từ DB khi khởi động và định kỳ (đồng thời dọn các khung đã qua).
+ */
+@Slf4j
+@Component
+public class TableAvailabilityEngine {
+
+    public static final List<String> ACTIVE_STATUSES = List.of("PENDING", "CONFIRMED");
+
+    private final TableRepository tableRepository;
+    private final ReservationRepository reservationRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final Duration diningDuration;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, TableSlots> tables = new HashMap<>();
+    private List<TableSlots> byCapacity = List.of();
+    private Map<Long, Placement> placements = new HashMap<>();
+    // Thay đổi chưa commit, được áp lại sau mỗi lần nạp lại từ DB
+    private final Map<Long, Optional<Placement>> inFlight = new ConcurrentHashMap<>();
+
+    public TableAvailabilityEngine(TableRepository tableRepository,
+                                   ReservationRepository reservationRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${reservation.dining-duration-minutes:120}") long diningMinutes) {
+        this.tableRepository = tableRepository;
+        this.reservationRepository = reservationRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.diningDuration = Duration.ofMinutes(diningMinutes);
+    }
+
+    public Duration getDiningDuration() {
+        return diningDuration;
+    }
+
+    // ========================= QUERY =========================
+
+    /**
+     * Các bàn đủ chỗ cho {@code people} người và trống trong khung [time, time + thời lượng ăn),
+     * sắp theo sức chứa tăng dần.
+     *
+     * @param people null = không lọc theo số người
+     */
+    public List<Long> findFreeTables(LocalDateTime time, Integer people) {
+        LocalDateTime end = time.plus(diningDuration);
+        int minCapacity = people == null ? 0 : people;
+        List<Long> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (TableSlots table : byCapacity) {
+                if (table.capacity >= minCapacity && table.firstConflict(time, end, null) == null) {
+                    result.add(table.tableId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    // ========================= WRITE =========================
+
+    /**
+     * Giữ các bàn cho reservation tại {@code time} (đặt mới hoặc đổi giờ / đổi bàn).
+     * Kiểm tra trùng và ghi trong cùng 1 write lock nên 2 request đồng thời không thể cùng giữ 1 khung.
+     *
+     * @throws IllegalStateException nếu 1 bàn đã được đặt trong khung giờ đó
+     */
+    public void reserve(Long reservationId, Collection<Long> tableIds, LocalDateTime time) {
+        Placement placement = new Placement(List.copyOf(new TreeSet<>(tableIds)), time, time.plus(diningDuration));
+        lock.writeLock().lock();
+        try {
+            for (Long tableId : placement.tableIds()) {
+                TableSlots table = tables.get(tableId);
+                Booking conflict = table == null ? null
+                        : table.firstConflict(placement.start(), placement.end(), reservationId);
+                if (conflict != null) {
+                    throw new IllegalStateException("Table " + tableId + " is already reserved from "
+                            + conflict.start() + " to " + conflict.end());
+                }
+            }
+            Placement previous = apply(reservationId, placement);
+            trackUntilCompletion(reservationId, Optional.of(placement), previous);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Trả bàn của reservation (huỷ, hoàn thành, xoá). */
+    public void release(Long reservationId) {
+        lock.writeLock().lock();
+        try {
+            Placement previous = apply(reservationId, null);
+            trackUntilCompletion(reservationId, Optional.empty(), previous);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Thêm / cập nhật sức chứa 1 bàn. */
+    public void upsertTable(Long tableId, Integer capacity) {
+        lock.writeLock().lock();
+        try {
+            tables.computeIfAbsent(tableId, TableSlots::new).capacity = capacity == null ? 0 : capacity;
+            sortByCapacity();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeTable(Long tableId) {
+        lock.writeLock().lock();
+        try {
+            tables.remove(tableId);
+            sortByCapacity();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ========================= LOAD =========================
+
+    @Order(20)
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("⚠️ Không thể nạp lịch đặt bàn khi khởi động: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${reservation.availability.refresh-ms:600000}",
+            initialDelayString = "${reservation.availability.refresh-ms:600000}")
+    public void periodicRefresh() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("❌ Nạp lại lịch đặt bàn thất bại, giữ dữ liệu cũ", e);
+        }
+    }
+
+    /** Nạp lại toàn bộ bàn và các khung đặt còn hiệu lực từ DB. */
+    public void reload() {
+        LocalDateTime from = LocalDateTime.now().minus(diningDuration);
+        Map<Long, TableSlots> newTables = new HashMap<>();
+        Map<Long, Placement> newPlacements = new HashMap<>();
+
+        readOnlyTx.executeWithoutResult(status -> {
+            for (Object[] row : tableRepository.findAllCapacities()) {
+                TableSlots table = new TableSlots((Long) row[0]);
+                table.capacity = row[1] == null ? 0 : ((Number) row[1]).intValue();
+                newTables.put(table.tableId, table);
+            }
+            Map<Long, List<Long>> tablesByReservation = new HashMap<>();
+            Map<Long, LocalDateTime> timeByReservation = new HashMap<>();
+            for (Object[] row : reservationRepository.findActiveTableSlots(ACTIVE_STATUSES, from)) {
+                Long reservationId = (Long) row[0];
+                tablesByReservation.computeIfAbsent(reservationId, k -> new ArrayList<>()).add((Long) row[1]);
+                timeByReservation.put(reservationId, (LocalDateTime) row[2]);
+            }
+            tablesByReservation.forEach((reservationId, tableIds) -> {
+                LocalDateTime start = timeByReservation.get(reservationId);
+                newPlacements.put(reservationId,
+                        new Placement(List.copyOf(new TreeSet<>(tableIds)), start, start.plus(diningDuration)));
+            });
+        });
+
+        lock.writeLock().lock();
+        try {
+            tables = newTables;
+            placements = new HashMap<>();
+            newPlacements.forEach(this::apply);
+            inFlight.forEach((reservationId, placement) -> apply(reservationId, placement.orElse(null)));
+            sortByCapacity();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("🪑 Table availability reloaded: {} bàn, {} đặt bàn", newTables.size(), newPlacements.size());
+    }
+
+    // ========================= INTERNAL (gọi khi giữ write lock) =========================
+
+    private Placement apply(Long reservationId, Placement placement) {
+        Placement previous = placement == null ? placements.remove(reservationId) : placements.put(reservationId, placement);
+        if (previous != null) {
+            for (Long tableId : previous.tableIds()) {
+                TableSlots table = tables.get(tableId);
+                if (table != null) {
+                    table.bookings.remove(new Booking(reservationId, previous.start(), previous.end()));
+                }
+            }
+        }
+        if (placement != null) {
+            for (Long tableId : placement.tableIds()) {
+                tables.computeIfAbsent(tableId, TableSlots::new)
+                        .bookings.add(new Booking(reservationId, placement.start(), placement.end()));
+            }
+        }
+        return previous;
+    }
+
+    private void trackUntilCompletion(Long reservationId, Optional<Placement> placement, Placement previous) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        inFlight.put(reservationId, placement);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                inFlight.remove(reservationId);
+                if (status != STATUS_COMMITTED) {
+                    lock.writeLock().lock();
+                    try {
+                        apply(reservationId, previous);
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                }
+            }
+        });
+    }
+
+    private void sortByCapacity() {
+        List<TableSlots> sorted = new ArrayList<>(tables.values());
+        sorted.sort(Comparator.comparingInt((TableSlots t) -> t.capacity).thenComparing(t -> t.tableId));
+        byCapacity = sorted;
+    }
+
+    private record Placement(List<Long> tableIds, LocalDateTime start, LocalDateTime end) {
+    }
+
+    private record Booking(Long reservationId, LocalDateTime start, LocalDateTime end) {
+    }
+
+    private static final Comparator<Booking> BY_START = Comparator.comparing(Booking::start)
+            .thenComparing(Booking::reservationId);
+
+    private final class TableSlots {
+        private final Long tableId;
+        private int capacity;
+        private final TreeSet<Booking> bookings = new TreeSet<>(BY_START);
+
+        private TableSlots(Long tableId) {
+            this.tableId = tableId;
+        }
+
+        /** Khung đầu tiên giao với [start, end), hoặc null. */
+        private Booking firstConflict(LocalDateTime start, LocalDateTime end, Long excludeReservationId) {
+            Booking from = new Booking(Long.MAX_VALUE, start.minus(diningDuration), null);
+            Booking to = new Booking(Long.MIN_VALUE, end, null);
+            for (Booking booking : bookings.subSet(from, false, to, false)) {
+                if (booking.end().isAfter(start) && !booking.reservationId().equals(excludeReservationId)) {
+                    return booking;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -2,7 +2,7 @@ package org.example.backend.service.table;
 
 import lombok.RequiredArgsConstructor;
 import org.example.backend.entity.param.Param;
-import org.example.backend.repository.param.ParamRepository;
+import org.example.backend.service.param.ParamRegistry;
 import org.example.backend.util.WebSocketNotifier;
 import org.springframework.stereotype.Service;
 import org.example.backend.dto.table.TableDto;
@@ -18,8 +18,9 @@ import java.util.stream.Collectors;
 public class TableService {
 
     private final TableRepository tableRepository;
-    private final ParamRepository paramRepository;
+    private final ParamRegistry paramRegistry;
     private final WebSocketNotifier webSocketNotifier;
+    private final TableAvailabilityEngine tableAvailabilityEngine;
 
     public List<TableDto> findAll() {
         return tableRepository.findAll()
@@ -36,6 +37,7 @@ public class TableService {
     public TableDto save(TableDto dto) {
         TableEntity table = toEntity(dto);
         table = tableRepository.save(table);
+        tableAvailabilityEngine.upsertTable(table.getId(), table.getCapacity());
         webSocketNotifier.notifyNewTable(
                 table.getId(),
                 table.getName(),
@@ -49,6 +51,7 @@ public class TableService {
 
     public void delete(Long id) {
         tableRepository.deleteById(id);
+        tableAvailabilityEngine.removeTable(id);
     }
 
     // --- NEW METHODS ---
@@ -66,24 +69,25 @@ public class TableService {
         table.setCapacity(dto.getCapacity());
         // --- Update status ---
         if (dto.getStatusId() != null) {
-            Param status = paramRepository.findById(dto.getStatusId())
+            Param status = paramRegistry.findById(dto.getStatusId())
                     .orElseThrow(() -> new RuntimeException("Status not found"));
             table.setStatus(status);
         }
 
         // --- Update location ---
         if (dto.getLocationId() != null) {
-            Param location = paramRepository.findById(dto.getLocationId())
+            Param location = paramRegistry.findById(dto.getLocationId())
                     .orElseThrow(() -> new RuntimeException("Location not found"));
             table.setLocation(location);
         }
 
         if (dto.getPositionId() != null) {
-            Param position = paramRepository.findById(dto.getPositionId())
+            Param position = paramRegistry.findById(dto.getPositionId())
                     .orElseThrow(() -> new RuntimeException("Position not found"));
             table.setPosition(position);
         }
         table = tableRepository.save(table);
+        tableAvailabilityEngine.upsertTable(table.getId(), table.getCapacity());
 
         webSocketNotifier.notifyUpdatedTable(
                 table.getId(),
@@ -100,6 +104,7 @@ public class TableService {
         TableEntity table = tableRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("TableEntity not found"));
         tableRepository.delete(table);
+        tableAvailabilityEngine.removeTable(id);
         webSocketNotifier.notifyDeletedTable(id);
     }
 
@@ -110,17 +115,17 @@ public class TableService {
         entity.setName(dto.getName());
         entity.setCapacity(dto.getCapacity());
         if (dto.getStatusId() != null) {
-            Param status = paramRepository.findById(dto.getStatusId())
+            Param status = paramRegistry.findById(dto.getStatusId())
                     .orElse(null);
             entity.setStatus(status);
         }
         if (dto.getLocationId() != null) {
-            Param location = paramRepository.findById(dto.getLocationId())
+            Param location = paramRegistry.findById(dto.getLocationId())
                     .orElse(null);
             entity.setLocation(location);
         }
         if (dto.getPositionId() != null){
-            Param position = paramRepository.findById(dto.getPositionId()).orElse(null);
+            Param position = paramRegistry.findById(dto.getPositionId()).orElse(null);
             entity.setPosition(position);
         }
         return entity;
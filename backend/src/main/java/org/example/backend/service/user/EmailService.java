@@ -5,6 +5,7 @@ import jakarta.mail.internet.MimeMessage;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -16,7 +17,9 @@ public class EmailService {
         this.mailSender = mailSender;
     }
 
-    // Gửi email text đơn giản
+    // Gửi email text đơn giản. Profile virtual: chạy nền trên applicationTaskExecutor (VirtualThreadConfig bật @Async),
+    // mặc định: đồng bộ, lỗi ném về caller
+    @Async
     public void sendSimpleEmail(String to, String subject, String text) {
         SimpleMailMessage message = new SimpleMailMessage();
         message.setFrom("restaurant.booking.system@gmail.com"); // Mail sender
@@ -26,7 +29,8 @@ public class EmailService {
         mailSender.send(message);
     }
 
-    // Gửi email HTML
+    // Gửi email HTML (profile virtual: chạy nền, lỗi SMTP chỉ được ghi log)
+    @Async
     public void sendHtmlEmail(String to, String subject, String htmlContent) {
         try {
             MimeMessage message = mailSender.createMimeMessage();
@@ -7,9 +7,11 @@ import org.example.backend.dto.user.UserDTO;
 import org.example.backend.entity.param.Param;
 import org.example.backend.entity.user.User;
 import org.example.backend.exception.ResourceNotFoundException;
-import org.example.backend.repository.param.ParamRepository;
+import org.example.backend.service.notification.NotificationService;
+import org.example.backend.service.param.ParamRegistry;
 import org.example.backend.repository.user.UserRepository;
 import org.example.backend.util.JwtUtil;
+import org.example.backend.util.TxUtils;
 import org.example.backend.validator.UserValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,7 +19,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -39,7 +43,7 @@ public class UserService {
 
     private final UserRepository userRepository;
 
-    private final ParamRepository paramRepository;
+    private final ParamRegistry paramRegistry;
 
     private final PasswordEncoder passwordEncoder;
 
@@ -49,6 +53,10 @@ public class UserService {
 
     private final Cloudinary cloudinary;
 
+    private final PlatformTransactionManager transactionManager;
+
+    private final NotificationService notificationService;
+
     private final Map<String, ResetToken> resetTokens = new HashMap<>();
 
     private String getMessage(String code, Object[] args, Locale locale) {
@@ -129,7 +137,7 @@ public class UserService {
         if (id == null) {
             throw new IllegalArgumentException(errorPrefix + " ID cannot be null");
         }
-        Param param = paramRepository.findById(id)
+        Param param = paramRegistry.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException(errorPrefix + " not found with ID: " + id));
         if (!type.equals(param.getType())) {
             throw new IllegalArgumentException("Invalid " + errorPrefix.toLowerCase() + " parameter: " + id);
@@ -191,17 +199,17 @@ public class UserService {
     }
 
     // Update user avatar
-    @Transactional
+    // Không @Transactional: upload Cloudinary chạy ngoài transaction để không giữ connection DB
     public UserDTO updateUserAvatar(String publicId, MultipartFile file) throws IOException {
         if (publicId == null || publicId.trim().isEmpty()) {
             throw new IllegalArgumentException("Public ID cannot be null or empty");
         }
 
-        User user = userRepository.findByPublicId(publicId)
+        User existing = userRepository.findByPublicId(publicId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with publicId: " + publicId));
 
         // Delete old avatar if exists (TODO: implement Cloudinary deletion)
-        String oldAvatarUrl = user.getAvatarUrl();
+        String oldAvatarUrl = existing.getAvatarUrl();
         if (oldAvatarUrl != null && !oldAvatarUrl.isEmpty()) {
             System.out.println("Previous avatar URL: " + oldAvatarUrl);
         }
@@ -212,11 +220,16 @@ public class UserService {
             throw new RuntimeException("Failed to get URL for uploaded avatar");
         }
 
-        user.setAvatarUrl(url);
-        userRepository.save(user);
+        UserDTO updated = new TransactionTemplate(transactionManager).execute(status -> {
+            User user = userRepository.findByPublicId(publicId)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found with publicId: " + publicId));
+            user.setAvatarUrl(url);
+            userRepository.save(user);
+            return convertToDTO(user);
+        });
 
         System.out.println("Avatar updated successfully for user: " + publicId);
-        return convertToDTO(user);
+        return updated;
     }
 
     @Transactional
@@ -259,7 +272,7 @@ public class UserService {
 
             // Set Gender if provided
             if (userDTO.getGender() != null && !userDTO.getGender().trim().isEmpty()) {
-                Param gender = paramRepository.findByTypeAndCode("GENDER", userDTO.getGender())
+                Param gender = paramRegistry.find("GENDER", userDTO.getGender())
                     .orElseThrow(() -> new ResourceNotFoundException("Gender not found: " + userDTO.getGender()));
                 user.setGender(gender);
             }
@@ -277,7 +290,7 @@ public class UserService {
 
     public UserDTO register(UserDTO userDTO) {
         // Validate
-        UserValidator.validateRegister(userDTO, userRepository, paramRepository);
+        UserValidator.validateRegister(userDTO, userRepository, paramRegistry);
 
         User user = new User();
         user.setPublicId(UUID.randomUUID().toString());
@@ -287,15 +300,15 @@ public class UserService {
         user.setAvatarUrl(userDTO.getAvatarUrl());
 
         // Role CUSTOMER
-        Param role = paramRepository.findByTypeAndCode("ROLE", "CUSTOMER").get();
+        Param role = paramRegistry.find("ROLE", "CUSTOMER").get();
         user.setRole(role);
 
         // Status ACTIVE
-        Param status = paramRepository.findByTypeAndCode("STATUS", "ACTIVE").get();
+        Param status = paramRegistry.find("STATUS", "ACTIVE").get();
         user.setStatus(status);
 
         if (userDTO.getGender() != null) {
-            Param gender = paramRepository.findByTypeAndCode("GENDER", userDTO.getGender()).get();
+            Param gender = paramRegistry.find("GENDER", userDTO.getGender()).get();
             user.setGender(gender);
         }
 
@@ -313,7 +326,7 @@ public class UserService {
             throw new RuntimeException("Invalid credentials");
         }
 
-        return jwtUtil.generateToken(user.getEmail(), user.getRole().getCode(), user.getName(), user.getPublicId());
+        return jwtUtil.generateToken(user.getId(), user.getEmail(), user.getRole().getCode(), user.getName(), user.getPublicId());
     }
 
     @Transactional
@@ -377,7 +390,7 @@ public class UserService {
 
     public UserDTO createStaff(UserDTO userDTO) {
         // Validate
-        UserValidator.validateCreateStaff(userDTO, userRepository, paramRepository);
+        UserValidator.validateCreateStaff(userDTO, userRepository, paramRegistry);
 
         User user = new User();
         user.setPublicId(UUID.randomUUID().toString());
@@ -386,14 +399,14 @@ public class UserService {
         user.setPasswordHash(passwordEncoder.encode(userDTO.getPassword()));
         user.setAvatarUrl(userDTO.getAvatarUrl());
 
-        Param role = paramRepository.findByTypeAndCode("ROLE", "STAFF").get();
+        Param role = paramRegistry.find("ROLE", "STAFF").get();
         user.setRole(role);
 
-        Param status = paramRepository.findByTypeAndCode("STATUS", "ACTIVE").get();
+        Param status = paramRegistry.find("STATUS", "ACTIVE").get();
         user.setStatus(status);
 
         if (userDTO.getGender() != null) {
-            Param gender = paramRepository.findByTypeAndCode("GENDER", userDTO.getGender()).get();
+            Param gender = paramRegistry.find("GENDER", userDTO.getGender()).get();
             user.setGender(gender);
         }
 
@@ -504,7 +517,7 @@ public class UserService {
             // Update gender if provided
             if (userDTO.getGender() != null) {
                 if (!userDTO.getGender().trim().isEmpty()) {
-                    Param gender = paramRepository.findByTypeAndCode("GENDER", userDTO.getGender())
+                    Param gender = paramRegistry.find("GENDER", userDTO.getGender())
                         .orElseThrow(() -> new ResourceNotFoundException("Gender not found: " + userDTO.getGender()));
                     user.setGender(gender);
                 } else {
@@ -528,6 +541,8 @@ public class UserService {
         User user = userRepository.findByPublicId(publicId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with publicId: " + publicId));
         userRepository.delete(user);
+        Long userId = user.getId();
+        TxUtils.afterCommit(() -> notificationService.forgetUser(userId));
     }
 
     public UserDTO updateUserByEmail(String email, UserDTO userDTO) {
@@ -535,7 +550,7 @@ public class UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + email));
 
         // Validate update
-        UserValidator.validateUpdate(userDTO, paramRepository);
+        UserValidator.validateUpdate(userDTO, paramRegistry);
 
         user.setName(userDTO.getName());
         user.setEmail(userDTO.getEmail());
@@ -543,7 +558,7 @@ public class UserService {
         user.setAddress(userDTO.getAddress());
 
         if (userDTO.getGender() != null) {
-            Param gender = paramRepository.findByTypeAndCode("GENDER", userDTO.getGender()).get();
+            Param gender = paramRegistry.find("GENDER", userDTO.getGender()).get();
             user.setGender(gender);
         }
 
@@ -0,0 +1,28 @@
+package org.example.backend.util;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * Principal trong SecurityContext, dựng từ JWT đã xác thực: đủ thông tin để controller/service
+ * không phải tra lại user trong DB. getName() trả về email (tương thích Authentication.getName()).
+ */
+public record AuthenticatedUser(Long id, String publicId, String email, String role, String fullName)
+        implements AuthenticatedPrincipal {
+
+    public static AuthenticatedUser from(JwtClaims claims) {
+        return new AuthenticatedUser(claims.userId(), claims.publicId(), claims.email(), claims.role(), claims.name());
+    }
+
+    public AuthenticatedUser withId(Long id) {
+        return new AuthenticatedUser(id, publicId, email, role, fullName);
+    }
+
+    public boolean hasRole(String roleCode) {
+        return roleCode.equals(role);
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
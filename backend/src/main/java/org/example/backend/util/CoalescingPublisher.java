@@ -0,0 +1,147 @@
+package org.example.backend.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Gom message WebSocket trong 1 cửa sổ ngắn (websocket.coalesce.window-ms, mặc định 25 ms) rồi mới gửi vào broker:
+ * - Cùng destination + cùng key chỉ giữ payload mới nhất (vd: trạng thái mới nhất của 1 bàn thắng)
+ * - Mỗi destination gửi đúng 1 frame dạng mảng cho mỗi lần flush
+ * - Cửa sổ tính từ sự kiện đầu tiên (không lùi lại khi có sự kiện mới) nên độ trễ tối đa ~ window-ms
+ * Metrics: app.websocket.flush.size (số sự kiện / frame), app.websocket.flush.latency (sự kiện đầu tiên -> gửi),
+ * app.websocket.coalesced (số sự kiện trùng key bị gộp).
+ * window-ms=0: gửi ngay từng sự kiện (vẫn là mảng 1 phần tử để client chỉ có 1 cách xử lý).
+ * beforeSend (tùy chọn) chạy lúc gửi, vd: đánh version của FeedLog để sự kiện bị gộp không tạo lỗ hổng version.
+ */
+@Slf4j
+@Component
+public class CoalescingPublisher {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long windowMs;
+    private final ScheduledExecutorService flusher;
+    private final DistributionSummary flushSize;
+    private final Timer flushLatency;
+    private final Counter coalesced;
+
+    private final Object lock = new Object();
+    private record Pending(Object payload, UnaryOperator<Object> beforeSend) {
+    }
+
+    // destination -> (key -> sự kiện mới nhất), giữ thứ tự xuất hiện
+    private Map<String, LinkedHashMap<Object, Pending>> pending = new LinkedHashMap<>();
+    private long firstEnqueuedAt;
+    private boolean flushScheduled;
+
+    public CoalescingPublisher(SimpMessagingTemplate messagingTemplate, MeterRegistry meterRegistry,
+                               @Value("${websocket.coalesce.window-ms:25}") long windowMs) {
+        this.messagingTemplate = messagingTemplate;
+        this.windowMs = windowMs;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ws-coalesce");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flushSize = DistributionSummary.builder("app.websocket.flush.size")
+                .description("Số sự kiện trong 1 frame WebSocket đã gom")
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder("app.websocket.flush.latency")
+                .description("Thời gian từ sự kiện đầu tiên của lô đến khi gửi vào broker")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("app.websocket.coalesced")
+                .description("Số sự kiện bị thay bằng sự kiện mới hơn cùng key trước khi gửi")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Đưa 1 sự kiện vào hàng chờ của destination.
+     * @param key định danh đối tượng (vd: tableId); sự kiện sau cùng key ghi đè sự kiện trước
+     */
+    public void publish(String destination, Object key, Object payload) {
+        publish(destination, key, payload, UnaryOperator.identity());
+    }
+
+    /**
+     * Như {@link #publish(String, Object, Object)}, payload được biến đổi bởi beforeSend ngay trước khi gửi
+     * (chỉ với sự kiện thực sự được gửi, không với sự kiện đã bị gộp).
+     */
+    public void publish(String destination, Object key, Object payload, UnaryOperator<Object> beforeSend) {
+        boolean rejected = false;
+        // Đã shutdown (đang tắt app): không còn flusher -> gửi thẳng thay vì schedule lên executor đã dừng
+        if (windowMs <= 0 || flusher.isShutdown()) {
+            send(destination, List.of(new Pending(payload, beforeSend)), System.nanoTime());
+            return;
+        }
+        synchronized (lock) {
+            LinkedHashMap<Object, Pending> byKey = pending.computeIfAbsent(destination, d -> new LinkedHashMap<>());
+            // remove + put: sự kiện mới nhất đứng sau cùng trong mảng
+            if (byKey.remove(key) != null) {
+                coalesced.increment();
+            }
+            byKey.put(key, new Pending(payload, beforeSend));
+            if (!flushScheduled) {
+                firstEnqueuedAt = System.nanoTime();
+                try {
+                    flusher.schedule(this::flush, windowMs, TimeUnit.MILLISECONDS);
+                    flushScheduled = true;
+                } catch (RejectedExecutionException e) {
+                    // shutdown() chen vào giữa: flush lần cuối của nó có thể đã chạy -> tự gửi phần đang chờ
+                    rejected = true;
+                }
+            }
+        }
+        if (rejected) {
+            flush();
+        }
+    }
+
+    void flush() {
+        Map<String, LinkedHashMap<Object, Pending>> batch;
+        long since;
+        synchronized (lock) {
+            batch = pending;
+            since = firstEnqueuedAt;
+            pending = new LinkedHashMap<>();
+            flushScheduled = false;
+        }
+        batch.forEach((destination, byKey) -> send(destination, new ArrayList<>(byKey.values()), since));
+    }
+
+    private void send(String destination, List<Pending> events, long since) {
+        List<Object> payloads = new ArrayList<>(events.size());
+        for (Pending event : events) {
+            payloads.add(event.beforeSend().apply(event.payload()));
+        }
+        try {
+            messagingTemplate.convertAndSend(destination, payloads);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Gửi {} sự kiện tới {} thất bại: {}", payloads.size(), destination, e.getMessage());
+        }
+        flushSize.record(payloads.size());
+        flushLatency.record(System.nanoTime() - since, TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flush(); // gửi nốt phần còn lại
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.backend.util;
+
+import java.lang.annotation.*;
+
+/**
+ * Inject {@link AuthenticatedUser} của request hiện tại vào tham số controller.
+ * required = false: trả về null khi chưa đăng nhập thay vì 401.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+    boolean required() default true;
+}
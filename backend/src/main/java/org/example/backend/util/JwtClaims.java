@@ -0,0 +1,14 @@
+package org.example.backend.util;
+
+import java.time.Instant;
+
+/**
+ * Claims của 1 JWT đã được xác thực chữ ký (bất biến, dùng chung giữa các request).
+ * userId null với token phát hành trước khi có claim uid.
+ */
+public record JwtClaims(Long userId, String email, String role, String name, String publicId, Instant expiresAt) {
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+}
@@ -1,30 +1,52 @@
 package org.example.backend.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class JwtUtil {
     private final SecretKey secretKey;
+    private final JwtParser parser;
+    private final Long expiration;
 
-    @Value("${jwt.expiration}")
-    private Long expiration;
+    // SHA-256(token) -> claims đã xác thực; token hết hạn bị loại khi đọc và khi dọn
+    private final Map<String, JwtClaims> verifiedCache = new ConcurrentHashMap<>();
+    private final int cacheMaxEntries;
 
-    public JwtUtil(@Value("${jwt.secret}") String secret) {
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.expiration}") Long expiration,
+                   @Value("${jwt.cache.max-entries:10000}") int cacheMaxEntries) {
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(secretKey).build();
+        this.expiration = expiration;
+        this.cacheMaxEntries = cacheMaxEntries;
     }
 
     public String generateToken(String email, String role, String name, String publicId) {
+        return generateToken(null, email, role, name, publicId);
+    }
+
+    public String generateToken(Long userId, String email, String role, String name, String publicId) {
         return Jwts.builder()
                 .setSubject(email)
+                .claim("uid", userId)
                 .claim("role", role)
                 .claim("name", name)
                 .claim("public_id", publicId)
@@ -34,51 +56,88 @@ public class JwtUtil {
                 .compact();
     }
 
+    /**
+     * Xác thực token 1 lần và trả về claims. Token đã xác thực trước đó (cùng chuỗi, chưa hết hạn)
+     * được lấy từ cache, không kiểm tra lại chữ ký HMAC.
+     *
+     * @throws JwtException nếu token sai chữ ký, sai định dạng hoặc đã hết hạn
+     */
+    public JwtClaims parse(String token) {
+        String key = sha256(token);
+        JwtClaims cached = verifiedCache.get(key);
+        Instant now = Instant.now();
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return cached;
+            }
+            verifiedCache.remove(key);
+            throw new ExpiredJwtException(null, null, "JWT expired at " + cached.expiresAt());
+        }
+
+        JwtClaims claims = verify(token);
+        if (verifiedCache.size() >= cacheMaxEntries) {
+            evict(now);
+        }
+        verifiedCache.put(key, claims);
+        return claims;
+    }
+
+    /** Xác thực chữ ký và đọc claims, không dùng cache. */
+    public JwtClaims verify(String token) {
+        Claims body = parser.parseClaimsJws(token).getBody();
+        Number userId = body.get("uid", Number.class);
+        return new JwtClaims(
+                userId != null ? userId.longValue() : null,
+                body.getSubject(),
+                body.get("role", String.class),
+                body.get("name", String.class),
+                body.get("public_id", String.class),
+                body.getExpiration() != null ? body.getExpiration().toInstant() : null
+        );
+    }
+
     public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
+        return parse(token).email();
     }
 
     public String getRoleFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("role", String.class);
+        return parse(token).role();
     }
 
     public String getNameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("name", String.class);
+        return parse(token).name();
     }
 
     public String getPublicIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("public_id", String.class);
+        return parse(token).publicId();
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(secretKey)
-                    .build()
-                    .parseClaimsJws(token);
+            parse(token);
             return true;
         } catch (Exception e) {
             return false;
         }
     }
+
+    // Dọn token hết hạn; nếu cache vẫn đầy thì bỏ bớt 1/4 (token bị bỏ chỉ phải xác thực lại)
+    private void evict(Instant now) {
+        verifiedCache.values().removeIf(claims -> claims.isExpired(now));
+        int toRemove = verifiedCache.size() - cacheMaxEntries * 3 / 4;
+        Iterator<String> it = verifiedCache.keySet().iterator();
+        while (toRemove-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
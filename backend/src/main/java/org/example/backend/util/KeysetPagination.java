@@ -0,0 +1,108 @@
+package org.example.backend.util;
+
+import org.example.backend.dto.CursorPage;
+import org.example.backend.exception.BadRequestException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Phân trang keyset (seek) cho các danh sách sắp xếp theo (hạng trạng thái, createdAt DESC, id DESC).
+ * Mỗi hạng được đọc bằng 1 range scan "createdAt/id nhỏ hơn cursor" trên index, không OFFSET, không COUNT.
+ * Cursor là chuỗi base64url opaque mã hoá "rank|createdAt|id" của phần tử cuối trang trước.
+ */
+public final class KeysetPagination {
+
+    // Trần số phần tử / trang: size lớn hơn bị hạ xuống, tránh 1 request quét cả bảng
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private KeysetPagination() {
+    }
+
+    public record Cursor(int rank, LocalDateTime createdAt, long id) {
+    }
+
+    /**
+     * Truy vấn 1 hạng: trả về tối đa {@code limit.getPageSize()} phần tử của hạng {@code rank}
+     * đứng sau (createdAt, id) theo thứ tự DESC; afterCreatedAt/afterId null = từ đầu hạng.
+     */
+    @FunctionalInterface
+    public interface RankQuery<T> {
+        List<T> fetch(int rank, LocalDateTime afterCreatedAt, Long afterId, Pageable limit);
+    }
+
+    public static <T> CursorPage<T> paginate(List<Integer> ranks,
+                                             String cursor,
+                                             int size,
+                                             RankQuery<T> query,
+                                             Function<T, LocalDateTime> createdAtOf,
+                                             Function<T, Long> idOf) {
+        if (size < 1) {
+            throw new BadRequestException("size phải >= 1");
+        }
+        size = Math.min(size, MAX_PAGE_SIZE);
+        Cursor after = decode(cursor);
+        List<T> rows = new ArrayList<>();
+        List<Integer> rowRanks = new ArrayList<>();
+
+        for (int rank : ranks) {
+            if (after != null && rank < after.rank()) continue;
+            boolean continueRank = after != null && rank == after.rank();
+            int need = size + 1 - rows.size(); // +1 để biết còn trang sau
+            List<T> fetched = query.fetch(rank,
+                    continueRank ? after.createdAt() : null,
+                    continueRank ? after.id() : null,
+                    PageRequest.of(0, need));
+            for (T row : fetched) {
+                rows.add(row);
+                rowRanks.add(rank);
+            }
+            if (rows.size() > size) break;
+        }
+
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext && !content.isEmpty()) {
+            T last = content.get(content.size() - 1);
+            nextCursor = encode(new Cursor(rowRanks.get(content.size() - 1), createdAtOf.apply(last), idOf.apply(last)));
+        }
+        return new CursorPage<>(List.copyOf(content), size, hasNext, nextCursor);
+    }
+
+    /**
+     * Danh sách hạng cần duyệt cho các mã trạng thái đã xếp hạng (hạng cuối = "trạng thái khác").
+     * Nếu có lọc theo 1 trạng thái thì chỉ duyệt đúng hạng đó.
+     */
+    public static List<Integer> ranksFor(List<String> rankedCodes, String statusFilter) {
+        if (statusFilter != null) {
+            int rank = rankedCodes.indexOf(statusFilter);
+            return List.of(rank >= 0 ? rank : rankedCodes.size());
+        }
+        return IntStream.rangeClosed(0, rankedCodes.size()).boxed().toList();
+    }
+
+    public static String encode(Cursor cursor) {
+        String raw = cursor.rank() + "|" + cursor.createdAt() + "|" + cursor.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Giải mã cursor; chuỗi rỗng/null = trang đầu tiên. */
+    public static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            return new Cursor(Integer.parseInt(parts[0]), LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Cursor không hợp lệ");
+        }
+    }
+}
@@ -17,4 +17,9 @@ public class SecurityUtil {
         }
         return null;
     }
+
+    public static AuthenticatedUser getCurrentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return (auth != null && auth.getPrincipal() instanceof AuthenticatedUser user) ? user : null;
+    }
 }
@@ -0,0 +1,124 @@
+package org.example.backend.util;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Bộ đếm câu lệnh SQL theo luồng (1 HTTP request hoặc 1 đoạn code trong test).
+ * - Đếm số lần thực thi, tổng thời gian JDBC và số lần lặp của từng "hình dạng" câu lệnh
+ *   (SQL đã bỏ literal, gộp danh sách IN) để phát hiện N+1.
+ * - Được ghi bởi InstrumentedDataSource; ngoài 1 scope thì không ghi gì.
+ */
+public final class SqlStats {
+
+    private static final ThreadLocal<Recorder> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlStats() {
+    }
+
+    /** Mở scope đếm mới cho luồng hiện tại (có thể lồng nhau; scope trong không cộng vào scope ngoài). */
+    public static Scope begin() {
+        Recorder recorder = new Recorder(CURRENT.get());
+        CURRENT.set(recorder);
+        return new Scope(recorder);
+    }
+
+    /** Ghi 1 lần thực thi (gọi từ InstrumentedDataSource). */
+    public static void record(String sql, long elapsedNanos) {
+        Recorder recorder = CURRENT.get();
+        if (recorder != null) {
+            recorder.count++;
+            recorder.nanos += elapsedNanos;
+            recorder.shapes.merge(shapeOf(sql), 1, Integer::sum);
+        }
+    }
+
+    /** Chuẩn hoá SQL: literal -> ?, IN (?, ?, ...) -> IN (?), gộp khoảng trắng. */
+    public static String shapeOf(String sql) {
+        if (sql == null) {
+            return "<batch>";
+        }
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    public static final class Scope implements AutoCloseable {
+        private final Recorder recorder;
+        private Snapshot result;
+
+        private Scope(Recorder recorder) {
+            this.recorder = recorder;
+        }
+
+        /** Số liệu tính đến lúc gọi. */
+        public Snapshot snapshot() {
+            return result != null ? result : recorder.snapshot();
+        }
+
+        @Override
+        public void close() {
+            if (result == null) {
+                result = recorder.snapshot();
+                if (CURRENT.get() == recorder) {
+                    if (recorder.parent == null) {
+                        CURRENT.remove();
+                    } else {
+                        CURRENT.set(recorder.parent);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Kết quả 1 scope.
+     *
+     * @param shapes hình dạng câu lệnh -> số lần thực thi, nhiều nhất trước
+     */
+    public record Snapshot(int statements, long jdbcNanos, Map<String, Integer> shapes) {
+
+        public double jdbcMillis() {
+            return jdbcNanos / 1_000_000.0;
+        }
+
+        /** Số lần lặp nhiều nhất của 1 hình dạng câu lệnh. */
+        public int maxRepeat() {
+            return shapes.isEmpty() ? 0 : shapes.values().iterator().next();
+        }
+
+        /** Các hình dạng chạy >= {@code threshold} lần (nghi N+1). */
+        public Map<String, Integer> repeatedShapes(int threshold) {
+            Map<String, Integer> repeated = new LinkedHashMap<>();
+            shapes.forEach((shape, count) -> {
+                if (count >= threshold) repeated.put(shape, count);
+            });
+            return repeated;
+        }
+    }
+
+    private static final class Recorder {
+        private final Recorder parent;
+        private int count;
+        private long nanos;
+        private final Map<String, Integer> shapes = new HashMap<>();
+
+        private Recorder(Recorder parent) {
+            this.parent = parent;
+        }
+
+        private Snapshot snapshot() {
+            Map<String, Integer> sorted = new LinkedHashMap<>();
+            shapes.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+            return new Snapshot(count, nanos, Collections.unmodifiableMap(sorted));
+        }
+    }
+}
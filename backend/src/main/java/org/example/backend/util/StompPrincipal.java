@@ -0,0 +1,20 @@
+package org.example.backend.util;
+
+import java.security.Principal;
+
+/**
+ * Principal của 1 phiên STOMP, gắn lúc CONNECT từ JWT.
+ * getName() trả về publicId (không phải email như AuthenticatedUser) để
+ * convertAndSendToUser(userPublicId, ...) định tuyến tới đúng các phiên của user.
+ */
+public record StompPrincipal(AuthenticatedUser user) implements Principal {
+
+    @Override
+    public String getName() {
+        return user.publicId();
+    }
+
+    public boolean isStaff() {
+        return user.hasRole("ADMIN") || user.hasRole("STAFF");
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.backend.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public final class TxUtils {
+
+    private TxUtils() {
+    }
+
+    /**
+     * Chạy action sau khi transaction hiện tại commit (rollback thì bỏ); không có transaction thì chạy ngay.
+     * Lưu ý: đăng ký từ bên trong 1 callback afterCommit khác sẽ bị Spring bỏ qua -> gọi trước khi commit.
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,23 +1,47 @@
 package org.example.backend.util;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.example.backend.dto.notification.NotificationDto;
 import org.example.backend.dto.order.OrderResponseDTO;
 import org.example.backend.entity.order.Order;
 import org.example.backend.entity.param.Param;
-import org.example.backend.repository.param.ParamRepository;
+import org.example.backend.service.feed.FeedLog;
+import org.example.backend.service.param.ParamRegistry;
+import org.example.backend.service.menu.MenuItemChangedEvent;
+import org.example.backend.util.cluster.ClusterEvent;
+import org.example.backend.util.cluster.ClusterEventBus;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
 
+/**
+ * Gửi message WebSocket cho client. Mọi message đi qua {@link ClusterEventBus}: mỗi node backend nhận lại
+ * và phát cho các phiên STOMP đang kết nối vào chính node đó (simple broker chỉ biết phiên trong JVM của nó).
+ */
 @Component
 @RequiredArgsConstructor
 public class WebSocketNotifier {
 
+    // Đoạn id trong destination (số, publicId/UUID) -> gộp lại để tag "topic" có số giá trị hữu hạn
+    private static final Pattern ID_SEGMENT = Pattern.compile("/(\\d+|[0-9a-fA-F-]{8,})(?=/|$)");
+
     private final SimpMessagingTemplate messagingTemplate;
-    private final ParamRepository paramRepository;
+    private final ParamRegistry paramRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final CoalescingPublisher coalescingPublisher;
+    private final FeedLog feedLog;
+    private final ClusterEventBus clusterEventBus;
+    private final Map<String, Timer> publishTimers = new ConcurrentHashMap<>();
 
     /**
      * Gửi thông báo cho client theo topic.
@@ -25,89 +49,188 @@ public class WebSocketNotifier {
      * @param payload dữ liệu gửi lên client
      */
     public void notify(String topic, Map<String, Object> payload) {
-        messagingTemplate.convertAndSend(topic, payload);
+        send(topic, payload);
+    }
+
+    private void send(String destination, Object payload) {
+        clusterEventBus.publish(ClusterEvent.topic(destination, payload));
+    }
+
+    /**
+     * Gửi riêng cho 1 user: chỉ các phiên STOMP của user đó (principal = publicId, gắn lúc CONNECT)
+     * nhận được. Client subscribe /user{queue}, ví dụ /user/queue/orders.
+     */
+    private void sendToUser(String userPublicId, String queue, Object payload) {
+        if (userPublicId == null) {
+            return;
+        }
+        clusterEventBus.publish(ClusterEvent.user(userPublicId, queue, payload));
+    }
+
+    /**
+     * Sự kiện của live feed (bàn, menu): gửi sau khi transaction commit, version được cấp đúng lúc gửi
+     * nên mọi thay đổi có version <= V đều đã commit (snapshot đọc sau khi lấy V sẽ chứa chúng).
+     * coalesce = true: đi qua CoalescingPublisher, sự kiện bị gộp không chiếm version.
+     * Gom và đánh version làm ở node nhận, theo FeedLog của node đó (epoch khác nhau giữa các node).
+     */
+    private void sendFeed(FeedLog.Feed feed, String type, String destination, Object key,
+                          Map<String, Object> payload, boolean coalesce) {
+        TxUtils.afterCommit(() -> clusterEventBus.publish(
+                ClusterEvent.feed(feed, type, destination, String.valueOf(key), payload, coalesce)));
+    }
+
+    @PostConstruct
+    void subscribeToClusterBus() {
+        clusterEventBus.subscribe(this::deliver);
+    }
+
+    /**
+     * Phát 1 event (của node này hoặc node khác) cho các phiên local.
+     * Mọi lần gửi vào broker đều đi qua đây để đo thời gian và đếm theo topic (app.websocket.publish).
+     */
+    @SuppressWarnings("unchecked")
+    void deliver(ClusterEvent event) {
+        String destination = event.destination();
+        switch (event.kind()) {
+            case TOPIC -> {
+                if (event.coalesce()) {
+                    coalescingPublisher.publish(destination, event.key(), event.payload());
+                } else {
+                    timer(destination).record(() -> messagingTemplate.convertAndSend(destination, event.payload()));
+                }
+            }
+            case USER -> timer("/user" + destination).record(() ->
+                    messagingTemplate.convertAndSendToUser(event.user(), destination, event.payload()));
+            case FEED -> {
+                Map<String, Object> payload = (Map<String, Object>) event.payload();
+                if (event.coalesce()) {
+                    coalescingPublisher.publish(destination, event.key(), payload, stamp(event.feed(), event.type()));
+                } else {
+                    Map<String, Object> stamped = feedLog.append(event.feed(), event.type(), payload);
+                    timer(destination).record(() -> messagingTemplate.convertAndSend(destination, stamped));
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private UnaryOperator<Object> stamp(FeedLog.Feed feed, String type) {
+        return payload -> feedLog.append(feed, type, (Map<String, Object>) payload);
+    }
+
+    private Timer timer(String destination) {
+        return publishTimers.computeIfAbsent(ID_SEGMENT.matcher(destination).replaceAll("/{id}"),
+                topic -> Timer.builder("app.websocket.publish")
+                        .description("Thời gian gửi 1 message STOMP vào broker")
+                        .tag("topic", topic)
+                        .register(meterRegistry));
     }
 
     /**
      * Gửi thông báo cập nhật trạng thái order
+     * - Chủ đơn: /user/queue/orders
+     * - ADMIN/STAFF: /topic/admin/orders/status
      */
-    public void notifyOrderStatus(String publicId, String newStatus) {
-        notify("/topic/order", Map.of(
-                "orderPublicId", publicId,
+    public void notifyOrderStatus(String userPublicId, String orderPublicId, String newStatus) {
+        Map<String, Object> payload = Map.of(
+                "orderPublicId", orderPublicId,
                 "status", newStatus
-        ));
+        );
+        sendToUser(userPublicId, "/queue/orders", payload);
+        send("/topic/admin/orders/status", payload);
     }
 
     /**
-     * Gửi thông báo cập nhật trạng thái payment
+     * Gửi thông báo cập nhật trạng thái payment cho chủ đơn (/user/queue/payments)
      */
-    public void notifyPaymentStatus(String publicId, String paymentStatus) {
-        notify("/topic/payment/" + publicId, Map.of(
-                "orderPublicId", publicId,
+    public void notifyPaymentStatus(String userPublicId, String orderPublicId, String paymentStatus) {
+        sendToUser(userPublicId, "/queue/payments", Map.of(
+                "orderPublicId", orderPublicId,
                 "paymentStatus", paymentStatus
         ));
     }
 
     /**
      * Gửi thông báo cập nhật inventory của menuItem
+     * - Feed "menu": /topic/menu/stock, gom theo menuItemId, client nhận mảng [{menuItemId, version, epoch}].
+     *   Mọi sự kiện của feed menu nằm trên các topic chung (new/update/delete/stock) nên client theo dõi feed
+     *   thấy version liên tục và phát hiện được lỗ hổng.
+     * - /topic/menu/{id}: tín hiệu cho widget của từng món (thẻ món, giỏ hàng), không mang version;
+     *   cũng gom theo menuItemId: nhiều lần trừ kho cùng món trong 1 cửa sổ -> 1 frame mảng
      */
     public void notifyMenuItemStock(Long menuItemId) {
-        notify("/topic/menu/" + menuItemId, Map.of("menuItemId", menuItemId));
+        eventPublisher.publishEvent(MenuItemChangedEvent.of(menuItemId));
+        Map<String, Object> payload = Map.of("menuItemId", menuItemId);
+        sendFeed(FeedLog.Feed.MENU, "stock", "/topic/menu/stock", menuItemId, payload, true);
+        TxUtils.afterCommit(() -> clusterEventBus.publish(
+                ClusterEvent.coalescedTopic("/topic/menu/" + menuItemId, String.valueOf(menuItemId), payload)));
     }
 
     public void notifyNewOrderForAdmin(OrderResponseDTO order) {
-        messagingTemplate.convertAndSend("/topic/admin/orders", order);
+        send("/topic/admin/orders", order);
     }
 
     /**
      * Gửi thông báo cập nhật trạng thái bàn
+     * Gom theo tableId (CoalescingPublisher): nhiều bàn đổi trạng thái cùng lúc -> 1 frame mảng,
+     * cùng 1 bàn chỉ giữ trạng thái mới nhất (feed "tables")
      */
     public void notifyTableStatus(Long tableId, String newStatus) {
-        Param status = paramRepository.findByTypeAndCode("STATUS_TABLE", newStatus)
+        Param status = paramRegistry.find("STATUS_TABLE", newStatus)
                 .orElseThrow(() -> new RuntimeException("Table status not found: " + newStatus));
-        notify("/topic/tables", Map.of(
+        sendFeed(FeedLog.Feed.TABLES, "status", "/topic/tables", tableId, Map.of(
                 "tableId", tableId,
                 "statusId", status.getId()
-        ));
+        ), true);
     }
 
-    public void notifyReservationStatus(String publicId, String newStatus) {
-        notify("/topic/reservations", Map.of(
-                "reservationPublicId", publicId,
+    /**
+     * Gửi thông báo cập nhật trạng thái đặt bàn
+     * - Người đặt: /user/queue/reservations
+     * - ADMIN/STAFF: /topic/admin/reservations
+     */
+    public void notifyReservationStatus(String userPublicId, String reservationPublicId, String newStatus) {
+        Map<String, Object> payload = Map.of(
+                "reservationPublicId", reservationPublicId,
                 "status", newStatus
-        ));
+        );
+        sendToUser(userPublicId, "/queue/reservations", payload);
+        send("/topic/admin/reservations", payload);
     }
     /**
      * Gửi thông báo khi tạo mới MenuItem
      */
     public void notifyNewMenuItem(Long menuItemId, String name, String avatarUrl, Long categoryId) {
-        notify("/topic/menu/new", Map.of(
+        eventPublisher.publishEvent(MenuItemChangedEvent.of(menuItemId));
+        sendFeed(FeedLog.Feed.MENU, "new", "/topic/menu/new", menuItemId, Map.of(
                 "menuItemId", menuItemId,
                 "name", name,
                 "avatarUrl", avatarUrl,
                 "categoryId", categoryId
-        ));
+        ), false);
     }
     /**
      * 🗑️ Gửi thông báo khi xóa MenuItem
      */
     public void notifyDeletedMenuItem(Long menuItemId) {
-        notify("/topic/menu/delete", Map.of(
+        eventPublisher.publishEvent(MenuItemChangedEvent.deleted(menuItemId));
+        sendFeed(FeedLog.Feed.MENU, "delete", "/topic/menu/delete", menuItemId, Map.of(
                 "menuItemId", menuItemId
-        ));
+        ), false);
     }
 
     /**
      * ✏️ Gửi thông báo khi cập nhật MenuItem
      */
     public void notifyUpdatedMenuItem(Long menuItemId, String name, String avatarUrl, Long categoryId,String newStatus) {
-        notify("/topic/menu/update", Map.of(
+        eventPublisher.publishEvent(MenuItemChangedEvent.of(menuItemId));
+        sendFeed(FeedLog.Feed.MENU, "update", "/topic/menu/update", menuItemId, Map.of(
                 "menuItemId", menuItemId,
                 "name", name,
                 "avatarUrl", avatarUrl,
                 "categoryId", categoryId,
                 "status", newStatus
-        ));
+        ), false);
     }
 
     public void notifyNewCategory(Long categoryId, String name) {
@@ -118,6 +241,7 @@ public class WebSocketNotifier {
     }
 
     public void notifyCategoryUpdated(Long categoryId, String name) {
+        eventPublisher.publishEvent(MenuItemChangedEvent.all()); // slug của các món thay đổi theo
         notify("/topic/category/update", Map.of(
                 "categoryId", categoryId,
                 "name", name
@@ -125,17 +249,18 @@ public class WebSocketNotifier {
     }
 
     public void notifyCategoryDeleted(Long categoryId) {
+        eventPublisher.publishEvent(MenuItemChangedEvent.all());
         notify("/topic/category/delete", Map.of(
                 "categoryId", categoryId
         ));
     }
 
     /**
-     * 🔔 Gửi thông báo mới đến user cụ thể (qua topic riêng)
-     * Client sẽ subscribe /topic/notifications/{userPublicId}
+     * 🔔 Gửi thông báo mới đến user cụ thể
+     * Client sẽ subscribe /user/queue/notifications
      */
     public void notifyNewNotification(String userPublicId, Object notificationDto) {
-        notify("/topic/notifications/" + userPublicId, Map.of(
+        sendToUser(userPublicId, "/queue/notifications", Map.of(
                 "type", "NEW_NOTIFICATION",
                 "data", notificationDto
         ));
@@ -143,18 +268,18 @@ public class WebSocketNotifier {
 
     /**
      * 🔔 Gửi thông báo realtime cho ADMIN/STAF (ví dụ có đơn hàng hoặc đặt bàn mới)
-     * Client ADMIN sẽ subscribe /topic/notifications/admin
+     * Client ADMIN/STAFF sẽ subscribe /topic/admin/notifications
      */
     public void notifyAdminNotification(Object notificationDto) {
-        notify("/topic/notifications/admin", Map.of(
+        notify("/topic/admin/notifications", Map.of(
                 "type", "NEW_NOTIFICATION",
                 "data", notificationDto
         ));
     }
 
     public void notifyNotificationRead(String userPublicId, NotificationDto dto) {
-        messagingTemplate.convertAndSend(
-                "/topic/notifications/" + userPublicId,
+        sendToUser(
+                userPublicId, "/queue/notifications",
                 Map.of(
                         "type", "NOTIFICATION_READ",
                         "data", dto
@@ -166,8 +291,8 @@ public class WebSocketNotifier {
      * 🗑️ Gửi thông báo realtime khi 1 hoặc nhiều notification bị xóa
      */
     public void notifyNotificationDeleted(String userPublicId, Long deletedId) {
-        messagingTemplate.convertAndSend(
-                "/topic/notifications/" + userPublicId,
+        sendToUser(
+                userPublicId, "/queue/notifications",
                 Map.of(
                         "type", "NOTIFICATION_DELETED",
                         "data", deletedId
@@ -178,8 +303,8 @@ public class WebSocketNotifier {
      * Overload cho nhiều id
      */
     public void notifyNotificationDeleted(String userPublicId, List<Long> deletedIds) {
-        messagingTemplate.convertAndSend(
-                "/topic/notifications/" + userPublicId,
+        sendToUser(
+                userPublicId, "/queue/notifications",
                 Map.of(
                         "type", "NOTIFICATION_DELETED",
                         "data", deletedIds
@@ -191,37 +316,37 @@ public class WebSocketNotifier {
      * 🧾 Gửi thông báo khi tạo mới bàn (table)
      */
     public void notifyNewTable(Long tableId, String name, int capacity, Long locationId, Long positionId, Long statusId) {
-        notify("/topic/tables/new", Map.of(
+        sendFeed(FeedLog.Feed.TABLES, "new", "/topic/tables/new", tableId, Map.of(
                 "tableId", tableId,
                 "name", name,
                 "capacity", capacity,
                 "locationId", locationId,
                 "positionId", positionId,
                 "statusId", statusId
-        ));
+        ), false);
     }
 
     /**
      * ✏️ Gửi thông báo khi cập nhật bàn
      */
     public void notifyUpdatedTable(Long tableId, String name, int capacity, Long locationId, Long positionId, Long statusId) {
-        notify("/topic/tables/update", Map.of(
+        sendFeed(FeedLog.Feed.TABLES, "update", "/topic/tables/update", tableId, Map.of(
                 "tableId", tableId,
                 "name", name,
                 "capacity", capacity,
                 "locationId", locationId,
                 "positionId", positionId,
                 "statusId", statusId
-        ));
+        ), false);
     }
 
     /**
      * 🗑️ Gửi thông báo khi xóa bàn
      */
     public void notifyDeletedTable(Long tableId) {
-        notify("/topic/tables/delete", Map.of(
+        sendFeed(FeedLog.Feed.TABLES, "delete", "/topic/tables/delete", tableId, Map.of(
                 "tableId", tableId
-        ));
+        ), false);
     }
 
     /**
@@ -237,10 +362,10 @@ public class WebSocketNotifier {
     }
     /**
      * 🔄 Gửi thông báo khi giỏ hàng của user thay đổi (tạo mới, cập nhật, checkout, hủy, ...)
-     * Client sẽ subscribe: /topic/cart/{userPublicId}
+     * Client sẽ subscribe: /user/queue/cart
      */
     public void notifyCartUpdated(String userPublicId) {
-        notify("/topic/cart/" + userPublicId, Map.of(
+        sendToUser(userPublicId, "/queue/cart", Map.of(
                 "type", "CART_UPDATED",
                 "message", "Cart has been updated"
         ));
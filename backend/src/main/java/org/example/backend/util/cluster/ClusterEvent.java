@@ -0,0 +1,39 @@
+package org.example.backend.util.cluster;
+
+import org.example.backend.service.feed.FeedLog;
+
+/**
+ * 1 message WebSocket cần phát tới client trên MỌI node (qua {@link ClusterEventBus}).
+ * - TOPIC: convertAndSend(destination, payload); coalesce = true: mỗi node gom theo key trước khi gửi (không version)
+ * - USER: convertAndSendToUser(user, destination, payload), destination dạng /queue/...
+ * - FEED: sự kiện live feed (bàn, menu), mỗi node tự gom (coalesce) và đánh version theo FeedLog của node đó
+ * payload phải serialize được bằng Jackson (Map, DTO) để gửi qua mạng; node nhận được payload dạng Map/List.
+ */
+public record ClusterEvent(Kind kind,
+                           String destination,
+                           String user,
+                           FeedLog.Feed feed,
+                           String type,
+                           String key,
+                           boolean coalesce,
+                           Object payload) {
+
+    public enum Kind { TOPIC, USER, FEED }
+
+    public static ClusterEvent topic(String destination, Object payload) {
+        return new ClusterEvent(Kind.TOPIC, destination, null, null, null, null, false, payload);
+    }
+
+    public static ClusterEvent coalescedTopic(String destination, String key, Object payload) {
+        return new ClusterEvent(Kind.TOPIC, destination, null, null, null, key, true, payload);
+    }
+
+    public static ClusterEvent user(String user, String queue, Object payload) {
+        return new ClusterEvent(Kind.USER, queue, user, null, null, null, false, payload);
+    }
+
+    public static ClusterEvent feed(FeedLog.Feed feed, String type, String destination, String key,
+                                    Object payload, boolean coalesce) {
+        return new ClusterEvent(Kind.FEED, destination, null, feed, type, key, coalesce, payload);
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.backend.util.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Bus sự kiện giữa các node backend: simple broker chỉ biết phiên WebSocket trong JVM của nó,
+ * nên mọi message gửi client đi qua bus, mỗi node nhận lại rồi phát cho phiên local của mình.
+ * Chọn bằng cluster.bus.type: local (mặc định, 1 node) hoặc tcp ({@link TcpPeerEventBus}).
+ * Event feed được mỗi node nhận đánh version theo FeedLog riêng của node đó, nên bù dữ liệu feed
+ * (/api/v1/feeds) chỉ dùng được delta khi client gọi đúng node đang giữ WebSocket của nó: cần sticky session
+ * (xem FeedLog).
+ */
+public interface ClusterEventBus {
+
+    /** Phát event tới mọi node, kể cả node hiện tại (node hiện tại nhận ngay trên thread gọi). */
+    void publish(ClusterEvent event);
+
+    /** Đăng ký nơi nhận event (của mọi node) để phát cho các phiên WebSocket trên node này. */
+    void subscribe(Consumer<ClusterEvent> listener);
+}
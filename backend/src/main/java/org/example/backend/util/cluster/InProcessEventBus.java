@@ -0,0 +1,41 @@
+package org.example.backend.util.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Chạy 1 node: event chỉ được giao cho listener trong JVM này (hành vi như trước khi có bus).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cluster.bus.type", havingValue = "local", matchIfMissing = true)
+public class InProcessEventBus implements ClusterEventBus {
+
+    private final List<Consumer<ClusterEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(ClusterEvent event) {
+        deliverLocally(listeners, event);
+    }
+
+    @Override
+    public void subscribe(Consumer<ClusterEvent> listener) {
+        listeners.add(listener);
+    }
+
+    /** Giao event cho từng listener; 1 listener lỗi không chặn các listener còn lại. */
+    static void deliverLocally(List<Consumer<ClusterEvent>> listeners, ClusterEvent event) {
+        for (Consumer<ClusterEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                log.warn("⚠️ Phát event {} tới {} thất bại: {}", event.kind(), event.destination(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package org.example.backend.util.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Bus giữa các node qua TCP, full mesh ngang hàng (không cần broker ngoài):
+ * - Mỗi node mở cluster.tcp.port (bind cluster.tcp.bind-address, mặc định 127.0.0.1) để nhận event của node khác
+ * - Mỗi node giữ 1 kết nối tới từng peer trong cluster.tcp.peers (host:port,host:port) và chỉ gửi event của chính nó,
+ *   node nhận không chuyển tiếp -> không lặp vòng
+ * - Giao thức: node nhận gửi "CHALLENGE nonce", node gửi trả "HELLO nodeId hmac" với
+ *   hmac = Base64(HmacSHA256(secret, nonce + " " + nodeId)) (secret không đi trên mạng), sau đó mỗi dòng 1 ClusterEvent JSON
+ * - Nhận: tối đa cluster.tcp.max-inbound kết nối (mỗi kết nối 1 thread), HELLO phải tới trong HELLO_TIMEOUT_MS,
+ *   dòng HELLO tối đa MAX_HELLO_CHARS, dòng event tối đa cluster.tcp.max-event-chars -> vượt thì đóng kết nối
+ * - Mỗi peer có hàng đợi gửi riêng (cluster.tcp.queue-capacity), đầy thì bỏ event; mất kết nối thì tự nối lại.
+ *   Event bị mất trong lúc đó: client live feed bù qua /api/v1/feeds, các event khác thì không được gửi lại.
+ * - HELLO sai hmac, hoặc mang nodeId của chính node này (node tự liệt kê mình trong peers) -> đóng kết nối
+ * Bật bằng cluster.bus.type=tcp, bắt buộc đặt cluster.tcp.secret giống nhau trên mọi node (để trống thì không khởi động:
+ * ai kết nối được cổng này đều có thể đẩy message tới /user/queue/* của bất kỳ user nào).
+ * Event KHÔNG được mã hoá (nội dung thông báo, đơn hàng của user đi dạng rõ): chỉ mở cổng trong mạng nội bộ tin cậy
+ * (VPC / VPN giữa các node), không bind ra Internet.
+ * Metrics: app.cluster.events{direction=sent|received|dropped}, app.cluster.peers.connected.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cluster.bus.type", havingValue = "tcp")
+public class TcpPeerEventBus implements ClusterEventBus {
+
+    private static final long MAX_RECONNECT_DELAY_MS = 10_000;
+    private static final int HELLO_TIMEOUT_MS = 5_000;
+    private static final int MAX_HELLO_CHARS = 512;
+    private static final String HMAC = "HmacSHA256";
+
+    private final String nodeId;
+    private final byte[] secret;
+    private final ObjectMapper objectMapper;
+    private final ServerSocket serverSocket;
+    private final int maxInbound;
+    private final int maxEventChars;
+    private final SecureRandom random = new SecureRandom();
+    private final List<Peer> peers = new ArrayList<>();
+    private final List<Consumer<ClusterEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Socket> inbound = new CopyOnWriteArrayList<>();
+    private final List<Thread> senders = new ArrayList<>();
+    private final Counter sent;
+    private final Counter received;
+    private final Counter dropped;
+    private volatile boolean running = true;
+
+    public TcpPeerEventBus(@Value("${cluster.node-id:}") String nodeId,
+                           @Value("${cluster.tcp.bind-address:127.0.0.1}") String bindAddress,
+                           @Value("${cluster.tcp.port:7600}") int port,
+                           @Value("${cluster.tcp.peers:}") String peers,
+                           @Value("${cluster.tcp.secret:}") String secret,
+                           @Value("${cluster.tcp.queue-capacity:10000}") int queueCapacity,
+                           @Value("${cluster.tcp.max-inbound:32}") int maxInbound,
+                           @Value("${cluster.tcp.max-event-chars:1048576}") int maxEventChars,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry) throws IOException {
+        if (secret.isBlank()) {
+            throw new IllegalStateException("cluster.bus.type=tcp cần cluster.tcp.secret (giống nhau trên mọi node)");
+        }
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.objectMapper = objectMapper;
+        this.maxInbound = Math.max(1, maxInbound);
+        this.maxEventChars = Math.max(MAX_HELLO_CHARS, maxEventChars);
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getByName(bindAddress));
+        this.sent = events(meterRegistry, "sent");
+        this.received = events(meterRegistry, "received");
+        this.dropped = events(meterRegistry, "dropped");
+
+        Arrays.stream(peers.split(","))
+                .map(String::trim)
+                .filter(address -> !address.isEmpty())
+                .filter(address -> !isSelf(address))
+                .forEach(address -> this.peers.add(new Peer(address, queueCapacity)));
+        Gauge.builder("app.cluster.peers.connected", this.peers, list -> list.stream().filter(p -> p.connected).count())
+                .description("Số peer đang có kết nối gửi")
+                .register(meterRegistry);
+
+        daemon("cluster-accept", this::acceptLoop).start();
+        this.peers.forEach(peer -> senders.add(daemon("cluster-peer-" + peer.address, peer::sendLoop)));
+        senders.forEach(Thread::start);
+        log.info("🔗 Cluster bus TCP: node {} nghe cổng {}, {} peer {}", this.nodeId, localPort(), this.peers.size(), peers);
+    }
+
+    @Override
+    public void publish(ClusterEvent event) {
+        InProcessEventBus.deliverLocally(listeners, event);
+        if (peers.isEmpty()) {
+            return;
+        }
+        String line;
+        try {
+            line = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.warn("⚠️ Không serialize được event tới {}: {}", event.destination(), e.getMessage());
+            return;
+        }
+        for (Peer peer : peers) {
+            if (!peer.queue.offer(line)) {
+                dropped.increment();
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<ClusterEvent> listener) {
+        listeners.add(listener);
+    }
+
+    public int localPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    // ===================== NHẬN =====================
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                if (inbound.size() >= maxInbound) {
+                    log.warn("⚠️ Từ chối kết nối cluster từ {}: đã đủ {} kết nối", socket.getRemoteSocketAddress(), maxInbound);
+                    socket.close();
+                    continue;
+                }
+                inbound.add(socket);
+                daemon("cluster-in-" + socket.getRemoteSocketAddress(), () -> readLoop(socket)).start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("⚠️ Cluster bus accept lỗi: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        try (socket; BufferedReader reader = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            // Chưa xác thực: không để kết nối treo giữ thread / gửi dòng dài vô hạn
+            socket.setSoTimeout(HELLO_TIMEOUT_MS);
+            String nonce = nonce();
+            writer.write("CHALLENGE " + nonce + "\n");
+            writer.flush();
+            String[] hello = String.valueOf(readLine(reader, MAX_HELLO_CHARS)).split(" ", 3);
+            if (hello.length < 3 || !hello[0].equals("HELLO") || !authorized(nonce, hello[1], hello[2])) {
+                log.warn("⚠️ Từ chối kết nối cluster từ {}", socket.getRemoteSocketAddress());
+                return;
+            }
+            if (hello[1].equals(nodeId)) {
+                // Nhận event của chính mình -> mỗi event bị phát 2 lần cho phiên local
+                log.warn("⚠️ Từ chối kết nối cluster từ chính node {} ({}): kiểm tra cluster.tcp.peers",
+                        nodeId, socket.getRemoteSocketAddress());
+                return;
+            }
+            socket.setSoTimeout(0);
+            log.info("🔗 Node {} đã kết nối từ {}", hello[1], socket.getRemoteSocketAddress());
+            String line;
+            while (running && (line = readLine(reader, maxEventChars)) != null) {
+                ClusterEvent event;
+                try {
+                    event = objectMapper.readValue(line, ClusterEvent.class);
+                } catch (JsonProcessingException e) {
+                    log.warn("⚠️ Event cluster không hợp lệ từ node {}: {}", hello[1], e.getMessage());
+                    continue;
+                }
+                received.increment();
+                InProcessEventBus.deliverLocally(listeners, event);
+            }
+        } catch (IOException e) {
+            if (running) {
+                log.debug("Kết nối cluster {} đóng: {}", socket.getRemoteSocketAddress(), e.getMessage());
+            }
+        } finally {
+            inbound.remove(socket);
+        }
+    }
+
+    /** Địa chỉ peer trỏ về cổng nghe của chính node này (host local + cùng port). */
+    private boolean isSelf(String address) {
+        int separator = address.lastIndexOf(':');
+        try {
+            if (Integer.parseInt(address.substring(separator + 1)) != localPort()) {
+                return false;
+            }
+            InetAddress host = InetAddress.getByName(address.substring(0, separator));
+            boolean self = host.isLoopbackAddress() || host.isAnyLocalAddress() || NetworkInterface.getByInetAddress(host) != null;
+            if (self) {
+                log.warn("⚠️ Bỏ peer {}: là chính node này", address);
+            }
+            return self;
+        } catch (IOException | RuntimeException e) {
+            return false; // chưa phân giải được: để Peer tự nối lại, HELLO sẽ chặn nếu đúng là chính mình
+        }
+    }
+
+    private boolean authorized(String nonce, String remoteNodeId, String presented) {
+        return MessageDigest.isEqual(sign(nonce, remoteNodeId).getBytes(StandardCharsets.UTF_8),
+                presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String sign(String nonce, String signerNodeId) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(new SecretKeySpec(secret, HMAC));
+            byte[] digest = mac.doFinal((nonce + " " + signerNodeId).getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 không khả dụng", e);
+        }
+    }
+
+    private String nonce() {
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /** Đọc 1 dòng (bỏ \r\n), null nếu hết stream; dài quá maxChars thì ném IOException (đóng kết nối). */
+    static String readLine(Reader reader, int maxChars) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (c == '\n') {
+                int end = line.length();
+                return end > 0 && line.charAt(end - 1) == '\r' ? line.substring(0, end - 1) : line.toString();
+            }
+            if (line.length() >= maxChars) {
+                throw new IOException("Dòng vượt quá " + maxChars + " ký tự");
+            }
+            line.append((char) c);
+        }
+        return line.length() == 0 ? null : line.toString();
+    }
+
+    // ===================== GỬI =====================
+
+    /** Kết nối gửi tới 1 peer: 1 thread, tự nối lại với thời gian chờ tăng dần. */
+    private final class Peer {
+        private final String address;
+        private final BlockingQueue<String> queue;
+        private volatile boolean connected;
+        private volatile Socket socket;
+
+        private Peer(String address, int queueCapacity) {
+            this.address = address;
+            this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        }
+
+        private void sendLoop() {
+            long delayMs = 100;
+            while (running) {
+                try (Socket s = connect(); Writer writer = new BufferedWriter(
+                        new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+                    socket = s;
+                    s.setSoTimeout(HELLO_TIMEOUT_MS);
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+                    String[] challenge = String.valueOf(readLine(reader, MAX_HELLO_CHARS)).split(" ", 2);
+                    if (challenge.length < 2 || !challenge[0].equals("CHALLENGE")) {
+                        throw new IOException("peer không gửi CHALLENGE");
+                    }
+                    writer.write("HELLO " + nodeId + " " + sign(challenge[1], nodeId) + "\n");
+                    writer.flush();
+                    connected = true;
+                    delayMs = 100;
+                    log.info("🔗 Đã kết nối tới peer {}", address);
+                    while (running) {
+                        String line = queue.take();
+                        writer.write(line);
+                        writer.write('\n');
+                        sent.increment();
+                        if (queue.isEmpty()) {
+                            writer.flush();
+                        }
+                    }
+                } catch (IOException e) {
+                    if (connected) {
+                        log.warn("⚠️ Mất kết nối tới peer {}: {}", address, e.getMessage());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    connected = false;
+                }
+                if (!sleep(delayMs)) {
+                    return;
+                }
+                delayMs = Math.min(delayMs * 2, MAX_RECONNECT_DELAY_MS);
+            }
+        }
+
+        private Socket connect() throws IOException {
+            int separator = address.lastIndexOf(':');
+            Socket s = new Socket();
+            s.setTcpNoDelay(true);
+            s.connect(new InetSocketAddress(address.substring(0, separator),
+                    Integer.parseInt(address.substring(separator + 1))), 2000);
+            return s;
+        }
+
+        private void close() {
+            Socket s = socket;
+            if (s != null) {
+                try {
+                    s.close();
+                } catch (IOException ignored) {
+                    // đang tắt
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // đang tắt
+        }
+        inbound.forEach(socket -> {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // đang tắt
+            }
+        });
+        peers.forEach(Peer::close);
+        senders.forEach(Thread::interrupt); // đang chờ queue.take()
+    }
+
+    private static boolean sleep(long ms) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(ms);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Thread daemon(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static Counter events(MeterRegistry meterRegistry, String direction) {
+        return Counter.builder("app.cluster.events")
+                .description("Số event cluster bus theo chiều (sent = đã ghi tới peer)")
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+}
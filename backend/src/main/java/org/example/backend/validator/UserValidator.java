@@ -2,7 +2,7 @@ package org.example.backend.validator;
 
 import org.example.backend.dto.user.UserDTO;
 import org.example.backend.exception.ResourceNotFoundException;
-import org.example.backend.repository.param.ParamRepository;
+import org.example.backend.service.param.ParamRegistry;
 import org.example.backend.repository.user.UserRepository;
 
 import java.util.regex.Pattern;
@@ -11,20 +11,20 @@ public class UserValidator {
 
     private static final Pattern EMAIL_REGEX = Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
 
-    public static void validateRegister(UserDTO userDTO, UserRepository userRepository, ParamRepository paramRepository) {
+    public static void validateRegister(UserDTO userDTO, UserRepository userRepository, ParamRegistry paramRegistry) {
         validateCommon(userDTO, userRepository);
 
         // Validate role mặc định là CUSTOMER (tồn tại trong DB)
-        paramRepository.findByTypeAndCode("ROLE", "CUSTOMER")
+        paramRegistry.find("ROLE", "CUSTOMER")
                 .orElseThrow(() -> new ResourceNotFoundException("Role CUSTOMER not found"));
 
         // Validate status mặc định ACTIVE
-        paramRepository.findByTypeAndCode("STATUS", "ACTIVE")
+        paramRegistry.find("STATUS", "ACTIVE")
                 .orElseThrow(() -> new ResourceNotFoundException("Status ACTIVE not found"));
 
         // Validate gender nếu có
         if (userDTO.getGender() != null) {
-            paramRepository.findByTypeAndCode("GENDER", userDTO.getGender())
+            paramRegistry.find("GENDER", userDTO.getGender())
                     .orElseThrow(() -> new ResourceNotFoundException(
                             "Gender not found with code: " + userDTO.getGender()));
         }
@@ -49,36 +49,36 @@ public class UserValidator {
     }
 
 
-    public static void validateCreateStaff(UserDTO userDTO, UserRepository userRepository, ParamRepository paramRepository) {
+    public static void validateCreateStaff(UserDTO userDTO, UserRepository userRepository, ParamRegistry paramRegistry) {
         validateCommon(userDTO, userRepository);
 
         // Validate role STAFF
-        paramRepository.findByTypeAndCode("ROLE", "STAFF")
+        paramRegistry.find("ROLE", "STAFF")
                 .orElseThrow(() -> new ResourceNotFoundException("Role STAFF not found"));
 
         // Validate status ACTIVE
-        paramRepository.findByTypeAndCode("STATUS", "ACTIVE")
+        paramRegistry.find("STATUS", "ACTIVE")
                 .orElseThrow(() -> new ResourceNotFoundException("Status ACTIVE not found"));
 
         // Validate gender nếu có
         if (userDTO.getGender() != null) {
-            paramRepository.findByTypeAndCode("GENDER", userDTO.getGender())
+            paramRegistry.find("GENDER", userDTO.getGender())
                     .orElseThrow(() -> new ResourceNotFoundException(
                             "Gender not found with code: " + userDTO.getGender()));
         }
     }
 
-    public static void validateUpdate(UserDTO userDTO, ParamRepository paramRepository) {
+    public static void validateUpdate(UserDTO userDTO, ParamRegistry paramRegistry) {
         if (userDTO.getRoleId() != null) {
-            paramRepository.findById(userDTO.getRoleId())
+            paramRegistry.findById(userDTO.getRoleId())
                     .orElseThrow(() -> new ResourceNotFoundException("Role not found with id: " + userDTO.getRoleId()));
         }
         if (userDTO.getStatusId() != null) {
-            paramRepository.findById(userDTO.getStatusId())
+            paramRegistry.findById(userDTO.getStatusId())
                     .orElseThrow(() -> new ResourceNotFoundException("Status not found with id: " + userDTO.getStatusId()));
         }
         if (userDTO.getGender() != null) {
-            paramRepository.findByTypeAndCode("GENDER", userDTO.getGender())
+            paramRegistry.find("GENDER", userDTO.getGender())
                     .orElseThrow(() -> new ResourceNotFoundException(
                             "Gender not found with code: " + userDTO.getGender()));
         }
@@ -256,4 +256,66 @@ CREATE INDEX idx_users_public_id ON users(public_id);
 CREATE INDEX idx_orders_public_id ON orders(public_id);
 CREATE INDEX idx_reservations_public_id ON reservations(public_id);
 CREATE INDEX idx_cart_items_cart_id ON cart_items(cart_id);
-CREATE INDEX idx_cart_items_menu_item_id ON cart_items(menu_item_id);
\ No newline at end of file
+CREATE INDEX idx_cart_items_menu_item_id ON cart_items(menu_item_id);
+
+-- Thống kê phi chuẩn hoá cho từng món (rating, số lượng đã bán) - duy trì bởi MenuItemStatsService
+CREATE TABLE menu_item_stats (
+                                 menu_item_id BIGINT PRIMARY KEY,
+                                 rating_sum BIGINT NOT NULL DEFAULT 0,
+                                 rating_count BIGINT NOT NULL DEFAULT 0,
+                                 sold_quantity BIGINT NOT NULL DEFAULT 0,
+                                 sold_last_7_days BIGINT NOT NULL DEFAULT 0,
+                                 updated_at TIMESTAMP NULL,
+                                 FOREIGN KEY (menu_item_id) REFERENCES menu_items(id) ON DELETE CASCADE
+);
+CREATE INDEX idx_menu_item_stats_sold ON menu_item_stats(sold_quantity);
+-- Thời điểm giao (sold_last_7_days, PopularityLeaderboard); đơn cũ để NULL -> dùng updated_at
+ALTER TABLE orders ADD COLUMN delivered_at TIMESTAMP NULL;
+CREATE INDEX idx_orders_delivered_at ON orders(delivered_at);
+
+-- Index cho phân trang keyset (hạng trạng thái, created_at DESC, id DESC)
+CREATE INDEX idx_orders_status_created ON orders(status_id, created_at, id);
+CREATE INDEX idx_reservations_status_created ON reservations(status_id, created_at, id);
+CREATE INDEX idx_notifications_user_read_created ON notifications(user_id, is_read, created_at, id);
+
+-- order_items dùng id sequence pooled (bước 50) để INSERT theo batch; MySQL giả lập sequence bằng bảng
+CREATE TABLE order_items_seq (
+                                 next_val BIGINT
+);
+-- optimizer pooled cấp block (next_val - 49 .. next_val) nên next_val phải >= MAX(id) + 50
+INSERT INTO order_items_seq (next_val) SELECT COALESCE(MAX(id), 0) + 50 FROM order_items;
+
+-- Nạp TableAvailabilityEngine: các đặt bàn còn hiệu lực theo reservation_time
+CREATE INDEX idx_reservations_time_status ON reservations(reservation_time, status_id);
+
+-- Thông báo broadcast theo vai trò: 1 dòng / sự kiện (user_id NULL, target_role), trạng thái đọc theo từng user
+ALTER TABLE notifications MODIFY user_id BIGINT NULL;
+ALTER TABLE notifications ADD COLUMN target_role VARCHAR(20) NULL;
+CREATE INDEX idx_notifications_role_created ON notifications(target_role, created_at, id);
+CREATE TABLE notification_receipts (
+                                       notification_id BIGINT NOT NULL,
+                                       user_id BIGINT NOT NULL,
+                                       read_at TIMESTAMP NOT NULL,
+                                       deleted BOOLEAN NOT NULL DEFAULT FALSE,
+                                       PRIMARY KEY (notification_id, user_id),
+                                       FOREIGN KEY (notification_id) REFERENCES notifications(id) ON DELETE CASCADE,
+                                       FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Rollup thống kê theo ngày (SalesRollupService), ngày = ngày tạo đơn, chỉ tính đơn DELIVERED
+CREATE TABLE daily_revenue (
+                               stat_date DATE PRIMARY KEY,
+                               total_revenue DECIMAL(15,2) NOT NULL DEFAULT 0,
+                               total_orders BIGINT NOT NULL DEFAULT 0,
+                               updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+CREATE TABLE daily_menu_item_sales (
+                                       stat_date DATE NOT NULL,
+                                       menu_item_id BIGINT NOT NULL,
+                                       quantity BIGINT NOT NULL DEFAULT 0,
+                                       revenue DECIMAL(15,2) NOT NULL DEFAULT 0,
+                                       updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                                       PRIMARY KEY (stat_date, menu_item_id),
+                                       FOREIGN KEY (menu_item_id) REFERENCES menu_items(id) ON DELETE CASCADE
+);
+CREATE INDEX idx_daily_item_sales_item ON daily_menu_item_sales(menu_item_id, stat_date);
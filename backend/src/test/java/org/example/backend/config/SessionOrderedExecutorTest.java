@@ -0,0 +1,81 @@
+package org.example.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Message của cùng 1 phiên chạy tuần tự đúng thứ tự gửi, không bao giờ 2 thread cùng gửi cho 1 phiên.
+ */
+class SessionOrderedExecutorTest {
+
+    @Test
+    void messagesOfOneSessionRunInOrderOneAtATime() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        SessionOrderedExecutor executor = new SessionOrderedExecutor(pool);
+        List<Integer> s1 = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> s2 = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+
+        for (int i = 0; i < 500; i++) {
+            int n = i;
+            executor.execute(task("s1", () -> {
+                if (inFlight.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                s1.add(n);
+                inFlight.decrementAndGet();
+            }));
+            executor.execute(task("s2", () -> s2.add(n)));
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, s1);
+        assertEquals(expected, s2);
+        assertEquals(0, overlaps.get());
+        assertEquals(0, executor.activeSessions());
+    }
+
+    private static MessageHandlingRunnable task(String sessionId, Runnable body) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        return new MessageHandlingRunnable() {
+            @Override
+            public Message<?> getMessage() {
+                return message;
+            }
+
+            @Override
+            public MessageHandler getMessageHandler() {
+                return m -> {
+                };
+            }
+
+            @Override
+            public void run() {
+                body.run();
+            }
+        };
+    }
+}
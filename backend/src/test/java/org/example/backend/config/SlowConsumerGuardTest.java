@@ -0,0 +1,118 @@
+package org.example.backend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Đếm message chờ theo phiên, DROP bỏ frame MESSAGE của live feed vượt giới hạn, DISCONNECT đóng phiên.
+ */
+class SlowConsumerGuardTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CompletableFuture<CloseStatus> closed = new CompletableFuture<>();
+    private SlowConsumerGuard guard;
+
+    @AfterEach
+    void tearDown() {
+        guard.shutdown();
+    }
+
+    @Test
+    void dropPolicyDropsMessagesOverLimitButKeepsControlFrames() throws Exception {
+        guard = connect(SlowConsumerGuard.Policy.DROP);
+
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(guard.preSend(frame(SimpMessageType.MESSAGE), null));
+        }
+        assertNull(guard.preSend(frame(SimpMessageType.MESSAGE), null));
+        assertNotNull(guard.preSend(frame(SimpMessageType.HEARTBEAT), null));
+        assertEquals(4, guard.queuedMessages("s1"));
+
+        Message<?> handled = frame(SimpMessageType.MESSAGE);
+        guard.afterMessageHandled(handled, null, null, null);
+        assertEquals(3, guard.queuedMessages("s1"));
+        assertEquals(1.0, meterRegistry.find("app.websocket.slow_consumer.dropped").counter().count());
+        assertFalse(closed.isDone());
+    }
+
+    @Test
+    void dropPolicyStillClosesSessionForMessagesWithoutResync() throws Exception {
+        guard = connect(SlowConsumerGuard.Policy.DROP);
+
+        for (int i = 0; i < 3; i++) {
+            guard.preSend(frame(SimpMessageType.MESSAGE), null);
+        }
+        // /user/queue/* không bù được qua /api/v1/feeds -> ngắt để client kết nối lại thay vì mất âm thầm
+        assertNull(guard.preSend(frame(SimpMessageType.MESSAGE, "/user/queue/orders"), null));
+
+        assertEquals(CloseStatus.SESSION_NOT_RELIABLE, closed.get(5, TimeUnit.SECONDS));
+        assertEquals(0.0, meterRegistry.find("app.websocket.slow_consumer.dropped").counter().count());
+    }
+
+    @Test
+    void disconnectPolicyClosesSessionOverLimit() throws Exception {
+        guard = connect(SlowConsumerGuard.Policy.DISCONNECT);
+
+        for (int i = 0; i < 3; i++) {
+            guard.preSend(frame(SimpMessageType.MESSAGE), null);
+        }
+        assertNull(guard.preSend(frame(SimpMessageType.MESSAGE), null));
+
+        assertEquals(CloseStatus.SESSION_NOT_RELIABLE, closed.get(5, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.find("app.websocket.slow_consumer.disconnected")
+                .tag("reason", "queue").counter().count());
+        // Phiên đang đóng: không xếp thêm message nào
+        assertNull(guard.preSend(frame(SimpMessageType.HEARTBEAT), null));
+    }
+
+    @Test
+    void messagesForUnknownSessionsPassThrough() {
+        guard = new SlowConsumerGuard(meterRegistry, SlowConsumerGuard.Policy.DISCONNECT, 3, 60_000, 10_000);
+        Message<?> message = frame(SimpMessageType.MESSAGE);
+        assertSame(message, guard.preSend(message, null));
+        assertEquals(-1, guard.queuedMessages("s1"));
+    }
+
+    private SlowConsumerGuard connect(SlowConsumerGuard.Policy policy) throws Exception {
+        // Watchdog chạy thưa để test chỉ kiểm tra giới hạn hàng đợi
+        SlowConsumerGuard created = new SlowConsumerGuard(meterRegistry, policy, 3, 60_000, 10_000);
+        WebSocketSession session = (WebSocketSession) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{WebSocketSession.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getId" -> "s1";
+                    case "isOpen" -> true;
+                    case "close" -> {
+                        closed.complete(args == null ? CloseStatus.NORMAL : (CloseStatus) args[0]);
+                        yield null;
+                    }
+                    default -> null;
+                });
+        created.decorate(new AbstractWebSocketHandler() {
+        }).afterConnectionEstablished(session);
+        return created;
+    }
+
+    private static Message<byte[]> frame(SimpMessageType type) {
+        return frame(type, "/topic/tables");
+    }
+
+    private static Message<byte[]> frame(SimpMessageType type, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId("s1");
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.backend.config;
+
+import org.example.backend.support.QueryBudget;
+import org.example.backend.util.SqlStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * InstrumentedDataSource đếm đúng số lần thực thi, gộp câu lệnh cùng hình dạng và không ghi gì ngoài scope.
+ */
+class SqlInstrumentationTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource h2 = new DriverManagerDataSource(
+                "jdbc:h2:mem:sql-stats-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(new InstrumentedDataSource(h2));
+        jdbcTemplate.execute("CREATE TABLE menu_items (id BIGINT PRIMARY KEY, name VARCHAR(100))");
+        for (long id = 1; id <= 10; id++) {
+            jdbcTemplate.update("INSERT INTO menu_items (id, name) VALUES (?, ?)", id, "Món " + id);
+        }
+    }
+
+    @Test
+    void detectsRepeatedShapeAsNPlusOne() {
+        SqlStats.Snapshot stats = QueryBudget.measure(() -> {
+            List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM menu_items ORDER BY id", Long.class);
+            for (Long id : ids) {
+                jdbcTemplate.queryForObject("SELECT name FROM menu_items WHERE id = ?", String.class, id);
+            }
+        });
+
+        assertEquals(11, stats.statements());
+        assertEquals(10, stats.maxRepeat());
+        assertEquals(1, stats.repeatedShapes(5).size());
+        assertTrue(stats.jdbcNanos() > 0);
+    }
+
+    @Test
+    void literalsAndInListsShareOneShape() {
+        SqlStats.Snapshot stats = QueryBudget.measure(() -> {
+            jdbcTemplate.queryForList("SELECT name FROM menu_items WHERE id = 1", String.class);
+            jdbcTemplate.queryForList("SELECT name FROM menu_items WHERE id = 2", String.class);
+            jdbcTemplate.queryForList("SELECT name FROM menu_items WHERE id IN (?, ?)", String.class, 1, 2);
+            jdbcTemplate.queryForList("SELECT name FROM menu_items WHERE id IN (?, ?, ?)", String.class, 1, 2, 3);
+        });
+
+        assertEquals(4, stats.statements());
+        assertEquals(2, stats.shapes().size());
+    }
+
+    @Test
+    void budgetAssertionsPinStatementCount() {
+        Integer count = QueryBudget.exactly(1, () ->
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM menu_items", Integer.class));
+        assertEquals(10, count.intValue());
+
+        assertThrows(AssertionError.class, () -> QueryBudget.atMost(1, () -> {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM menu_items", Integer.class);
+            return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM menu_items", Integer.class);
+        }));
+    }
+
+    @Test
+    void nothingIsRecordedOutsideScope() {
+        jdbcTemplate.queryForObject("SELECT COUNT(*) FROM menu_items", Integer.class);
+
+        try (SqlStats.Scope outer = SqlStats.begin()) {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM menu_items", Integer.class);
+            SqlStats.Snapshot inner = QueryBudget.measure(() ->
+                    jdbcTemplate.queryForObject("SELECT COUNT(*) FROM menu_items", Integer.class));
+            assertEquals(1, inner.statements());
+            assertEquals(1, outer.snapshot().statements());
+        }
+    }
+}
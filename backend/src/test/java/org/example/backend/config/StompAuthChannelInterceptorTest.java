@@ -0,0 +1,122 @@
+package org.example.backend.config;
+
+import org.example.backend.util.AuthenticatedUser;
+import org.example.backend.util.JwtUtil;
+import org.example.backend.util.StompPrincipal;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Principal STOMP gắn lúc CONNECT (header hoặc cookie) và luật subscribe: admin topic, hàng đợi riêng, topic công khai.
+ */
+class StompAuthChannelInterceptorTest {
+
+    private static final String PUBLIC_ID = "6f1c2b7e-4d3a-4f5e-9a8b-1c2d3e4f5a6b";
+
+    private final JwtUtil jwtUtil = new JwtUtil("stomp-test-secret-key-stomp-test-secret-key-0123", 3_600_000L, 100);
+    private final StompAuthChannelInterceptor interceptor = new StompAuthChannelInterceptor(jwtUtil);
+
+    private final StompPrincipal customer = principal("CUSTOMER");
+    private final StompPrincipal staff = principal("STAFF");
+
+    @Test
+    void connectBindsPublicIdPrincipalFromAuthorizationHeader() {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.addNativeHeader("Authorization", "Bearer " + token());
+
+        assertEquals(PUBLIC_ID, connect(accessor).getName());
+    }
+
+    @Test
+    void connectFallsBackToHandshakeCookieToken() {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(StompAuthChannelInterceptor.TOKEN_ATTRIBUTE, token());
+        accessor.setSessionAttributes(attributes);
+
+        assertEquals(PUBLIC_ID, connect(accessor).getName());
+    }
+
+    @Test
+    void connectWithInvalidTokenStaysAnonymous() {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.addNativeHeader("Authorization", "Bearer not-a-jwt");
+
+        assertNull(connect(accessor));
+    }
+
+    @Test
+    void adminTopicsRequireStaffRole() {
+        assertDoesNotThrow(() -> StompAuthChannelInterceptor.authorizeSubscription("/topic/admin/orders", staff));
+        assertThrows(AccessDeniedException.class,
+                () -> StompAuthChannelInterceptor.authorizeSubscription("/topic/admin/orders", customer));
+        assertThrows(AccessDeniedException.class,
+                () -> StompAuthChannelInterceptor.authorizeSubscription("/topic/admin/reservations", null));
+    }
+
+    @Test
+    void userQueuesRequireAuthenticationAndOwnDestination() {
+        assertDoesNotThrow(() -> StompAuthChannelInterceptor.authorizeSubscription("/user/queue/orders", customer));
+        assertThrows(AccessDeniedException.class,
+                () -> StompAuthChannelInterceptor.authorizeSubscription("/user/queue/orders", null));
+        assertThrows(AccessDeniedException.class,
+                () -> StompAuthChannelInterceptor.authorizeSubscription("/user/someone-else/queue/orders", customer));
+        assertThrows(AccessDeniedException.class,
+                () -> StompAuthChannelInterceptor.authorizeSubscription("/queue/orders-usersession-1", customer));
+    }
+
+    @Test
+    void patternSubscriptionsAreRejected() {
+        assertThrows(AccessDeniedException.class,
+                () -> StompAuthChannelInterceptor.authorizeSubscription("/topic/**", null));
+        assertThrows(AccessDeniedException.class,
+                () -> StompAuthChannelInterceptor.authorizeSubscription("/topic/*/notifications", customer));
+        assertThrows(AccessDeniedException.class,
+                () -> StompAuthChannelInterceptor.authorizeSubscription("/topic/*/orders/status", null));
+    }
+
+    @Test
+    void clientSendIsLimitedToApplicationDestinations() {
+        assertThrows(AccessDeniedException.class, () -> send("/topic/admin/notifications"));
+        assertThrows(AccessDeniedException.class, () -> send("/topic/tables"));
+        assertThrows(AccessDeniedException.class, () -> send("/user/" + PUBLIC_ID + "/queue/orders"));
+        assertDoesNotThrow(() -> send("/app/ping"));
+    }
+
+    @Test
+    void publicTopicsStayOpenToGuests() {
+        assertDoesNotThrow(() -> StompAuthChannelInterceptor.authorizeSubscription("/topic/menu/update", null));
+        assertDoesNotThrow(() -> StompAuthChannelInterceptor.authorizeSubscription("/topic/tables", null));
+    }
+
+    private java.security.Principal connect(StompHeaderAccessor accessor) {
+        accessor.setLeaveMutable(true);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        Message<?> result = interceptor.preSend(message, (m, timeout) -> true);
+        return MessageHeaderAccessor.getAccessor(result, StompHeaderAccessor.class).getUser();
+    }
+
+    private void send(String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setDestination(destination);
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), (m, timeout) -> true);
+    }
+
+    private String token() {
+        return jwtUtil.generateToken(7L, "diner@example.com", "CUSTOMER", "Khách", PUBLIC_ID);
+    }
+
+    private static StompPrincipal principal(String role) {
+        return new StompPrincipal(new AuthenticatedUser(7L, PUBLIC_ID, "diner@example.com", role, "Khách"));
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.backend.service.feed;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Version tăng liên tục theo từng feed, log bị chặn theo capacity, since quá cũ / quá mới -> phải lấy snapshot.
+ */
+class FeedLogTest {
+
+    private final FeedLog feedLog = new FeedLog(3);
+
+    @Test
+    void appendStampsVersionPerFeedWithoutTouchingOriginalPayload() {
+        Map<String, Object> payload = Map.of("tableId", 1L);
+
+        Map<String, Object> first = feedLog.append(FeedLog.Feed.TABLES, "status", payload);
+        Map<String, Object> second = feedLog.append(FeedLog.Feed.TABLES, "status", payload);
+        Map<String, Object> menu = feedLog.append(FeedLog.Feed.MENU, "stock", Map.of("menuItemId", 7L));
+
+        assertEquals(1L, first.get("version"));
+        assertEquals(2L, second.get("version"));
+        assertEquals(1L, menu.get("version"));
+        assertEquals(feedLog.epoch(), first.get("epoch"));
+        assertFalse(payload.containsKey("version"));
+        assertEquals(2, feedLog.version(FeedLog.Feed.TABLES));
+    }
+
+    @Test
+    void sinceReturnsDeltasAfterVersionWhileStillInLog() {
+        for (long id = 1; id <= 3; id++) {
+            feedLog.append(FeedLog.Feed.TABLES, "status", Map.of("tableId", id));
+        }
+
+        List<FeedLog.Delta> deltas = feedLog.since(FeedLog.Feed.TABLES, 1).orElseThrow();
+
+        assertEquals(List.of(2L, 3L), deltas.stream().map(FeedLog.Delta::version).toList());
+        assertEquals("status", deltas.get(0).type());
+        assertEquals(List.of(), feedLog.since(FeedLog.Feed.TABLES, 3).orElseThrow());
+        assertEquals(List.of(), feedLog.since(FeedLog.Feed.MENU, 0).orElseThrow());
+    }
+
+    @Test
+    void sinceIsEmptyWhenAgedOutOrAheadOfServer() {
+        for (long id = 1; id <= 5; id++) {
+            feedLog.append(FeedLog.Feed.TABLES, "status", Map.of("tableId", id));
+        }
+
+        // capacity 3: còn version 3..5, bù được từ since=2 nhưng không từ since=1
+        assertTrue(feedLog.since(FeedLog.Feed.TABLES, 2).isPresent());
+        assertTrue(feedLog.since(FeedLog.Feed.TABLES, 1).isEmpty());
+        // version từ lần chạy trước của server
+        assertTrue(feedLog.since(FeedLog.Feed.TABLES, 9).isEmpty());
+    }
+}
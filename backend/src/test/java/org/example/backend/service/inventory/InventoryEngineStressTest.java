@@ -0,0 +1,140 @@
+package org.example.backend.service.inventory;
+
+import org.example.backend.entity.param.Param;
+import org.example.backend.exception.InsufficientStockException;
+import org.example.backend.service.param.ParamRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress test trừ kho đồng thời trên H2: nhiều luồng cùng đặt các món dùng chung tồn kho,
+ * tồn kho không bao giờ âm và tổng đã trừ đúng bằng tổng các đơn thành công.
+ */
+class InventoryEngineStressTest {
+
+    private static final long OUT_OF_STOCK_ID = 1L;
+    private static final long AVAILABLE_ID = 2L;
+    private static final int ITEMS = 5;
+    private static final int INITIAL_STOCK = 200;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate tx;
+    private InventoryEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:inventory-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        jdbcTemplate.execute("CREATE TABLE menu_items (id BIGINT PRIMARY KEY, name VARCHAR(100), status_id BIGINT, updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE inventory (id BIGINT AUTO_INCREMENT PRIMARY KEY, menu_item_id BIGINT UNIQUE, quantity INT NOT NULL, last_updated TIMESTAMP)");
+        for (long id = 1; id <= ITEMS; id++) {
+            jdbcTemplate.update("INSERT INTO menu_items (id, name, status_id) VALUES (?, ?, ?)", id, "Món " + id, AVAILABLE_ID);
+            jdbcTemplate.update("INSERT INTO inventory (menu_item_id, quantity) VALUES (?, ?)", id, INITIAL_STOCK);
+        }
+
+        ParamRegistry params = new ParamRegistry(null) {
+            @Override
+            public Optional<Param> find(String type, String code) {
+                Param param = new Param();
+                param.setId("OUT_OF_STOCK".equals(code) ? OUT_OF_STOCK_ID : AVAILABLE_ID);
+                param.setType(type);
+                param.setCode(code);
+                return Optional.of(param);
+            }
+        };
+        engine = new InventoryEngine(jdbcTemplate, params);
+    }
+
+    @Test
+    @Timeout(120)
+    void concurrentOrdersNeverOversell() throws Exception {
+        int threads = 16;
+        int ordersPerThread = 100;
+        long[] consumed = new long[ITEMS + 1];
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            futures.add(pool.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int i = 0; i < ordersPerThread; i++) {
+                    // Đơn 1-3 món ngẫu nhiên, mỗi món 1-4 phần
+                    Map<Long, Integer> order = new HashMap<>();
+                    int lines = 1 + random.nextInt(3);
+                    for (int l = 0; l < lines; l++) {
+                        order.merge(1L + random.nextInt(ITEMS), 1 + random.nextInt(4), Integer::sum);
+                    }
+                    try {
+                        tx.executeWithoutResult(status -> engine.decrement(order));
+                        synchronized (consumed) {
+                            order.forEach((id, qty) -> consumed[id.intValue()] += qty);
+                        }
+                        succeeded.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                    assertNoNegativeStock();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        pool.shutdown();
+
+        assertTrue(succeeded.get() > 0);
+        assertTrue(rejected.get() > 0, "Tồn kho phải cạn để kiểm tra nhánh thiếu hàng");
+        for (long id = 1; id <= ITEMS; id++) {
+            int quantity = quantityOf(id);
+            assertTrue(quantity >= 0);
+            assertEquals(INITIAL_STOCK - consumed[(int) id], quantity, "Lệch tồn kho món " + id);
+
+            long statusId = jdbcTemplate.queryForObject("SELECT status_id FROM menu_items WHERE id = ?", Long.class, id);
+            if (quantity == 0) {
+                assertEquals(OUT_OF_STOCK_ID, statusId);
+            }
+        }
+    }
+
+    @Test
+    void shortfallRollsBackWholeOrder() {
+        jdbcTemplate.update("UPDATE inventory SET quantity = 1 WHERE menu_item_id = 2");
+
+        InsufficientStockException ex = assertThrows(InsufficientStockException.class,
+                () -> tx.executeWithoutResult(status -> engine.decrement(Map.of(1L, 5, 2L, 3))));
+
+        assertEquals(List.of(2L), ex.getMenuItemIds());
+        assertEquals(INITIAL_STOCK, quantityOf(1L));
+        assertEquals(1, quantityOf(2L));
+    }
+
+    private void assertNoNegativeStock() {
+        Integer negatives = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory WHERE quantity < 0", Integer.class);
+        assertEquals(0, negatives.intValue());
+    }
+
+    private int quantityOf(long menuItemId) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM inventory WHERE menu_item_id = ?", Integer.class, menuItemId);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.backend.service.order;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.backend.config.HibernateConfig;
+import org.example.backend.config.SqlInstrumentationConfig;
+import org.example.backend.entity.param.Param;
+import org.example.backend.repository.param.ParamRepository;
+import org.example.backend.service.menu.MenuItemStatsService;
+import org.example.backend.service.notification.NotificationService;
+import org.example.backend.service.param.ParamRegistry;
+import org.example.backend.service.statistics.SalesRollupService;
+import org.example.backend.util.WebSocketNotifier;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/**
+ * Khung chung cho test OrderService trên H2: bật Hibernate statistics và bọc DataSource
+ * (InstrumentedDataSource, cho {@link org.example.backend.support.QueryBudget}) để đếm câu lệnh, mock các thành phần phụ (WebSocket, thông báo, thống kê) để chỉ đo SQL của OrderService.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "sql.instrumentation.enabled=true"
+})
+@Import({OrderService.class, ParamRegistry.class, HibernateConfig.class, SqlInstrumentationConfig.class})
+abstract class AbstractOrderServiceJpaTest {
+
+    @Autowired protected OrderService orderService;
+    @Autowired protected ParamRepository paramRepository;
+    @Autowired protected EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean protected WebSocketNotifier webSocketNotifier;
+    @MockitoBean protected NotificationService notificationService;
+    @MockitoBean protected MenuItemStatsService menuItemStatsService;
+    @MockitoBean protected SalesRollupService salesRollupService;
+
+    /** Statistics của Hibernate, đã bật và xoá số liệu cũ. */
+    protected Statistics statistics() {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.setStatisticsEnabled(true);
+        stats.clear();
+        return stats;
+    }
+
+    protected Param param(String type, String code) {
+        Param param = new Param();
+        param.setType(type);
+        param.setCode(code);
+        param.setName(code);
+        return paramRepository.save(param);
+    }
+}
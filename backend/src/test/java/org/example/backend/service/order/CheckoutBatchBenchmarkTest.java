@@ -0,0 +1,142 @@
+package org.example.backend.service.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.backend.dto.cart.CartDto;
+import org.example.backend.dto.cart.CartItemDto;
+import org.example.backend.entity.cart.Cart;
+import org.example.backend.entity.menu.MenuItem;
+import org.example.backend.entity.param.Param;
+import org.example.backend.entity.user.User;
+import org.example.backend.repository.cart.CartRepository;
+import org.example.backend.repository.menu.MenuItemRepository;
+import org.example.backend.repository.order.OrderItemRepository;
+import org.example.backend.repository.user.UserRepository;
+import org.example.backend.service.param.ParamRegistry;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Benchmark checkoutCart trên H2: số câu lệnh SQL và độ trễ cho giỏ 1..50 dòng.
+ * Số câu lệnh phải cố định (không tăng theo số dòng) nhờ bulk load + JDBC batch insert.
+ */
+@Slf4j
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // để checkoutCart tự commit như khi chạy thật
+class CheckoutBatchBenchmarkTest extends AbstractOrderServiceJpaTest {
+
+    private static final int[] CART_SIZES = {1, 5, 10, 25, 50};
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 20;
+
+    @Autowired private ParamRegistry paramRegistry;
+    @Autowired private UserRepository userRepository;
+    @Autowired private MenuItemRepository menuItemRepository;
+    @Autowired private CartRepository cartRepository;
+    @Autowired private OrderItemRepository orderItemRepository;
+
+    private User user;
+    private Param openCart;
+    private final List<MenuItem> menuItems = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        openCart = param("STATUS_CART", "OPEN");
+        param("STATUS_CART", "CANCELLED");
+        param("ORDER_STATUS", "PENDING");
+        Param available = param("MENU_ITEM_STATUS", "AVAILABLE");
+        Param customer = param("ROLE", "CUSTOMER");
+        paramRegistry.refresh();
+
+        user = new User();
+        user.setPublicId(UUID.randomUUID().toString());
+        user.setName("Bench User");
+        user.setEmail(UUID.randomUUID() + "@bench.local");
+        user.setPasswordHash("x");
+        user.setRole(customer);
+        user = userRepository.save(user);
+
+        for (int i = 0; i < 50; i++) {
+            MenuItem item = new MenuItem();
+            item.setName("Món " + i);
+            item.setPrice(BigDecimal.valueOf(10_000 + i));
+            item.setStatus(available);
+            menuItems.add(menuItemRepository.save(item));
+        }
+    }
+
+    @Test
+    void checkoutUsesFixedNumberOfStatements() {
+        Statistics stats = statistics();
+
+        long baselineStatements = -1;
+        for (int lines : CART_SIZES) {
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                orderService.checkoutCart(newCart(lines));
+            }
+
+            long maxStatements = 0;
+            long totalNanos = 0;
+            long maxNanos = 0;
+            for (int i = 0; i < MEASURED_RUNS; i++) {
+                CartDto cart = newCart(lines);
+                stats.clear();
+                long start = System.nanoTime();
+                orderService.checkoutCart(cart);
+                long elapsed = System.nanoTime() - start;
+                totalNanos += elapsed;
+                maxNanos = Math.max(maxNanos, elapsed);
+                maxStatements = Math.max(maxStatements, stats.getPrepareStatementCount());
+            }
+
+            log.info("checkout {} dòng: {} câu lệnh, avg {} ms, max {} ms", lines, maxStatements,
+                    String.format("%.3f", totalNanos / 1e6 / MEASURED_RUNS), String.format("%.3f", maxNanos / 1e6));
+
+            if (baselineStatements < 0) {
+                baselineStatements = maxStatements;
+            }
+            // Chỉ cho phép thêm tối đa 1 lần lấy block id từ sequence khi giỏ vượt 1 block
+            assertTrue(maxStatements <= baselineStatements + 1,
+                    "checkout " + lines + " dòng dùng " + maxStatements + " câu lệnh, baseline " + baselineStatements);
+        }
+
+        long expectedRows = 0;
+        for (int lines : CART_SIZES) {
+            expectedRows += (long) lines * (WARMUP_RUNS + MEASURED_RUNS);
+        }
+        assertEquals(expectedRows, orderItemRepository.count());
+    }
+
+    private CartDto newCart(int lines) {
+        Cart cart = new Cart();
+        cart.setUser(user);
+        cart.setStatus(openCart);
+        cart = cartRepository.save(cart);
+
+        List<CartItemDto> items = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            MenuItem menuItem = menuItems.get(i);
+            CartItemDto item = new CartItemDto();
+            item.setMenuItemId(menuItem.getId());
+            item.setQuantity(1 + i % 3);
+            item.setPrice(menuItem.getPrice());
+            items.add(item);
+        }
+
+        CartDto dto = new CartDto();
+        dto.setId(cart.getId());
+        dto.setUserId(user.getId());
+        dto.setItems(items);
+        return dto;
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.backend.service.order;
+
+import jakarta.persistence.EntityManager;
+import org.example.backend.dto.CursorPage;
+import org.example.backend.dto.order.OrderResponseDTO;
+import org.example.backend.entity.menu.MenuItem;
+import org.example.backend.entity.order.Order;
+import org.example.backend.entity.order.OrderItem;
+import org.example.backend.entity.param.Param;
+import org.example.backend.entity.payment.Payment;
+import org.example.backend.entity.user.ShippingInfo;
+import org.example.backend.entity.user.User;
+import org.example.backend.repository.menu.MenuItemRepository;
+import org.example.backend.repository.order.OrderRepository;
+import org.example.backend.repository.user.UserRepository;
+import org.example.backend.support.QueryBudget;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Danh sách đơn (admin) phải dùng số câu lệnh cố định mỗi trang, không N+1 theo số đơn / số dòng món.
+ */
+class OrderListingStatementCountTest extends AbstractOrderServiceJpaTest {
+
+    private static final int ORDERS = 30;
+    private static final int PAGE_SIZE = 20;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired private UserRepository userRepository;
+    @Autowired private MenuItemRepository menuItemRepository;
+    @Autowired private OrderRepository orderRepository;
+    @Autowired private EntityManager entityManager;
+
+    @BeforeEach
+    void seed() {
+        Param pending = param("ORDER_STATUS", "PENDING");
+        Param paymentPending = param("PAYMENT_STATUS", "PENDING");
+        Param cod = param("PAYMENT_METHOD", "COD");
+        Param available = param("MENU_ITEM_STATUS", "AVAILABLE");
+
+        User user = new User();
+        user.setPublicId(UUID.randomUUID().toString());
+        user.setName("Admin List User");
+        user.setEmail(UUID.randomUUID() + "@orders.local");
+        user.setPasswordHash("x");
+        user.setRole(param("ROLE", "CUSTOMER"));
+        user = userRepository.save(user);
+
+        List<MenuItem> menuItems = new ArrayList<>();
+        for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+            MenuItem item = new MenuItem();
+            item.setName("Món " + i);
+            item.setPrice(BigDecimal.valueOf(20_000 + i));
+            item.setStatus(available);
+            menuItems.add(menuItemRepository.save(item));
+        }
+
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = Order.builder()
+                    .publicId(UUID.randomUUID().toString())
+                    .user(user)
+                    .status(pending)
+                    .totalAmount(BigDecimal.valueOf(60_003))
+                    .orderItems(new ArrayList<>())
+                    .build();
+            for (MenuItem menuItem : menuItems) {
+                order.getOrderItems().add(OrderItem.builder()
+                        .order(order)
+                        .menuItem(menuItem)
+                        .quantity(1)
+                        .price(menuItem.getPrice())
+                        .build());
+            }
+
+            Payment payment = Payment.builder()
+                    .order(order)
+                    .publicId(UUID.randomUUID().toString())
+                    .amount(order.getTotalAmount())
+                    .paymentMethod(cod)
+                    .status(paymentPending)
+                    .build();
+            ShippingInfo shipping = new ShippingInfo();
+            shipping.setPayment(payment);
+            shipping.setAddress("12 Lê Lợi " + i);
+            shipping.setPhone("0900000" + String.format("%03d", i));
+            payment.setShippingInfo(shipping);
+            order.setPayment(payment);
+            orderRepository.save(order);
+        }
+
+        // Bắt đầu đo với persistence context rỗng, giống 1 request mới
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void fullPageUsesFixedNumberOfStatements() {
+        // count + id trang + header projection + dòng món projection
+        Page<OrderResponseDTO> page = QueryBudget.exactly(4,
+                () -> orderService.getAllOrders(null, null, null, PageRequest.of(0, PAGE_SIZE)));
+
+        assertEquals(PAGE_SIZE, page.getContent().size());
+        assertEquals(ORDERS, page.getTotalElements());
+        for (OrderResponseDTO order : page) {
+            assertEquals(ITEMS_PER_ORDER, order.getItems().size());
+            assertEquals("COD", order.getPaymentMethod());
+            assertEquals("PENDING", order.getPaymentStatus());
+            assertNotNull(order.getUserEmail());
+            assertNotNull(order.getShippingAddress());
+            assertNotNull(order.getItems().get(0).getMenuItemName());
+        }
+    }
+
+    @Test
+    void cursorPageUsesFixedNumberOfStatements() {
+        // Tất cả đơn cùng hạng PENDING: keyset (id, createdAt) + header projection + dòng món projection
+        CursorPage<OrderResponseDTO> first = QueryBudget.exactly(3,
+                () -> orderService.getAllOrdersByCursor(null, null, null, null, PAGE_SIZE));
+
+        assertEquals(PAGE_SIZE, first.getContent().size());
+        assertTrue(first.isHasNext());
+        assertEquals(ITEMS_PER_ORDER, first.getContent().get(0).getItems().size());
+        assertEquals("COD", first.getContent().get(0).getPaymentMethod());
+
+        entityManager.clear();
+        // Trang sau: phần còn lại của PENDING chưa đủ -> duyệt thêm các hạng sau, mỗi hạng 1 câu keyset
+        int ranks = 7;
+        CursorPage<OrderResponseDTO> second = QueryBudget.exactly(ranks + 2,
+                () -> orderService.getAllOrdersByCursor(null, null, null, first.getNextCursor(), PAGE_SIZE));
+
+        assertEquals(ORDERS - PAGE_SIZE, second.getContent().size());
+        assertFalse(second.isHasNext());
+    }
+
+    @Test
+    void lastPageSkipsCountQuery() {
+        // Trang cuối chưa đầy: Spring Data suy ra tổng, không chạy COUNT
+        Page<OrderResponseDTO> page = QueryBudget.exactly(3,
+                () -> orderService.getAllOrders(null, null, null, PageRequest.of(1, PAGE_SIZE)));
+        assertEquals(ORDERS - PAGE_SIZE, page.getContent().size());
+        assertEquals(ORDERS, page.getTotalElements());
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.backend.support;
+
+import org.example.backend.util.SqlStats;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ghim "ngân sách" câu lệnh SQL cho 1 lời gọi trong test.
+ * DataSource của test phải được bọc bằng InstrumentedDataSource
+ * (vd: @Import(SqlInstrumentationConfig.class) + sql.instrumentation.enabled=true trong @DataJpaTest).
+ *
+ * <pre>
+ * Page&lt;OrderResponseDTO&gt; page = QueryBudget.exactly(4, () -&gt; orderService.getAllOrders(...));
+ * </pre>
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    /** Chạy {@code action} và trả về số liệu SQL của nó. */
+    public static SqlStats.Snapshot measure(Runnable action) {
+        try (SqlStats.Scope scope = SqlStats.begin()) {
+            action.run();
+            return scope.snapshot();
+        }
+    }
+
+    /** Đúng {@code expected} câu lệnh. */
+    public static <T> T exactly(int expected, Supplier<T> action) {
+        Result<T> result = run(action);
+        assertEquals(expected, result.stats().statements(), () -> describe("Số câu SQL", result.stats()));
+        return result.value();
+    }
+
+    /** Tối đa {@code max} câu lệnh. */
+    public static <T> T atMost(int max, Supplier<T> action) {
+        Result<T> result = run(action);
+        assertTrue(result.stats().statements() <= max,
+                () -> describe("Vượt ngân sách " + max + " câu SQL", result.stats()));
+        return result.value();
+    }
+
+    /** Không hình dạng câu lệnh nào chạy quá {@code maxRepeat} lần (chặn N+1). */
+    public static <T> T noRepeatsOver(int maxRepeat, Supplier<T> action) {
+        Result<T> result = run(action);
+        Map<String, Integer> repeated = result.stats().repeatedShapes(maxRepeat + 1);
+        assertTrue(repeated.isEmpty(), () -> describe("Câu SQL lặp quá " + maxRepeat + " lần " + repeated.keySet(), result.stats()));
+        return result.value();
+    }
+
+    private static <T> Result<T> run(Supplier<T> action) {
+        try (SqlStats.Scope scope = SqlStats.begin()) {
+            T value = action.get();
+            return new Result<>(value, scope.snapshot());
+        }
+    }
+
+    private static String describe(String message, SqlStats.Snapshot stats) {
+        StringBuilder sb = new StringBuilder(message)
+                .append(": ").append(stats.statements()).append(" câu, ")
+                .append(String.format("%.2f", stats.jdbcMillis())).append(" ms");
+        stats.shapes().forEach((shape, count) -> sb.append("\n  ").append(count).append("x ").append(shape));
+        return sb.toString();
+    }
+
+    private record Result<T>(T value, SqlStats.Snapshot stats) {
+    }
+}
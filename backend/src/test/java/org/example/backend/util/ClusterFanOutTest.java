@@ -0,0 +1,156 @@
+package org.example.backend.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.backend.service.feed.FeedLog;
+import org.example.backend.util.cluster.TcpPeerEventBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 3 node trên localhost nối nhau bằng TcpPeerEventBus: event phát ở 1 node phải tới broker local của mọi node,
+ * feed được đánh version + epoch theo FeedLog riêng của từng node.
+ */
+class ClusterFanOutTest {
+
+    private static final int NODES = 3;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final List<TcpPeerEventBus> buses = new ArrayList<>();
+    private final List<WebSocketNotifier> notifiers = new ArrayList<>();
+    private final List<FeedLog> feedLogs = new ArrayList<>();
+    // Message mỗi node gửi vào broker local của nó
+    private final List<List<Message<?>>> brokers = new ArrayList<>();
+
+    @BeforeEach
+    void startNodes() throws IOException {
+        int[] ports = new int[NODES];
+        for (int i = 0; i < NODES; i++) {
+            try (ServerSocket probe = new ServerSocket(0)) {
+                ports[i] = probe.getLocalPort();
+            }
+        }
+        for (int i = 0; i < NODES; i++) {
+            List<String> peers = new ArrayList<>();
+            for (int j = 0; j < NODES; j++) {
+                if (j != i) {
+                    peers.add("127.0.0.1:" + ports[j]);
+                }
+            }
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            TcpPeerEventBus bus = new TcpPeerEventBus("node-" + i, "127.0.0.1", ports[i], String.join(",", peers),
+                    "test-secret", 1000, 32, 1 << 20, objectMapper, meterRegistry);
+            List<Message<?>> broker = new CopyOnWriteArrayList<>();
+            SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> broker.add(message));
+            FeedLog feedLog = new FeedLog(100);
+            WebSocketNotifier notifier = new WebSocketNotifier(template, null, event -> { }, meterRegistry,
+                    new CoalescingPublisher(template, meterRegistry, 0), feedLog, bus);
+            notifier.subscribeToClusterBus();
+
+            buses.add(bus);
+            brokers.add(broker);
+            feedLogs.add(feedLog);
+            notifiers.add(notifier);
+        }
+    }
+
+    @AfterEach
+    void stopNodes() {
+        buses.forEach(TcpPeerEventBus::shutdown);
+    }
+
+    @Test
+    void userAndTopicEventsReachEveryNode() throws InterruptedException {
+        notifiers.get(0).notifyOrderStatus("user-1", "order-1", "APPROVED");
+
+        for (int i = 0; i < NODES; i++) {
+            Message<?> toUser = await(i, "/user/user-1/queue/orders");
+            assertEquals(Map.of("orderPublicId", "order-1", "status", "APPROVED"), toUser.getPayload(), "node " + i);
+            assertNotNull(await(i, "/topic/admin/orders/status"), "node " + i);
+        }
+    }
+
+    @Test
+    void feedEventsAreVersionedByEachReceivingNode() throws InterruptedException {
+        notifiers.get(1).notifyDeletedTable(7L);
+
+        assertNotEquals(feedLogs.get(0).epoch(), feedLogs.get(1).epoch());
+        for (int i = 0; i < NODES; i++) {
+            Map<?, ?> payload = (Map<?, ?>) await(i, "/topic/tables/delete").getPayload();
+            assertEquals(7L, ((Number) payload.get("tableId")).longValue(), "node " + i);
+            assertEquals(1L, ((Number) payload.get("version")).longValue(), "node " + i);
+            // epoch của node nhận: client so version chỉ trong cùng 1 node
+            assertEquals(feedLogs.get(i).epoch(), payload.get("epoch"), "node " + i);
+            assertEquals(1, feedLogs.get(i).version(FeedLog.Feed.TABLES), "node " + i);
+        }
+    }
+
+    @Test
+    void blankSecretRefusesToStart() {
+        assertThrows(IllegalStateException.class, () -> new TcpPeerEventBus("node-x", "127.0.0.1", 0, "",
+                " ", 1000, 32, 1 << 20, objectMapper, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void unauthenticatedConnectionsAreClosed() throws IOException {
+        // Secret gửi dạng rõ như giao thức cũ không còn được chấp nhận: phải trả lời CHALLENGE bằng HMAC
+        assertClosedAfter("HELLO intruder test-secret\n");
+        // Dòng HELLO dài vô hạn không được giữ trong bộ nhớ
+        assertClosedAfter("x".repeat(4096));
+    }
+
+    private void assertClosedAfter(String sent) throws IOException {
+        try (Socket socket = new Socket("127.0.0.1", buses.get(0).localPort())) {
+            socket.setSoTimeout(10_000);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            assertTrue(reader.readLine().startsWith("CHALLENGE "));
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            writer.write(sent);
+            writer.flush();
+            try {
+                assertEquals(-1, reader.read());
+            } catch (SocketException reset) {
+                // Node đóng khi còn dữ liệu chưa đọc -> RST thay vì FIN, cũng là đã đóng
+            }
+        }
+    }
+
+    /** Chờ node nhận message tới destination (kết nối giữa các node được lập bất đồng bộ). */
+    private Message<?> await(int node, String destination) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            Optional<Message<?>> found = brokers.get(node).stream()
+                    .filter(m -> destination.equals(SimpMessageHeaderAccessor.getDestination(m.getHeaders())))
+                    .findFirst();
+            if (found.isPresent()) {
+                return found.get();
+            }
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        fail("node " + node + " không nhận được " + destination);
+        return null;
+    }
+}
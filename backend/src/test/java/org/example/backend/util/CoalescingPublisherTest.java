@@ -0,0 +1,97 @@
+package org.example.backend.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.backend.service.feed.FeedLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Gom theo destination, sự kiện mới nhất cùng key thắng, mỗi destination 1 frame mảng cho mỗi lần flush.
+ */
+class CoalescingPublisherTest {
+
+    private final List<Message<?>> sent = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CoalescingPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> sent.add(message));
+        // Cửa sổ dài để flush chỉ xảy ra khi test gọi
+        publisher = new CoalescingPublisher(template, meterRegistry, 60_000);
+    }
+
+    @Test
+    void latestEventPerKeyWinsAndEachDestinationGetsOneFrame() {
+        publisher.publish("/topic/tables", 1L, Map.of("tableId", 1L, "statusId", 10L));
+        publisher.publish("/topic/tables", 2L, Map.of("tableId", 2L, "statusId", 10L));
+        publisher.publish("/topic/tables", 1L, Map.of("tableId", 1L, "statusId", 11L));
+        publisher.publish("/topic/menu/7", 7L, Map.of("menuItemId", 7L));
+
+        publisher.flush();
+
+        assertEquals(2, sent.size());
+        assertEquals("/topic/tables", SimpMessageHeaderAccessor.getDestination(sent.get(0).getHeaders()));
+        assertEquals(List.of(Map.of("tableId", 2L, "statusId", 10L), Map.of("tableId", 1L, "statusId", 11L)),
+                sent.get(0).getPayload());
+        assertEquals(List.of(Map.of("menuItemId", 7L)), sent.get(1).getPayload());
+
+        assertEquals(1.0, meterRegistry.find("app.websocket.coalesced").counter().count());
+        assertEquals(2, meterRegistry.find("app.websocket.flush.size").summary().count());
+        assertEquals(3.0, meterRegistry.find("app.websocket.flush.size").summary().totalAmount());
+    }
+
+    @Test
+    void flushWithNothingPendingSendsNothing() {
+        publisher.flush();
+        assertTrue(sent.isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void beforeSendRunsOnlyForEventsThatAreActuallySent() {
+        FeedLog feedLog = new FeedLog(100);
+        UnaryOperator<Object> stamp = payload -> feedLog.append(FeedLog.Feed.TABLES, "status", (Map<String, Object>) payload);
+        publisher.publish("/topic/tables", 1L, Map.of("tableId", 1L, "statusId", 10L), stamp);
+        publisher.publish("/topic/tables", 1L, Map.of("tableId", 1L, "statusId", 11L), stamp);
+
+        publisher.flush();
+
+        // Sự kiện bị gộp không chiếm version -> version client nhận được liên tục
+        assertEquals(List.of(Map.of("tableId", 1L, "statusId", 11L, "version", 1L, "epoch", feedLog.epoch())), sent.get(0).getPayload());
+        assertEquals(1, feedLog.version(FeedLog.Feed.TABLES));
+    }
+
+    @Test
+    void zeroWindowSendsImmediatelyAsSingleElementArray() {
+        CoalescingPublisher immediate = new CoalescingPublisher(
+                new SimpMessagingTemplate((message, timeout) -> sent.add(message)), meterRegistry, 0);
+
+        immediate.publish("/topic/tables", 3L, Map.of("tableId", 3L));
+
+        assertEquals(1, sent.size());
+        assertEquals(List.of(Map.of("tableId", 3L)), sent.get(0).getPayload());
+    }
+
+    @Test
+    void publishAfterShutdownSendsImmediately() {
+        publisher.shutdown();
+
+        // Không schedule lên flusher đã dừng (RejectedExecutionException) mà gửi thẳng
+        publisher.publish("/topic/tables", 4L, Map.of("tableId", 4L));
+        publisher.publish("/topic/tables", 5L, Map.of("tableId", 5L));
+
+        assertEquals(2, sent.size());
+        assertEquals(List.of(Map.of("tableId", 5L)), sent.get(1).getPayload());
+    }
+}
@@ -1,22 +1,272 @@
 import { Client } from "@stomp/stompjs";
 import SockJS from "sockjs-client";
+import api from "./axios";
+
+type FeedId = "tables" | "menu";
+
+// Topic của live feed (khớp FeedLog / WebSocketNotifier ở BE): feed + loại delta tương ứng
+const FEED_TOPICS: Record<string, { feed: FeedId; type: string }> = {
+  "/topic/tables": { feed: "tables", type: "status" },
+  "/topic/tables/new": { feed: "tables", type: "new" },
+  "/topic/tables/update": { feed: "tables", type: "update" },
+  "/topic/tables/delete": { feed: "tables", type: "delete" },
+  "/topic/menu/new": { feed: "menu", type: "new" },
+  "/topic/menu/update": { feed: "menu", type: "update" },
+  "/topic/menu/delete": { feed: "menu", type: "delete" },
+  "/topic/menu/stock": { feed: "menu", type: "stock" },
+};
+
+// Sự kiện window khi không bù được bằng delta: trang đang hiển thị feed tự tải lại toàn bộ
+export const FEED_SNAPSHOT_EVENT = "feed:snapshot";
+
+// Version nhảy cóc -> chờ chừng này cho sự kiện tới trễ (khác thứ tự) rồi mới bù qua REST
+const GAP_WAIT_MS = 1000;
+
+interface FeedCursor {
+  epoch: string;
+  version: number;
+}
+
+interface FeedResync {
+  epoch: string;
+  version: number;
+  deltas: { version: number; type: string; data: unknown }[] | null;
+  snapshot: unknown[] | null;
+}
+
+interface Stamped {
+  version?: number;
+  epoch?: string;
+}
+
+interface FeedEvent {
+  topic: string;
+  data: unknown;
+}
+
+type Handler = (data: unknown) => void;
+
+/**
+ * 1 kết nối cho mỗi feed, subscribe mọi topic của feed: version đánh theo feed nên phải thấy đủ các loại
+ * sự kiện mới phát hiện được version bị thiếu. Mọi component dùng topic của feed chia sẻ kết nối + mốc này.
+ */
+interface FeedChannel {
+  feed: FeedId;
+  client: Client;
+  handlers: Map<string, Set<Handler>>;
+  cursor: FeedCursor | null;
+  // Đang lấy mốc / bù: sự kiện tới được giữ lại, áp dụng sau
+  buffer: FeedEvent[] | null;
+  // Sự kiện tới sớm (version > cursor + 1), chờ các version còn thiếu
+  pending: Map<number, FeedEvent>;
+  gapTimer: ReturnType<typeof setTimeout> | null;
+}
+
+const channels: Partial<Record<FeedId, FeedChannel>> = {};
+
+// Nhiều trang cùng nghe 1 feed -> chỉ báo tải lại 1 lần
+const lastSnapshotAt: Partial<Record<FeedId, number>> = {};
+
+const announceSnapshot = (feed: FeedId) => {
+  const now = Date.now();
+  if (now - (lastSnapshotAt[feed] ?? 0) < 2000) return;
+  lastSnapshotAt[feed] = now;
+  window.dispatchEvent(new CustomEvent(FEED_SNAPSHOT_EVENT, { detail: feed }));
+};
+
+const topicOf = (feed: FeedId, type: string) =>
+  Object.keys(FEED_TOPICS).find(
+    (topic) => FEED_TOPICS[topic].feed === feed && FEED_TOPICS[topic].type === type
+  );
+
+const dispatch = (channel: FeedChannel, { topic, data }: FeedEvent) => {
+  channel.handlers.get(topic)?.forEach((handler) => handler(data));
+};
+
+const clearGap = (channel: FeedChannel) => {
+  if (channel.gapTimer) clearTimeout(channel.gapTimer);
+  channel.gapTimer = null;
+};
+
+// Áp dụng sự kiện theo đúng thứ tự version: trùng -> bỏ, thiếu version -> giữ lại và chờ / bù
+const apply = (channel: FeedChannel, event: FeedEvent) => {
+  if (channel.buffer) {
+    channel.buffer.push(event);
+    return;
+  }
+  const { version, epoch } = event.data as Stamped;
+  const cursor = channel.cursor;
+  if (typeof version !== "number" || !epoch || !cursor) {
+    dispatch(channel, event);
+    return;
+  }
+  if (epoch !== cursor.epoch) {
+    // Server khởi động lại / sự kiện của node khác: version không so được -> bù theo mốc cũ
+    void resync(channel, event);
+    return;
+  }
+  if (version <= cursor.version) return;
+  if (version > cursor.version + 1) {
+    channel.pending.set(version, event);
+    if (!channel.gapTimer) {
+      channel.gapTimer = setTimeout(() => {
+        channel.gapTimer = null;
+        if (channel.pending.size > 0) void resync(channel);
+      }, GAP_WAIT_MS);
+    }
+    return;
+  }
+  channel.cursor = { epoch, version };
+  dispatch(channel, event);
+  const next = channel.pending.get(version + 1);
+  if (next) {
+    channel.pending.delete(version + 1);
+    apply(channel, next);
+  } else if (channel.pending.size === 0) {
+    clearGap(channel);
+  }
+};
+
+/**
+ * Lấy mốc / bù phần thiếu qua REST. Chưa có mốc (lần kết nối đầu) -> chỉ lấy head (epoch + version), rẻ.
+ * Có mốc -> xin deltas từ mốc, không xin snapshot: không bù được thì báo trang tự tải lại qua API của nó.
+ */
+const resync = async (channel: FeedChannel, trigger?: FeedEvent) => {
+  if (channel.buffer) {
+    if (trigger) channel.buffer.push(trigger);
+    return;
+  }
+  clearGap(channel);
+  channel.buffer = [...channel.pending.values()];
+  if (trigger) channel.buffer.push(trigger);
+  channel.pending.clear();
+
+  const seeding = !channel.cursor;
+  try {
+    const res = seeding
+      ? await api.get(`/feeds/${channel.feed}/head`)
+      : await api.get(`/feeds/${channel.feed}`, {
+          params: {
+            since: channel.cursor!.version,
+            epoch: channel.cursor!.epoch,
+            snapshot: false,
+          },
+        });
+    const result: FeedResync = res.data.data;
+    if (!seeding) {
+      if (result.deltas) {
+        result.deltas.forEach((delta) => {
+          const topic = topicOf(channel.feed, delta.type);
+          if (topic) dispatch(channel, { topic, data: delta.data });
+        });
+      } else {
+        announceSnapshot(channel.feed);
+      }
+    }
+    channel.cursor = { epoch: result.epoch, version: result.version };
+  } catch (err) {
+    console.error("❌ Feed resync failed:", channel.feed, err);
+    if (!seeding) announceSnapshot(channel.feed);
+  } finally {
+    const held = channel.buffer ?? [];
+    channel.buffer = null;
+    held
+      .sort((a, b) => ((a.data as Stamped).version ?? 0) - ((b.data as Stamped).version ?? 0))
+      .forEach((event) => {
+        const { version, epoch } = event.data as Stamped;
+        const cursor = channel.cursor;
+        if (!cursor || typeof version !== "number" || !epoch) {
+          apply(channel, event);
+        } else if (epoch !== cursor.epoch) {
+          // Vẫn khác epoch sau khi bù (REST tới node khác node WebSocket): nhận mốc của kết nối này, tải lại
+          announceSnapshot(channel.feed);
+          channel.cursor = { epoch, version };
+          dispatch(channel, event);
+        } else if (seeding && version <= cursor.version) {
+          // Tới trước khi có mốc: trang có thể đã tải dữ liệu trước đó -> vẫn áp dụng (sự kiện feed idempotent)
+          dispatch(channel, event);
+        } else {
+          apply(channel, event);
+        }
+      });
+  }
+};
+
+const createClient = () =>
+  new Client({
+    webSocketFactory: () => new SockJS("http://localhost:8080/ws"),
+    reconnectDelay: 5000,
+  });
+
+const openFeedChannel = (feed: FeedId): FeedChannel => {
+  const channel: FeedChannel = {
+    feed,
+    client: createClient(),
+    handlers: new Map(),
+    cursor: null,
+    buffer: null,
+    pending: new Map(),
+    gapTimer: null,
+  };
+
+  channel.client.onConnect = () => {
+    console.log("✅ Connected to WebSocket successfully!", feed);
+    // Subscribe trước rồi mới lấy mốc / bù: sự kiện tới trong lúc đó được giữ lại, không bị lỡ
+    Object.keys(FEED_TOPICS)
+      .filter((topic) => FEED_TOPICS[topic].feed === feed)
+      .forEach((topic) =>
+        channel.client.subscribe(topic, (message) => {
+          // Topic được BE gom (CoalescingPublisher) gửi mảng sự kiện -> xử lý từng phần tử
+          const body: unknown = JSON.parse(message.body);
+          (Array.isArray(body) ? body : [body]).forEach((data) => apply(channel, { topic, data }));
+        })
+      );
+    void resync(channel);
+  };
+
+  channel.client.activate();
+  return channel;
+};
+
+const subscribeFeed = <T,>(topic: string, feed: FeedId, onMessageReceived: (data: T) => void) => {
+  const channel = channels[feed] ?? (channels[feed] = openFeedChannel(feed));
+  const handler: Handler = (data) => onMessageReceived(data as T);
+  const handlers = channel.handlers.get(topic) ?? new Set<Handler>();
+  handlers.add(handler);
+  channel.handlers.set(topic, handlers);
+
+  // Giữ cùng kiểu trả về với kết nối riêng: caller gọi deactivate() khi unmount
+  return {
+    deactivate: () => {
+      handlers.delete(handler);
+      if (handlers.size === 0) channel.handlers.delete(topic);
+      if (channel.handlers.size === 0 && channels[feed] === channel) {
+        delete channels[feed];
+        clearGap(channel);
+        return channel.client.deactivate();
+      }
+      return Promise.resolve();
+    },
+  };
+};
 
 export const connectWebSocket = <T,>(
   topic: string,
   onMessageReceived: (data: T) => void
 ) => {
-  const client = new Client({
-    webSocketFactory: () => new SockJS("http://localhost:8080/ws"),
-    reconnectDelay: 5000,
-  });
+  const feedTopic = FEED_TOPICS[topic];
+  if (feedTopic) {
+    return subscribeFeed(topic, feedTopic.feed, onMessageReceived);
+  }
+
+  const client = createClient();
 
   client.onConnect = () => {
     console.log("✅ Connected to WebSocket successfully!");
     client.subscribe(topic, (message) => {
-      // console.log("📩 Message received from topic:", topic);
-      // console.log("Message body:", message.body);
-      const body: T = JSON.parse(message.body);
-      onMessageReceived(body);
+      // Topic được BE gom (CoalescingPublisher) gửi mảng sự kiện -> xử lý từng phần tử
+      const body: T | T[] = JSON.parse(message.body);
+      (Array.isArray(body) ? body : [body]).forEach((event) => onMessageReceived(event));
     });
   };
 
@@ -82,7 +82,7 @@ const NotificationList: React.FC<NotificationListProps> = ({
   useRealtimeMessage<
     | { type: "NEW_NOTIFICATION" | "NOTIFICATION_READ"; data: NotificationDto }
     | { type: "NOTIFICATION_DELETED"; data: number | number[] }
-  >(user ? `/topic/notifications/${user.publicId}` : "", (msg) => {
+  >(user ? "/user/queue/notifications" : "", (msg) => {
     if (msg.type === "NEW_NOTIFICATION") {
       const newNoti = msg.data as NotificationDto;
       setNotifications((prev) => [newNoti, ...prev]);
@@ -102,6 +102,21 @@ const NotificationList: React.FC<NotificationListProps> = ({
     }
   });
 
+  // ADMIN/STAFF: thông báo theo vai trò (đơn mới, đặt bàn mới) đi trên topic chung
+  useRealtimeMessage<{ type: string; data: NotificationDto }>(
+    user && (user.role === "ADMIN" || user.role === "STAFF")
+      ? "/topic/admin/notifications"
+      : "",
+    (msg) => {
+      if (msg.type === "NEW_NOTIFICATION") {
+        setNotifications((prev) => [msg.data, ...prev]);
+        onUnreadCountChange?.(
+          (notifications.filter((n) => !n.isRead).length ?? 0) + 1
+        );
+      }
+    }
+  );
+
   const typeStyles: Record<
     string,
     { bg: string; border: string; icon: React.ReactNode }
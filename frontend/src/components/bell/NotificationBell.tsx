@@ -37,7 +37,7 @@ const NotificationBell: React.FC<NotificationBellProps> = ({
 
   // ✅ Nhận realtime từ BE
   useRealtimeMessage<{ type: string; data: NotificationDto }>(
-    user ? `/topic/notifications/${user.publicId}` : "",
+    user ? "/user/queue/notifications" : "",
     (msg) => {
       switch (msg.type) {
         case "NEW_NOTIFICATION": {
@@ -58,6 +58,19 @@ const NotificationBell: React.FC<NotificationBellProps> = ({
     }
   );
 
+  // ✅ ADMIN/STAFF: thông báo theo vai trò (đơn mới, đặt bàn mới) đi trên topic chung
+  useRealtimeMessage<{ type: string; data: NotificationDto }>(
+    user && (user.role === "ADMIN" || user.role === "STAFF")
+      ? "/topic/admin/notifications"
+      : "",
+    (msg) => {
+      if (msg.type === "NEW_NOTIFICATION") {
+        setNotifications((prev) => [msg.data, ...prev]);
+        setUnreadCount((prev) => prev + 1);
+      }
+    }
+  );
+
   // ✅ Khi bấm chuông → chuyển hướng linh động
   const handleClick = () => {
     navigate(redirectTo);
@@ -125,7 +125,7 @@ export default function OrderHistoryPage() {
   useEffect(() => {
     if (!orders?.length) return;
     const client = connectWebSocket<{ orderPublicId: string; status: string }>(
-      "/topic/order",
+      "/user/queue/orders",
       (data) => {
         setOrders((prev) =>
           prev.map((o) =>
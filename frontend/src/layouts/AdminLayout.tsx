@@ -93,8 +93,11 @@ function AdminLayout() {
   const sidebarWidth = isSidebarOpen ? "w-64" : "w-[72px]";
 
   /* -------------------------- REALTIME NOTIFICATIONS -------------------------- */
+  // Thông báo theo vai trò (đơn mới, đặt bàn mới): BE publish 1 lần cho cả nhóm ADMIN/STAFF
   useRealtimeMessage<{ type: string; data: NotificationDto }>(
-    user ? `/topic/notifications/${user.publicId}` : "",
+    user && (user.role === "ADMIN" || user.role === "STAFF")
+      ? "/topic/admin/notifications"
+      : "",
     (msg) => {
       if (msg.type === "NEW_NOTIFICATION") {
         const newNoti = msg.data;
@@ -105,7 +108,7 @@ function AdminLayout() {
   );
 
   useRealtimeMessage<{ type: string; data: NotificationDto }>(
-    user ? `/topic/notifications/${user.publicId}` : "",
+    user ? "/user/queue/notifications" : "",
     (msg) => {
       if (msg.type === "NEW_NOTIFICATION") {
         const newNoti = msg.data;
@@ -314,6 +314,23 @@ export const AdminOrderFood = () => {
     (msg) => msg.data.publicId
   );
 
+  // Đổi trạng thái đơn (duyệt, giao, hoàn tất...) từ admin/staff khác hoặc từ thanh toán
+  useRealtimeUpdate<Order, string, { orderPublicId: string; status: string }>(
+    "/topic/admin/orders/status",
+    async (publicId) => {
+      const res = await api.get(`/orders/admin/${publicId}`);
+      return res.data;
+    },
+    (updatedOrder) => {
+      setOrders((prev) =>
+        prev.map((o) =>
+          o.publicId === updatedOrder.publicId ? updatedOrder : o
+        )
+      );
+    },
+    (msg) => msg.orderPublicId
+  );
+
   // Handlers
   const handleSearchChange = (e: React.ChangeEvent<HTMLInputElement>) => {
     setSearchTerm(e.target.value);
@@ -104,7 +104,7 @@ export const AdminTableOrders = () => {
   }, [notify, fetchReservations, t]);
 
   useRealtimeUpdate<void, string, { reservationPublicId: string }>(
-    "/topic/reservations",
+    "/topic/admin/reservations",
     async () => {
       await fetchReservations();
     },
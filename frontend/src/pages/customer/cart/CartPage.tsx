@@ -140,7 +140,7 @@ const CartPage: React.FC = () => {
   );
 
   useRealtimeUpdate(
-    `/topic/cart/${user?.publicId}`,
+    user ? "/user/queue/cart" : "",
     async () => await getCurrentCart(),
     (updatedCart) => {
       console.log("🛒 Cart updated realtime:", updatedCart);
@@ -14,6 +14,7 @@ import {
   useRealtimeUpdate,
   useRealtimeDelete,
 } from "../../../api/useRealtimeUpdate.ts";
+import { FEED_SNAPSHOT_EVENT } from "../../../api/websocketClient";
 import { useTranslation } from "react-i18next";
 import { Link } from "react-router-dom";
 
@@ -80,6 +81,17 @@ const MealPage: React.FC = () => {
     window.scrollTo({ top: 0, behavior: "smooth" });
   }, [search, sort, categorySlug]);
 
+  /** 🔁 Mất kết nối quá lâu, không bù được bằng delta -> tải lại từ trang đầu */
+  useEffect(() => {
+    const reload = (e: Event) => {
+      if ((e as CustomEvent<string>).detail !== "menu") return;
+      setCurrentPage(0);
+      fetchProducts(0);
+    };
+    window.addEventListener(FEED_SNAPSHOT_EVENT, reload);
+    return () => window.removeEventListener(FEED_SNAPSHOT_EVENT, reload);
+  }, [fetchProducts]);
+
   /** 🔁 Realtime updates */
   useRealtimeUpdate(
     `/topic/menu/new`,
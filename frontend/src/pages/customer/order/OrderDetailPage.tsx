@@ -50,7 +50,7 @@ const OrderDetailPage: React.FC = () => {
     string,
     { orderPublicId: string; status: string }
   >(
-    "/topic/order",
+    "/user/queue/orders",
     getOrderById,
     (updatedOrder) => {
       setOrder((prev) => {
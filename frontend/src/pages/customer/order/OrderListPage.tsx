@@ -63,7 +63,7 @@ const OrderListPage: React.FC = () => {
   }, [notify, currentPage, pageSize, selectedStatus, t]);
 
   useRealtimeUpdate(
-    `/topic/order`,
+    "/user/queue/orders",
     getOrderById,
     (updatedOrder: OrderDto) => {
       setOrders((prev) =>
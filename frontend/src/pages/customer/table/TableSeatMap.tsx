@@ -13,7 +13,10 @@ import {
 import type { Reservation } from "../../../services/reservation/reservationService";
 import BookedListModal from "./BookedListModal";
 import { useNotification } from "../../../components/Notification/NotificationContext";
-import { connectWebSocket } from "../../../api/websocketClient";
+import {
+  connectWebSocket,
+  FEED_SNAPSHOT_EVENT,
+} from "../../../api/websocketClient";
 import {
   useRealtimeUpdate,
   useRealtimeDelete,
@@ -107,7 +110,7 @@ export default function TableBooking() {
   }, []);
 
   useRealtimeUpdate<Reservation, string, { reservationPublicId: string }>(
-    "/topic/reservations",
+    "/user/queue/reservations",
     async (id) => {
       console.log("🔄 Fetching reservation by publicId:", id);
       const res = await getMyReservationByPublicId(id);
@@ -199,6 +202,15 @@ export default function TableBooking() {
     fetchData();
   }, [fetchMyReservations, fetchTables]);
 
+  // Mất kết nối quá lâu, không bù được bằng delta -> tải lại toàn bộ bàn
+  useEffect(() => {
+    const reload = (e: Event) => {
+      if ((e as CustomEvent<string>).detail === "tables") void fetchTables();
+    };
+    window.addEventListener(FEED_SNAPSHOT_EVENT, reload);
+    return () => window.removeEventListener(FEED_SNAPSHOT_EVENT, reload);
+  }, [fetchTables]);
+
   const handleEditReservation = async (res: Reservation) => {
     const fullReservation = await getMyReservationByPublicId(res.publicId);
     if (fullReservation) {